@@ -1,14 +1,35 @@
 import View.CommandLineInterface;
+import cluster.ClusterCoordinator;
+import cluster.ClusterWorker;
+import cluster.ReplicatedJournal;
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import Model.statistics.JobStatistics;
+import monitoring.MetricsServer;
+import multithreading.EventLoopCore;
 import multithreading.JobDispatcher;
 import multithreading.JobScheduler;
 import multithreading.MultiThreader;
+import multithreading.RunnableStoppableInterface;
+import multithreading.WorkStealingDispatcher;
 import util.Logger;
 import util.JobQueueLogger;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Main
 {
+    // Jobs a work-stealing worker moves from the shared queue into its own deque at once
+    private static final int WORK_STEALING_BATCH_SIZE = 8;
+    // MultiQueue heaps per dispatch slot; two per thread keeps lock collisions rare
+    private static final int MULTIQUEUE_SHARDS_PER_SLOT = 2;
+    // Options that configure the job queue, the journal or another dispatcher, none of which the event loop uses
+    private static final String[] EVENT_LOOP_CONFLICTS = {"--capacity", "--multiqueue", "--journal-peers",
+            "--coordinator", "--work-stealing", "--virtual"};
+
     public static void main(String[] args)
     {
         // Ensure logs directory exists
@@ -25,8 +46,63 @@ public class Main
         logger.info("Main", "General log file: logs/currentlog.log");
         logger.info("Main", "Job queue log file: logs/jobqueue.log");
         
+        if (hasFlag(args, "--cpu-burn"))
+        {
+            // Jobs consume their execution time as CPU time instead of sleeping
+            Job.setDefaultRunMode(Job.RunMode.CPU_BURN);
+            logger.info("Main", "Jobs run in CPU burn mode");
+        }
+        else if (hasFlag(args, "--timer"))
+        {
+            // Jobs wait out their execution time on the timing wheel without holding a thread
+            Job.setDefaultRunMode(Job.RunMode.TIMER);
+            logger.info("Main", "Jobs run in timer mode");
+        }
+
+        String coordinatorAddress = optionValue(args, "--worker");
+        if (coordinatorAddress != null)
+        {
+            // A worker process only runs jobs sent by a coordinator; it has no queue or CLI
+            runWorker(args, coordinatorAddress);
+            System.exit(0);
+        }
+
+        if (hasFlag(args, "--event-loop"))
+        {
+            // The core owns the waiting jobs itself; the queue and journal options would configure
+            // a queue it never reads, so they are refused before anything is set up
+            for (String option : EVENT_LOOP_CONFLICTS)
+            {
+                if (hasFlag(args, option))
+                {
+                    System.out.println("Cannot use " + option + " with --event-loop.");
+                    System.exit(1);
+                }
+            }
+        }
+
+        configureQueueCapacity(args);
+        if (hasFlag(args, "--multiqueue"))
+        {
+            // Trade strict policy order for enqueue and dequeue that scale with the dispatch slots
+            int shards = MULTIQUEUE_SHARDS_PER_SLOT * parseDispatchSlots(args);
+            JobScheduler.getInstance().useMultiQueue(shards);
+            logger.info("Main", "Job queue is a MultiQueue with " + shards + " shards");
+        }
+        String journalPeers = optionValue(args, "--journal-peers");
+        if (journalPeers != null && !startJournal(journalPeers, optionValue(args, "--journal-id")))
+        {
+            System.exit(1);
+        }
+        String metricsPort = optionValue(args, "--metrics-port");
+        if (metricsPort != null && !startMetricsServer(metricsPort))
+        {
+            System.exit(1);
+        }
+        RunnableStoppableInterface jobDispatcher = createDispatcher(args);
+
         System.out.println(banner());
-        programExecution();
+        programExecution(jobDispatcher);
 
         // Exit with a 0 / success status.
         System.exit(0);
@@ -40,7 +116,272 @@ public class Main
                 Type 'help' to find more about CSUbatch commands.""";
     }
 
-    private static void programExecution()
+    /**
+     * Reads the number of concurrent execution slots from "--slots N" (default 1).
+     * @param args The program arguments
+     * @return The number of jobs the dispatcher may run at the same time
+     */
+    private static int parseDispatchSlots(String[] args)
+    {
+        for (int i = 0; i < args.length - 1; i++)
+        {
+            if (args[i].equals("--slots"))
+            {
+                try
+                {
+                    int slots = Integer.parseInt(args[i + 1]);
+                    if (slots > 0)
+                    {
+                        return slots;
+                    }
+                }
+                catch (NumberFormatException e)
+                {
+                    // Fall through to the warning below
+                }
+                System.out.println("Ignoring invalid slot count '" + args[i + 1] + "', using 1.");
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Bounds the job queue from "--capacity N" and picks what happens when it is full from
+     * "--overload block|reject|shed" (default reject). Without "--capacity" the queue is unbounded.
+     * @param args The program arguments
+     */
+    private static void configureQueueCapacity(String[] args)
+    {
+        String capacityValue = optionValue(args, "--capacity");
+        if (capacityValue == null)
+        {
+            return;
+        }
+        int capacity;
+        try
+        {
+            capacity = Integer.parseInt(capacityValue);
+        }
+        catch (NumberFormatException e)
+        {
+            capacity = -1;
+        }
+        if (capacity <= 0)
+        {
+            System.out.println("Ignoring invalid queue capacity '" + capacityValue + "', the queue is unbounded.");
+            return;
+        }
+
+        JobQueue.OverloadPolicy overloadPolicy = JobQueue.OverloadPolicy.REJECT;
+        String policyValue = optionValue(args, "--overload");
+        if (policyValue != null)
+        {
+            try
+            {
+                overloadPolicy = JobQueue.OverloadPolicy.valueOf(policyValue.toUpperCase());
+            }
+            catch (IllegalArgumentException e)
+            {
+                System.out.println("Ignoring unknown overload policy '" + policyValue + "', using reject.");
+            }
+        }
+
+        JobQueue.getInstance().setCapacity(capacity, overloadPolicy, JobQueue.DEFAULT_BLOCK_TIMEOUT_MILLIS);
+        Logger.getInstance().info("Main", "Job queue capacity " + capacity + ", overload policy " + overloadPolicy);
+    }
+
+    /**
+     * Finds the value following an option such as "--capacity"
+     * @param args The program arguments
+     * @param option The option name
+     * @return The value, or null if the option is not given
+     */
+    private static String optionValue(String[] args, String option)
+    {
+        for (int i = 0; i < args.length - 1; i++)
+        {
+            if (args[i].equals(option))
+            {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasFlag(String[] args, String flag)
+    {
+        for (String arg : args)
+        {
+            if (arg.equals(flag))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs this process as a cluster worker for the coordinator at "--worker host:port" until
+     * the coordinator shuts it down or the connection is lost. "--slots N" sets how many jobs
+     * it runs at once and "--worker-id NAME" the name it registers under.
+     * @param args The program arguments
+     * @param coordinatorAddress The value of "--worker"
+     */
+    private static void runWorker(String[] args, String coordinatorAddress)
+    {
+        int separator = coordinatorAddress.lastIndexOf(':');
+        int port;
+        try
+        {
+            port = Integer.parseInt(coordinatorAddress.substring(separator + 1));
+        }
+        catch (NumberFormatException e)
+        {
+            System.out.println("Invalid coordinator address '" + coordinatorAddress + "', expected host:port.");
+            return;
+        }
+        String host = separator > 0 ? coordinatorAddress.substring(0, separator) : "127.0.0.1";
+        String workerId = optionValue(args, "--worker-id");
+        if (workerId == null)
+        {
+            workerId = "worker-" + ProcessHandle.current().pid();
+        }
+
+        System.out.println("Worker " + workerId + " connecting to " + host + ":" + port);
+        new ClusterWorker(workerId, host, port, parseDispatchSlots(args)).run();
+        System.out.println("Worker " + workerId + " stopped.");
+    }
+
+    /**
+     * Joins the replicated journal of "--journal-peers PORT,PORT,..." as node "--journal-id N"
+     * (an index into the ports) and waits until this instance is elected leader. A standby
+     * instance therefore blocks here until the leader dies, then puts the jobs the journal
+     * still holds back into its queue and carries on as the new leader. If this instance later
+     * loses the leadership, its queue is fenced (see ReplicatedJournal.isFenced) and the status
+     * command says so.
+     * @param journalPeers The value of "--journal-peers"
+     * @param journalId The value of "--journal-id"
+     * @return false if the journal could not be started
+     */
+    private static boolean startJournal(String journalPeers, String journalId)
+    {
+        Logger logger = Logger.getInstance();
+        ReplicatedJournal journal;
+        try
+        {
+            List<Integer> ports = new ArrayList<>();
+            for (String port : journalPeers.split(","))
+            {
+                ports.add(Integer.parseInt(port.trim()));
+            }
+            int nodeId = journalId == null ? 0 : Integer.parseInt(journalId);
+            journal = new ReplicatedJournal("JournalMod", nodeId, ports, ReplicatedJournal.DEFAULT_HEARTBEAT_MILLIS,
+                    ReplicatedJournal.DEFAULT_ELECTION_TIMEOUT_MILLIS);
+        }
+        catch (IOException | IllegalArgumentException e)
+        {
+            System.out.println("Cannot join the journal '" + journalPeers + "' as node '" + journalId + "' ("
+                    + e.getMessage() + ").");
+            return false;
+        }
+
+        journal.start();
+        System.out.println("Journal node " + journal.getNodeId() + " waiting to become the leader...");
+        while (!journal.awaitLeadership(1000))
+        {
+            // Standby until elected
+        }
+        List<Job> restored = journal.restoreJobs();
+        JobQueue.getInstance().setJournal(journal);
+        JobScheduler.getInstance().requeueJobs(restored);
+        System.out.println("Journal node " + journal.getNodeId() + " is the leader for term "
+                + journal.getCurrentTerm() + ", restored " + restored.size() + " job(s).");
+        logger.info("Main", "Journal leader in term " + journal.getCurrentTerm() + ", restored "
+                + restored.size() + " job(s)");
+        return true;
+    }
+
+    /**
+     * Serves the metrics for Prometheus on 127.0.0.1 at the port given by "--metrics-port PORT"
+     * @param metricsPort The value of "--metrics-port"
+     * @return false if the server could not be started
+     */
+    private static boolean startMetricsServer(String metricsPort)
+    {
+        MetricsServer metricsServer;
+        try
+        {
+            metricsServer = new MetricsServer("MetricsMod", Integer.parseInt(metricsPort), JobStatistics.getInstance(),
+                    JobQueue.getInstance());
+        }
+        catch (IOException | IllegalArgumentException e)
+        {
+            System.out.println("Cannot serve metrics on port '" + metricsPort + "' (" + e.getMessage() + ").");
+            return false;
+        }
+        metricsServer.start();
+        System.out.println("Metrics at http://127.0.0.1:" + metricsServer.getPort() + MetricsServer.PATH);
+        return true;
+    }
+
+    /**
+     * Builds the dispatcher backend selected on the command line:
+     * "--event-loop" for the single-writer event-loop core, "--coordinator PORT" to run jobs on
+     * worker processes, "--work-stealing" for per-worker deques, "--virtual" for virtual threads,
+     * otherwise a pool of platform threads.
+     * "--slots N" sets the concurrency of the local backends.
+     * @param args The program arguments
+     * @return The dispatcher to run on its own thread
+     */
+    private static RunnableStoppableInterface createDispatcher(String[] args)
+    {
+        Logger logger = Logger.getInstance();
+        int dispatchSlots = parseDispatchSlots(args);
+
+        if (hasFlag(args, "--event-loop"))
+        {
+            EventLoopCore eventLoop = new EventLoopCore("DispMod", dispatchSlots,
+                    JobScheduler.getInstance().getSchedulingPolicy().getComparator());
+            JobScheduler.getInstance().useEventLoop(eventLoop);
+            logger.info("Main", "Dispatcher: event loop with " + dispatchSlots + " slot(s)");
+            JobStatistics.getInstance().setSlotCount(dispatchSlots);
+            return eventLoop;
+        }
+
+        String coordinatorPort = optionValue(args, "--coordinator");
+        if (coordinatorPort != null)
+        {
+            try
+            {
+                ClusterCoordinator coordinator = new ClusterCoordinator("ClusterMod", Integer.parseInt(coordinatorPort),
+                        ClusterCoordinator.DEFAULT_HEARTBEAT_MILLIS);
+                System.out.println("Coordinator listening on 127.0.0.1:" + coordinator.getPort());
+                logger.info("Main", "Dispatcher: cluster coordinator on port " + coordinator.getPort());
+                return coordinator;
+            }
+            catch (IOException | NumberFormatException e)
+            {
+                System.out.println("Cannot listen on port '" + coordinatorPort + "' (" + e.getMessage()
+                        + "), running jobs locally.");
+            }
+        }
+
+        if (hasFlag(args, "--work-stealing"))
+        {
+            logger.info("Main", "Dispatcher: work stealing with " + dispatchSlots + " worker(s)");
+            JobStatistics.getInstance().setSlotCount(dispatchSlots);
+            return new WorkStealingDispatcher("DispMod", dispatchSlots, WORK_STEALING_BATCH_SIZE);
+        }
+
+        JobDispatcher.ExecutionMode executionMode = hasFlag(args, "--virtual")
+                ? JobDispatcher.ExecutionMode.VIRTUAL
+                : JobDispatcher.ExecutionMode.PLATFORM;
+        logger.info("Main", "Dispatcher: " + dispatchSlots + " slot(s) on " + executionMode + " threads");
+        JobStatistics.getInstance().setSlotCount(dispatchSlots);
+        return new JobDispatcher("DispMod", dispatchSlots, executionMode);
+    }
+
+    private static void programExecution(RunnableStoppableInterface jobDispatcher)
     {
         Logger logger = Logger.getInstance();
         
@@ -53,10 +394,9 @@ public class Main
         multiThreader.createAndStartThread("JobScheduler", jobScheduler);
         logger.info("Main", "JobScheduler thread started");
         
-        // Create and start the job dispatcher (only one job at a time)
-        JobDispatcher jobDispatcher = new JobDispatcher("DispMod");
+        // Start the job dispatcher selected on the command line
         multiThreader.createAndStartThread("JobDispatcher", jobDispatcher);
-        logger.info("Main", "JobDispatcher thread started (single job mode)");
+        logger.info("Main", "JobDispatcher thread started");
 
         // Create and configure the CLI with Command Design Pattern
         CommandLineInterface cli = new CommandLineInterface();
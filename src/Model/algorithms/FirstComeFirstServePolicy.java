@@ -2,6 +2,7 @@ package Model.algorithms;
 
 import Model.datastructures.Job;
 import Model.datastructures.Queue;
+import Model.statistics.StatisticsBreakdown;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -54,7 +55,7 @@ public class FirstComeFirstServePolicy extends SchedulingPolicy
             }
 
             // Sort the jobs based on their timestamps
-            Collections.sort(jobs, Comparator.comparingDouble(Job::getArrivalTime));
+            Collections.sort(jobs, getComparator());
 
             // Re-add the sorted jobs to the queue
             for (Job job : jobs) {
@@ -70,6 +71,17 @@ public class FirstComeFirstServePolicy extends SchedulingPolicy
         }
     }
 
+    @Override
+    public Comparator<Job> getComparator() {
+        return Comparator.comparingLong(Job::getArrivalNanos);
+    }
+
+    @Override
+    public String getKeyGroup(Job job) {
+        // The key is the arrival time; grouped by how long ago that was
+        return "waited " + StatisticsBreakdown.sizeClassLabel(job.getNanosSinceArrival() / 1e9);
+    }
+
     @Override
     public String toString() {
         return "FCFS";
@@ -2,6 +2,7 @@ package Model.algorithms;
 
 import Model.datastructures.Job;
 import Model.datastructures.Queue;
+import Model.statistics.StatisticsBreakdown;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -52,7 +53,7 @@ public class PriorityPolicy extends SchedulingPolicy
             }
 
             // Sort the jobs based on their priority (highest first, so reversing natural order)
-            Collections.sort(jobs, Comparator.comparingInt(Job::getPriority).reversed());
+            Collections.sort(jobs, getComparator());
 
             // Re-add the sorted jobs to the queue
             for (Job job : jobs) {
@@ -68,6 +69,16 @@ public class PriorityPolicy extends SchedulingPolicy
         }
     }
 
+    @Override
+    public Comparator<Job> getComparator() {
+        return Comparator.comparingInt(Job::getPriority).reversed();
+    }
+
+    @Override
+    public String getKeyGroup(Job job) {
+        return "priority " + StatisticsBreakdown.priorityLevelLabel(job.getPriority());
+    }
+
     @Override
     public String toString() {
         return "Priority Policy";
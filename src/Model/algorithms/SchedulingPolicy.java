@@ -1,7 +1,10 @@
 package Model.algorithms;
 
+import Model.datastructures.Job;
 import Model.datastructures.Queue;
 
+import java.util.Comparator;
+
 /**
  * Abstract class which represents the Scheduling Policy archetype.
  * Implementation of the Strategy design pattern.
@@ -16,8 +19,8 @@ public abstract class SchedulingPolicy
     protected Queue _jobQueueDefensiveCopy;
 
     /**
-     * This default constructor should never be use. Use the second ver to provide
-     * the Model.datastructures.Queue object containing Model.datastructures.Job objects instead.
+     * Creates a policy that is not yet bound to a queue. JobScheduler.setSchedulingPolicy
+     * binds it to the job queue with setJobQueue() while holding the queue lock.
      */
     public SchedulingPolicy()
     {
@@ -32,6 +35,33 @@ public abstract class SchedulingPolicy
 
     public abstract boolean execute();
 
+    /**
+     * Binds the policy to the queue that execute() will reorder
+     * @param jobQueueIn The queue containing Model.datastructures.Job objects
+     */
+    public void setJobQueue(Queue jobQueueIn)
+    {
+        createDefensiveCopy(jobQueueIn);
+        _jobQueueDataStructure = jobQueueIn;
+    }
+
+    /**
+     * The order this policy puts jobs in. Used to merge new batches into an already ordered queue.
+     * @return A comparator where the job to run first compares lowest
+     */
+    public abstract Comparator<Job> getComparator();
+
+    /**
+     * Get the group a waiting job falls in by the key this policy orders by, e.g. to show
+     * the queue depth per group. Jobs of a group are next to each other in the queue.
+     * @param job A waiting job
+     * @return A short label of the group
+     */
+    public String getKeyGroup(Job job)
+    {
+        return "all";
+    }
+
     // Accessors and modifiers
 
     public String getPolicyName()
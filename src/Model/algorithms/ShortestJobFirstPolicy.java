@@ -2,6 +2,7 @@ package Model.algorithms;
 
 import Model.datastructures.Job;
 import Model.datastructures.Queue;
+import Model.statistics.StatisticsBreakdown;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -52,7 +53,7 @@ public class ShortestJobFirstPolicy extends SchedulingPolicy
             }
 
             // Sort the jobs based on their execution time (shortest first)
-            Collections.sort(jobs, Comparator.comparingDouble(Job::getExecutionTime));
+            Collections.sort(jobs, getComparator());
 
             // Re-add the sorted jobs to the queue
             for (Job job : jobs) {
@@ -68,6 +69,16 @@ public class ShortestJobFirstPolicy extends SchedulingPolicy
         }
     }
 
+    @Override
+    public Comparator<Job> getComparator() {
+        return Comparator.comparingDouble(Job::getExecutionTime);
+    }
+
+    @Override
+    public String getKeyGroup(Job job) {
+        return "size " + StatisticsBreakdown.sizeClassLabel(job.getExecutionTime());
+    }
+
     @Override
     public String toString() {
         return "Shortest Job First Policy";
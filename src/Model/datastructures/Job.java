@@ -1,5 +1,10 @@
 package Model.datastructures;
 
+import util.Clock;
+import util.CpuBurner;
+import util.TimingWheel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import util.Logger;
 import java.lang.InterruptedException;
 
@@ -9,32 +14,115 @@ public class Job {
     private final int priority;
     private final double arrivalTime;
     private final Logger logger;
-    private long completedTime;
-    private long startTime;
+    private final Clock clock;
+    // Lifecycle points on the clock's nanoTime() scale, -1 until reached. Durations are taken
+    // between these; wall-clock times are derived from them only for display.
+    private final long arrivalNanos;
+    private volatile long submittedNanos = -1;
+    private volatile long enqueuedNanos = -1;
+    private volatile long dispatchedNanos = -1;
+    private volatile long startNanos = -1;
+    private volatile long completedNanos = -1;
+    // Set the first time the job's completion is counted, so that it is never counted twice
+    private final AtomicBoolean completionRecorded = new AtomicBoolean();
+    // The statistics breakdown slot of the policy the job was dispatched under
+    private volatile int policySlot = -1;
     
     public enum Status {
         IDLE,
         RUNNING,
         FINISHED
     }
-    private Status status;
+    // Read by dispatcher, queue and listing threads other than the one that changes it
+    private volatile Status status;
+
+    /**
+     * How a job spends its execution time: sleeping, consuming that much CPU time,
+     * or waiting on the shared timing wheel without holding a thread
+     */
+    public enum RunMode {
+        SLEEP,
+        CPU_BURN,
+        TIMER
+    }
+    private static volatile RunMode defaultRunMode = RunMode.SLEEP;
+    private final RunMode runMode;
+
+    /**
+     * Constructor for a job that arrives now
+     * @param name The name of the job
+     * @param executionTime The time it takes to execute the job (in seconds)
+     * @param priority The priority of the job
+     */
+    public Job(String name, double executionTime, int priority) {
+        this(name, executionTime, priority, Clock.SYSTEM, Clock.SYSTEM.nanoTime());
+    }
+
+    private Job(String name, double executionTime, int priority, Clock clock, long arrivalNanos) {
+        this(name, executionTime, priority, clock.toEpochMillis(arrivalNanos), arrivalNanos, clock,
+                Logger.getInstance());
+    }
 
     /**
      * Constructor for the Model.datastructures.Job class
      * @param name The name of the job
      * @param executionTime The time it takes to execute the job (in seconds)
      * @param priority The priority of the job
-     * @param arrivalTime The time the job arrives
+     * @param arrivalTime The time the job arrives, in wall-clock milliseconds
      */
     public Job(String name, double executionTime, int priority, double arrivalTime) {
+        this(name, executionTime, priority, arrivalTime, Clock.SYSTEM);
+    }
+
+    /**
+     * Constructor for a job whose lifecycle is timed with the given clock. The arrival is
+     * placed on the clock's nanoTime() scale with toNanoTime(); use Job(name, executionTime,
+     * priority) for a job arriving now to stamp it from nanoTime() directly.
+     * @param name The name of the job
+     * @param executionTime The time it takes to execute the job (in seconds)
+     * @param priority The priority of the job
+     * @param arrivalTime The time the job arrives, in the clock's milliseconds
+     * @param clock The clock used to timestamp status changes
+     */
+    public Job(String name, double executionTime, int priority, double arrivalTime, Clock clock) {
+        this(name, executionTime, priority, arrivalTime, clock, Logger.getInstance());
+    }
+
+    /**
+     * Constructor for a job timed with the given clock that logs to the given logger, e.g. a
+     * simulated job that must not write to the shared log
+     * @param name The name of the job
+     * @param executionTime The time it takes to execute the job (in seconds)
+     * @param priority The priority of the job
+     * @param arrivalTime The time the job arrives, in the clock's milliseconds
+     * @param clock The clock used to timestamp status changes
+     * @param logger The logger the job's events are written to
+     */
+    public Job(String name, double executionTime, int priority, double arrivalTime, Clock clock, Logger logger) {
+        this(name, executionTime, priority, arrivalTime, arrivalNanos(arrivalTime, clock), clock, logger);
+    }
+
+    /**
+     * Constructor for subclasses that stamp the arrival themselves
+     * @param arrivalTime The time the job arrives, in the clock's milliseconds
+     * @param arrivalNanos The same time on the clock's nanoTime() scale
+     */
+    protected Job(String name, double executionTime, int priority, double arrivalTime, long arrivalNanos,
+                  Clock clock) {
+        this(name, executionTime, priority, arrivalTime, arrivalNanos, clock, Logger.getInstance());
+    }
+
+    private Job(String name, double executionTime, int priority, double arrivalTime, long arrivalNanos,
+                Clock clock, Logger logger) {
         this.name = name;
         this.executionTime = executionTime;
         this.priority = priority;
         this.arrivalTime = arrivalTime;
+        this.arrivalNanos = arrivalNanos;
         this.status = Status.IDLE;
-        this.logger = Logger.getInstance();
-        this.completedTime = -1;
-        this.startTime = -1;
+        this.logger = logger;
+        this.clock = clock;
+        this.runMode = defaultRunMode;
         
         logger.info("Job-" + name, "Job created with execution time=" + executionTime + 
                    ", priority=" + priority + ", arrival time=" + arrivalTime);
@@ -56,24 +144,143 @@ public class Job {
         return arrivalTime;
     }
 
+    /**
+     * Place a wall-clock arrival time on a clock's nanoTime() scale
+     * @param arrivalTime The arrival time in the clock's milliseconds
+     * @param clock The clock
+     * @return The arrival in nanoseconds
+     */
+    protected static long arrivalNanos(double arrivalTime, Clock clock) {
+        return clock.toNanoTime(arrivalTime);
+    }
+
+    public RunMode getRunMode() {
+        return runMode;
+    }
+
+    /**
+     * Sets the run mode of jobs created from now on. Jobs keep the mode they were created with.
+     * @param runMode SLEEP (the default) or CPU_BURN
+     */
+    public static void setDefaultRunMode(RunMode runMode) {
+        defaultRunMode = runMode;
+    }
+
+    public static RunMode getDefaultRunMode() {
+        return defaultRunMode;
+    }
+
     public Status getStatus() {
         return this.status;
     }
 
     /**
      * Get the time when the job started execution
-     * @return The start time in milliseconds, or -1 if not started
+     * @return The wall-clock start time in milliseconds, or -1 if not started
      */
     public long getStartTime() {
-        return startTime;
+        long nanos = startNanos;
+        return nanos == -1 ? -1 : clock.toEpochMillis(nanos);
     }
 
     /**
      * Get the time when the job completed execution
-     * @return The completion time in milliseconds, or -1 if not completed
+     * @return The wall-clock completion time in milliseconds, or -1 if not completed
      */
     public long getCompletedTime() {
-        return completedTime;
+        long nanos = completedNanos;
+        return nanos == -1 ? -1 : clock.toEpochMillis(nanos);
+    }
+
+    public long getArrivalNanos() {
+        return arrivalNanos;
+    }
+
+    /**
+     * Get when the scheduler accepted the job
+     * @return The time on the clock's nanoTime() scale, or -1 if not submitted
+     */
+    public long getSubmittedNanos() {
+        return submittedNanos;
+    }
+
+    /**
+     * Get when the job last entered the queue
+     * @return The time on the clock's nanoTime() scale, or -1 if never queued
+     */
+    public long getEnqueuedNanos() {
+        return enqueuedNanos;
+    }
+
+    /**
+     * Get when the job was last given an execution slot
+     * @return The time on the clock's nanoTime() scale, or -1 if not dispatched
+     */
+    public long getDispatchedNanos() {
+        return dispatchedNanos;
+    }
+
+    /**
+     * Get when the job last started executing in its slot
+     * @return The time on the clock's nanoTime() scale, or -1 if not started
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Get when the job finished
+     * @return The time on the clock's nanoTime() scale, or -1 if not completed
+     */
+    public long getCompletedNanos() {
+        return completedNanos;
+    }
+
+    /**
+     * Get how long ago the job arrived
+     * @return The time since arrival in nanoseconds
+     */
+    public long getNanosSinceArrival() {
+        return clock.nanoTime() - arrivalNanos;
+    }
+
+    /**
+     * Get how long the job has been executing in its slot
+     * @return The time since it started in nanoseconds, or -1 if not started
+     */
+    public long getNanosSinceStart() {
+        long started = startNanos;
+        return started == -1 ? -1 : clock.nanoTime() - started;
+    }
+
+    /**
+     * Get the statistics breakdown slot of the policy the job was dispatched under
+     * @return The slot, or -1 if the dispatch was not recorded
+     */
+    public int getPolicySlot() {
+        return policySlot;
+    }
+
+    /**
+     * Set the statistics breakdown slot of the policy the job is dispatched under
+     * @param policySlot The slot (see StatisticsBreakdown.getCurrentPolicy)
+     */
+    public void setPolicySlot(int policySlot) {
+        this.policySlot = policySlot;
+    }
+
+    /**
+     * Record that the scheduler accepted the job
+     */
+    public void markSubmitted() {
+        submittedNanos = clock.nanoTime();
+    }
+
+    /**
+     * Record that the job entered the queue
+     */
+    public void markEnqueued() {
+        enqueuedNanos = clock.nanoTime();
     }
 
     /**
@@ -81,10 +288,11 @@ public class Job {
      * @return The turnaround time in seconds, or -1 if job hasn't completed
      */
     public double getTurnaroundTime() {
-        if (completedTime == -1) {
+        long completed = completedNanos;
+        if (completed == -1) {
             return -1;
         }
-        return (completedTime - (long)arrivalTime) / 1000.0;
+        return (completed - arrivalNanos) / 1e9;
     }
 
     /**
@@ -92,10 +300,32 @@ public class Job {
      * @return The waiting time in seconds, or -1 if job hasn't started
      */
     public double getWaitingTime() {
-        if (startTime == -1) {
+        long started = startNanos;
+        if (started == -1) {
+            return -1;
+        }
+        return (started - arrivalNanos) / 1e9;
+    }
+
+    /**
+     * Get how long the job waited before it started, or has waited so far if it has not
+     * @return The time waited in seconds
+     */
+    public double getTimeWaited() {
+        long started = startNanos;
+        return (started == -1 ? getNanosSinceArrival() : started - arrivalNanos) / 1e9;
+    }
+
+    /**
+     * Calculate the dispatch delay (dispatch time - arrival time)
+     * @return The dispatch delay in seconds, or -1 if job hasn't been dispatched
+     */
+    public double getDispatchDelay() {
+        long dispatched = dispatchedNanos;
+        if (dispatched == -1) {
             return -1;
         }
-        return (startTime - (long)arrivalTime) / 1000.0;
+        return (dispatched - arrivalNanos) / 1e9;
     }
 
     /**
@@ -103,14 +333,40 @@ public class Job {
      * @return True if the job was successfully ran, false if the job was already running or finished
      */
     public boolean run() {
+        if (runMode == RunMode.TIMER) {
+            return startOnTimer().join();
+        }
         setStatus(Status.RUNNING);
-        logger.info("Job-" + name, "Job started execution for " + executionTime + " seconds");
-        sleep(executionTime);
+        if (runMode == RunMode.CPU_BURN) {
+            logger.info("Job-" + name, "Job started burning " + executionTime + " seconds of CPU time");
+            burn(executionTime);
+        } else {
+            logger.info("Job-" + name, "Job started execution for " + executionTime + " seconds");
+            sleep(executionTime);
+        }
         setStatus(Status.FINISHED);
         logger.info("Job-" + name, "Job finished execution");
         return true; // Successfully ran the job
     }
 
+    /**
+     * Starts the job without blocking: it is marked running now and finished by the
+     * timing wheel once its execution time has passed
+     * @return A future completed with true when the job has finished
+     */
+    public CompletableFuture<Boolean> startOnTimer() {
+        CompletableFuture<Boolean> completion = new CompletableFuture<>();
+        setStatus(Status.RUNNING);
+        logger.info("Job-" + name, "Job started a " + executionTime + " second timer");
+        // The wheel only hands the completion over, so its ticker thread never waits on the logger
+        TimingWheel.getInstance().schedule((long) (executionTime * 1000), () -> completion.completeAsync(() -> {
+            setStatus(Status.FINISHED);
+            logger.info("Job-" + name, "Job finished execution");
+            return true;
+        }));
+        return completion;
+    }
+
     private void sleep(double seconds) {
         try {
             // Sleep for the specified number of seconds by converting to milliseconds
@@ -121,23 +377,43 @@ public class Job {
         }
     }
 
+    private void burn(double seconds) {
+        if (!CpuBurner.burn(seconds)) {
+            logger.error("Job-" + name, "Job execution interrupted while burning CPU time");
+        }
+    }
+
     /**
      * Changes the status of the job
      * @param status Enum Status can be: IDLE, RUNNING, or FINISHED
      */
     public void setStatus(Status status) {
         if (status == Status.RUNNING) {
-            this.startTime = System.currentTimeMillis();
-            logger.info("Job-" + name, "Job started at " + this.startTime);
+            long now = clock.nanoTime();
+            // The dispatcher marks the job running when it takes a slot; the slot marks it
+            // again when execution actually starts
+            if (this.status != Status.RUNNING) {
+                this.dispatchedNanos = now;
+            }
+            this.startNanos = now;
+            logger.info("Job-" + name, "Job started at " + getStartTime());
         } else if (status == Status.FINISHED) {
-            this.completedTime = System.currentTimeMillis();
-            logger.info("Job-" + name, "Job completed at " + this.completedTime + 
+            this.completedNanos = clock.nanoTime();
+            logger.info("Job-" + name, "Job completed at " + getCompletedTime() + 
                        ", turnaround time: " + getTurnaroundTime() + "s, waiting time: " + getWaitingTime() + "s");
         }
         this.status = status;
         logger.info("Job-" + name, "Job status changed to " + statusToString());
     }
 
+    /**
+     * Marks the job's completion as counted in the statistics
+     * @return true the first time it is called, false afterwards
+     */
+    public boolean markCompletionRecorded() {
+        return completionRecorded.compareAndSet(false, true);
+    }
+
     public boolean isIdle() {
         return status == Status.IDLE;
     }
@@ -152,7 +428,7 @@ public class Job {
 
     @Override
     public String toString() {
-        return "Job: " + name + " Priority: " + priority + " Arrival Time: " + arrivalTime + 
+        return "Job: " + name + " Priority: " + priority + " Waited: " + String.format("%.3fs", getTimeWaited()) +
                " Execution Time: " + executionTime + " Status: " + statusToString();
     }
 
@@ -1,24 +1,112 @@
 package Model.datastructures;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.lang.StringBuilder;
 
+import monitoring.LockProfile;
+
 /**
- * Thread-safe implementation of a job queue using a single mutex lock and condition variables.
+ * Thread-safe implementation of a job queue guarded by a single StampedLock.
+ * Code outside this class only touches the waiting jobs inside a scope: withQueue() holds
+ * the lock exclusively for the length of a lambda, readQueue() first reads optimistically
+ * without locking and only takes the shared lock if a writer got in the way.
+ * The queue can be given a capacity; submissions beyond it are handled by an overload policy.
+ * Instead of the strictly ordered queue, waiting jobs can be kept in a MultiQueue so that
+ * many producers and dispatchers do not serialize on the lock; the policy order is then relaxed.
  */
 public class JobQueue {
     private static JobQueue instance;
-    // Single lock for the entire class
-    private static final ReentrantLock lock = new ReentrantLock();
-    private static final Condition notEmpty = lock.newCondition();
+    // Single lock for the waiting jobs
+    private static final StampedLock lock = new StampedLock();
+    // Sampled contention of the exclusive and shared holds, for the locks command and the metrics
+    private static final LockProfile writeProfile = LockProfile.register("JobQueue.write", JobQueue.class);
+    private static final LockProfile readProfile = LockProfile.register("JobQueue.read", JobQueue.class);
+    // A StampedLock has no conditions, so threads waiting for a job or for room park on this
+    // monitor instead. They are counted, and enqueue and dequeue only take it when someone waits.
+    private static final ReentrantLock waitLock = new ReentrantLock();
+    private static final Condition notEmpty = waitLock.newCondition();
+    private static final Condition notFull = waitLock.newCondition();
+    private final AtomicInteger _idleConsumers = new AtomicInteger();
+    private final AtomicInteger _blockedSubmitters = new AtomicInteger();
     private Queue _jobQueue;
-    private Job _runningJob; // Track the currently running job
+    // Registry of every job currently occupying a dispatch slot. Kept outside the queue lock
+    // so starting and finishing jobs never contend with enqueue and dequeue.
+    private final Set<Job> _runningJobs;
+
+    /**
+     * What happens to a submission when the queue is at capacity
+     */
+    public enum OverloadPolicy {
+        // Wait up to the block timeout for a dispatcher to make room
+        BLOCK,
+        // Refuse the new job straight away
+        REJECT,
+        // Drop the lowest-priority queued job to make room, or refuse the new job if it is the lowest
+        SHED
+    }
+    public static final long DEFAULT_BLOCK_TIMEOUT_MILLIS = 5000;
+    // 0 means unbounded
+    private volatile int _capacity = 0;
+    private volatile OverloadPolicy _overloadPolicy = OverloadPolicy.REJECT;
+    private volatile long _blockTimeoutMillis = DEFAULT_BLOCK_TIMEOUT_MILLIS;
+    // Admitted jobs that are still on their way into the queue, e.g. in the scheduler's batch pipeline
+    private final AtomicInteger _reservedSlots = new AtomicInteger();
+
+    // When set, waiting jobs live here instead of in _jobQueue and enqueue/dequeue skip the lock
+    private volatile MultiQueue _multiQueue;
+    // When set, told about every submission, dispatch, release and cancellation
+    private volatile QueueJournal _journal;
+
+    /**
+     * How long the queue lock has been held, and how often optimistic reads had to fall back to it
+     * @param writeHolds Exclusive acquisitions
+     * @param writeHoldNanos Total time the lock was held exclusively
+     * @param maxWriteHoldNanos Longest exclusive hold
+     * @param contendedWrites Exclusive acquisitions that had to wait
+     * @param readHolds Shared acquisitions, i.e. optimistic reads that failed or were not possible
+     * @param readHoldNanos Total time the lock was held shared
+     * @param maxReadHoldNanos Longest shared hold
+     * @param optimisticReads Reads tried without locking
+     * @param optimisticReadFailures Optimistic reads invalidated by a writer
+     */
+    public record LockMetrics(long writeHolds, long writeHoldNanos, long maxWriteHoldNanos, long contendedWrites,
+                              long readHolds, long readHoldNanos, long maxReadHoldNanos,
+                              long optimisticReads, long optimisticReadFailures) {
+        public double averageWriteHoldNanos() {
+            return writeHolds == 0 ? 0 : (double) writeHoldNanos / writeHolds;
+        }
+
+        public double averageReadHoldNanos() {
+            return readHolds == 0 ? 0 : (double) readHoldNanos / readHolds;
+        }
+    }
+    private final LongAdder _writeHolds = new LongAdder();
+    private final LongAdder _writeHoldNanos = new LongAdder();
+    private final AtomicLong _maxWriteHoldNanos = new AtomicLong();
+    private final LongAdder _contendedWrites = new LongAdder();
+    private final AtomicInteger _waitingWriters = new AtomicInteger();
+    private final LongAdder _readHolds = new LongAdder();
+    private final LongAdder _readHoldNanos = new LongAdder();
+    private final AtomicLong _maxReadHoldNanos = new AtomicLong();
+    private final LongAdder _optimisticReads = new LongAdder();
+    private final LongAdder _optimisticReadFailures = new LongAdder();
 
     private JobQueue() {
         _jobQueue = new Queue();
-        _runningJob = null;
+        _runningJobs = ConcurrentHashMap.newKeySet();
     }
 
     /**
@@ -33,72 +121,487 @@ public class JobQueue {
     }
 
     /**
-     * Thread-safe method to access the queue
-     * @return A copy of the current queue to prevent concurrent modifications
+     * Run an action on the waiting jobs while holding the queue lock exclusively.
+     * Keep the action short: enqueue and dequeue wait for it. Dispatchers and blocked
+     * submitters are woken afterwards if the action added or removed jobs.
+     * While the MultiQueue is in use the action gets a sorted copy of the waiting jobs,
+     * and changes to it are not kept; use reorder() to change their order.
+     * @param action The action; it must not call back into this JobQueue's queue methods
+     * @return The action's result
      */
-    public Queue requestQueue() {
-        lock.lock();
-        return _jobQueue;
+    public <T> T withQueue(Function<Queue, T> action) {
+        int[] sizeChange = new int[1];
+        T result = write(queue -> {
+            MultiQueue multiQueue = _multiQueue;
+            Queue scoped = multiQueue != null ? sortedCopy(multiQueue) : queue;
+            int sizeBefore = scoped.getSize();
+            T value = action.apply(scoped);
+            sizeChange[0] = scoped.getSize() - sizeBefore;
+            return value;
+        });
+        if (sizeChange[0] > 0) {
+            wakeIdleConsumers();
+        } else if (sizeChange[0] < 0) {
+            wakeBlockedSubmitters();
+        }
+        return result;
     }
 
     /**
-     * Check if the queue is empty
-     * @return true if the queue is empty, false otherwise
+     * Read the waiting jobs without blocking enqueue and dequeue. The reader first runs
+     * without any lock; if a writer changed the queue meanwhile, its result is discarded
+     * and it runs again under the shared lock.
+     * @param reader A side-effect free function of the queue; it may run twice, must not modify
+     *               the queue, and must not rely on what it read until it returns
+     * @return The reader's result from a run that saw a consistent queue
      */
-    public boolean isEmpty() {
-        lock.lock();
+    public <T> T readQueue(Function<Queue, T> reader) {
+        MultiQueue multiQueue = _multiQueue;
+        if (multiQueue != null) {
+            return reader.apply(sortedCopy(multiQueue));
+        }
+
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            _optimisticReads.increment();
+            try {
+                T result = reader.apply(_jobQueue);
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // A reader racing a writer can trip over a half-linked node; only a
+                // failure on a queue that did not change is a real one
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+            _optimisticReadFailures.increment();
+        }
+
+        boolean sampled = readProfile.sample();
+        long waitStart = sampled ? System.nanoTime() : 0;
+        stamp = lock.tryReadLock();
+        boolean contended = stamp == 0;
+        if (contended) {
+            stamp = lock.readLock();
+        }
+        long lockedAt = System.nanoTime();
+        long waitNanos = contended && sampled ? lockedAt - waitStart : 0;
+        // Readers queue behind the writers waiting for the lock
+        readProfile.acquired(sampled, contended, waitNanos, _waitingWriters.get() + 1);
         try {
-            return _jobQueue.isEmpty();
+            return reader.apply(_jobQueue);
         } finally {
-            lock.unlock();
+            long heldNanos = System.nanoTime() - lockedAt;
+            lock.unlockRead(stamp);
+            _readHolds.increment();
+            _readHoldNanos.add(heldNanos);
+            recordMax(_maxReadHoldNanos, heldNanos);
+            if (sampled) {
+                readProfile.released(waitNanos, heldNanos);
+            }
         }
     }
 
     /**
-     * Set the currently running job
-     * @param job The job that is currently running
+     * Read the waiting jobs without ever taking a lock, e.g. for monitoring. Unlike readQueue(),
+     * a read spoiled by a writer is not repeated under the shared lock.
+     * @param reader Reads the queue; it may see the queue mid-change and must not rely on
+     *               what it read until it returns
+     * @return The reader's result, or null if a writer changed the queue meanwhile or the
+     *         waiting jobs are kept in a MultiQueue, whose shards cannot be read without locking
      */
-    public void setRunningJob(Job job) {
-        lock.lock();
+    public <T> T tryReadQueue(Function<Queue, T> reader) {
+        if (_multiQueue != null) {
+            return null;
+        }
+        long stamp = lock.tryOptimisticRead();
+        if (stamp == 0) {
+            return null;
+        }
+        _optimisticReads.increment();
         try {
-            _runningJob = job;
-            // Update the job's status to RUNNING if it's a valid job
-            if (_runningJob != null) {
-                _runningJob.setStatus(Job.Status.RUNNING);
+            T result = reader.apply(_jobQueue);
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        } catch (RuntimeException e) {
+            if (lock.validate(stamp)) {
+                throw e;
             }
-        } finally {
-            lock.unlock();
         }
+        _optimisticReadFailures.increment();
+        return null;
     }
 
     /**
-     * Get the currently running job
-     * @return The currently running job or null if no job is running
+     * Hold the lock exclusively around an action on the strict queue, recording the hold time
      */
-    public Job getRunningJob() {
-        lock.lock();
+    private <T> T write(Function<Queue, T> action) {
+        boolean sampled = writeProfile.sample();
+        long waitStart = 0;
+        int queueLength = 0;
+        long stamp = lock.tryWriteLock();
+        boolean contended = stamp == 0;
+        if (contended) {
+            _contendedWrites.increment();
+            queueLength = _waitingWriters.incrementAndGet();
+            waitStart = sampled ? System.nanoTime() : 0;
+            try {
+                stamp = lock.writeLock();
+            } finally {
+                _waitingWriters.decrementAndGet();
+            }
+        }
+        long lockedAt = System.nanoTime();
+        long waitNanos = contended && sampled ? lockedAt - waitStart : 0;
+        writeProfile.acquired(sampled, contended, waitNanos, queueLength);
         try {
-            return _runningJob;
+            return action.apply(_jobQueue);
         } finally {
-            lock.unlock();
+            long heldNanos = System.nanoTime() - lockedAt;
+            lock.unlockWrite(stamp);
+            _writeHolds.increment();
+            _writeHoldNanos.add(heldNanos);
+            recordMax(_maxWriteHoldNanos, heldNanos);
+            if (sampled) {
+                writeProfile.released(waitNanos, heldNanos);
+            }
+        }
+    }
+
+    private static void recordMax(AtomicLong max, long value) {
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    private static Queue sortedCopy(MultiQueue multiQueue) {
+        Queue copy = new Queue();
+        for (Job job : multiQueue.snapshot()) {
+            copy.enqueue(job);
         }
+        return copy;
     }
 
     /**
-     * Get the next job from the queue (non-blocking)
-     * @return The next job or null if queue is empty
+     * Get the lock hold times and optimistic read outcomes since the last reset
+     * @return A snapshot of the lock metrics
      */
-    public Job getNextJob() {
-        lock.lock();
+    public LockMetrics getLockMetrics() {
+        return new LockMetrics(_writeHolds.sum(), _writeHoldNanos.sum(), _maxWriteHoldNanos.get(), _contendedWrites.sum(),
+                _readHolds.sum(), _readHoldNanos.sum(), _maxReadHoldNanos.get(),
+                _optimisticReads.sum(), _optimisticReadFailures.sum());
+    }
+
+    public void resetLockMetrics() {
+        _writeHolds.reset();
+        _writeHoldNanos.reset();
+        _maxWriteHoldNanos.set(0);
+        _contendedWrites.reset();
+        _readHolds.reset();
+        _readHoldNanos.reset();
+        _maxReadHoldNanos.set(0);
+        _optimisticReads.reset();
+        _optimisticReadFailures.reset();
+    }
+
+    /**
+     * Switch between the strict queue and a relaxed MultiQueue, moving the waiting jobs across.
+     * @param shards The number of MultiQueue heaps, or 0 for the strict queue
+     * @param order The order of the current scheduling policy
+     * @throws IllegalArgumentException if shards is negative
+     */
+    public void setMultiQueueShards(int shards, Comparator<Job> order) {
+        if (shards < 0) {
+            throw new IllegalArgumentException("Shard count cannot be negative");
+        }
+        write(queue -> {
+            List<Job> waiting = new ArrayList<>();
+            while (!queue.isEmpty()) {
+                waiting.add((Job) queue.dequeue());
+            }
+            if (_multiQueue != null) {
+                waiting.addAll(_multiQueue.drain());
+            }
+            waiting.sort(order);
+            if (shards == 0) {
+                _multiQueue = null;
+                for (Job job : waiting) {
+                    queue.enqueue(job);
+                }
+            } else {
+                MultiQueue multiQueue = new MultiQueue(shards, order);
+                for (Job job : waiting) {
+                    multiQueue.insert(job);
+                }
+                _multiQueue = multiQueue;
+            }
+            return null;
+        });
+        signalWaiters();
+    }
+
+    /**
+     * Get the number of MultiQueue heaps
+     * @return The shard count, or 0 if the strict queue is in use
+     */
+    public int getMultiQueueShards() {
+        MultiQueue multiQueue = _multiQueue;
+        return multiQueue == null ? 0 : multiQueue.getShardCount();
+    }
+
+    /**
+     * Re-sort the MultiQueue by a new policy order. The strict queue is reordered by the policy itself.
+     * @param order The order of the new scheduling policy
+     */
+    public void reorder(Comparator<Job> order) {
+        MultiQueue multiQueue = _multiQueue;
+        if (multiQueue != null) {
+            multiQueue.reorder(order);
+        }
+    }
+
+    /**
+     * Bound the number of waiting jobs. Jobs already queued are kept even if they exceed it.
+     * @param capacity The most jobs that may wait, counting admitted jobs not yet merged; 0 for unbounded
+     * @param overloadPolicy What to do with a submission when the queue is full
+     * @param blockTimeoutMillis How long BLOCK waits for room before refusing the job
+     * @throws IllegalArgumentException if capacity or the timeout is negative
+     */
+    public void setCapacity(int capacity, OverloadPolicy overloadPolicy, long blockTimeoutMillis) {
+        if (capacity < 0 || blockTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Capacity and block timeout cannot be negative");
+        }
+        write(queue -> {
+            _capacity = capacity;
+            _overloadPolicy = overloadPolicy;
+            _blockTimeoutMillis = blockTimeoutMillis;
+            return null;
+        });
+        // Blocked submitters re-check against the new capacity
+        wakeBlockedSubmitters();
+    }
+
+    /**
+     * Get the capacity
+     * @return The most jobs that may wait, or 0 if the queue is unbounded
+     */
+    public int getCapacity() {
+        return _capacity;
+    }
+
+    public OverloadPolicy getOverloadPolicy() {
+        return _overloadPolicy;
+    }
+
+    /**
+     * Record every later change to the queue in a journal, or stop recording.
+     * Changes made inside withQueue() scopes are not recorded.
+     * @param journal The journal, or null for none
+     */
+    public void setJournal(QueueJournal journal) {
+        _journal = journal;
+    }
+
+    /**
+     * Check whether the journal has fenced the queue (see QueueJournal.isFenced). A fenced
+     * queue refuses new jobs in admit() and hands no jobs to dispatchers.
+     * @return true if the queue is fenced
+     */
+    public boolean isFenced() {
+        QueueJournal journal = _journal;
+        return journal != null && journal.isFenced();
+    }
+
+    /**
+     * Admit a job before it is added to the queue, reserving room for it. The reservation
+     * is handed back by mergeAdmittedJobs() once the job has been merged.
+     * When the queue is full the overload policy decides: BLOCK waits for room, REJECT
+     * refuses the job, and SHED removes the lowest-priority queued job if the new job
+     * outranks it.
+     * @param job The job being submitted
+     * @return The queued job that was shed to make room, or null if none was
+     * @throws IllegalStateException if the job is refused, or the queue is fenced
+     */
+    public Job admit(Job job) {
+        if (isFenced()) {
+            throw new IllegalStateException("Job queue is fenced: this instance lost the journal leadership");
+        }
+        if (_capacity == 0) {
+            _reservedSlots.incrementAndGet();
+            return null;
+        }
+
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(_blockTimeoutMillis);
+        while (true) {
+            Job[] shed = new Job[1];
+            boolean admitted = write(queue -> {
+                if (_capacity == 0 || occupancy() < _capacity) {
+                    _reservedSlots.incrementAndGet();
+                    return true;
+                }
+                switch (_overloadPolicy) {
+                    case BLOCK -> {
+                        return false;
+                    }
+                    case SHED -> {
+                        Job victim = lowestPriorityJob();
+                        if (victim == null || victim.getPriority() >= job.getPriority()) {
+                            throw new IllegalStateException("Job queue is full (capacity " + _capacity +
+                                    ") and no queued job has a lower priority than " + job.getName());
+                        }
+                        MultiQueue multiQueue = _multiQueue;
+                        if (multiQueue != null) {
+                            multiQueue.remove(victim);
+                        } else {
+                            queue.remove(victim);
+                        }
+                        _reservedSlots.incrementAndGet();
+                        shed[0] = victim;
+                        return true;
+                    }
+                    default -> throw new IllegalStateException("Job queue is full (capacity " + _capacity + ")");
+                }
+            });
+            if (admitted) {
+                QueueJournal journal = _journal;
+                if (journal != null && shed[0] != null) {
+                    journal.cancelled(shed[0]);
+                }
+                return shed[0];
+            }
+            // Only BLOCK gets here: wait without the queue lock, then compete for the room again
+            remainingNanos = awaitRoom(remainingNanos);
+        }
+    }
+
+    /**
+     * Count waiting and admitted jobs. Call with the lock held.
+     */
+    private int occupancy() {
+        MultiQueue multiQueue = _multiQueue;
+        return (multiQueue != null ? multiQueue.size() : _jobQueue.getSize()) + _reservedSlots.get();
+    }
+
+    /**
+     * Wait without the queue lock until there is room, for at most the remaining block timeout
+     * @return The time left to wait
+     * @throws IllegalStateException if there is still no room when the time is up
+     */
+    private long awaitRoom(long remainingNanos) {
+        waitLock.lock();
+        _blockedSubmitters.incrementAndGet();
         try {
-            if (_jobQueue.isEmpty()) {
-                return null;
+            while (_capacity > 0 && size() + _reservedSlots.get() >= _capacity) {
+                if (remainingNanos <= 0) {
+                    throw new IllegalStateException("Job queue is still full (capacity " + _capacity +
+                            ") after waiting " + _blockTimeoutMillis + " ms");
+                }
+                remainingNanos = notFull.awaitNanos(remainingNanos);
             }
-            Job job = (Job) _jobQueue.dequeue();
-            return job;
+            return remainingNanos;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for room in the job queue");
         } finally {
-            lock.unlock();
+            _blockedSubmitters.decrementAndGet();
+            waitLock.unlock();
+        }
+    }
+
+    /**
+     * Find the queued job to shed: the lowest priority, and the most recently queued among equals.
+     * Call with the lock held.
+     */
+    private Job lowestPriorityJob() {
+        MultiQueue multiQueue = _multiQueue;
+        Iterable<?> waiting = multiQueue != null ? multiQueue.snapshot() : _jobQueue;
+        Job lowest = null;
+        for (Object obj : waiting) {
+            Job job = (Job) obj;
+            if (lowest == null || job.getPriority() <= lowest.getPriority()) {
+                lowest = job;
+            }
+        }
+        return lowest;
+    }
+
+    /**
+     * Check if the queue is empty
+     * @return true if the queue is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        MultiQueue multiQueue = _multiQueue;
+        if (multiQueue != null) {
+            return multiQueue.isEmpty();
+        }
+        return readQueue(Queue::isEmpty);
+    }
+
+    /**
+     * Register a job as running and mark it RUNNING
+     * @param job The job that was dispatched to a slot
+     */
+    public void addRunningJob(Job job) {
+        if (job == null) {
+            throw new IllegalArgumentException("Cannot register a null running job");
+        }
+        job.setStatus(Job.Status.RUNNING);
+        _runningJobs.add(job);
+        QueueJournal journal = _journal;
+        if (journal != null) {
+            journal.dispatched(job);
+        }
+    }
+
+    /**
+     * Remove a job from the running registry once its slot is released
+     * @param job The job that finished or failed
+     * @return true if the job was registered as running
+     */
+    public boolean removeRunningJob(Job job) {
+        boolean removed = _runningJobs.remove(job);
+        QueueJournal journal = _journal;
+        if (removed && journal != null) {
+            journal.released(job);
+        }
+        return removed;
+    }
+
+    /**
+     * Get all currently running jobs in the order they started
+     * @return A snapshot copy of the running jobs (empty if none are running)
+     */
+    public List<Job> getRunningJobs() {
+        List<Job> runningJobs = new ArrayList<>(_runningJobs);
+        runningJobs.sort(Comparator.comparingLong(Job::getStartNanos));
+        return runningJobs;
+    }
+
+    /**
+     * Get the number of currently running jobs
+     * @return The number of occupied dispatch slots
+     */
+    public int getRunningJobCount() {
+        return _runningJobs.size();
+    }
+
+    /**
+     * Get the next job from the queue (non-blocking)
+     * @return The next job or null if queue is empty or fenced
+     */
+    public Job getNextJob() {
+        if (isFenced()) {
+            return null;
         }
+        MultiQueue multiQueue = _multiQueue;
+        Job job = multiQueue != null ? multiQueue.poll() : write(queue -> (Job) queue.dequeue());
+        if (job != null) {
+            wakeBlockedSubmitters();
+        }
+        return job;
     }
 
     /**
@@ -107,47 +610,143 @@ public class JobQueue {
      * @return The next job from the queue or null if timeout occurs
      */
     public Job getJob(long timeoutMillis) {
-        lock.lock();
+        if (isFenced()) {
+            idleWhileFenced(timeoutMillis);
+            return null;
+        }
+        Job job = getNextJob();
+        if (job == null && awaitJob(timeoutMillis)) {
+            job = getNextJob();
+        }
+        return job;
+    }
+
+    /**
+     * Take up to maxJobs jobs from the head of the queue under a single lock acquisition.
+     * If the queue is empty, waits once for an enqueue or signalWaiters() call.
+     * @param maxJobs The most jobs to take
+     * @param timeoutMillis Maximum time to wait in milliseconds (0 means do not wait)
+     * @return The jobs taken in queue order, empty if none arrived in time or the queue is fenced
+     */
+    public List<Job> getJobs(int maxJobs, long timeoutMillis) {
+        if (isFenced()) {
+            idleWhileFenced(timeoutMillis);
+            return new ArrayList<>();
+        }
+        if (timeoutMillis > 0 && isEmpty()) {
+            awaitJob(timeoutMillis);
+        }
+        List<Job> jobs;
+        MultiQueue multiQueue = _multiQueue;
+        if (multiQueue != null) {
+            jobs = new ArrayList<>();
+            Job job;
+            while (jobs.size() < maxJobs && (job = multiQueue.poll()) != null) {
+                jobs.add(job);
+            }
+        } else {
+            jobs = write(queue -> {
+                List<Job> taken = new ArrayList<>();
+                while (taken.size() < maxJobs && !queue.isEmpty()) {
+                    taken.add((Job) queue.dequeue());
+                }
+                return taken;
+            });
+        }
+        if (!jobs.isEmpty()) {
+            wakeBlockedSubmitters();
+        }
+        return jobs;
+    }
+
+    /**
+     * Wait until there may be a job. The waiter is counted before it checks the queue and
+     * enqueues check the count after adding, so a wake-up is never missed.
+     * With a timeout this waits once, so signalWaiters() can wake it early.
+     * @param timeoutMillis Maximum time to wait in milliseconds (0 means until a job arrives)
+     * @return true if a job may be available, false on timeout or interrupt
+     */
+    private boolean awaitJob(long timeoutMillis) {
+        waitLock.lock();
+        _idleConsumers.incrementAndGet();
         try {
-            // First check if queue is already non-empty
-            if (!_jobQueue.isEmpty()) {
-                return (Job) _jobQueue.dequeue();
+            if (timeoutMillis > 0) {
+                return !isEmpty() || (notEmpty.await(timeoutMillis, TimeUnit.MILLISECONDS) && !isEmpty());
             }
-            
-            // If we need to wait, set up a timeout if requested
+            while (isEmpty()) {
+                notEmpty.await();
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            _idleConsumers.decrementAndGet();
+            waitLock.unlock();
+        }
+    }
+
+    /**
+     * Hold a dispatcher back for its timeout while the queue is fenced, so it does not spin
+     * on jobs it may not take
+     * @param timeoutMillis Maximum time to wait in milliseconds (0 means until interrupted)
+     */
+    private void idleWhileFenced(long timeoutMillis) {
+        waitLock.lock();
+        _idleConsumers.incrementAndGet();
+        try {
             if (timeoutMillis > 0) {
-                try {
-                    boolean notTimedOut = notEmpty.await(timeoutMillis, java.util.concurrent.TimeUnit.MILLISECONDS);
-                    if (!notTimedOut || _jobQueue.isEmpty()) {
-                        return null; // Timeout occurred or queue is still empty
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    return null;
-                }
+                notEmpty.await(timeoutMillis, TimeUnit.MILLISECONDS);
             } else {
-                // Wait indefinitely
-                try {
-                    while (_jobQueue.isEmpty()) {
-                        notEmpty.await();
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    return null;
+                while (isFenced()) {
+                    notEmpty.await();
                 }
             }
-            
-            // At this point, we should have a job in the queue
-            if (!_jobQueue.isEmpty()) {
-                return (Job) _jobQueue.dequeue();
-            } else {
-                return null; // Defensive check
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            _idleConsumers.decrementAndGet();
+            waitLock.unlock();
+        }
+    }
+
+    private void wakeIdleConsumers() {
+        if (_idleConsumers.get() > 0) {
+            signalWaiters();
+        }
+    }
+
+    private void wakeBlockedSubmitters() {
+        if (_blockedSubmitters.get() > 0) {
+            waitLock.lock();
+            try {
+                notFull.signalAll();
+            } finally {
+                waitLock.unlock();
             }
+        }
+    }
+
+    /**
+     * Wake every thread waiting for jobs, e.g. so idle workers can look for work elsewhere
+     */
+    public void signalWaiters() {
+        waitLock.lock();
+        try {
+            notEmpty.signalAll();
         } finally {
-            lock.unlock();
+            waitLock.unlock();
         }
     }
 
+    /**
+     * Estimate how many threads are waiting to acquire the queue lock, for contention monitoring
+     * @return The approximate number of threads blocked on the lock
+     */
+    public int getLockQueueLength() {
+        return _waitingWriters.get();
+    }
+
     /**
      * Wait for and get a job from the queue (blocking indefinitely)
      * @return The next job from the queue or null if interrupted
@@ -157,91 +756,191 @@ public class JobQueue {
     }
 
     /**
-     * Add a job to the queue
+     * Add a job to the queue. This bypasses admission control, e.g. for returning jobs
+     * that were already admitted once.
      * @param job The job to add
      */
     public void addJob(Job job) {
         if (job == null) {
             throw new IllegalArgumentException("Cannot add a null job to the queue");
         }
-        
-        lock.lock();
-        try {
-            _jobQueue.enqueue(job);
-            notEmpty.signalAll(); // Signal waiting threads that a job is available
-        } finally {
-            lock.unlock();
+        job.markEnqueued();
+        QueueJournal journal = _journal;
+        if (journal != null) {
+            journal.submitted(job);
         }
+        MultiQueue multiQueue = _multiQueue;
+        if (multiQueue != null) {
+            multiQueue.insert(job);
+        } else {
+            write(queue -> {
+                queue.enqueue(job);
+                return null;
+            });
+        }
+        wakeIdleConsumers(); // Signal waiting threads that a job is available
     }
 
-    public boolean unlock(){
-        // print the current lock state
-        // System.out.println("Lock state: " + lock.isLocked());
-        try{
-            lock.unlock();
-            return true;
-        } catch (Exception e){
-            // System.out.println("Error unlocking the queue: " + e.getMessage());
-            return false;
+    /**
+     * Merge a batch of jobs into the queue in one operation and wake waiting dispatchers.
+     * The queue must already be ordered by the given comparator. This bypasses admission
+     * control; admitted jobs go through mergeAdmittedJobs().
+     * @param sortedBatch The jobs to add, sorted by order
+     * @param order The ordering of the current scheduling policy
+     */
+    public void mergeJobs(List<Job> sortedBatch, Comparator<Job> order) {
+        if (sortedBatch.isEmpty()) {
+            return;
+        }
+        enqueueing(sortedBatch);
+        MultiQueue multiQueue = _multiQueue;
+        if (multiQueue != null) {
+            for (Job job : sortedBatch) {
+                multiQueue.insert(job);
+            }
+        } else {
+            write(queue -> {
+                queue.mergeSorted(sortedBatch, order);
+                return null;
+            });
+        }
+        wakeIdleConsumers(); // Signal waiting threads that jobs are available
+    }
+
+    /**
+     * Sort a batch of admitted jobs and merge it into the queue, handing back their
+     * reservations, all in one exclusive hold. The order is read inside the hold, so a
+     * batch is never merged by an order the queue has just been re-sorted away from.
+     * @param batch The admitted jobs to add; sorted in place
+     * @param order Supplies the ordering of the current scheduling policy
+     */
+    public void mergeAdmittedJobs(List<Job> batch, Supplier<Comparator<Job>> order) {
+        merge(batch, order, true);
+    }
+
+    /**
+     * Sort a batch of jobs that were admitted before, e.g. jobs put back after a lost
+     * worker, and merge it into the queue in one exclusive hold. Like mergeAdmittedJobs()
+     * the order is read inside the hold, but no reservations are handed back.
+     * @param batch The jobs to add; sorted in place
+     * @param order Supplies the ordering of the current scheduling policy
+     */
+    public void mergeRequeuedJobs(List<Job> batch, Supplier<Comparator<Job>> order) {
+        merge(batch, order, false);
+    }
+
+    private void merge(List<Job> batch, Supplier<Comparator<Job>> order, boolean admitted) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        enqueueing(batch);
+        write(queue -> {
+            Comparator<Job> currentOrder = order.get();
+            batch.sort(currentOrder);
+            MultiQueue multiQueue = _multiQueue;
+            if (multiQueue != null) {
+                for (Job job : batch) {
+                    multiQueue.insert(job);
+                }
+            } else {
+                queue.mergeSorted(batch, currentOrder);
+            }
+            // Released together with the merge so the jobs are never counted twice, or not at all
+            if (admitted) {
+                _reservedSlots.addAndGet(-batch.size());
+            }
+            return null;
+        });
+        wakeIdleConsumers();
+    }
+
+    /**
+     * Stamp jobs about to enter the queue with the time, and journal them
+     */
+    private void enqueueing(List<Job> jobs) {
+        QueueJournal journal = _journal;
+        for (Job job : jobs) {
+            job.markEnqueued();
+            if (journal != null) {
+                journal.submitted(job);
+            }
         }
-        
     }
 
-    public boolean lock(){
-        lock.lock();
-        return true;
+    /**
+     * Get the number of waiting jobs without ever waiting for the lock, e.g. for monitoring.
+     * The count may miss a change a writer is making at the same time.
+     * @return The number of waiting jobs
+     */
+    public int approximateSize() {
+        MultiQueue multiQueue = _multiQueue;
+        if (multiQueue != null) {
+            return multiQueue.size();
+        }
+        // Not validated: the stamp only makes the last completed write visible
+        lock.tryOptimisticRead();
+        return _jobQueue.getSize();
     }
 
     public int size() {
-        lock.lock();
-        try {
-            return _jobQueue.getSize();
-        } finally {
-            lock.unlock();
+        MultiQueue multiQueue = _multiQueue;
+        if (multiQueue != null) {
+            return multiQueue.size();
         }
+        return readQueue(Queue::getSize);
     }
-    
+
     /**
      * Get a string representation of the job queue
      * @return A string with all jobs in the queue
      */
     @Override
     public String toString() {
+        List<Job> waitingJobs = readQueue(queue -> {
+            List<Job> jobs = new ArrayList<>(queue.getSize());
+            for (Object obj : queue) {
+                jobs.add((Job) obj);
+            }
+            return jobs;
+        });
+        return formatJobs(getRunningJobs(), waitingJobs);
+    }
+
+    /**
+     * Formats running and waiting jobs as the table shown by the list command
+     * @param runningJobs The jobs holding an execution slot
+     * @param waitingJobs The jobs waiting to run, in dispatch order
+     * @return A string with all the jobs
+     */
+    public static String formatJobs(List<Job> runningJobs, List<Job> waitingJobs) {
+        if (runningJobs.isEmpty() && waitingJobs.isEmpty()) {
+            return "The Job Queue is empty.";
+        }
         StringBuilder results = new StringBuilder();
-        lock.lock();
-        try {
-            if (_jobQueue.isEmpty() && _runningJob == null) {
-                return "The Job Queue is empty.";
-            } else {
-                // Header for job details
-                results.append("Name\t")
-                        .append("CPU_Time\t")
-                        .append("Pri\t")
-                        .append("Arrival_time\t")
-                        .append("Progress\n");
-
-                // First add the running job if there is one
-                if (_runningJob != null) {
-                    results.append(_runningJob.getName()).append("\t")
-                           .append(_runningJob.getExecutionTime()).append("\t")
-                           .append(_runningJob.getPriority()).append("\t")
-                           .append(new java.text.SimpleDateFormat("HH:mm:ss").format(new java.util.Date((long)_runningJob.getArrivalTime()))).append("\t")
-                           .append("Run\n"); // Running job always shows "Run"
-                }
+        // Header for job details
+        results.append("Name\t")
+                .append("CPU_Time\t")
+                .append("Pri\t")
+                .append("Waited\t")
+                .append("Progress\n");
 
-                // Then add all queued jobs
-                for (Object obj : _jobQueue) {
-                    Job job = (Job) obj;
-                    results.append(job.getName()).append("\t")
-                            .append(job.getExecutionTime()).append("\t")
-                            .append(job.getPriority()).append("\t")
-                            .append(new java.text.SimpleDateFormat("HH:mm:ss").format(new java.util.Date((long)job.getArrivalTime()))).append("\t")
-                            .append(job.getStatus()).append("\n");
-                }
-            }
-            return results.toString();
-        } finally {
-            lock.unlock();
+        // First add every running job
+        for (Job runningJob : runningJobs) {
+            results.append(runningJob.getName()).append("\t")
+                   .append(runningJob.getExecutionTime()).append("\t")
+                   .append(runningJob.getPriority()).append("\t")
+                   .append(String.format("%.1fs", runningJob.getTimeWaited())).append("\t")
+                   .append("Run\n"); // Running jobs always show "Run"
+        }
+
+        // Then add all queued jobs
+        for (Job job : waitingJobs) {
+            results.append(job.getName()).append("\t")
+                    .append(job.getExecutionTime()).append("\t")
+                    .append(job.getPriority()).append("\t")
+                    .append(String.format("%.1fs", job.getTimeWaited())).append("\t")
+                    .append(job.getStatus()).append("\n");
         }
+        return results.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,268 @@
+package Model.datastructures;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Relaxed concurrent priority queue made of several independently locked heaps (shards).
+ * An insert goes to a random shard; a removal looks at the heads of two random shards and
+ * takes the better one. Threads rarely meet on the same lock, so throughput grows with the
+ * number of threads, at the price of sometimes removing a job that is not the very best:
+ * with k shards the removed job is on average within about k places of the true head.
+ *
+ * Jobs that compare equal keep their insertion order within a shard, like the strict queue.
+ * @author Group 1
+ */
+public class MultiQueue {
+    // Failed lock attempts on random shards before falling back to a full scan
+    private static final int MAX_RANDOM_ATTEMPTS = 16;
+
+    private final Shard[] _shards;
+    private final AtomicInteger _size = new AtomicInteger();
+    private final AtomicLong _sequence = new AtomicLong();
+    private volatile Comparator<Entry> _entryOrder;
+
+    /**
+     * A queued job with its insertion number, which breaks ties in insertion order
+     */
+    private record Entry(Job job, long sequence) {}
+
+    /**
+     * One locked heap. Its head is published in a volatile field so that removals can
+     * compare two shards without locking either.
+     */
+    private static final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private PriorityQueue<Entry> heap;
+        private volatile Entry head;
+
+        Shard(Comparator<Entry> order) {
+            heap = new PriorityQueue<>(order);
+        }
+
+        void publishHead() {
+            head = heap.peek();
+        }
+    }
+
+    /**
+     * Constructor for MultiQueue
+     * @param shards The number of heaps, usually a small multiple of the number of threads using the queue
+     * @param order The order jobs should come out in, the job to run first comparing lowest
+     * @throws IllegalArgumentException if shards is less than 1
+     */
+    public MultiQueue(int shards, Comparator<Job> order) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("A MultiQueue needs at least one shard");
+        }
+        _entryOrder = entryOrder(order);
+        _shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            _shards[i] = new Shard(_entryOrder);
+        }
+    }
+
+    private static Comparator<Entry> entryOrder(Comparator<Job> order) {
+        return Comparator.comparing(Entry::job, order).thenComparingLong(Entry::sequence);
+    }
+
+    /**
+     * Add a job to a random shard
+     * @param job The job to add
+     */
+    public void insert(Job job) {
+        Entry entry = new Entry(job, _sequence.getAndIncrement());
+        // Counted before it is visible, so the size never drops below the number of queued jobs
+        _size.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Shard shard = _shards[random.nextInt(_shards.length)];
+        // Move on to another shard rather than wait for a busy one
+        for (int attempt = 0; attempt < MAX_RANDOM_ATTEMPTS && !shard.lock.tryLock(); attempt++) {
+            shard = _shards[random.nextInt(_shards.length)];
+        }
+        if (!shard.lock.isHeldByCurrentThread()) {
+            shard.lock.lock();
+        }
+        try {
+            shard.heap.add(entry);
+            shard.publishHead();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the better of the head jobs of two random shards
+     * @return The removed job, or null if the queue is empty
+     */
+    public Job poll() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < MAX_RANDOM_ATTEMPTS && _size.get() > 0; attempt++) {
+            Shard first = _shards[random.nextInt(_shards.length)];
+            Shard second = _shards[random.nextInt(_shards.length)];
+            Entry firstHead = first.head;
+            Entry secondHead = second.head;
+            Shard better;
+            if (firstHead == null && secondHead == null) {
+                continue;
+            } else if (firstHead == null) {
+                better = second;
+            } else if (secondHead == null) {
+                better = first;
+            } else {
+                better = _entryOrder.compare(firstHead, secondHead) <= 0 ? first : second;
+            }
+            if (!better.lock.tryLock()) {
+                continue;
+            }
+            try {
+                Entry entry = better.heap.poll();
+                if (entry != null) {
+                    better.publishHead();
+                    _size.decrementAndGet();
+                    return entry.job();
+                }
+            } finally {
+                better.lock.unlock();
+            }
+        }
+        return pollAnyShard();
+    }
+
+    /**
+     * Fallback for a nearly empty or heavily contended queue: take the head of the first
+     * non-empty shard, waiting for each lock in turn
+     */
+    private Job pollAnyShard() {
+        if (_size.get() == 0) {
+            return null;
+        }
+        int start = ThreadLocalRandom.current().nextInt(_shards.length);
+        for (int i = 0; i < _shards.length; i++) {
+            Shard shard = _shards[(start + i) % _shards.length];
+            if (shard.head == null) {
+                continue;
+            }
+            shard.lock.lock();
+            try {
+                Entry entry = shard.heap.poll();
+                if (entry != null) {
+                    shard.publishHead();
+                    _size.decrementAndGet();
+                    return entry.job();
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove a specific job from whichever shard holds it
+     * @param job The job to remove
+     * @return true if the job was found and removed
+     */
+    public boolean remove(Job job) {
+        for (Shard shard : _shards) {
+            shard.lock.lock();
+            try {
+                if (shard.heap.removeIf(entry -> entry.job() == job)) {
+                    shard.publishHead();
+                    _size.decrementAndGet();
+                    return true;
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Re-sort every shard by a new order, e.g. after the scheduling policy changed.
+     * Jobs inserted or removed meanwhile are not lost; each shard is rebuilt under its own lock.
+     * @param order The new order, the job to run first comparing lowest
+     */
+    public void reorder(Comparator<Job> order) {
+        Comparator<Entry> entryOrder = entryOrder(order);
+        _entryOrder = entryOrder;
+        for (Shard shard : _shards) {
+            shard.lock.lock();
+            try {
+                PriorityQueue<Entry> heap = new PriorityQueue<>(Math.max(1, shard.heap.size()), entryOrder);
+                heap.addAll(shard.heap);
+                shard.heap = heap;
+                shard.publishHead();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Copy every queued job, sorted by the current order. Each shard is locked only while it is copied,
+     * so the result is not an atomic snapshot while other threads use the queue.
+     * @return The queued jobs in the order they would run if the queue were strict
+     */
+    public List<Job> snapshot() {
+        List<Entry> entries = new ArrayList<>(_size.get());
+        for (Shard shard : _shards) {
+            shard.lock.lock();
+            try {
+                entries.addAll(shard.heap);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        entries.sort(_entryOrder);
+        List<Job> jobs = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            jobs.add(entry.job());
+        }
+        return jobs;
+    }
+
+    /**
+     * Remove every queued job
+     * @return The removed jobs, sorted by the current order
+     */
+    public List<Job> drain() {
+        List<Entry> entries = new ArrayList<>(_size.get());
+        for (Shard shard : _shards) {
+            shard.lock.lock();
+            try {
+                entries.addAll(shard.heap);
+                _size.addAndGet(-shard.heap.size());
+                shard.heap.clear();
+                shard.publishHead();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        entries.sort(_entryOrder);
+        List<Job> jobs = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            jobs.add(entry.job());
+        }
+        return jobs;
+    }
+
+    public int getShardCount() {
+        return _shards.length;
+    }
+
+    public int size() {
+        return _size.get();
+    }
+
+    public boolean isEmpty() {
+        return _size.get() == 0;
+    }
+}
@@ -0,0 +1,247 @@
+package Model.datastructures;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import util.Clock;
+import util.TimingWheel;
+
+/**
+ * A job that runs a real command line as a child process instead of sleeping.
+ * The execution time is the submitter's estimate, used for ordering (e.g. by SJF).
+ * Standard output and error are redirected by the operating system straight into
+ * per-job files, and completion is observed through ProcessHandle.onExit(), so no
+ * thread is blocked while the process runs.
+ * @author Group 1
+ */
+public class ProcessJob extends Job {
+    // Runs the command, then writes the shell's "times" report (own and children's user/system time)
+    private static final String CPU_TIME_WRAPPER = "\"$@\"; status=$?; times > \"$CSUBATCH_TIMES_FILE\"; exit $status";
+    private static final AtomicLong nextId = new AtomicLong();
+
+    private final List<String> command;
+    private final Path outputFile;
+    private final Path errorFile;
+    private final Path timesFile;
+    private final double timeLimit;
+    private volatile boolean timedOut;
+    private volatile int exitCode = -1;
+    private volatile double childCpuTime = -1;
+
+    /**
+     * Constructor for ProcessJob
+     * @param name The name of the job
+     * @param executionTime The estimated run time (in seconds)
+     * @param priority The priority of the job
+     * @param arrivalTime The time the job arrives
+     * @param command The program and its arguments
+     * @param outputDirectory Where the job's .out and .err files are written
+     * @throws IllegalArgumentException if the command is empty
+     */
+    public ProcessJob(String name, double executionTime, int priority, double arrivalTime,
+                      List<String> command, Path outputDirectory) {
+        this(name, executionTime, priority, arrivalTime, command, outputDirectory, 0);
+    }
+
+    /**
+     * Constructor for a ProcessJob that is killed if it runs longer than a wall-clock limit
+     * @param name The name of the job
+     * @param executionTime The estimated run time (in seconds)
+     * @param priority The priority of the job
+     * @param arrivalTime The time the job arrives
+     * @param command The program and its arguments
+     * @param outputDirectory Where the job's .out and .err files are written
+     * @param timeLimit The wall-clock limit in seconds, or 0 for no limit
+     * @throws IllegalArgumentException if the command is empty or the limit is negative
+     */
+    public ProcessJob(String name, double executionTime, int priority, double arrivalTime,
+                      List<String> command, Path outputDirectory, double timeLimit) {
+        this(name, executionTime, priority, arrivalTime, arrivalNanos(arrivalTime, Clock.SYSTEM), command,
+                outputDirectory, timeLimit);
+    }
+
+    /**
+     * Constructor for a ProcessJob that arrives now
+     * @param name The name of the job
+     * @param executionTime The estimated run time (in seconds)
+     * @param priority The priority of the job
+     * @param command The program and its arguments
+     * @param outputDirectory Where the job's .out and .err files are written
+     * @param timeLimit The wall-clock limit in seconds, or 0 for no limit
+     * @throws IllegalArgumentException if the command is empty or the limit is negative
+     */
+    public ProcessJob(String name, double executionTime, int priority, List<String> command, Path outputDirectory,
+                      double timeLimit) {
+        this(name, executionTime, priority, command, outputDirectory, timeLimit, Clock.SYSTEM.nanoTime());
+    }
+
+    private ProcessJob(String name, double executionTime, int priority, List<String> command, Path outputDirectory,
+                       double timeLimit, long arrivalNanos) {
+        this(name, executionTime, priority, Clock.SYSTEM.toEpochMillis(arrivalNanos), arrivalNanos, command,
+                outputDirectory, timeLimit);
+    }
+
+    private ProcessJob(String name, double executionTime, int priority, double arrivalTime, long arrivalNanos,
+                       List<String> command, Path outputDirectory, double timeLimit) {
+        super(name, executionTime, priority, arrivalTime, arrivalNanos, Clock.SYSTEM);
+        if (timeLimit < 0) {
+            throw new IllegalArgumentException("Time limit cannot be negative");
+        }
+        this.timeLimit = timeLimit;
+        if (command == null || command.isEmpty()) {
+            throw new IllegalArgumentException("A process job needs a command");
+        }
+        this.command = List.copyOf(command);
+        // The name is typed at the prompt; keep only characters that cannot leave the output directory
+        String fileStem = name.replaceAll("[^A-Za-z0-9_-]", "_") + "-" + nextId.incrementAndGet();
+        this.outputFile = outputDirectory.resolve(fileStem + ".out");
+        this.errorFile = outputDirectory.resolve(fileStem + ".err");
+        this.timesFile = outputDirectory.resolve(fileStem + ".times");
+    }
+
+    /**
+     * Starts the process without waiting for it
+     * @return A future completed with the exit code once the process has exited
+     */
+    public CompletableFuture<Integer> launch() {
+        setStatus(Status.RUNNING);
+        try {
+            Files.createDirectories(outputFile.getParent());
+
+            List<String> wrapped = new ArrayList<>(List.of("sh", "-c", CPU_TIME_WRAPPER, "sh"));
+            wrapped.addAll(command);
+            ProcessBuilder builder = new ProcessBuilder(wrapped)
+                    .redirectOutput(outputFile.toFile())
+                    .redirectError(errorFile.toFile())
+                    .redirectInput(ProcessBuilder.Redirect.from(new File("/dev/null")));
+            builder.environment().put("CSUBATCH_TIMES_FILE", timesFile.toString());
+
+            Process process = builder.start();
+            if (timeLimit <= 0) {
+                return process.onExit().thenApplyAsync(exited -> finish(exited.exitValue()));
+            }
+            TimingWheel.Timeout limit = TimingWheel.getInstance().schedule((long) (timeLimit * 1000), () -> {
+                timedOut = true;
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+            });
+            return process.onExit().thenApplyAsync(exited -> {
+                limit.cancel();
+                return finish(exited.exitValue());
+            });
+        } catch (IOException e) {
+            finish(-1);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private int finish(int code) {
+        exitCode = code;
+        childCpuTime = readChildCpuTime();
+        setStatus(Status.FINISHED);
+        return code;
+    }
+
+    /**
+     * Runs the process and blocks until it exits
+     * @return true if the process exited with status 0
+     */
+    @Override
+    public boolean run() {
+        try {
+            return launch().join() == 0;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses the second line of the shell's "times" report, e.g. "0m1.250s 0m0.040s",
+     * which holds the user and system time of the shell's children
+     * @return The command's CPU time in seconds, or -1 if it could not be read
+     */
+    private double readChildCpuTime() {
+        try {
+            List<String> lines = Files.readAllLines(timesFile, StandardCharsets.UTF_8);
+            Files.deleteIfExists(timesFile);
+            if (lines.size() < 2) {
+                return -1;
+            }
+            double total = 0;
+            for (String field : lines.get(1).trim().split("\\s+")) {
+                int minutes = field.indexOf('m');
+                total += Double.parseDouble(field.substring(0, minutes)) * 60
+                       + Double.parseDouble(field.substring(minutes + 1, field.length() - 1));
+            }
+            return total;
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    public List<String> getCommand() {
+        return command;
+    }
+
+    public Path getOutputFile() {
+        return outputFile;
+    }
+
+    public Path getErrorFile() {
+        return errorFile;
+    }
+
+    /**
+     * Get the process exit code
+     * @return The exit code, or -1 if the process has not exited or could not be started
+     */
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * Get the wall-clock limit
+     * @return The limit in seconds, or 0 if the job has none
+     */
+    public double getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Whether the process was killed for exceeding its wall-clock limit
+     * @return true if the time limit expired
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Get the user plus system CPU time used by the command
+     * @return The CPU time in seconds, or -1 if unknown
+     */
+    public double getChildCpuTime() {
+        return childCpuTime;
+    }
+
+    /**
+     * Get the time the process ran for
+     * @return The wall time in seconds, or -1 if the process has not finished
+     */
+    public double getWallTime() {
+        if (getStartNanos() == -1 || getCompletedNanos() == -1) {
+            return -1;
+        }
+        return (getCompletedNanos() - getStartNanos()) / 1e9;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " Command: " + String.join(" ", command);
+    }
+}
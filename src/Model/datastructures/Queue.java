@@ -1,6 +1,8 @@
 package Model.datastructures;
 
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 
 public class Queue implements Iterable<Object> {
     private Node head;
@@ -41,6 +43,69 @@ public class Queue implements Iterable<Object> {
         return data;
     }
 
+    /**
+     * Merges already sorted items into this queue in a single pass.
+     * The queue itself must already be sorted by the same order. Items that compare
+     * equal to a queued item are placed after it, so the merge is stable.
+     * @param sortedItems The items to insert, sorted by order
+     * @param order The order both the queue and the items are sorted by
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void mergeSorted(List<? extends T> sortedItems, Comparator<? super T> order) {
+        Node current = head;
+        for (T item : sortedItems) {
+            while (current != null && order.compare((T) current.getData(), item) <= 0) {
+                current = current.getNext();
+            }
+            if (current == null) {
+                enqueue(item);
+            } else {
+                insertBefore(current, item);
+            }
+        }
+    }
+
+    private void insertBefore(Node node, Object data) {
+        Node newNode = new Node(data);
+        Node previous = node.getPrevious();
+        newNode.setNext(node);
+        newNode.setPrevious(previous);
+        node.setPrevious(newNode);
+        if (previous != null) {
+            previous.setNext(newNode);
+        } else {
+            head = newNode;
+        }
+        size++;
+    }
+
+    /**
+     * Removes the first occurrence of an item from anywhere in the queue
+     * @param data The item to remove
+     * @return true if the item was found and removed
+     */
+    public boolean remove(Object data) {
+        for (Node node = head; node != null; node = node.getNext()) {
+            if (node.getData() == data) {
+                Node previous = node.getPrevious();
+                Node next = node.getNext();
+                if (previous != null) {
+                    previous.setNext(next);
+                } else {
+                    head = next;
+                }
+                if (next != null) {
+                    next.setPrevious(previous);
+                } else {
+                    tail = previous;
+                }
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
     public Object peek() {
         return (head != null) ? head.getData() : null;
     }
@@ -0,0 +1,45 @@
+package Model.datastructures;
+
+/**
+ * Receives every change made to the JobQueue, e.g. to record it somewhere that survives
+ * this process. Calls are made outside the queue lock, on the thread making the change, so
+ * implementations must be thread-safe and should not block. submitted() is called just before
+ * the job can be seen in the queue and the others just after the change, so a job's calls
+ * always arrive in the order its changes happened.
+ * @author Group 1
+ */
+public interface QueueJournal {
+    /**
+     * A job is entering the queue, or going back into it
+     * @param job The job
+     */
+    void submitted(Job job);
+
+    /**
+     * A job was given an execution slot
+     * @param job The job
+     */
+    void dispatched(Job job);
+
+    /**
+     * A job released its execution slot, whether or not it completed
+     * @param job The job
+     */
+    void released(Job job);
+
+    /**
+     * A waiting job was removed from the queue without running
+     * @param job The job
+     */
+    void cancelled(Job job);
+
+    /**
+     * Whether the queue must stop changing, e.g. because this process lost the journal to
+     * another instance that now runs the same jobs. A fenced queue refuses submissions and
+     * hands out no jobs.
+     * @return true if the queue is fenced
+     */
+    default boolean isFenced() {
+        return false;
+    }
+}
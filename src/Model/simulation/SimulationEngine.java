@@ -0,0 +1,183 @@
+package Model.simulation;
+
+import Model.algorithms.SchedulingPolicy;
+import Model.datastructures.Job;
+import Model.statistics.JobStatistics;
+import util.Logger;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Discrete-event simulation of the scheduler and dispatcher in virtual time.
+ * Arrivals, starts and completions are events ordered by virtual time; jobs never sleep,
+ * so hours of workload replay in moments. Waiting jobs are ordered by the real scheduling
+ * policy's comparator and measured by a real JobStatistics instance on a virtual clock.
+ * Simulated jobs and their statistics log to a silent logger: per-job log I/O would dominate
+ * the run time, and the shared log belongs to the real scheduler running alongside.
+ * @author Group 1
+ */
+public class SimulationEngine {
+    /**
+     * The kinds of event that drive the simulation
+     */
+    public enum EventType {
+        ARRIVAL,
+        START,
+        COMPLETION
+    }
+
+    /**
+     * An event at a point in virtual time. Events at the same time run in the order they
+     * were scheduled, so jobs arriving together are all queued before a start is decided.
+     */
+    private record Event(long timeMillis, long sequence, EventType type, Job job) {
+    }
+
+    /**
+     * A job waiting to start. The sequence number keeps the policy order stable.
+     */
+    private record WaitingJob(Job job, long sequence) {
+    }
+
+    private final VirtualClock _clock;
+    private final JobStatistics _statistics;
+    private final SchedulingPolicy _policy;
+    private final PriorityQueue<Event> _events;
+    private final PriorityQueue<WaitingJob> _waitingJobs;
+    private final Logger _logger;
+    private final String _moduleID = "Simulation";
+    private int _freeSlots;
+    private boolean _startScheduled = false;
+    private long _nextSequence = 0;
+    private long _eventsProcessed = 0;
+
+    /**
+     * Constructor for SimulationEngine. Virtual time starts at 0 milliseconds.
+     * @param policy The scheduling policy whose order waiting jobs follow
+     * @param slots The number of jobs that may run at the same time
+     * @throws IllegalArgumentException if slots is not positive
+     */
+    public SimulationEngine(SchedulingPolicy policy, int slots) {
+        if (slots <= 0) {
+            throw new IllegalArgumentException("Slot count must be positive: " + slots);
+        }
+        _clock = new VirtualClock(0);
+        _statistics = new JobStatistics(_clock, Logger.silent());
+        _statistics.setSchedulingPolicy(policy.getPolicyName());
+        _policy = policy;
+        _freeSlots = slots;
+        _events = new PriorityQueue<>(Comparator.comparingLong(Event::timeMillis).thenComparingLong(Event::sequence));
+        Comparator<Job> policyOrder = policy.getComparator();
+        _waitingJobs = new PriorityQueue<>((a, b) -> {
+            int order = policyOrder.compare(a.job(), b.job());
+            return order != 0 ? order : Long.compare(a.sequence(), b.sequence());
+        });
+        _logger = Logger.getInstance();
+    }
+
+    /**
+     * Schedule a job to arrive at the given virtual time
+     * @param name The name of the job
+     * @param executionTime The time the job runs for (in seconds)
+     * @param priority The priority of the job
+     * @param arrivalMillis The virtual arrival time in milliseconds
+     * @return The simulated job
+     * @throws IllegalArgumentException if the arrival lies in the virtual past
+     */
+    public Job submit(String name, double executionTime, int priority, long arrivalMillis) {
+        if (arrivalMillis < _clock.currentTimeMillis()) {
+            throw new IllegalArgumentException("Arrival " + arrivalMillis + " is before the current virtual time");
+        }
+        Job job = new Job(name, executionTime, priority, arrivalMillis, _clock, Logger.silent());
+        schedule(arrivalMillis, EventType.ARRIVAL, job);
+        return job;
+    }
+
+    /**
+     * Process events until none are left
+     */
+    public void run() {
+        Event event;
+        while ((event = _events.poll()) != null) {
+            _clock.advanceTo(event.timeMillis());
+            _eventsProcessed++;
+            switch (event.type()) {
+                case ARRIVAL -> arrive(event.job());
+                case START -> startWaitingJobs();
+                case COMPLETION -> complete(event.job());
+            }
+        }
+        _logger.info(_moduleID, "Simulation finished at virtual time " + _clock.currentTimeMillis() +
+                    " ms after " + _eventsProcessed + " events");
+    }
+
+    private void arrive(Job job) {
+        _statistics.recordJobSubmission(job);
+        _waitingJobs.add(new WaitingJob(job, _nextSequence++));
+        scheduleStartIfPossible();
+    }
+
+    private void startWaitingJobs() {
+        _startScheduled = false;
+        while (_freeSlots > 0 && !_waitingJobs.isEmpty()) {
+            Job job = _waitingJobs.poll().job();
+            _freeSlots--;
+            job.setStatus(Job.Status.RUNNING);
+            _statistics.recordJobDispatch(job);
+            long runMillis = Math.round(job.getExecutionTime() * 1000);
+            schedule(_clock.currentTimeMillis() + runMillis, EventType.COMPLETION, job);
+        }
+    }
+
+    private void complete(Job job) {
+        job.setStatus(Job.Status.FINISHED);
+        _statistics.recordJobCompletion(job);
+        _statistics.recordJobRelease(job);
+        _freeSlots++;
+        scheduleStartIfPossible();
+    }
+
+    private void scheduleStartIfPossible() {
+        if (!_startScheduled && _freeSlots > 0 && !_waitingJobs.isEmpty()) {
+            _startScheduled = true;
+            schedule(_clock.currentTimeMillis(), EventType.START, null);
+        }
+    }
+
+    private void schedule(long timeMillis, EventType type, Job job) {
+        _events.add(new Event(timeMillis, _nextSequence++, type, job));
+    }
+
+    /**
+     * Get the statistics gathered in virtual time
+     * @return The simulation's own JobStatistics instance
+     */
+    public JobStatistics getStatistics() {
+        return _statistics;
+    }
+
+    /**
+     * Get the current virtual time
+     * @return The virtual time in milliseconds
+     */
+    public long getVirtualTimeMillis() {
+        return _clock.currentTimeMillis();
+    }
+
+    /**
+     * Get how many events have been processed
+     * @return The number of arrivals, starts and completions handled so far
+     */
+    public long getEventsProcessed() {
+        return _eventsProcessed;
+    }
+
+    /**
+     * Get the policy the simulation orders waiting jobs by
+     * @return The scheduling policy
+     */
+    public SchedulingPolicy getPolicy() {
+        return _policy;
+    }
+}
@@ -0,0 +1,36 @@
+package Model.simulation;
+
+import util.Clock;
+
+/**
+ * A clock that only moves when the simulation advances it.
+ * @author Group 1
+ */
+public class VirtualClock implements Clock {
+    private long _nowMillis;
+
+    /**
+     * Constructor for VirtualClock
+     * @param startMillis The initial virtual time in milliseconds
+     */
+    public VirtualClock(long startMillis) {
+        _nowMillis = startMillis;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return _nowMillis;
+    }
+
+    /**
+     * Move the clock forward
+     * @param timeMillis The new virtual time in milliseconds
+     * @throws IllegalArgumentException if timeMillis is earlier than the current time
+     */
+    public void advanceTo(long timeMillis) {
+        if (timeMillis < _nowMillis) {
+            throw new IllegalArgumentException("Virtual time cannot go backwards: " + timeMillis + " < " + _nowMillis);
+        }
+        _nowMillis = timeMillis;
+    }
+}
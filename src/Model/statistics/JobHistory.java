@@ -0,0 +1,369 @@
+package Model.statistics;
+
+import Model.datastructures.Job;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import util.Logger;
+
+/**
+ * The most recent completed jobs, one compact Entry each, in a ring of fixed capacity.
+ * A background thread writes every entry to append-only segment files shortly after it is
+ * recorded, so entries that fall out of the ring can still be read back from disk, and the
+ * heap used stays the same however many jobs run. Only the newest MAX_SEGMENTS segments
+ * are kept. Sequence numbers continue from the segments a previous run left behind.
+ *
+ * Without a directory the history is kept in memory only and older entries are forgotten.
+ * If jobs complete faster than the spill thread writes them, the ring overwrites entries
+ * before they reach disk; they are counted as dropped.
+ * @author Group 1
+ */
+public class JobHistory {
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int SEGMENT_ENTRIES = 10_000;
+    public static final int MAX_SEGMENTS = 32;
+    private static final long SPILL_INTERVAL_MILLIS = 1000;
+    private static final String SEGMENT_PREFIX = "history-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final String _moduleID = "JobHistory";
+    private final Logger _logger;
+    private final Entry[] _ring;
+    private final File _directory;
+    // The sequence number of the first entry recorded by this instance
+    private final long _firstSequence;
+    // Guarded by this
+    private long _nextSequence;
+    // Guarded by _spillLock
+    private long _spilledSequence;
+    // Read without _spillLock when recording, to decide whether to wake the spill thread early
+    private volatile long _spilledSequenceHint;
+    private long _dropped;
+    private BufferedWriter _segment;
+    private int _segmentEntries;
+    private final Object _spillLock = new Object();
+    private Thread _spillThread;
+    private volatile boolean _closed;
+
+    /**
+     * How a job ended
+     */
+    public enum Outcome {
+        COMPLETED,
+        FAILED,
+        TIMED_OUT
+    }
+
+    /**
+     * One completed job. Times are wall-clock milliseconds of the job's clock, for display;
+     * the waiting and turnaround times are measured on its monotonic clock, in microseconds.
+     * Start and waiting time are -1 for a process that never started.
+     */
+    public record Entry(long sequence, String name, int priority, double executionTime, long arrivalMillis,
+                        long startMillis, long completedMillis, Outcome outcome, int exitCode,
+                        long waitingMicros, long turnaroundMicros) {
+
+        /**
+         * Get the time the job waited before it started
+         * @return The waiting time in seconds, or -1 if it never started
+         */
+        public double waitingTime() {
+            return waitingMicros < 0 ? -1 : waitingMicros / 1e6;
+        }
+
+        /**
+         * Get the time from the job's arrival until it ended
+         * @return The turnaround time in seconds
+         */
+        public double turnaroundTime() {
+            return turnaroundMicros / 1e6;
+        }
+
+        private String toLine() {
+            // Names cannot contain whitespace when typed at the prompt, but may when built in code
+            return sequence + "\t" + name.replaceAll("\\s", "_") + "\t" + priority + "\t" + executionTime + "\t"
+                    + arrivalMillis + "\t" + startMillis + "\t" + completedMillis + "\t" + outcome + "\t" + exitCode
+                    + "\t" + waitingMicros + "\t" + turnaroundMicros;
+        }
+
+        private static Entry fromLine(String line) {
+            String[] fields = line.split("\t");
+            if (fields.length != 9 && fields.length != 11) {
+                throw new IllegalArgumentException("Expected 11 fields in history entry: " + line);
+            }
+            long arrivalMillis = Long.parseLong(fields[4]);
+            long startMillis = Long.parseLong(fields[5]);
+            long completedMillis = Long.parseLong(fields[6]);
+            // Segments written before the durations were stored only have them to the millisecond
+            long waitingMicros = fields.length == 11 ? Long.parseLong(fields[9])
+                    : startMillis < 0 ? -1 : (startMillis - arrivalMillis) * 1000;
+            long turnaroundMicros = fields.length == 11 ? Long.parseLong(fields[10])
+                    : (completedMillis - arrivalMillis) * 1000;
+            return new Entry(Long.parseLong(fields[0]), fields[1], Integer.parseInt(fields[2]),
+                    Double.parseDouble(fields[3]), arrivalMillis, startMillis, completedMillis,
+                    Outcome.valueOf(fields[7]), Integer.parseInt(fields[8]), waitingMicros, turnaroundMicros);
+        }
+    }
+
+    /**
+     * Constructor for JobHistory
+     * @param capacity The number of entries kept in memory
+     * @param directory The directory segment files are written to, or null to keep the history in memory only
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public JobHistory(int capacity, File directory) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity must be positive: " + capacity);
+        }
+        _logger = Logger.getInstance();
+        _ring = new Entry[capacity];
+        _directory = directory;
+        long next = 0;
+        if (directory != null) {
+            directory.mkdirs();
+            next = lastSpilledSequence() + 1;
+        }
+        _firstSequence = next;
+        _nextSequence = next;
+        _spilledSequence = next;
+        _spilledSequenceHint = next;
+    }
+
+    /**
+     * Record a job that ended
+     * @param job The job
+     * @param outcome How it ended
+     * @param exitCode The exit code of a process job, otherwise 0
+     */
+    public void record(Job job, Outcome outcome, int exitCode) {
+        long completed = job.getCompletedTime();
+        long waitingMicros = job.getStartNanos() < 0 ? -1 : (job.getStartNanos() - job.getArrivalNanos()) / 1000;
+        long turnaroundMicros = job.getCompletedNanos() < 0 ? -1
+                : (job.getCompletedNanos() - job.getArrivalNanos()) / 1000;
+        boolean spillDue;
+        synchronized (this) {
+            long sequence = _nextSequence++;
+            _ring[(int) (sequence % _ring.length)] = new Entry(sequence, job.getName(), job.getPriority(),
+                    job.getExecutionTime(), (long) job.getArrivalTime(), job.getStartTime(), completed, outcome, exitCode,
+                    waitingMicros, turnaroundMicros);
+            spillDue = _nextSequence - _spilledSequenceHint >= _ring.length / 2;
+        }
+        if (_directory == null) {
+            return;
+        }
+        Thread spillThread = spillThread();
+        if (spillDue) {
+            LockSupport.unpark(spillThread);
+        }
+    }
+
+    /**
+     * Get the most recent entries, reading older ones back from the segment files when the
+     * ring does not hold enough
+     * @param count The number of entries wanted
+     * @return Up to count entries, oldest first
+     */
+    public List<Entry> getRecent(int count) {
+        List<Entry> recent = new ArrayList<>();
+        long oldestInRing;
+        synchronized (this) {
+            oldestInRing = Math.max(_firstSequence, _nextSequence - _ring.length);
+            long from = Math.max(oldestInRing, _nextSequence - count);
+            for (long sequence = from; sequence < _nextSequence; sequence++) {
+                recent.add(_ring[(int) (sequence % _ring.length)]);
+            }
+        }
+        int missing = count - recent.size();
+        if (missing > 0 && _directory != null) {
+            List<Entry> older = readSpilled(oldestInRing, missing);
+            older.addAll(recent);
+            return older;
+        }
+        return recent;
+    }
+
+    /**
+     * Get the number of entries recorded since this history was created
+     * @return The number of entries
+     */
+    public synchronized long getRecordedCount() {
+        return _nextSequence - _firstSequence;
+    }
+
+    /**
+     * Get the number of entries overwritten in the ring before they could be written to disk
+     * @return The number of dropped entries
+     */
+    public long getDroppedCount() {
+        synchronized (_spillLock) {
+            return _dropped;
+        }
+    }
+
+    /**
+     * Write every entry recorded so far to the current segment
+     */
+    public void flush() {
+        if (_directory == null) {
+            return;
+        }
+        synchronized (_spillLock) {
+            Entry[] pending;
+            synchronized (this) {
+                long from = Math.max(_spilledSequence, _nextSequence - _ring.length);
+                pending = new Entry[(int) (_nextSequence - from)];
+                for (int i = 0; i < pending.length; i++) {
+                    pending[i] = _ring[(int) ((from + i) % _ring.length)];
+                }
+                _dropped += from - _spilledSequence;
+                _spilledSequence = _nextSequence;
+            }
+            try {
+                for (Entry entry : pending) {
+                    if (_segment == null || _segmentEntries >= SEGMENT_ENTRIES) {
+                        openSegment(entry.sequence());
+                    }
+                    _segment.write(entry.toLine());
+                    _segment.newLine();
+                    _segmentEntries++;
+                }
+                if (_segment != null) {
+                    _segment.flush();
+                }
+            } catch (IOException e) {
+                _logger.error(_moduleID, "Could not write job history to " + _directory + ": " + e.getMessage());
+            }
+            _spilledSequenceHint = _spilledSequence;
+        }
+    }
+
+    /**
+     * Write the remaining entries and stop the spill thread. Entries recorded afterwards are
+     * kept in memory only.
+     */
+    public void close() {
+        _closed = true;
+        Thread spillThread;
+        synchronized (this) {
+            spillThread = _spillThread;
+        }
+        if (spillThread != null) {
+            LockSupport.unpark(spillThread);
+        }
+        flush();
+        synchronized (_spillLock) {
+            closeSegment();
+        }
+    }
+
+    private synchronized Thread spillThread() {
+        if (_spillThread == null && !_closed) {
+            _spillThread = new Thread(this::spillLoop, "JobHistory-spill");
+            _spillThread.setDaemon(true);
+            _spillThread.start();
+        }
+        return _spillThread;
+    }
+
+    private void spillLoop() {
+        while (!_closed) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(SPILL_INTERVAL_MILLIS));
+            if (!_closed) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Called with _spillLock held
+     */
+    private void openSegment(long firstSequence) throws IOException {
+        closeSegment();
+        File file = new File(_directory, String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        _segment = new BufferedWriter(new FileWriter(file, true));
+        _segmentEntries = 0;
+        File[] segments = listSegments();
+        for (int i = 0; i < segments.length - MAX_SEGMENTS; i++) {
+            if (!segments[i].delete()) {
+                _logger.warning(_moduleID, "Could not delete old history segment " + segments[i]);
+            }
+        }
+    }
+
+    /**
+     * Called with _spillLock held
+     */
+    private void closeSegment() {
+        if (_segment == null) {
+            return;
+        }
+        try {
+            _segment.close();
+        } catch (IOException e) {
+            _logger.error(_moduleID, "Could not close job history segment: " + e.getMessage());
+        }
+        _segment = null;
+    }
+
+    /**
+     * Get the segment files, oldest first; the zero-padded first sequence numbers sort by name
+     */
+    private File[] listSegments() {
+        File[] segments = _directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (segments == null) {
+            return new File[0];
+        }
+        Arrays.sort(segments);
+        return segments;
+    }
+
+    private List<Entry> readSpilled(long beforeSequence, int count) {
+        List<Entry> older = new ArrayList<>();
+        synchronized (_spillLock) {
+            File[] segments = listSegments();
+            for (int i = segments.length - 1; i >= 0 && older.size() < count; i--) {
+                List<Entry> entries = readSegment(segments[i]);
+                entries.removeIf(entry -> entry.sequence() >= beforeSequence);
+                older.addAll(0, entries.subList(Math.max(0, entries.size() - (count - older.size())), entries.size()));
+            }
+        }
+        return older;
+    }
+
+    private long lastSpilledSequence() {
+        File[] segments = listSegments();
+        for (int i = segments.length - 1; i >= 0; i--) {
+            List<Entry> entries = readSegment(segments[i]);
+            if (!entries.isEmpty()) {
+                return entries.get(entries.size() - 1).sequence();
+            }
+        }
+        return -1;
+    }
+
+    private List<Entry> readSegment(File segment) {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(segment))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    entries.add(Entry.fromLine(line));
+                } catch (IllegalArgumentException e) {
+                    // A line cut short by a crash
+                    _logger.warning(_moduleID, "Skipping unreadable history entry in " + segment + ": " + line);
+                }
+            }
+        } catch (IOException e) {
+            _logger.error(_moduleID, "Could not read job history segment " + segment + ": " + e.getMessage());
+        }
+        return entries;
+    }
+}
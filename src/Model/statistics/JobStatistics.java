@@ -1,32 +1,89 @@
 package Model.statistics;
 
 import Model.datastructures.Job;
-import java.util.ArrayList;
+import Model.datastructures.ProcessJob;
+import java.io.File;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import util.Clock;
 import util.Logger;
 
 /**
  * Singleton class to track and calculate job batch processing metrics.
- * This class collects information about all submitted and completed jobs
- * and provides methods to calculate various performance metrics.
+ * Jobs are not retained: each submission and completion is folded into running counters
+ * and StreamingStatistics, so recording and reading take constant time and memory however
+ * many jobs have run, and threads recording at the same time rarely contend.
  * @author Group 1
  */
 public class JobStatistics {
     private static JobStatistics instance;
-    private final List<Job> submittedJobs;
-    private final List<Job> completedJobs;
     private final Logger logger;
     private final String _moduleID = "JobStats";
-    private final long systemStartTime;
+    private final Clock clock;
+    // On the clock's nanoTime() scale
+    private volatile long systemStartNanos;
+    private volatile int slotCount;
+    private final LongAdder submittedJobs = new LongAdder();
+    private final RateMeter submissionRate;
+    private final RateMeter dispatchRate;
+    private final RateMeter completionRate;
+    // Their counts are the number of completed jobs
+    private final StreamingStatistic turnaroundTimes = new StreamingStatistic();
+    private final StreamingStatistic waitingTimes = new StreamingStatistic();
+    private final StreamingStatistic cpuTimes = new StreamingStatistic();
+    // Arrival to dispatch, arrival to the start of execution, and arrival to completion
+    private final LatencyHistogram dispatchDelays = new LatencyHistogram();
+    private final LatencyHistogram waitingTimeHistogram = new LatencyHistogram();
+    private final LatencyHistogram turnaroundTimeHistogram = new LatencyHistogram();
+    // Kept across reset() so runs under different policies can be compared
+    private final StatisticsBreakdown breakdown = new StatisticsBreakdown();
+    private final JobHistory history;
+    private final AtomicInteger runningJobs = new AtomicInteger();
+    private final AtomicInteger peakRunningJobs = new AtomicInteger();
+    private final LongAdder processJobsCompleted = new LongAdder();
+    private final LongAdder processJobsFailed = new LongAdder();
+    private final StreamingStatistic processWallTimes = new StreamingStatistic();
+    // Only for process jobs whose CPU time could be measured
+    private final StreamingStatistic processCpuTimes = new StreamingStatistic();
+    private final LongAdder rejectedJobs = new LongAdder();
+    private final LongAdder shedJobs = new LongAdder();
+    private final LongAdder skippedJobs = new LongAdder();
     
     /**
      * Private constructor for the singleton pattern
      */
     private JobStatistics() {
-        submittedJobs = new ArrayList<>();
-        completedJobs = new ArrayList<>();
-        logger = Logger.getInstance();
-        systemStartTime = System.currentTimeMillis();
+        this(Clock.SYSTEM, new JobHistory(JobHistory.DEFAULT_CAPACITY, new File("logs/history")), Logger.getInstance());
+    }
+    
+    /**
+     * Constructor for an instance independent of the singleton, e.g. for a simulation.
+     * Its job history is kept in memory only.
+     * @param clock The clock throughput is measured against
+     */
+    public JobStatistics(Clock clock) {
+        this(clock, Logger.getInstance());
+    }
+    
+    /**
+     * Constructor for an independent instance that logs somewhere other than the shared log,
+     * e.g. nowhere for a simulation. Its job history is kept in memory only.
+     * @param clock The clock throughput is measured against
+     * @param logger The logger the recorded events are written to
+     */
+    public JobStatistics(Clock clock, Logger logger) {
+        this(clock, new JobHistory(JobHistory.DEFAULT_CAPACITY, null), logger);
+    }
+    
+    private JobStatistics(Clock clock, JobHistory history, Logger logger) {
+        this.logger = logger;
+        this.clock = clock;
+        this.history = history;
+        systemStartNanos = clock.nanoTime();
+        submissionRate = new RateMeter(clock);
+        dispatchRate = new RateMeter(clock);
+        completionRate = new RateMeter(clock);
     }
     
     /**
@@ -40,42 +97,250 @@ public class JobStatistics {
         return instance;
     }
     
+    /**
+     * Attribute the jobs dispatched from now on to a scheduling policy in the breakdown
+     * @param policyName The name of the policy
+     */
+    public void setSchedulingPolicy(String policyName) {
+        breakdown.selectPolicy(policyName);
+    }
+    
     /**
      * Record a job submission
      * @param job The job that was submitted
      */
-    public synchronized void recordJobSubmission(Job job) {
+    public void recordJobSubmission(Job job) {
         if (job != null) {
-            submittedJobs.add(job);
+            submittedJobs.increment();
+            submissionRate.mark();
             logger.info(_moduleID, "Recorded job submission: " + job.getName());
         }
     }
     
     /**
-     * Record a job completion
+     * Record that a job was dispatched to an execution slot
+     * @param job The job that was dispatched
+     */
+    public void recordJobDispatch(Job job) {
+        if (job != null) {
+            double dispatchDelay = job.getDispatchDelay();
+            if (dispatchDelay >= 0) {
+                dispatchDelays.recordSeconds(dispatchDelay);
+            }
+            dispatchRate.mark();
+            // Attributed to the policy that ordered the queue it left, even if the policy changes before it completes
+            job.setPolicySlot(breakdown.getCurrentPolicy());
+            int running = runningJobs.incrementAndGet();
+            peakRunningJobs.accumulateAndGet(running, Math::max);
+        }
+    }
+    
+    /**
+     * Record that a job released its execution slot, whether or not it completed
+     * @param job The job that released its slot
+     */
+    public void recordJobRelease(Job job) {
+        if (job != null) {
+            runningJobs.updateAndGet(running -> running > 0 ? running - 1 : 0);
+        }
+    }
+    
+    /**
+     * Get the number of jobs currently occupying an execution slot
+     * @return The number of running jobs
+     */
+    public int getRunningJobs() {
+        return runningJobs.get();
+    }
+    
+    /**
+     * Set how many jobs the dispatcher can run at the same time, for showing slot utilization
+     * @param slotCount The number of execution slots, or 0 if unknown, e.g. on a cluster
+     */
+    public void setSlotCount(int slotCount) {
+        this.slotCount = Math.max(0, slotCount);
+    }
+
+    /**
+     * Get the number of execution slots
+     * @return The number of slots, or 0 if unknown
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+    
+    /**
+     * Get the highest number of jobs that were running at the same time
+     * @return The peak number of concurrently running jobs
+     */
+    public int getPeakRunningJobs() {
+        return peakRunningJobs.get();
+    }
+    
+    /**
+     * Record that a full queue refused a submission
+     * @param job The job that was refused
+     */
+    public void recordJobRejected(Job job) {
+        if (job != null) {
+            rejectedJobs.increment();
+            logger.info(_moduleID, "Recorded job rejection: " + job.getName());
+        }
+    }
+    
+    /**
+     * Record that a queued job was dropped to make room for a higher-priority one
+     * @param job The job that was dropped
+     */
+    public void recordJobShed(Job job) {
+        if (job != null) {
+            shedJobs.increment();
+            logger.info(_moduleID, "Recorded job shed: " + job.getName());
+        }
+    }
+    
+    /**
+     * Record that a dispatcher dequeued a job that was not idle and did not run it
+     * @param job The job that was skipped
+     */
+    public void recordJobSkipped(Job job) {
+        if (job != null) {
+            skippedJobs.increment();
+            logger.error(_moduleID, "Recorded skipped job that was not idle: " + job.getName() + " (" + job.getStatus() + ")");
+        }
+    }
+    
+    /**
+     * Get the number of submissions refused because the queue was full
+     * @return The number of rejected jobs
+     */
+    public int getRejectedJobs() {
+        return rejectedJobs.intValue();
+    }
+    
+    /**
+     * Get the number of queued jobs dropped to make room for higher-priority ones
+     * @return The number of shed jobs
+     */
+    public int getShedJobs() {
+        return shedJobs.intValue();
+    }
+    
+    /**
+     * Get the number of dequeued jobs that were not idle and so were never run
+     * @return The number of skipped jobs
+     */
+    public int getSkippedJobs() {
+        return skippedJobs.intValue();
+    }
+    
+    /**
+     * Record a job completion; a job is only counted the first time
      * @param job The job that was completed
      */
-    public synchronized void recordJobCompletion(Job job) {
-        if (job != null && job.isFinished() && !completedJobs.contains(job)) {
-            completedJobs.add(job);
+    public void recordJobCompletion(Job job) {
+        if (job != null && job.isFinished() && job.markCompletionRecorded()) {
+            completionRate.mark();
+            turnaroundTimes.record(job.getTurnaroundTime());
+            waitingTimes.record(job.getWaitingTime());
+            cpuTimes.record(job.getExecutionTime());
+            turnaroundTimeHistogram.recordSeconds(job.getTurnaroundTime());
+            waitingTimeHistogram.recordSeconds(job.getWaitingTime());
+            // A job completed without a recorded dispatch counts under the current policy
+            int policySlot = job.getPolicySlot() >= 0 ? job.getPolicySlot() : breakdown.getCurrentPolicy();
+            breakdown.record(policySlot, job.getPriority(), job.getExecutionTime(), job.getWaitingTime(),
+                    job.getTurnaroundTime());
+            // Process jobs enter the history with their exit code in recordProcessCompletion
+            if (!(job instanceof ProcessJob)) {
+                history.record(job, JobHistory.Outcome.COMPLETED, 0);
+            }
             logger.info(_moduleID, "Recorded job completion: " + job.getName());
         }
     }
     
+    /**
+     * Record the outcome of a process job: its exit code, wall time and the CPU time of the command
+     * @param job The process job that exited
+     */
+    public void recordProcessCompletion(ProcessJob job) {
+        if (job == null) {
+            return;
+        }
+        processJobsCompleted.increment();
+        if (job.getExitCode() != 0) {
+            processJobsFailed.increment();
+        }
+        processWallTimes.record(Math.max(0, job.getWallTime()));
+        if (job.getChildCpuTime() >= 0) {
+            processCpuTimes.record(job.getChildCpuTime());
+        }
+        JobHistory.Outcome outcome = job.isTimedOut() ? JobHistory.Outcome.TIMED_OUT
+                : job.getExitCode() != 0 ? JobHistory.Outcome.FAILED : JobHistory.Outcome.COMPLETED;
+        history.record(job, outcome, job.getExitCode());
+        logger.info(_moduleID, "Recorded process exit: " + job.getName() + " (exit code " + job.getExitCode() +
+                    ", wall " + job.getWallTime() + "s, cpu " + job.getChildCpuTime() + "s)");
+    }
+    
+    /**
+     * Record a process job whose process could not be started. It ran nothing, so it is only
+     * counted as a failed process job, not as a completion or towards any time.
+     * @param job The process job that failed to launch
+     */
+    public void recordProcessLaunchFailure(ProcessJob job) {
+        if (job == null) {
+            return;
+        }
+        processJobsFailed.increment();
+        history.record(job, JobHistory.Outcome.FAILED, job.getExitCode());
+        logger.info(_moduleID, "Recorded process launch failure: " + job.getName());
+    }
+    
+    /**
+     * Get the number of process jobs that have exited
+     * @return The number of exited process jobs
+     */
+    public int getProcessJobsCompleted() {
+        return processJobsCompleted.intValue();
+    }
+    
+    /**
+     * Get the number of process jobs that exited with a non-zero code or failed to start
+     * @return The number of failed process jobs
+     */
+    public int getProcessJobsFailed() {
+        return processJobsFailed.intValue();
+    }
+    
+    /**
+     * Calculate the average wall time of exited process jobs
+     * @return The average wall time in seconds
+     */
+    public double getAverageProcessWallTime() {
+        return processWallTimes.getAverage();
+    }
+    
+    /**
+     * Calculate the average CPU time measured for exited process jobs
+     * @return The average user plus system time in seconds
+     */
+    public double getAverageProcessCpuTime() {
+        return processCpuTimes.getAverage();
+    }
+    
     /**
      * Get the total number of submitted jobs
      * @return The number of submitted jobs
      */
-    public synchronized int getTotalJobsSubmitted() {
-        return submittedJobs.size();
+    public int getTotalJobsSubmitted() {
+        return submittedJobs.intValue();
     }
     
     /**
      * Get the total number of completed jobs
      * @return The number of completed jobs
      */
-    public synchronized int getTotalJobsCompleted() {
-        return completedJobs.size();
+    public int getTotalJobsCompleted() {
+        return (int) turnaroundTimes.getCount();
     }
     
     /**
@@ -83,34 +348,16 @@ public class JobStatistics {
      * Turnaround time = completion time - arrival time
      * @return The average turnaround time in seconds
      */
-    public synchronized double getAverageTurnaroundTime() {
-        if (completedJobs.isEmpty()) {
-            return 0;
-        }
-        
-        double totalTurnaroundTime = 0;
-        for (Job job : completedJobs) {
-            totalTurnaroundTime += job.getTurnaroundTime();
-        }
-        
-        return totalTurnaroundTime / completedJobs.size();
+    public double getAverageTurnaroundTime() {
+        return turnaroundTimes.getAverage();
     }
     
     /**
      * Calculate the average CPU time (execution time) for all completed jobs
      * @return The average CPU time in seconds
      */
-    public synchronized double getAverageCPUTime() {
-        if (completedJobs.isEmpty()) {
-            return 0;
-        }
-        
-        double totalCPUTime = 0;
-        for (Job job : completedJobs) {
-            totalCPUTime += job.getExecutionTime();
-        }
-        
-        return totalCPUTime / completedJobs.size();
+    public double getAverageCPUTime() {
+        return cpuTimes.getAverage();
     }
     
     /**
@@ -118,59 +365,219 @@ public class JobStatistics {
      * Waiting time = start time - arrival time
      * @return The average waiting time in seconds
      */
-    public synchronized double getAverageWaitingTime() {
-        if (completedJobs.isEmpty()) {
-            return 0;
-        }
-        
-        double totalWaitingTime = 0;
-        for (Job job : completedJobs) {
-            totalWaitingTime += job.getWaitingTime();
-        }
-        
-        return totalWaitingTime / completedJobs.size();
+    public double getAverageWaitingTime() {
+        return waitingTimes.getAverage();
+    }
+
+    /**
+     * Get the turnaround times of all completed jobs: count, average, spread and extremes
+     * @return The turnaround times in seconds
+     */
+    public StreamingStatistic.Snapshot getTurnaroundTimes() {
+        return turnaroundTimes.snapshot();
+    }
+
+    /**
+     * Get the waiting times of all completed jobs: count, average, spread and extremes
+     * @return The waiting times in seconds
+     */
+    public StreamingStatistic.Snapshot getWaitingTimes() {
+        return waitingTimes.snapshot();
+    }
+
+    /**
+     * Get the distribution of the time jobs waited in the queue until they were dispatched
+     * @return A snapshot of the dispatch delays
+     */
+    public LatencyHistogram.Snapshot getDispatchDelayHistogram() {
+        return dispatchDelays.snapshot();
+    }
+
+    /**
+     * Get the distribution of the waiting times of completed jobs
+     * @return A snapshot of the waiting times
+     */
+    public LatencyHistogram.Snapshot getWaitingTimeHistogram() {
+        return waitingTimeHistogram.snapshot();
+    }
+
+    /**
+     * Get the distribution of the turnaround times of completed jobs
+     * @return A snapshot of the turnaround times
+     */
+    public LatencyHistogram.Snapshot getTurnaroundTimeHistogram() {
+        return turnaroundTimeHistogram.snapshot();
+    }
+
+    /**
+     * Format the latency percentiles as a table, one row per histogram
+     * @return The table, in seconds
+     */
+    public String getLatencySummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("%-18s %9s %9s %9s %9s %9s%n", "Latency (seconds)", "p50", "p90", "p99", "p99.9", "max"));
+        appendPercentiles(summary, "Dispatch delay", dispatchDelays.snapshot());
+        appendPercentiles(summary, "Waiting time", waitingTimeHistogram.snapshot());
+        appendPercentiles(summary, "Turnaround time", turnaroundTimeHistogram.snapshot());
+        return summary.toString();
+    }
+
+    private static void appendPercentiles(StringBuilder summary, String name, LatencyHistogram.Snapshot histogram) {
+        summary.append(String.format("%-18s %9.3f %9.3f %9.3f %9.3f %9.3f%n", name,
+                histogram.getSecondsAtPercentile(50), histogram.getSecondsAtPercentile(90),
+                histogram.getSecondsAtPercentile(99), histogram.getSecondsAtPercentile(99.9),
+                histogram.getMax() / 1e6));
     }
     
     /**
-     * Calculate the throughput (jobs completed per second)
+     * Get the completed jobs broken down by policy, priority level and size class
+     * @return One row per combination a job was completed in
+     */
+    public List<StatisticsBreakdown.Row> getBreakdown() {
+        return breakdown.getRows();
+    }
+
+    /**
+     * Format the breakdown by policy, priority level and size class as a table
+     * @return The table, in seconds
+     */
+    public String getBreakdownSummary() {
+        return breakdown.format();
+    }
+
+    /**
+     * Forget the breakdown by policy, priority level and size class, which reset() keeps
+     */
+    public void resetBreakdown() {
+        breakdown.reset();
+        logger.info(_moduleID, "Statistics breakdown reset");
+    }
+    
+    /**
+     * Get the history of the most recent completed jobs
+     * @return The job history
+     */
+    public JobHistory getHistory() {
+        return history;
+    }
+    
+    /**
+     * Get the rates at which jobs are submitted
+     * @return The submission meter
+     */
+    public RateMeter getSubmissionRate() {
+        return submissionRate;
+    }
+
+    /**
+     * Get the rates at which jobs are dispatched to a slot
+     * @return The dispatch meter
+     */
+    public RateMeter getDispatchRate() {
+        return dispatchRate;
+    }
+
+    /**
+     * Get the rates at which jobs complete
+     * @return The completion meter
+     */
+    public RateMeter getCompletionRate() {
+        return completionRate;
+    }
+
+    /**
+     * Format the current rates as a table, one row per meter
+     * @return The table, in jobs per second
+     */
+    public String getRateSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("%-14s %9s %9s %9s %9s%n", "Rate (jobs/s)", "last " + RateMeter.WINDOW_SECONDS + "s",
+                "1 min", "5 min", "15 min"));
+        appendRates(summary, "Submitted", submissionRate);
+        appendRates(summary, "Dispatched", dispatchRate);
+        appendRates(summary, "Completed", completionRate);
+        return summary.toString();
+    }
+
+    private static void appendRates(StringBuilder summary, String name, RateMeter meter) {
+        summary.append(String.format("%-14s %9.2f %9.2f %9.2f %9.2f%n", name, meter.getWindowRate(),
+                meter.getOneMinuteRate(), meter.getFiveMinuteRate(), meter.getFifteenMinuteRate()));
+    }
+
+    /**
+     * Calculate the throughput (jobs completed per second since the statistics were started or reset)
      * @return The throughput in jobs per second
      */
-    public synchronized double getThroughput() {
-        if (completedJobs.isEmpty()) {
+    public double getThroughput() {
+        long completed = turnaroundTimes.getCount();
+        if (completed == 0) {
             return 0;
         }
         
-        long currentTime = System.currentTimeMillis();
-        double elapsedTimeInSeconds = (currentTime - systemStartTime) / 1000.0;
+        double elapsedTimeInSeconds = (clock.nanoTime() - systemStartNanos) / 1e9;
         
         if (elapsedTimeInSeconds <= 0) {
             return 0;
         }
         
-        return completedJobs.size() / elapsedTimeInSeconds;
+        return completed / elapsedTimeInSeconds;
     }
     
     /**
      * Print a summary of all job statistics
      * @return A formatted string with all statistics
      */
-    public synchronized String getStatisticsSummary() {
+    public String getStatisticsSummary() {
+        StreamingStatistic.Snapshot turnaround = turnaroundTimes.snapshot();
+        StreamingStatistic.Snapshot waiting = waitingTimes.snapshot();
         StringBuilder summary = new StringBuilder();
         summary.append("Total number of job submitted: ").append(getTotalJobsSubmitted()).append("\n");
-        summary.append("Average turnaround time: ").append(String.format("%.2f", getAverageTurnaroundTime())).append(" seconds\n");
+        summary.append("Average turnaround time: ").append(String.format("%.2f", turnaround.average()))
+               .append(" seconds (std dev ").append(String.format("%.2f", turnaround.standardDeviation())).append(")\n");
         summary.append("Average CPU time: ").append(String.format("%.2f", getAverageCPUTime())).append(" seconds\n");
-        summary.append("Average waiting time: ").append(String.format("%.2f", getAverageWaitingTime())).append(" seconds\n");
+        summary.append("Average waiting time: ").append(String.format("%.2f", waiting.average()))
+               .append(" seconds (std dev ").append(String.format("%.2f", waiting.standardDeviation())).append(")\n");
         summary.append("Throughput: ").append(String.format("%.3f", getThroughput())).append(" No./second\n");
+        summary.append("Running jobs: ").append(getRunningJobs()).append(" (peak ").append(getPeakRunningJobs()).append(")\n");
+        if (getRejectedJobs() > 0 || getShedJobs() > 0) {
+            summary.append("Rejected jobs: ").append(getRejectedJobs()).append(", shed jobs: ").append(getShedJobs()).append("\n");
+        }
+        if (getSkippedJobs() > 0) {
+            summary.append("Skipped jobs (not idle when dequeued): ").append(getSkippedJobs()).append("\n");
+        }
+        if (getProcessJobsCompleted() > 0 || getProcessJobsFailed() > 0) {
+            summary.append("Process jobs: ").append(getProcessJobsCompleted()).append(" (").append(getProcessJobsFailed()).append(" failed)\n");
+            summary.append("Average process wall time: ").append(String.format("%.2f", getAverageProcessWallTime())).append(" seconds\n");
+            summary.append("Average process CPU time: ").append(String.format("%.2f", getAverageProcessCpuTime())).append(" seconds\n");
+        }
         
         return summary.toString();
     }
     
     /**
-     * Reset all statistics
+     * Reset all statistics except the breakdown by policy, priority level and size class,
+     * and the job history
      */
-    public synchronized void reset() {
-        submittedJobs.clear();
-        completedJobs.clear();
+    public void reset() {
+        submittedJobs.reset();
+        submissionRate.reset();
+        dispatchRate.reset();
+        completionRate.reset();
+        systemStartNanos = clock.nanoTime();
+        turnaroundTimes.reset();
+        waitingTimes.reset();
+        cpuTimes.reset();
+        dispatchDelays.reset();
+        waitingTimeHistogram.reset();
+        turnaroundTimeHistogram.reset();
+        peakRunningJobs.set(runningJobs.get());
+        processJobsCompleted.reset();
+        processJobsFailed.reset();
+        processWallTimes.reset();
+        processCpuTimes.reset();
+        rejectedJobs.reset();
+        shedJobs.reset();
+        skippedJobs.reset();
         logger.info(_moduleID, "Statistics reset");
     }
 } 
\ No newline at end of file
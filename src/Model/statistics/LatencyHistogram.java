@@ -0,0 +1,210 @@
+package Model.statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-memory histogram of non-negative values, laid out like HdrHistogram: values below
+ * 256 have a bucket each, and every power of two above that is split into 128 linear
+ * sub-buckets, so a value is reported within 1% of what was recorded whatever its size.
+ * Values above MAX_TRACKABLE_VALUE are counted in the last bucket; the exact maximum and
+ * sum are kept separately.
+ *
+ * The histogram has no unit of its own: the Snapshot accessors return values in whatever
+ * unit was recorded, e.g. nanoseconds for lock hold times or threads for queue lengths.
+ * Latencies are kept in microseconds (MAX_TRACKABLE_VALUE is then about 19 hours), which
+ * recordMicros, recordSeconds and getSecondsAtPercentile assume.
+ *
+ * Buckets are atomic counters, so any number of threads record and merge without locks.
+ * Percentiles are read from a Snapshot.
+ * @author Group 1
+ */
+public class LatencyHistogram {
+    // Values with fewer significant bits than this are counted exactly
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    public static final long MAX_TRACKABLE_VALUE = (1L << 36) - 1;
+    private static final int BUCKET_COUNT = indexOf(MAX_TRACKABLE_VALUE) + 1;
+
+    private final AtomicLongArray _counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong _max = new AtomicLong();
+    private final LongAdder _sum = new LongAdder();
+
+    /**
+     * The counts of a histogram at one moment
+     */
+    public static final class Snapshot {
+        private final long[] _counts;
+        private final long _total;
+        private final long _max;
+        private final long _sum;
+
+        private Snapshot(long[] counts, long max, long sum) {
+            _counts = counts;
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            _total = total;
+            _max = max;
+            _sum = sum;
+        }
+
+        public long getTotalCount() {
+            return _total;
+        }
+
+        /**
+         * Get the largest value recorded
+         * @return The maximum in the recorded unit, or 0 if nothing was recorded
+         */
+        public long getMax() {
+            return _max;
+        }
+
+        /**
+         * Get the sum of the values recorded
+         * @return The sum in the recorded unit
+         */
+        public long getSum() {
+            return _sum;
+        }
+
+        /**
+         * Get the number of values no larger than a bound. Values sharing a bucket with the
+         * bound are only counted if the whole bucket is, so the count may miss values up to
+         * 1% below the bound.
+         * @param value The bound in the recorded unit
+         * @return The number of values
+         */
+        public long getCountAtOrBelow(long value) {
+            long count = 0;
+            for (int i = 0; i < _counts.length && highestValueAt(i) <= value; i++) {
+                count += _counts[i];
+            }
+            return value >= _max ? _total : count;
+        }
+
+        /**
+         * Get the value below which the given share of the recorded values fall. Like
+         * HdrHistogram, the highest value of the bucket it falls in is reported.
+         * @param percentile The share, from 0 to 100
+         * @return The value in the recorded unit, or 0 if nothing was recorded
+         * @throws IllegalArgumentException if percentile is outside 0..100
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+            }
+            if (_total == 0) {
+                return 0;
+            }
+            // The tolerance keeps e.g. 99.9% of 1000 at rank 999; 99.9 has no exact binary form
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * _total - 1e-9));
+            long seen = 0;
+            for (int i = 0; i < _counts.length; i++) {
+                seen += _counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueAt(i), _max);
+                }
+            }
+            return _max;
+        }
+
+        /**
+         * Get a percentile of a histogram of microseconds in seconds, as the rest of the statistics are reported
+         * @param percentile The share, from 0 to 100
+         * @return The value in seconds
+         */
+        public double getSecondsAtPercentile(double percentile) {
+            return getValueAtPercentile(percentile) / 1e6;
+        }
+    }
+
+    /**
+     * Record one latency
+     * @param micros The latency in microseconds; negative values are counted as 0
+     */
+    public void recordMicros(long micros) {
+        record(micros);
+    }
+
+    /**
+     * Record one value in whatever unit the histogram is kept in, e.g. nanoseconds for lock
+     * hold times or threads for lock queue lengths; the accuracy and range are the same
+     * @param value The value; negative values are counted as 0
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        _counts.incrementAndGet(indexOf(Math.min(value, MAX_TRACKABLE_VALUE)));
+        _max.accumulateAndGet(value, Math::max);
+        _sum.add(value);
+    }
+
+    /**
+     * Record one latency given in seconds
+     * @param seconds The latency in seconds
+     */
+    public void recordSeconds(double seconds) {
+        recordMicros(Math.round(seconds * 1e6));
+    }
+
+    /**
+     * Add every value recorded in another histogram to this one
+     * @param other The histogram to merge in; it may be recorded into meanwhile
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other._counts.get(i);
+            if (count != 0) {
+                _counts.addAndGet(i, count);
+            }
+        }
+        _max.accumulateAndGet(other._max.get(), Math::max);
+        _sum.add(other._sum.sum());
+    }
+
+    /**
+     * Copy the counts. Values recorded meanwhile may or may not be included.
+     * @return The snapshot
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = _counts.get(i);
+        }
+        return new Snapshot(counts, _max.get(), _sum.sum());
+    }
+
+    /**
+     * Forget every recorded value
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            _counts.set(i, 0);
+        }
+        _max.set(0);
+        _sum.reset();
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // Keep the top SUB_BUCKET_BITS bits; the leading one puts them in HALF_SUB_BUCKETS..SUB_BUCKETS-1
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int top = (int) (value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (top - HALF_SUB_BUCKETS);
+    }
+
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long top = HALF_SUB_BUCKETS + (index - SUB_BUCKETS) % HALF_SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,191 @@
+package Model.statistics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import util.Clock;
+
+/**
+ * Measures how often something happens, in events per second, over several horizons:
+ * exponentially weighted moving averages over 1, 5 and 15 minutes (the Unix load average
+ * formula, ticked every 5 seconds), the exact rate over a sliding window of the last
+ * WINDOW_SECONDS one-second buckets, and the mean rate since the meter was started or reset.
+ *
+ * Marking never takes a lock. The averages are ticked by whichever thread first notices a
+ * tick is due: it claims the ticking with a compare-and-set and applies every due tick,
+ * while the other threads carry on without waiting.
+ * @author Group 1
+ */
+public class RateMeter {
+    public static final int WINDOW_SECONDS = 60;
+    private static final long TICK_MILLIS = 5000;
+    private static final double[] EWMA_MINUTES = {1, 5, 15};
+
+    private final Clock _clock;
+    private final LongAdder _count = new LongAdder();
+    // Marks not yet folded into the averages
+    private final LongAdder _uncounted = new LongAdder();
+    private final AtomicLong _lastTick;
+    // Held by the one thread applying ticks
+    private final AtomicBoolean _ticking = new AtomicBoolean();
+    private final double[] _alphas = new double[EWMA_MINUTES.length];
+    // Written only by the thread that claimed the tick
+    private final double[] _rates = new double[EWMA_MINUTES.length];
+    private volatile boolean _initialized;
+    private volatile long _startMillis;
+    // Each bucket packs the second it counts (high 32 bits) with its count (low 32 bits)
+    private final AtomicLongArray _buckets = new AtomicLongArray(WINDOW_SECONDS);
+
+    /**
+     * Constructor for RateMeter
+     * @param clock The clock rates are measured against
+     */
+    public RateMeter(Clock clock) {
+        _clock = clock;
+        _startMillis = nowMillis();
+        _lastTick = new AtomicLong(_startMillis);
+        for (int i = 0; i < EWMA_MINUTES.length; i++) {
+            _alphas[i] = 1 - Math.exp(-TICK_MILLIS / (EWMA_MINUTES[i] * 60_000));
+        }
+    }
+
+    /**
+     * Record one event
+     */
+    public void mark() {
+        long now = nowMillis();
+        tickIfDue(now);
+        _count.increment();
+        _uncounted.increment();
+
+        long second = Math.floorDiv(now, 1000);
+        int index = Math.floorMod(second, WINDOW_SECONDS);
+        long current;
+        long updated;
+        do {
+            current = _buckets.get(index);
+            // A bucket still counting an older second starts over
+            updated = (int) (current >>> 32) == (int) second ? current + 1 : ((second << 32) | 1);
+        } while (!_buckets.compareAndSet(index, current, updated));
+    }
+
+    private void tickIfDue(long now) {
+        // Checked again after each round, so ticks that fell due meanwhile are not left behind
+        while (now - _lastTick.get() >= TICK_MILLIS && _ticking.compareAndSet(false, true)) {
+            try {
+                // Another thread may have applied the due ticks between the check and the claim
+                long lastTick = _lastTick.get();
+                long ticks = (now - lastTick) / TICK_MILLIS;
+                if (ticks > 0) {
+                    applyTicks(ticks);
+                    _lastTick.set(lastTick + ticks * TICK_MILLIS);
+                }
+            } finally {
+                _ticking.set(false);
+            }
+            now = nowMillis();
+        }
+    }
+
+    /**
+     * Read the clock's monotonic scale, so adjusting the wall clock cannot skip or repeat ticks and buckets
+     * @return The time in milliseconds, from the nanoTime() origin
+     */
+    private long nowMillis() {
+        return Math.floorDiv(_clock.nanoTime(), 1_000_000L);
+    }
+
+    /**
+     * Folds the marks since the last tick into the averages. Call only while holding _ticking.
+     */
+    private void applyTicks(long ticks) {
+        // The first tick carries every mark since the last one; the rest had none
+        double instantRate = _uncounted.sumThenReset() / (TICK_MILLIS / 1000.0);
+        for (long tick = 0; tick < ticks; tick++) {
+            for (int i = 0; i < _rates.length; i++) {
+                _rates[i] = _initialized ? _rates[i] + _alphas[i] * (instantRate - _rates[i]) : instantRate;
+            }
+            _initialized = true;
+            instantRate = 0;
+        }
+    }
+
+    public long getCount() {
+        return _count.sum();
+    }
+
+    /**
+     * Get the one-minute exponentially weighted rate
+     * @return The rate in events per second
+     */
+    public double getOneMinuteRate() {
+        return ewma(0);
+    }
+
+    /**
+     * Get the five-minute exponentially weighted rate
+     * @return The rate in events per second
+     */
+    public double getFiveMinuteRate() {
+        return ewma(1);
+    }
+
+    /**
+     * Get the fifteen-minute exponentially weighted rate
+     * @return The rate in events per second
+     */
+    public double getFifteenMinuteRate() {
+        return ewma(2);
+    }
+
+    private double ewma(int index) {
+        tickIfDue(nowMillis());
+        return _initialized ? _rates[index] : 0;
+    }
+
+    /**
+     * Get the rate over the last WINDOW_SECONDS seconds, or since the meter started if that is shorter
+     * @return The rate in events per second
+     */
+    public double getWindowRate() {
+        long now = nowMillis();
+        long second = Math.floorDiv(now, 1000);
+        long events = 0;
+        for (long s = second; s > second - WINDOW_SECONDS; s--) {
+            long bucket = _buckets.get(Math.floorMod(s, WINDOW_SECONDS));
+            if ((int) (bucket >>> 32) == (int) s) {
+                events += bucket & 0xFFFFFFFFL;
+            }
+        }
+        // The current second is only partly over
+        double windowSeconds = Math.min(WINDOW_SECONDS - 1 + Math.floorMod(now, 1000) / 1000.0,
+                (now - _startMillis) / 1000.0);
+        // At least a second, so a meter started a moment ago does not report a burst
+        return events / Math.max(1, windowSeconds);
+    }
+
+    /**
+     * Get the rate since the meter was started or last reset
+     * @return The rate in events per second
+     */
+    public double getMeanRate() {
+        double elapsedSeconds = (nowMillis() - _startMillis) / 1000.0;
+        return elapsedSeconds <= 0 ? 0 : getCount() / elapsedSeconds;
+    }
+
+    /**
+     * Forget every event and start measuring from now
+     */
+    public void reset() {
+        long now = nowMillis();
+        _count.reset();
+        _uncounted.reset();
+        _lastTick.set(now);
+        _initialized = false;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            _buckets.set(i, 0);
+        }
+        _startMillis = now;
+    }
+}
@@ -0,0 +1,251 @@
+package Model.statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Completed-job statistics broken down by scheduling policy, priority level and size class,
+ * so it shows which kind of job a policy helps or hurts rather than one average over all.
+ * A job's size class is the log2 bucket of its execution time: under 1 second, 1-2 s, 2-4 s
+ * and so on up to 1024 s and over. Priorities outside 0..PRIORITY_LEVELS-1 share the first
+ * or last level, and policies beyond the first MAX_POLICIES names share an extra "Other" slot.
+ * A job is attributed to the policy it was dispatched under: the caller takes the slot from
+ * getCurrentPolicy() at dispatch and hands it to record() at completion.
+ *
+ * Every cell is preallocated in flat atomic arrays: its job count, the sums and maximum of
+ * its times, and a log2 histogram of its waiting times. Recording is a few atomic adds and
+ * never allocates or takes a lock.
+ * @author Group 1
+ */
+public class StatisticsBreakdown {
+    public static final int MAX_POLICIES = 4;
+    // The slot shared by every policy beyond the first MAX_POLICIES
+    public static final int OTHER_POLICY = MAX_POLICIES;
+    private static final int POLICY_SLOTS = MAX_POLICIES + 1;
+    public static final int PRIORITY_LEVELS = 12;
+    public static final int SIZE_CLASSES = 12;
+    // Bucket 0 counts waits under 1 ms, bucket k waits of 2^(k-1) to 2^k ms; the last is open-ended
+    private static final int WAIT_BUCKETS = 24;
+    private static final int CELLS = POLICY_SLOTS * PRIORITY_LEVELS * SIZE_CLASSES;
+
+    private final String[] _policies = new String[POLICY_SLOTS];
+    private volatile int _currentPolicy = -1;
+    private final AtomicLongArray _counts = new AtomicLongArray(CELLS);
+    private final AtomicLongArray _waitMicros = new AtomicLongArray(CELLS);
+    private final AtomicLongArray _maxWaitMicros = new AtomicLongArray(CELLS);
+    private final AtomicLongArray _turnaroundMicros = new AtomicLongArray(CELLS);
+    private final AtomicLongArray _waitBuckets = new AtomicLongArray(CELLS * WAIT_BUCKETS);
+
+    /**
+     * Constructor for StatisticsBreakdown, with no policy selected yet
+     */
+    public StatisticsBreakdown() {
+        _policies[OTHER_POLICY] = "Other";
+    }
+
+    /**
+     * The statistics of one non-empty cell, times in seconds. The waiting time percentiles
+     * are the upper bound of their log2 bucket, so they may be up to twice the true value.
+     */
+    public record Row(String policy, String priority, String size, long jobs, double averageWait,
+                      double p50Wait, double p99Wait, double maxWait, double averageTurnaround) {
+    }
+
+    /**
+     * Attribute the jobs recorded from now on to a policy
+     * @param policyName The name of the policy
+     */
+    public synchronized void selectPolicy(String policyName) {
+        String name = policyName.endsWith(".") ? policyName.substring(0, policyName.length() - 1) : policyName;
+        for (int i = 0; i < MAX_POLICIES; i++) {
+            if (_policies[i] == null) {
+                _policies[i] = name;
+            }
+            if (_policies[i].equals(name)) {
+                _currentPolicy = i;
+                return;
+            }
+        }
+        _currentPolicy = OTHER_POLICY;
+    }
+
+    /**
+     * Get the slot of the selected policy, e.g. to attribute a job dispatched now
+     * @return The slot to pass to record(), or -1 if no policy is selected yet
+     */
+    public int getCurrentPolicy() {
+        return _currentPolicy;
+    }
+
+    /**
+     * Record a completed job under the current policy. Nothing is recorded before a policy is selected.
+     * @param priority The priority of the job
+     * @param executionTime The execution time of the job in seconds
+     * @param waitingTime The time the job waited before it started, in seconds
+     * @param turnaroundTime The time from arrival to completion, in seconds
+     */
+    public void record(int priority, double executionTime, double waitingTime, double turnaroundTime) {
+        record(_currentPolicy, priority, executionTime, waitingTime, turnaroundTime);
+    }
+
+    /**
+     * Record a completed job under a policy that may no longer be selected
+     * @param policy The slot getCurrentPolicy() returned when the job was dispatched; nothing is
+     *               recorded for -1
+     * @param priority The priority of the job
+     * @param executionTime The execution time of the job in seconds
+     * @param waitingTime The time the job waited before it started, in seconds
+     * @param turnaroundTime The time from arrival to completion, in seconds
+     */
+    public void record(int policy, int priority, double executionTime, double waitingTime, double turnaroundTime) {
+        if (policy < 0 || policy >= POLICY_SLOTS) {
+            return;
+        }
+        int cell = cellOf(policy, priorityLevelOf(priority), sizeClassOf(executionTime));
+        long waitMicros = Math.max(0, Math.round(waitingTime * 1e6));
+        _counts.incrementAndGet(cell);
+        _waitMicros.addAndGet(cell, waitMicros);
+        _maxWaitMicros.accumulateAndGet(cell, waitMicros, Math::max);
+        _turnaroundMicros.addAndGet(cell, Math.max(0, Math.round(turnaroundTime * 1e6)));
+        _waitBuckets.incrementAndGet(cell * WAIT_BUCKETS + waitBucketOf(waitMicros));
+    }
+
+    /**
+     * Get the statistics of every cell a job was recorded in, by policy, then priority, then size
+     * @return The rows; values recorded meanwhile may or may not be included
+     */
+    public List<Row> getRows() {
+        List<Row> rows = new ArrayList<>();
+        String[] policies;
+        synchronized (this) {
+            policies = _policies.clone();
+        }
+        for (int policy = 0; policy < POLICY_SLOTS; policy++) {
+            if (policies[policy] == null) {
+                continue;
+            }
+            for (int level = 0; level < PRIORITY_LEVELS; level++) {
+                for (int size = 0; size < SIZE_CLASSES; size++) {
+                    int cell = cellOf(policy, level, size);
+                    long jobs = _counts.get(cell);
+                    if (jobs == 0) {
+                        continue;
+                    }
+                    long maxWait = _maxWaitMicros.get(cell);
+                    rows.add(new Row(policies[policy], priorityLabel(level), sizeLabel(size), jobs,
+                            _waitMicros.get(cell) / 1e6 / jobs,
+                            Math.min(waitPercentileMicros(cell, 50), maxWait) / 1e6,
+                            Math.min(waitPercentileMicros(cell, 99), maxWait) / 1e6,
+                            maxWait / 1e6, _turnaroundMicros.get(cell) / 1e6 / jobs));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Format the breakdown as a table, one row per non-empty cell
+     * @return The table, in seconds
+     */
+    public String format() {
+        List<Row> rows = getRows();
+        if (rows.isEmpty()) {
+            return "No completed jobs recorded yet.\n";
+        }
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%-18s %8s %8s %7s %9s %9s %9s %9s %11s%n", "Policy", "Priority", "Size",
+                "Jobs", "Avg wait", "p50 wait", "p99 wait", "Max wait", "Avg turnar."));
+        for (Row row : rows) {
+            table.append(String.format("%-18s %8s %8s %7d %9.3f %9.3f %9.3f %9.3f %11.3f%n", row.policy(),
+                    row.priority(), row.size(), row.jobs(), row.averageWait(), row.p50Wait(), row.p99Wait(),
+                    row.maxWait(), row.averageTurnaround()));
+        }
+        return table.toString();
+    }
+
+    /**
+     * Forget every recorded job; the current policy stays selected
+     */
+    public void reset() {
+        for (int cell = 0; cell < CELLS; cell++) {
+            _counts.set(cell, 0);
+            _waitMicros.set(cell, 0);
+            _maxWaitMicros.set(cell, 0);
+            _turnaroundMicros.set(cell, 0);
+        }
+        for (int i = 0; i < CELLS * WAIT_BUCKETS; i++) {
+            _waitBuckets.set(i, 0);
+        }
+    }
+
+    private long waitPercentileMicros(int cell, double percentile) {
+        long total = 0;
+        for (int bucket = 0; bucket < WAIT_BUCKETS; bucket++) {
+            total += _waitBuckets.get(cell * WAIT_BUCKETS + bucket);
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total - 1e-9));
+        long seen = 0;
+        for (int bucket = 0; bucket < WAIT_BUCKETS - 1; bucket++) {
+            seen += _waitBuckets.get(cell * WAIT_BUCKETS + bucket);
+            if (seen >= rank) {
+                return (1L << bucket) * 1000;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Get the label of the priority level a priority is counted under
+     * @param priority The job's priority
+     * @return The label, e.g. "3" or "11+"
+     */
+    public static String priorityLevelLabel(int priority) {
+        return priorityLabel(priorityLevelOf(priority));
+    }
+
+    /**
+     * Get the label of the power-of-two size class a duration falls in
+     * @param seconds The duration, e.g. a job's execution time
+     * @return The label, e.g. "<1s" or "4-8s"
+     */
+    public static String sizeClassLabel(double seconds) {
+        return sizeLabel(sizeClassOf(seconds));
+    }
+
+    private static int cellOf(int policy, int level, int size) {
+        return (policy * PRIORITY_LEVELS + level) * SIZE_CLASSES + size;
+    }
+
+    private static int priorityLevelOf(int priority) {
+        return Math.min(Math.max(priority, 0), PRIORITY_LEVELS - 1);
+    }
+
+    private static int sizeClassOf(double executionTime) {
+        if (!(executionTime >= 1)) {
+            return 0;
+        }
+        long seconds = (long) Math.min(executionTime, Long.MAX_VALUE);
+        return Math.min(64 - Long.numberOfLeadingZeros(seconds), SIZE_CLASSES - 1);
+    }
+
+    private static int waitBucketOf(long waitMicros) {
+        long millis = waitMicros / 1000;
+        return millis == 0 ? 0 : Math.min(64 - Long.numberOfLeadingZeros(millis), WAIT_BUCKETS - 1);
+    }
+
+    private static String priorityLabel(int level) {
+        if (level == 0) {
+            return "<=0";
+        }
+        return level == PRIORITY_LEVELS - 1 ? level + "+" : String.valueOf(level);
+    }
+
+    private static String sizeLabel(int size) {
+        if (size == 0) {
+            return "<1s";
+        }
+        long from = 1L << (size - 1);
+        return size == SIZE_CLASSES - 1 ? from + "s+" : from + "-" + (from << 1) + "s";
+    }
+}
@@ -0,0 +1,144 @@
+package Model.statistics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Count, sum, mean, variance, minimum and maximum of a stream of values, kept in constant
+ * memory. Like LongAdder, values are recorded into one of several cells picked by the
+ * recording thread, so threads rarely touch the same cell. Each cell holds an immutable
+ * Snapshot with its own Welford running mean and sum of squared deviations, replaced by
+ * compare-and-set; a thread that loses the race to another moves on to the next cell. No
+ * lock is taken to record or to read. Reading merges the cells, which costs the number of
+ * cells, not the number of values recorded.
+ * @author Group 1
+ */
+public class StreamingStatistic {
+    private static final int CELLS = cellCount();
+
+    private final AtomicReferenceArray<Snapshot> _cells = new AtomicReferenceArray<>(CELLS);
+
+    /**
+     * The merged state of every cell at one moment
+     */
+    public record Snapshot(long count, double sum, double mean, double m2, double min, double max) {
+        static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, Double.NaN, Double.NaN);
+
+        /**
+         * Get the average of the values
+         * @return The sum divided by the count, or 0 if nothing was recorded
+         */
+        public double average() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        /**
+         * Get the population variance of the values
+         * @return The variance, or 0 if nothing was recorded
+         */
+        public double variance() {
+            return count == 0 ? 0 : m2 / count;
+        }
+
+        public double standardDeviation() {
+            return Math.sqrt(variance());
+        }
+
+        /**
+         * Combines two snapshots (Chan et al.'s parallel form of Welford's algorithm)
+         */
+        Snapshot merge(Snapshot other) {
+            if (other.count == 0) {
+                return this;
+            }
+            if (count == 0) {
+                return other;
+            }
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            double mergedMean = mean + delta * other.count / total;
+            double mergedM2 = m2 + other.m2 + delta * delta * ((double) count * other.count / total);
+            return new Snapshot(total, sum + other.sum, mergedMean, mergedM2, Math.min(min, other.min),
+                    Math.max(max, other.max));
+        }
+
+        /**
+         * Adds one value (Welford's update)
+         */
+        Snapshot plus(double value) {
+            if (count == 0) {
+                return new Snapshot(1, value, value, 0, value, value);
+            }
+            long total = count + 1;
+            double delta = value - mean;
+            double updatedMean = mean + delta / total;
+            return new Snapshot(total, sum + value, updatedMean, m2 + delta * (value - updatedMean),
+                    Math.min(min, value), Math.max(max, value));
+        }
+    }
+
+    public StreamingStatistic() {
+        for (int i = 0; i < CELLS; i++) {
+            _cells.set(i, Snapshot.EMPTY);
+        }
+    }
+
+    // A power of two at least twice the processor count, so that masking picks a cell
+    private static int cellCount() {
+        int target = Math.min(64, 2 * Runtime.getRuntime().availableProcessors());
+        return Integer.highestOneBit(Math.max(1, target - 1)) << 1;
+    }
+
+    /**
+     * Record one value
+     * @param value The value
+     */
+    public void record(double value) {
+        // Fibonacci hashing spreads consecutive thread ids over the cells
+        long hash = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        int index = (int) (hash >>> 32) & (CELLS - 1);
+        while (true) {
+            Snapshot current = _cells.get(index);
+            if (_cells.compareAndSet(index, current, current.plus(value))) {
+                return;
+            }
+            index = (index + 1) & (CELLS - 1);
+        }
+    }
+
+    /**
+     * Merge every cell. Values recorded meanwhile may or may not be included.
+     * @return The statistic so far
+     */
+    public Snapshot snapshot() {
+        Snapshot merged = Snapshot.EMPTY;
+        for (int i = 0; i < CELLS; i++) {
+            merged = merged.merge(_cells.get(i));
+        }
+        return merged;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < CELLS; i++) {
+            count += _cells.get(i).count();
+        }
+        return count;
+    }
+
+    public double getAverage() {
+        return snapshot().average();
+    }
+
+    public double getStandardDeviation() {
+        return snapshot().standardDeviation();
+    }
+
+    /**
+     * Forget every recorded value
+     */
+    public void reset() {
+        for (int i = 0; i < CELLS; i++) {
+            _cells.set(i, Snapshot.EMPTY);
+        }
+    }
+}
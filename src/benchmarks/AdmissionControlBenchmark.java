@@ -0,0 +1,112 @@
+package benchmarks;
+
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import Model.statistics.JobStatistics;
+import multithreading.JobDispatcher;
+import multithreading.JobScheduler;
+import util.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Submits a storm of jobs much faster than the dispatcher can run them, once with an unbounded
+ * queue and once for each overload policy of a bounded one. For every run it prints how many
+ * jobs were admitted, rejected and shed, the longest the queue grew, and the queue waiting time
+ * of the admitted jobs.
+ * Usage: java -cp bin benchmarks.AdmissionControlBenchmark [jobs] [capacity]
+ * @author Group 1
+ */
+public class AdmissionControlBenchmark {
+    private static final int SLOTS = 32;
+    private static final double JOB_SECONDS = 0.005;
+    private static final int PRIORITY_LEVELS = 10;
+
+    public static void main(String[] args) throws InterruptedException {
+        int jobs = 30_000;
+        int capacity = 1_000;
+        try {
+            if (args.length > 0) {
+                jobs = Integer.parseInt(args[0]);
+            }
+            if (args.length > 1) {
+                capacity = Integer.parseInt(args[1]);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Error: The provided arguments are not valid integers.");
+            return;
+        }
+        Logger.getInstance().setFileOutput(false);
+        // Timer jobs hold a slot but no thread, so the service rate is exactly SLOTS / JOB_SECONDS
+        Job.setDefaultRunMode(Job.RunMode.TIMER);
+
+        System.out.printf("%d jobs submitted at once; %d slots serve %.0f jobs/s%n", jobs, SLOTS, SLOTS / JOB_SECONDS);
+        System.out.printf("%-10s %9s %9s %9s %9s %11s %11s %11s%n",
+                "queue", "admitted", "rejected", "shed", "peak", "wait p50 ms", "wait p99 ms", "wait max ms");
+
+        runStorm("unbounded", 0, JobQueue.OverloadPolicy.REJECT, jobs);
+        for (JobQueue.OverloadPolicy policy : JobQueue.OverloadPolicy.values()) {
+            runStorm(policy.name().toLowerCase(), capacity, policy, jobs);
+        }
+        System.exit(0);
+    }
+
+    private static void runStorm(String name, int capacity, JobQueue.OverloadPolicy policy, int jobs)
+            throws InterruptedException {
+        JobQueue jobQueue = JobQueue.getInstance();
+        JobStatistics jobStatistics = JobStatistics.getInstance();
+        JobScheduler jobScheduler = JobScheduler.getInstance();
+        jobQueue.setCapacity(capacity, policy, JobQueue.DEFAULT_BLOCK_TIMEOUT_MILLIS);
+        jobStatistics.reset();
+
+        JobDispatcher dispatcher = new JobDispatcher("AdmissionBench", SLOTS);
+        Thread dispatcherThread = new Thread(dispatcher, "AdmissionBench");
+        dispatcherThread.start();
+
+        Random random = new Random(11);
+        List<Job> admitted = new ArrayList<>();
+        int peakQueued = 0;
+        for (int i = 0; i < jobs; i++) {
+            Job job = new Job("Storm-" + i, JOB_SECONDS, random.nextInt(PRIORITY_LEVELS));
+            try {
+                jobScheduler.addJob(job);
+                admitted.add(job);
+            } catch (IllegalStateException e) {
+                // Counted by the statistics
+            }
+            if ((i & 63) == 0) {
+                peakQueued = Math.max(peakQueued, jobQueue.size());
+            }
+        }
+
+        // Shed jobs never run, so wait only for the ones still queued or running
+        while (!jobQueue.isEmpty() || jobQueue.getRunningJobCount() > 0) {
+            Thread.sleep(10);
+        }
+        dispatcher.stopRunning();
+        dispatcherThread.interrupt();
+        dispatcherThread.join();
+
+        long[] waits = admitted.stream()
+                .filter(Job::isFinished)
+                .mapToLong(job -> Math.round(job.getWaitingTime() * 1000))
+                .sorted()
+                .toArray();
+        System.out.printf("%-10s %9d %9d %9d %9d %11d %11d %11d%n", name,
+                admitted.size() - jobStatistics.getShedJobs(), jobStatistics.getRejectedJobs(),
+                jobStatistics.getShedJobs(), peakQueued,
+                percentile(waits, 0.50), percentile(waits, 0.99), waits.length == 0 ? 0 : waits[waits.length - 1]);
+        jobQueue.setCapacity(0, JobQueue.OverloadPolicy.REJECT, 0);
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
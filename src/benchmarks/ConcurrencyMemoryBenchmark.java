@@ -0,0 +1,102 @@
+package benchmarks;
+
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import multithreading.JobDispatcher;
+import multithreading.MultiThreader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Fills every slot of a dispatcher with long sleeping (I/O-style) jobs and reports how
+ * much memory each running job costs in the chosen execution mode.
+ * Usage: java -cp bin benchmarks.ConcurrencyMemoryBenchmark [platform|virtual] [jobs]
+ * @author Group 1
+ */
+public class ConcurrencyMemoryBenchmark {
+    // Long enough that no job finishes while the slots are still being filled
+    private static final double JOB_SECONDS = 600;
+    // Give up ramping when no further job has started for this long
+    private static final long STALL_MILLIS = 10000;
+
+    public static void main(String[] args) throws InterruptedException {
+        JobDispatcher.ExecutionMode mode = JobDispatcher.ExecutionMode.VIRTUAL;
+        int jobs = 100000;
+        try {
+            if (args.length > 0) {
+                mode = JobDispatcher.ExecutionMode.valueOf(args[0].toUpperCase(Locale.ROOT));
+            }
+            if (args.length > 1) {
+                jobs = Integer.parseInt(args[1]);
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Usage: ConcurrencyMemoryBenchmark [platform|virtual] [jobs]");
+            return;
+        }
+
+        JobQueue jobQueue = JobQueue.getInstance();
+        long baselineHeap = usedHeapAfterGc();
+        long baselineRss = residentSetKilobytes();
+
+        JobDispatcher jobDispatcher = new JobDispatcher("MemoryBench", jobs, mode);
+        MultiThreader.getInstance().createAndStartThread("JobDispatcher", jobDispatcher);
+
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < jobs; i++) {
+            jobQueue.addJob(new Job("Sleeper-" + i, JOB_SECONDS, 0));
+        }
+
+        // Wait until every job is running, or until the mode cannot start any more
+        int running = 0;
+        long lastProgress = System.currentTimeMillis();
+        while (running < jobs && System.currentTimeMillis() - lastProgress < STALL_MILLIS) {
+            Thread.sleep(200);
+            int now = jobQueue.getRunningJobCount();
+            if (now > running) {
+                running = now;
+                lastProgress = System.currentTimeMillis();
+            }
+        }
+        double rampSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        long heapPerJob = (usedHeapAfterGc() - baselineHeap) / Math.max(1, running);
+        long rssPerJob = (residentSetKilobytes() - baselineRss) * 1024 / Math.max(1, running);
+
+        System.out.println("Execution mode: " + mode);
+        System.out.println("Jobs running concurrently: " + running + "/" + jobs);
+        System.out.printf("Time to start all running jobs: %.2f seconds%n", rampSeconds);
+        System.out.println("Live threads: " + Thread.activeCount() + " platform (virtual threads are not counted)");
+        System.out.println("Heap per running job: " + heapPerJob + " bytes");
+        System.out.println("Resident memory per running job: " + rssPerJob + " bytes");
+
+        // The jobs sleep for minutes; there is nothing left to measure
+        jobDispatcher.stopRunning();
+        System.exit(0);
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Reads VmRSS from /proc, which includes the native stacks of platform threads
+     * @return The resident set size in kilobytes, or 0 if it cannot be read
+     */
+    private static long residentSetKilobytes() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Could not read resident memory: " + e.getMessage());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,125 @@
+package benchmarks;
+
+import Model.datastructures.Job;
+import multithreading.JobDispatcher;
+import multithreading.JobScheduler;
+import multithreading.MultiThreader;
+import util.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the same batch of jobs with sleeping and with CPU-burning execution, on as many
+ * slots as there are processors and on twice as many. With burning jobs the dispatcher
+ * competes with the work it runs, which shows up as makespan overhead over the ideal
+ * schedule and as a gap between a slot being freed and the next job starting on it.
+ * Usage: java -cp bin benchmarks.CpuSaturationBenchmark [jobs] [job_millis]
+ * @author Group 1
+ */
+public class CpuSaturationBenchmark {
+
+    /**
+     * A job that records when its run() method started and ended.
+     */
+    private static class TimedJob extends Job {
+        private volatile long startedNanos;
+        private volatile long finishedNanos;
+
+        TimedJob(String name, double executionTime) {
+            super(name, executionTime, 0);
+        }
+
+        @Override
+        public boolean run() {
+            startedNanos = System.nanoTime();
+            boolean result = super.run();
+            finishedNanos = System.nanoTime();
+            return result;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int jobs = 200;
+        int jobMillis = 20;
+        try {
+            if (args.length > 0) {
+                jobs = Integer.parseInt(args[0]);
+            }
+            if (args.length > 1) {
+                jobMillis = Integer.parseInt(args[1]);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Error: The provided arguments are not valid integers.");
+            return;
+        }
+        // Per-job log lines would dominate the measurement
+        Logger.getInstance().setFileOutput(false);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.println(jobs + " jobs of " + jobMillis + " ms on " + processors + " processor(s)");
+        System.out.printf("%-9s %6s %12s %12s %10s %14s %14s%n",
+                "mode", "slots", "makespan ms", "ideal ms", "overhead", "gap p50 us", "gap p99 us");
+
+        for (int slots : new int[] {processors, processors * 2}) {
+            for (Job.RunMode mode : Job.RunMode.values()) {
+                runWorkload(mode, slots, jobs, jobMillis);
+            }
+        }
+        MultiThreader.getInstance().terminateAllThreads();
+        System.exit(0);
+    }
+
+    private static void runWorkload(Job.RunMode mode, int slots, int jobs, int jobMillis)
+            throws InterruptedException {
+        Job.setDefaultRunMode(mode);
+        JobDispatcher dispatcher = new JobDispatcher("SaturationBench", slots);
+        Thread dispatcherThread = new Thread(dispatcher, "SaturationBench");
+        dispatcherThread.start();
+
+        List<TimedJob> batch = new ArrayList<>();
+        for (int i = 0; i < jobs; i++) {
+            batch.add(new TimedJob("Burn-" + i, jobMillis / 1000.0));
+        }
+        long begin = System.nanoTime();
+        for (TimedJob job : batch) {
+            JobScheduler.getInstance().addJob(job);
+        }
+        for (TimedJob job : batch) {
+            while (job.finishedNanos == 0) {
+                Thread.sleep(1);
+            }
+        }
+        long makespan = batch.stream().mapToLong(job -> job.finishedNanos).max().orElse(begin) - begin;
+
+        dispatcher.stopRunning();
+        dispatcherThread.interrupt();
+        dispatcherThread.join();
+
+        // Busy time per job is bounded by the processors once slots exceed them
+        int effectiveSlots = mode == Job.RunMode.CPU_BURN ? Math.min(slots, Runtime.getRuntime().availableProcessors()) : slots;
+        long ideal = (long) Math.ceil((double) jobs / effectiveSlots) * jobMillis * 1_000_000L;
+
+        // The i-th job to start (after the first wave) reuses the slot freed by the (i - slots)-th finish
+        long[] starts = batch.stream().mapToLong(job -> job.startedNanos).sorted().toArray();
+        long[] finishes = batch.stream().mapToLong(job -> job.finishedNanos).sorted().toArray();
+        long[] gaps = new long[Math.max(0, jobs - slots)];
+        for (int i = slots; i < jobs; i++) {
+            gaps[i - slots] = Math.max(0, starts[i] - finishes[i - slots]);
+        }
+        Arrays.sort(gaps);
+
+        System.out.printf("%-9s %6d %12.1f %12.1f %9.1f%% %14.1f %14.1f%n",
+                mode, slots, makespan / 1e6, ideal / 1e6, 100.0 * (makespan - ideal) / ideal,
+                percentile(gaps, 0.50) / 1000.0, percentile(gaps, 0.99) / 1000.0);
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,91 @@
+package benchmarks;
+
+import Model.datastructures.Job;
+import multithreading.JobDispatcher;
+import multithreading.JobScheduler;
+import multithreading.MultiThreader;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures submit-to-start latency on an idle system: the time from calling
+ * JobScheduler.addJob until the dispatcher enters the job's run() method.
+ * Usage: java -cp bin benchmarks.DispatchLatencyBenchmark [samples]
+ * @author Group 1
+ */
+public class DispatchLatencyBenchmark {
+    private static final int WARMUP_SAMPLES = 200;
+
+    /**
+     * A zero-length job that records when the dispatcher started running it.
+     */
+    private static class ProbeJob extends Job {
+        private volatile long startedNanos = -1;
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        ProbeJob(String name) {
+            super(name, 0, 0);
+        }
+
+        @Override
+        public boolean run() {
+            startedNanos = System.nanoTime();
+            try {
+                return super.run();
+            } finally {
+                finished.countDown();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int samples = 2000;
+        if (args.length > 0) {
+            try {
+                samples = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                System.out.println("Error: The provided argument is not a valid integer.");
+                return;
+            }
+        }
+
+        JobScheduler jobScheduler = JobScheduler.getInstance();
+        JobDispatcher jobDispatcher = new JobDispatcher("LatencyBench");
+        MultiThreader.getInstance().createAndStartThread("JobDispatcher", jobDispatcher);
+
+        // Let the dispatcher reach its idle wait before measuring
+        Thread.sleep(100);
+
+        long[] latencies = new long[samples];
+        for (int i = -WARMUP_SAMPLES; i < samples; i++) {
+            ProbeJob job = new ProbeJob("Probe-" + i);
+            long submittedNanos = System.nanoTime();
+            jobScheduler.addJob(job);
+
+            job.finished.await();
+            if (i >= 0) {
+                latencies[i] = job.startedNanos - submittedNanos;
+            }
+            // Give the slot time to be released so every sample starts from an idle system
+            Thread.sleep(1);
+        }
+
+        jobDispatcher.stopRunning();
+        MultiThreader.getInstance().terminateAllThreads();
+
+        Arrays.sort(latencies);
+        System.out.println("Submit-to-start latency over " + samples + " jobs (microseconds):");
+        System.out.printf("  min    %10.1f%n", latencies[0] / 1000.0);
+        System.out.printf("  p50    %10.1f%n", percentile(latencies, 0.50) / 1000.0);
+        System.out.printf("  p90    %10.1f%n", percentile(latencies, 0.90) / 1000.0);
+        System.out.printf("  p99    %10.1f%n", percentile(latencies, 0.99) / 1000.0);
+        System.out.printf("  max    %10.1f%n", latencies[samples - 1] / 1000.0);
+        System.exit(0);
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,197 @@
+package benchmarks;
+
+import Model.algorithms.FirstComeFirstServePolicy;
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import Model.statistics.JobStatistics;
+import multithreading.EventLoopCore;
+import multithreading.JobDispatcher;
+import multithreading.JobScheduler;
+import util.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Compares the lock-based pipeline (JobScheduler batching into the JobQueue, JobDispatcher
+ * taking jobs out under the queue lock and recording them in the synchronized statistics)
+ * with the single-writer EventLoopCore, where one thread owns the waiting and running jobs
+ * and records into the same statistics without taking a queue lock.
+ * Several threads submit zero-length jobs as fast as they can; the run ends when every job
+ * has run and been released. Each design reports jobs per second and how often it had to
+ * coordinate: queue lock holds per job for the pipeline, messages per wakeup for the loop.
+ * Usage: java -cp bin benchmarks.EventLoopBenchmark [jobs] [submitters] [slots]
+ * @author Group 1
+ */
+public class EventLoopBenchmark {
+
+    /**
+     * A job that does no work, counting down when it has run
+     */
+    private static class CountingJob extends Job {
+        private final CountDownLatch done;
+
+        CountingJob(String name, double arrivalTime, CountDownLatch done) {
+            super(name, 0, 1, arrivalTime);
+            this.done = done;
+        }
+
+        @Override
+        public boolean run() {
+            done.countDown();
+            return true;
+        }
+    }
+
+    /**
+     * The two designs under test, seen from a submitter
+     */
+    private interface Core {
+        void submit(Job job);
+        void awaitReleased(int jobs) throws InterruptedException;
+        String coordination(int jobs);
+        void stop() throws InterruptedException;
+    }
+
+    private static class PipelineCore implements Core {
+        private final JobQueue jobQueue = JobQueue.getInstance();
+        private final JobScheduler jobScheduler = JobScheduler.getInstance();
+        private final JobDispatcher jobDispatcher;
+        private final Thread dispatcherThread;
+
+        PipelineCore(int slots) {
+            JobStatistics.getInstance().reset();
+            jobQueue.resetLockMetrics();
+            jobDispatcher = new JobDispatcher("PipelineBench", slots);
+            dispatcherThread = new Thread(jobDispatcher, "PipelineBench");
+            dispatcherThread.start();
+        }
+
+        public void submit(Job job) {
+            jobScheduler.addJob(job);
+        }
+
+        public void awaitReleased(int jobs) throws InterruptedException {
+            while (jobQueue.getRunningJobCount() > 0 || !jobQueue.isEmpty()) {
+                Thread.sleep(1);
+            }
+        }
+
+        public String coordination(int jobs) {
+            JobQueue.LockMetrics metrics = jobQueue.getLockMetrics();
+            return String.format("%.1f queue lock holds/job", (double) (metrics.writeHolds() + metrics.readHolds()) / jobs);
+        }
+
+        public void stop() throws InterruptedException {
+            jobDispatcher.stopRunning();
+            dispatcherThread.interrupt();
+            dispatcherThread.join();
+        }
+    }
+
+    private static class EventLoop implements Core {
+        private final EventLoopCore core;
+        private final Thread loopThread;
+
+        EventLoop(int slots) {
+            JobStatistics.getInstance().reset();
+            core = new EventLoopCore("EventLoopBench", slots, new FirstComeFirstServePolicy().getComparator());
+            loopThread = new Thread(core, "EventLoopBench");
+            loopThread.start();
+        }
+
+        public void submit(Job job) {
+            core.submit(job);
+        }
+
+        public void awaitReleased(int jobs) throws InterruptedException {
+            // Every submission was posted before this query, so an idle loop has released them all
+            EventLoopCore.Statistics statistics = core.getStatistics().join();
+            while (statistics.waiting() > 0 || statistics.running() > 0) {
+                Thread.sleep(1);
+                statistics = core.getStatistics().join();
+            }
+        }
+
+        public String coordination(int jobs) {
+            EventLoopCore.Statistics statistics = core.getStatistics().join();
+            return String.format("%.1f messages/wakeup", (double) statistics.messages() / Math.max(1, statistics.wakeups()));
+        }
+
+        public void stop() throws InterruptedException {
+            core.stopRunning();
+            loopThread.join();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int jobs = 20_000;
+        int submitters = 4;
+        int slots = 4;
+        try {
+            if (args.length > 0) {
+                jobs = Integer.parseInt(args[0]);
+            }
+            if (args.length > 1) {
+                submitters = Integer.parseInt(args[1]);
+            }
+            if (args.length > 2) {
+                slots = Integer.parseInt(args[2]);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Error: The provided arguments are not valid integers.");
+            return;
+        }
+        Logger.getInstance().setFileOutput(false);
+        Thread schedulerThread = new Thread(JobScheduler.getInstance(), "JobScheduler");
+        schedulerThread.start();
+
+        System.out.println(jobs + " zero-length jobs from " + submitters + " submitter(s) on " + slots + " slot(s), "
+                + Runtime.getRuntime().availableProcessors() + " CPU(s)");
+        System.out.printf("%-12s %12s   %s%n", "core", "jobs/s", "coordination");
+        // Run each twice and report the second run, after the JIT has settled
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1;
+            run("pipeline", new PipelineCore(slots), jobs, submitters, report);
+            run("event loop", new EventLoop(slots), jobs, submitters, report);
+        }
+        System.exit(0);
+    }
+
+    private static void run(String name, Core core, int jobs, int submitters, boolean report)
+            throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(jobs);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < submitters; t++) {
+            int id = t;
+            int count = jobs / submitters + (t < jobs % submitters ? 1 : 0);
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < count; i++) {
+                    core.submit(new CountingJob("Bench-" + id + "-" + i, i, done));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        core.awaitReleased(jobs);
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (report) {
+            System.out.printf("%-12s %12.0f   %s%n", name, jobs / elapsed, core.coordination(jobs));
+        }
+        core.stop();
+    }
+}
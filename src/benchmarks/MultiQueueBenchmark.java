@@ -0,0 +1,224 @@
+package benchmarks;
+
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import util.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compares the strict job queue with the relaxed MultiQueue, and with a plain binary heap
+ * behind one lock, which separates the cost of the single lock from the cost of the strict
+ * queue's sorted linked list.
+ *
+ * Throughput: every thread repeatedly inserts a job with a random priority and removes the
+ * best one, on a queue kept at a steady length.
+ * Rank error: jobs with distinct priorities are inserted in random order and removed one by
+ * one from a queue with the same shards; each removal counts how many better jobs were still queued.
+ * Usage: java -cp bin benchmarks.MultiQueueBenchmark [threads] [operations_per_thread]
+ * @author Group 1
+ */
+public class MultiQueueBenchmark {
+    private static final int STEADY_QUEUE_LENGTH = 1_000;
+    private static final int RANK_JOBS = 100_000;
+    private static final int[] SHARDS_PER_THREAD = {2, 4};
+    private static final Comparator<Job> HIGHEST_PRIORITY_FIRST = Comparator.comparingInt(Job::getPriority).reversed();
+
+    /**
+     * The operations the benchmark needs from a queue
+     */
+    private interface JobSource {
+        void insert(Job job);
+        Job poll();
+
+        default void insertAll(List<Job> jobs) {
+            for (Job job : jobs) {
+                insert(job);
+            }
+        }
+    }
+
+    /**
+     * The JobQueue singleton, in whichever mode it was last switched to
+     */
+    private static class JobQueueSource implements JobSource {
+        private final JobQueue jobQueue = JobQueue.getInstance();
+
+        public void insert(Job job) {
+            jobQueue.mergeJobs(List.of(job), HIGHEST_PRIORITY_FIRST);
+        }
+
+        public void insertAll(List<Job> jobs) {
+            // One sorted merge; inserting one by one into the strict list would be quadratic
+            List<Job> sorted = new ArrayList<>(jobs);
+            sorted.sort(HIGHEST_PRIORITY_FIRST);
+            jobQueue.mergeJobs(sorted, HIGHEST_PRIORITY_FIRST);
+        }
+
+        public Job poll() {
+            return jobQueue.getNextJob();
+        }
+    }
+
+    private static class LockedHeapSource implements JobSource {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final PriorityQueue<Job> heap = new PriorityQueue<>(HIGHEST_PRIORITY_FIRST);
+
+        public void insert(Job job) {
+            lock.lock();
+            try {
+                heap.add(job);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public Job poll() {
+            lock.lock();
+            try {
+                return heap.poll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        int operations = 200_000;
+        try {
+            if (args.length > 0) {
+                threads = Integer.parseInt(args[0]);
+            }
+            if (args.length > 1) {
+                operations = Integer.parseInt(args[1]);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Error: The provided arguments are not valid integers.");
+            return;
+        }
+        Logger.getInstance().setFileOutput(false);
+        JobQueue jobQueue = JobQueue.getInstance();
+
+        System.out.println(threads + " threads on " + Runtime.getRuntime().availableProcessors() + " CPU(s), "
+                + operations + " insert+remove pairs per thread, queue length " + STEADY_QUEUE_LENGTH);
+        System.out.printf("%-16s %14s %14s %14s%n", "queue", "ops/s", "mean rank err", "max rank err");
+
+        // Run each twice and report the second run, after the JIT has settled
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1;
+            jobQueue.setMultiQueueShards(0, HIGHEST_PRIORITY_FIRST);
+            measure("strict", new JobQueueSource(), threads, operations, report);
+            measure("locked heap", new LockedHeapSource(), threads, operations, report);
+            for (int shardsPerThread : SHARDS_PER_THREAD) {
+                jobQueue.setMultiQueueShards(shardsPerThread * threads, HIGHEST_PRIORITY_FIRST);
+                measure("multiqueue c=" + shardsPerThread, new JobQueueSource(), threads, operations, report);
+            }
+        }
+        jobQueue.setMultiQueueShards(0, HIGHEST_PRIORITY_FIRST);
+        System.exit(0);
+    }
+
+    private static void measure(String name, JobSource source, int threads, int operations, boolean report)
+            throws InterruptedException {
+        double opsPerSecond = measureThroughput(source, threads, operations);
+        long[] rankErrors = measureRankError(source);
+        if (report) {
+            System.out.printf("%-16s %14.0f %14.2f %14d%n", name, opsPerSecond, rankErrors[0] / (double) RANK_JOBS, rankErrors[1]);
+        }
+    }
+
+    private static double measureThroughput(JobSource source, int threads, int operations) throws InterruptedException {
+        for (int i = 0; i < STEADY_QUEUE_LENGTH; i++) {
+            source.insert(new Job("Fill-" + i, 1, ThreadLocalRandom.current().nextInt(STEADY_QUEUE_LENGTH), i));
+        }
+        Job[] jobs = new Job[STEADY_QUEUE_LENGTH];
+        for (int i = 0; i < jobs.length; i++) {
+            jobs[i] = new Job("Op-" + i, 1, i, i);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < operations; i++) {
+                    source.insert(jobs[random.nextInt(jobs.length)]);
+                    source.poll();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        while (source.poll() != null) {
+            // Empty the queue for the next measurement
+        }
+        return 2.0 * threads * operations / (elapsed / 1e9);
+    }
+
+    /**
+     * Removes RANK_JOBS jobs with distinct priorities and counts, for each removal, how many
+     * better jobs were still queued. The removals are made by one thread so the order is exact;
+     * a thread stamping its removals could be descheduled between removing and stamping.
+     * @return The total and the largest rank error
+     */
+    private static long[] measureRankError(JobSource source) {
+        List<Job> jobs = new ArrayList<>(RANK_JOBS);
+        for (int i = 0; i < RANK_JOBS; i++) {
+            jobs.add(new Job("Rank-" + i, 1, i, i));
+        }
+        Collections.shuffle(jobs, new Random(5));
+        source.insertAll(jobs);
+
+        // Fenwick tree counting the priorities still queued
+        long[] tree = new long[RANK_JOBS + 1];
+        for (int priority = 0; priority < RANK_JOBS; priority++) {
+            fenwickAdd(tree, priority, 1);
+        }
+        long total = 0;
+        long max = 0;
+        Job job;
+        while ((job = source.poll()) != null) {
+            int priority = job.getPriority();
+            long better = fenwickSum(tree, RANK_JOBS - 1) - fenwickSum(tree, priority);
+            total += better;
+            max = Math.max(max, better);
+            fenwickAdd(tree, priority, -1);
+        }
+        return new long[] {total, max};
+    }
+
+    private static void fenwickAdd(long[] tree, int index, long delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private static long fenwickSum(long[] tree, int index) {
+        long sum = 0;
+        for (int i = index + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,126 @@
+package benchmarks;
+
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import Model.datastructures.Queue;
+import util.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Measures what read-mostly callers such as "list" and the waiting-time estimate cost the
+ * threads that enqueue and dequeue. Writer threads keep a few hundred jobs
+ * waiting while reader threads keep scanning the whole queue, first inside withQueue()
+ * (an exclusive hold, as every caller of the queue used to take) and then with readQueue()
+ * (an optimistic read). For each it reports enqueue/dequeue and read throughput and the
+ * queue lock's hold times.
+ * The writer threads add and take jobs in pairs, standing in for submitters and dispatchers.
+ * Usage: java -cp bin benchmarks.QueueLockBenchmark [seconds] [readers]
+ * @author Group 1
+ */
+public class QueueLockBenchmark {
+    private static final int WRITERS = 4;
+    private static final int STEADY_QUEUE_LENGTH = 500;
+
+    public static void main(String[] args) throws InterruptedException {
+        double seconds = 2;
+        int readers = 2;
+        try {
+            if (args.length > 0) {
+                seconds = Double.parseDouble(args[0]);
+            }
+            if (args.length > 1) {
+                readers = Integer.parseInt(args[1]);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Error: The provided arguments are not valid numbers.");
+            return;
+        }
+        Logger.getInstance().setFileOutput(false);
+        JobQueue jobQueue = JobQueue.getInstance();
+
+        System.out.println(WRITERS + " threads enqueueing and dequeueing, " + readers
+                + " readers for " + seconds + " s per run, " + STEADY_QUEUE_LENGTH + " jobs waiting");
+        System.out.printf("%-10s %14s %12s %14s %14s %12s %12s%n", "reads", "queue ops/s", "reads/s",
+                "avg hold us", "max hold us", "contended %", "retried %");
+
+        Function<Queue, Double> scan = queue -> {
+            double total = 0;
+            for (Object obj : queue) {
+                total += ((Job) obj).getExecutionTime();
+            }
+            return total;
+        };
+        // Run each twice and report the second run, after the JIT has settled
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1;
+            run("exclusive", () -> jobQueue.withQueue(scan), readers, seconds, report);
+            run("optimistic", () -> jobQueue.readQueue(scan), readers, seconds, report);
+        }
+        System.exit(0);
+    }
+
+    private static void run(String name, Runnable read, int readers, double seconds, boolean report)
+            throws InterruptedException {
+        JobQueue jobQueue = JobQueue.getInstance();
+        while (jobQueue.getNextJob() != null) {
+            // Start from an empty queue
+        }
+        for (int i = 0; i < STEADY_QUEUE_LENGTH; i++) {
+            jobQueue.addJob(new Job("Steady-" + i, 1 + i % 10, 1, i));
+        }
+        Job job = new Job("Churn", 1, 1, 0);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder queueOps = new LongAdder();
+        LongAdder reads = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            threads.add(new Thread(() -> {
+                // Add and take in pairs so the queue stays at its steady length
+                while (running.get()) {
+                    jobQueue.addJob(job);
+                    jobQueue.getNextJob();
+                    queueOps.add(2);
+                }
+            }));
+        }
+        for (int i = 0; i < readers; i++) {
+            threads.add(new Thread(() -> {
+                while (running.get()) {
+                    read.run();
+                    reads.increment();
+                }
+            }));
+        }
+
+        jobQueue.resetLockMetrics();
+        long start = System.nanoTime();
+        threads.forEach(Thread::start);
+        Thread.sleep((long) (seconds * 1000));
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        JobQueue.LockMetrics metrics = jobQueue.getLockMetrics();
+
+        if (report) {
+            long holds = metrics.writeHolds() + metrics.readHolds();
+            double averageHold = holds == 0 ? 0 : (double) (metrics.writeHoldNanos() + metrics.readHoldNanos()) / holds;
+            long maxHold = Math.max(metrics.maxWriteHoldNanos(), metrics.maxReadHoldNanos());
+            System.out.printf("%-10s %14.0f %12.0f %14.2f %14.1f %12.2f %12.2f%n", name,
+                    queueOps.sum() / elapsed, reads.sum() / elapsed, averageHold / 1000.0, maxHold / 1000.0,
+                    percent(metrics.contendedWrites(), metrics.writeHolds()),
+                    percent(metrics.optimisticReadFailures(), metrics.optimisticReads()));
+        }
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : 100.0 * part / whole;
+    }
+}
@@ -0,0 +1,169 @@
+package benchmarks;
+
+import cluster.ReplicatedJournal;
+import Model.datastructures.Job;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Measures the replicated journal on three nodes over 127.0.0.1 in one JVM.
+ * First the commit throughput: one client that waits for every entry to commit, eight such
+ * clients, and one client that pipelines its entries and only waits for the last. Each run
+ * reports entries committed per second and the entries the leader packed into each Append.
+ * Then the failover time: the leader is stopped repeatedly and the time until a new leader
+ * has committed an entry is reported. Stopped nodes are restarted empty and caught up.
+ * Usage: java -cp bin benchmarks.ReplicationBenchmark [entries] [failovers]
+ * @author Group 1
+ */
+public class ReplicationBenchmark {
+
+    private static List<Integer> ports;
+    private static ReplicatedJournal[] nodes;
+
+    public static void main(String[] args) throws Exception {
+        int entries = 20_000;
+        int failovers = 5;
+        try {
+            if (args.length > 0) {
+                entries = Integer.parseInt(args[0]);
+            }
+            if (args.length > 1) {
+                failovers = Integer.parseInt(args[1]);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Usage: java -cp bin benchmarks.ReplicationBenchmark [entries] [failovers]");
+            return;
+        }
+
+        ports = freePorts(3);
+        nodes = new ReplicatedJournal[3];
+        for (int i = 0; i < 3; i++) {
+            nodes[i] = startNode(i);
+        }
+
+        System.out.println("Replication: 3 nodes, " + entries + " entries per run, heartbeat "
+                + ReplicatedJournal.DEFAULT_HEARTBEAT_MILLIS + " ms, election timeout "
+                + ReplicatedJournal.DEFAULT_ELECTION_TIMEOUT_MILLIS + " ms");
+        System.out.printf("%-14s %12s %16s%n", "clients", "entries/s", "entries/Append");
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1;
+            measure("1 sync", entries, 1, false, report);
+            measure("8 sync", entries, 8, false, report);
+            measure("1 pipelined", entries, 1, true, report);
+        }
+
+        System.out.println();
+        System.out.println("Failover: leader stopped " + failovers + " times");
+        List<Double> millis = new ArrayList<>();
+        for (int i = 0; i < failovers; i++) {
+            millis.add(failover());
+        }
+        double total = 0;
+        for (double value : millis) {
+            total += value;
+        }
+        System.out.printf("time to a new leader's first commit: min %.0f ms, avg %.0f ms, max %.0f ms%n",
+                millis.stream().mapToDouble(Double::doubleValue).min().orElse(0), total / millis.size(),
+                millis.stream().mapToDouble(Double::doubleValue).max().orElse(0));
+
+        for (ReplicatedJournal node : nodes) {
+            node.stop();
+        }
+    }
+
+    private static void measure(String name, int entries, int clients, boolean pipelined, boolean report)
+            throws InterruptedException {
+        ReplicatedJournal leader = awaitLeader();
+        long appends = leader.getAppendsSent();
+        long sent = leader.getEntriesSent();
+        int perClient = entries / clients;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int id = c;
+            threads.add(new Thread(() -> {
+                CompletableFuture<Long> last = null;
+                for (int i = 0; i < perClient; i++) {
+                    last = leader.recordSubmit(new Job("Bench-" + id + "-" + i, 1, 1, i));
+                    if (!pipelined) {
+                        last.join();
+                    }
+                }
+                if (last != null) {
+                    last.join();
+                }
+            }));
+        }
+        long begin = System.nanoTime();
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+
+        if (report) {
+            long appendCount = Math.max(1, leader.getAppendsSent() - appends);
+            System.out.printf("%-14s %12.0f %16.1f%n", name, perClient * clients / elapsed,
+                    (double) (leader.getEntriesSent() - sent) / appendCount);
+        }
+    }
+
+    /**
+     * Stops the leader, times how long until another node is leader and has committed an
+     * entry, then restarts the stopped node empty and waits until it has caught up
+     * @return The failover time in milliseconds
+     */
+    private static double failover() throws IOException, InterruptedException {
+        ReplicatedJournal leader = awaitLeader();
+        int stopped = leader.getNodeId();
+        leader.stop();
+        long begin = System.nanoTime();
+        nodes[stopped] = null;
+
+        ReplicatedJournal successor = awaitLeader();
+        successor.recordSubmit(new Job("AfterFailover", 1, 1, 0)).join();
+        double millis = (System.nanoTime() - begin) / 1e6;
+
+        nodes[stopped] = startNode(stopped);
+        while (nodes[stopped].getCommitIndex() < successor.getCommitIndex()) {
+            Thread.sleep(5);
+        }
+        return millis;
+    }
+
+    private static ReplicatedJournal awaitLeader() {
+        while (true) {
+            for (ReplicatedJournal node : nodes) {
+                if (node != null && node.awaitLeadership(1)) {
+                    return node;
+                }
+            }
+        }
+    }
+
+    private static ReplicatedJournal startNode(int nodeId) throws IOException {
+        ReplicatedJournal node = new ReplicatedJournal("ReplicationBench-" + nodeId, nodeId, ports,
+                ReplicatedJournal.DEFAULT_HEARTBEAT_MILLIS, ReplicatedJournal.DEFAULT_ELECTION_TIMEOUT_MILLIS);
+        node.start();
+        return node;
+    }
+
+    private static List<Integer> freePorts(int count) throws IOException {
+        List<ServerSocket> sockets = new ArrayList<>();
+        List<Integer> free = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            sockets.add(socket);
+            free.add(socket.getLocalPort());
+        }
+        for (ServerSocket socket : sockets) {
+            socket.close();
+        }
+        return free;
+    }
+}
@@ -0,0 +1,102 @@
+package benchmarks;
+
+import Model.algorithms.ShortestJobFirstPolicy;
+import Model.datastructures.Job;
+import Model.simulation.SimulationEngine;
+import Model.statistics.JobStatistics;
+import multithreading.JobDispatcher;
+import multithreading.JobScheduler;
+
+import java.util.Random;
+
+/**
+ * Runs a small SJF workload in wall-clock time, replays the same arrivals in virtual time,
+ * and prints both results side by side. Then replays a day-long workload to show how much
+ * CPU time the simulation needs.
+ * Usage: java -cp bin benchmarks.SimulationAccuracyBenchmark [jobs] [slots]
+ * @author Group 1
+ */
+public class SimulationAccuracyBenchmark {
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int jobs = 8;
+        int slots = 2;
+        try {
+            if (args.length > 0) {
+                jobs = Integer.parseInt(args[0]);
+            }
+            if (args.length > 1) {
+                slots = Integer.parseInt(args[1]);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Error: The provided arguments are not valid integers.");
+            return;
+        }
+
+        Random random = new Random(42);
+        double[] cpuTimes = new double[jobs];
+        int[] priorities = new int[jobs];
+        long[] gaps = new long[jobs];
+        for (int i = 0; i < jobs; i++) {
+            cpuTimes[i] = 0.2 + Math.round(random.nextDouble() * 8) / 10.0;
+            priorities[i] = random.nextInt(3) + 1;
+            gaps[i] = 10 + random.nextInt(90);
+        }
+
+        // Wall-clock run through the real scheduler and dispatcher
+        JobScheduler jobScheduler = JobScheduler.getInstance();
+        jobScheduler.setSchedulingPolicy(new ShortestJobFirstPolicy());
+        JobStatistics liveStatistics = JobStatistics.getInstance();
+        liveStatistics.reset();
+
+        JobDispatcher jobDispatcher = new JobDispatcher("AccuracyBench", slots);
+        Thread dispatcherThread = new Thread(jobDispatcher);
+        dispatcherThread.start();
+
+        long[] arrivalOffsets = new long[jobs];
+        long firstArrival = System.currentTimeMillis();
+        for (int i = 0; i < jobs; i++) {
+            long arrival = System.currentTimeMillis();
+            arrivalOffsets[i] = arrival - firstArrival;
+            jobScheduler.addJob(new Job("Live-" + i, cpuTimes[i], priorities[i], arrival));
+            Thread.sleep(gaps[i]);
+        }
+        while (liveStatistics.getTotalJobsCompleted() < jobs) {
+            Thread.sleep(50);
+        }
+        jobDispatcher.stopRunning();
+        dispatcherThread.join();
+
+        // The same arrivals replayed in virtual time
+        SimulationEngine simulation = new SimulationEngine(new ShortestJobFirstPolicy(), slots);
+        for (int i = 0; i < jobs; i++) {
+            simulation.submit("Sim-" + i, cpuTimes[i], priorities[i], arrivalOffsets[i]);
+        }
+        simulation.run();
+        JobStatistics simulatedStatistics = simulation.getStatistics();
+
+        System.out.println("SJF, " + jobs + " jobs, " + slots + " slot(s)");
+        System.out.printf("%-28s %12s %12s%n", "", "Wall clock", "Simulated");
+        System.out.printf("%-28s %12.3f %12.3f%n", "Average waiting time (s)",
+                liveStatistics.getAverageWaitingTime(), simulatedStatistics.getAverageWaitingTime());
+        System.out.printf("%-28s %12.3f %12.3f%n", "Average turnaround time (s)",
+                liveStatistics.getAverageTurnaroundTime(), simulatedStatistics.getAverageTurnaroundTime());
+
+        // A day of arrivals, one every 10-100 ms on average 55 ms
+        SimulationEngine day = new SimulationEngine(new ShortestJobFirstPolicy(), 64);
+        long arrival = 0;
+        int dayJobs = 0;
+        while (arrival < DAY_MILLIS && dayJobs < 20000) {
+            day.submit("Day-" + dayJobs, 1 + random.nextInt(60), random.nextInt(5) + 1, arrival);
+            arrival += 10 + random.nextInt(90) + DAY_MILLIS / 20000;
+            dayJobs++;
+        }
+        long startNanos = System.nanoTime();
+        day.run();
+        double cpuSeconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("Day-long workload: %d jobs over %.1f virtual hours replayed in %.3f seconds%n",
+                dayJobs, day.getVirtualTimeMillis() / 3600000.0, cpuSeconds);
+        System.exit(0);
+    }
+}
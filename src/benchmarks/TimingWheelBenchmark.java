@@ -0,0 +1,203 @@
+package benchmarks;
+
+import util.Logger;
+import util.TimingWheel;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the timing wheel with a ScheduledThreadPoolExecutor holding the same timers.
+ * For each it schedules a large number of timers far in the future and reports the cost of
+ * scheduling, the heap used per pending timer, the CPU the timer thread burns while they are
+ * pending, and the cost of cancelling them. It then fires a smaller set of timers spread over
+ * two seconds and reports how late they ran.
+ * Usage: java -cp bin benchmarks.TimingWheelBenchmark [timers]
+ * @author Group 1
+ */
+public class TimingWheelBenchmark {
+    private static final int FIRING_TIMERS = 100_000;
+    private static final long FIRING_SPREAD_MILLIS = 2000;
+    private static final long IDLE_MEASURE_MILLIS = 2000;
+
+    /**
+     * The operations the benchmark needs from a timer implementation.
+     */
+    private interface TimerService {
+        Object schedule(long delayMillis, Runnable task);
+        void cancel(Object timer);
+        long timerThreadCpuNanos();
+        void awaitIdleQueue() throws InterruptedException;
+        void shutdown();
+    }
+
+    private static class WheelService implements TimerService {
+        private final TimingWheel wheel = new TimingWheel("BenchWheel");
+
+        WheelService() {
+            wheel.start();
+        }
+
+        public Object schedule(long delayMillis, Runnable task) {
+            return wheel.schedule(delayMillis, task);
+        }
+
+        public void cancel(Object timer) {
+            ((TimingWheel.Timeout) timer).cancel();
+        }
+
+        public long timerThreadCpuNanos() {
+            return wheel.getTickerCpuTime();
+        }
+
+        public void awaitIdleQueue() throws InterruptedException {
+            // Give the ticker time to move the scheduled and cancelled timers into the wheel
+            Thread.sleep(200);
+        }
+
+        public void shutdown() {
+            wheel.stop();
+        }
+    }
+
+    private static class ExecutorService implements TimerService {
+        private Thread timerThread;
+        private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            timerThread = new Thread(runnable, "BenchExecutor");
+            timerThread.setDaemon(true);
+            return timerThread;
+        });
+
+        ExecutorService() {
+            executor.setRemoveOnCancelPolicy(true);
+            executor.prestartAllCoreThreads();
+        }
+
+        public Object schedule(long delayMillis, Runnable task) {
+            return executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        public void cancel(Object timer) {
+            ((ScheduledFuture<?>) timer).cancel(false);
+        }
+
+        public long timerThreadCpuNanos() {
+            return ManagementFactory.getThreadMXBean().getThreadCpuTime(timerThread.threadId());
+        }
+
+        public void awaitIdleQueue() throws InterruptedException {
+            Thread.sleep(200);
+        }
+
+        public void shutdown() {
+            executor.shutdownNow();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int timers = 1_000_000;
+        if (args.length > 0) {
+            try {
+                timers = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                System.out.println("Error: The provided argument is not a valid integer.");
+                return;
+            }
+        }
+        Logger.getInstance().setFileOutput(false);
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!threadMXBean.isThreadCpuTimeSupported()) {
+            System.out.println("Thread CPU time is not supported; CPU figures will be meaningless.");
+        }
+
+        System.out.println(timers + " pending timers, then " + FIRING_TIMERS + " firing over " + FIRING_SPREAD_MILLIS + " ms");
+        System.out.printf("%-10s %12s %12s %14s %12s %12s %12s %12s%n", "timer", "schedule ns", "bytes/timer",
+                "idle cpu %", "cancel ns", "late p50 ms", "late p99 ms", "late max ms");
+
+        // Run each twice and report the second run, after the JIT has settled
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1;
+            measure("wheel", new WheelService(), timers, report);
+            measure("executor", new ExecutorService(), timers, report);
+        }
+        System.exit(0);
+    }
+
+    private static void measure(String name, TimerService service, int timers, boolean report)
+            throws InterruptedException {
+        Random random = new Random(42);
+        Runnable noop = () -> { };
+        Object[] handles = new Object[timers];
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        for (int i = 0; i < timers; i++) {
+            // Between ten seconds and ten minutes, so none fire while they are measured
+            handles[i] = service.schedule(10_000 + random.nextInt(590_000), noop);
+        }
+        long scheduleNanos = System.nanoTime() - start;
+        service.awaitIdleQueue();
+        long bytesPerTimer = (usedHeap() - heapBefore) / timers;
+
+        long cpuBefore = service.timerThreadCpuNanos();
+        Thread.sleep(IDLE_MEASURE_MILLIS);
+        double idleCpuPercent = 100.0 * (service.timerThreadCpuNanos() - cpuBefore)
+                / TimeUnit.MILLISECONDS.toNanos(IDLE_MEASURE_MILLIS);
+
+        start = System.nanoTime();
+        for (Object handle : handles) {
+            service.cancel(handle);
+        }
+        long cancelNanos = System.nanoTime() - start;
+        service.awaitIdleQueue();
+
+        long[] lateness = measureLateness(service, random);
+        service.shutdown();
+
+        if (report) {
+            System.out.printf("%-10s %12.1f %12d %13.2f%% %12.1f %12.2f %12.2f %12.2f%n", name,
+                    (double) scheduleNanos / timers, bytesPerTimer, idleCpuPercent, (double) cancelNanos / timers,
+                    percentile(lateness, 0.50) / 1e6, percentile(lateness, 0.99) / 1e6,
+                    lateness[lateness.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Fires timers spread evenly over a short window and records how late each one ran
+     */
+    private static long[] measureLateness(TimerService service, Random random) throws InterruptedException {
+        long[] lateness = new long[FIRING_TIMERS];
+        CountDownLatch done = new CountDownLatch(FIRING_TIMERS);
+        for (int i = 0; i < FIRING_TIMERS; i++) {
+            int index = i;
+            long delayMillis = random.nextInt((int) FIRING_SPREAD_MILLIS);
+            long dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+            service.schedule(delayMillis, () -> {
+                lateness[index] = System.nanoTime() - dueNanos;
+                done.countDown();
+            });
+        }
+        done.await();
+        Arrays.sort(lateness);
+        return lateness;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
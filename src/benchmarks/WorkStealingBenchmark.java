@@ -0,0 +1,95 @@
+package benchmarks;
+
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import multithreading.JobDispatcher;
+import multithreading.RunnableStoppableInterface;
+import multithreading.WorkStealingDispatcher;
+import util.JobQueueLogger;
+import util.Logger;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the shared-queue JobDispatcher with the WorkStealingDispatcher at 1, 4, 16 and
+ * 64 workers. Each run drains a queue of zero-length jobs and reports throughput and the
+ * average number of threads waiting for the JobQueue lock, sampled every 100 microseconds.
+ * Log file output is disabled so the numbers reflect scheduling rather than log I/O.
+ * Usage: java -cp bin benchmarks.WorkStealingBenchmark [jobs]
+ * @author Group 1
+ */
+public class WorkStealingBenchmark {
+    private static final int[] WORKER_COUNTS = {1, 4, 16, 64};
+    private static final int STEALING_BATCH_SIZE = 32;
+
+    public static void main(String[] args) throws InterruptedException {
+        int jobs = 5000;
+        if (args.length > 0) {
+            try {
+                jobs = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                System.out.println("Error: The provided argument is not a valid integer.");
+                return;
+            }
+        }
+        Logger.getInstance().setFileOutput(false);
+        JobQueueLogger.getInstance().setFileOutput(false);
+
+        System.out.printf("%-8s %-14s %12s %14s %10s %8s%n",
+                "Workers", "Backend", "Jobs/second", "Lock waiters", "Refills", "Steals");
+        for (int workers : WORKER_COUNTS) {
+            run("shared", new JobDispatcher("SharedBench", workers), jobs, workers);
+            run("work-stealing", new WorkStealingDispatcher("StealBench", workers, STEALING_BATCH_SIZE), jobs, workers);
+        }
+        System.exit(0);
+    }
+
+    private static void run(String backend, RunnableStoppableInterface dispatcher, int jobs, int workers)
+            throws InterruptedException {
+        JobQueue jobQueue = JobQueue.getInstance();
+        CountDownLatch finished = new CountDownLatch(jobs);
+        for (int i = 0; i < jobs; i++) {
+            jobQueue.addJob(new Job("Bench-" + i, 0, 0) {
+                @Override
+                public boolean run() {
+                    boolean result = super.run();
+                    finished.countDown();
+                    return result;
+                }
+            });
+        }
+
+        // Sample the length of the JobQueue lock's wait queue while the jobs drain
+        AtomicBoolean sampling = new AtomicBoolean(true);
+        long[] samples = new long[2];
+        Thread sampler = new Thread(() -> {
+            while (sampling.get()) {
+                samples[0] += jobQueue.getLockQueueLength();
+                samples[1]++;
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            }
+        });
+
+        Thread dispatcherThread = new Thread(dispatcher);
+        long startNanos = System.nanoTime();
+        sampler.start();
+        dispatcherThread.start();
+        finished.await();
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+        sampling.set(false);
+        sampler.join();
+        dispatcher.stopRunning();
+        dispatcherThread.join();
+
+        double averageWaiters = samples[1] == 0 ? 0 : (double) samples[0] / samples[1];
+        System.out.printf("%-8d %-14s %12.0f %14.3f", workers, backend, jobs / seconds, averageWaiters);
+        if (dispatcher instanceof WorkStealingDispatcher stealing) {
+            System.out.printf(" %10d %8d", stealing.getGlobalRefills(), stealing.getSteals());
+        }
+        System.out.println();
+    }
+}
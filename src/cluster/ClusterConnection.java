@@ -0,0 +1,66 @@
+package cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+/**
+ * One TCP connection between a coordinator and a worker. Any thread may send; frames are
+ * written whole, one at a time. Only one thread may receive.
+ * @author Group 1
+ */
+public class ClusterConnection implements AutoCloseable {
+    private final Socket _socket;
+    private final InputStream _in;
+    private final OutputStream _out;
+
+    /**
+     * Constructor for ClusterConnection
+     * @param socket A connected socket
+     * @throws IOException if the socket's streams cannot be opened
+     */
+    public ClusterConnection(Socket socket) throws IOException {
+        _socket = socket;
+        // Frames are small and latency matters more than packet count
+        _socket.setTcpNoDelay(true);
+        _in = new BufferedInputStream(socket.getInputStream());
+        _out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    /**
+     * Sends one message
+     * @param message The message to send
+     * @throws IOException if the connection is broken
+     */
+    public synchronized void send(ClusterProtocol.Message message) throws IOException {
+        ClusterProtocol.write(_out, message);
+    }
+
+    /**
+     * Waits for the next message
+     * @return The message
+     * @throws IOException if the connection is broken or closed, or a frame is malformed
+     */
+    public ClusterProtocol.Message receive() throws IOException {
+        return ClusterProtocol.read(_in);
+    }
+
+    public String getRemoteAddress() {
+        return String.valueOf(_socket.getRemoteSocketAddress());
+    }
+
+    /**
+     * Closes the connection; a thread blocked in receive() gets an IOException
+     */
+    @Override
+    public void close() {
+        try {
+            _socket.close();
+        } catch (IOException e) {
+            // Already broken; nothing left to release
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package cluster;
+
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import Model.statistics.JobStatistics;
+import monitoring.SchedulerEvents;
+import multithreading.JobScheduler;
+import multithreading.RunnableStoppableInterface;
+import util.Logger;
+import util.JobQueueLogger;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dispatcher backend that runs jobs on worker processes instead of local threads.
+ * The queue, the scheduling policy and the statistics stay in this process; workers connect
+ * over TCP (see ClusterProtocol), say how many slots they have, and are sent jobs while
+ * they have a free slot. Workers report each completion and send a heartbeat every interval.
+ *
+ * A worker whose connection breaks, or that misses heartbeats for HEARTBEAT_TIMEOUT_INTERVALS
+ * intervals, is dropped and the jobs it was running are put back into the queue.
+ *
+ * DISPATCH carries no command line, so workers cannot run process jobs. The scheduler refuses
+ * them from the coordinator's construction until its run() returns.
+ * @author Group 1
+ */
+public class ClusterCoordinator implements RunnableStoppableInterface {
+    public static final int DEFAULT_HEARTBEAT_MILLIS = 500;
+    public static final String PROCESS_JOBS_REFUSED = "Process jobs cannot run on cluster workers";
+    // Missed heartbeat intervals after which a worker is considered dead
+    private static final int HEARTBEAT_TIMEOUT_INTERVALS = 4;
+
+    private final String _moduleID;
+    private final ServerSocket _serverSocket;
+    private final int _heartbeatMillis;
+    private final JobQueue _jobQueue;
+    private final JobScheduler _jobScheduler;
+    private final JobStatistics _jobStatistics;
+    private final Logger _logger;
+    private final JobQueueLogger _jobQueueLogger;
+    private volatile boolean _running = true;
+    private final AtomicLong _nextJobId = new AtomicLong();
+    private final AtomicLong _requeuedJobs = new AtomicLong();
+
+    // Guards the worker sessions; _slotFreed is signalled when a worker registers or finishes a job
+    private final ReentrantLock _lock = new ReentrantLock();
+    private final Condition _slotFreed = _lock.newCondition();
+    private final Map<String, WorkerSession> _workers = new LinkedHashMap<>();
+
+    /**
+     * A registered worker and the jobs it is running
+     */
+    private static final class WorkerSession {
+        private final String id;
+        private final int slots;
+        private final ClusterConnection connection;
+        // Guarded by the coordinator's lock
+        private final Map<Long, Job> inFlight = new HashMap<>();
+        private boolean alive = true;
+        private volatile long lastSeenNanos = System.nanoTime();
+
+        WorkerSession(String id, int slots, ClusterConnection connection) {
+            this.id = id;
+            this.slots = slots;
+            this.connection = connection;
+        }
+
+        int freeSlots() {
+            return slots - inFlight.size();
+        }
+    }
+
+    /**
+     * Constructor for ClusterCoordinator. The listening socket is bound on 127.0.0.1 straight away;
+     * workers are accepted once run() is called.
+     * @param moduleID The ID of this module
+     * @param port The port to listen on, or 0 for any free port
+     * @param heartbeatMillis How often workers must send a heartbeat
+     * @throws IOException if the port cannot be bound
+     * @throws IllegalArgumentException if heartbeatMillis is not positive
+     */
+    public ClusterCoordinator(String moduleID, int port, int heartbeatMillis) throws IOException {
+        if (heartbeatMillis <= 0) {
+            throw new IllegalArgumentException("Heartbeat interval must be positive: " + heartbeatMillis);
+        }
+        _moduleID = moduleID;
+        _heartbeatMillis = heartbeatMillis;
+        _serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        _jobQueue = JobQueue.getInstance();
+        _jobScheduler = JobScheduler.getInstance();
+        _jobStatistics = JobStatistics.getInstance();
+        _logger = Logger.getInstance();
+        _jobQueueLogger = JobQueueLogger.getInstance();
+        _jobScheduler.refuseProcessJobs(PROCESS_JOBS_REFUSED);
+    }
+
+    @Override
+    public void run() {
+        _logger.info(_moduleID, "Cluster coordinator listening on 127.0.0.1:" + getPort());
+        Thread acceptor = new Thread(this::acceptWorkers, _moduleID + "-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        while (_running && !Thread.currentThread().isInterrupted()) {
+            try {
+                dispatchNextJob();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                _logger.error(_moduleID, "Cluster coordinator interrupted: " + e.getMessage());
+            }
+            dropSilentWorkers();
+        }
+        _running = false;
+
+        try {
+            _serverSocket.close();
+        } catch (IOException e) {
+            _logger.warning(_moduleID, "Could not close the listening socket: " + e.getMessage());
+        }
+        for (WorkerSession worker : getWorkerSessions()) {
+            try {
+                worker.connection.send(new ClusterProtocol.Shutdown());
+            } catch (IOException e) {
+                // The worker is dropped below either way
+            }
+            dropWorker(worker, "coordinator stopping");
+        }
+        _jobScheduler.refuseProcessJobs(null);
+        _logger.info(_moduleID, "Cluster coordinator stopped");
+    }
+
+    /**
+     * Waits for a worker with a free slot and a queued job, then sends the job to the worker.
+     * Both waits are bounded by the heartbeat interval so silent workers are noticed promptly.
+     */
+    private void dispatchNextJob() throws InterruptedException {
+        if (!awaitFreeSlot(_heartbeatMillis)) {
+            return;
+        }
+        Job job = _jobQueue.getJob(_heartbeatMillis);
+        if (job == null) {
+            return;
+        }
+        if (!job.isIdle()) {
+            _jobStatistics.recordJobSkipped(job);
+            return;
+        }
+
+        // Registered as running before a worker can see it, so a worker dropped right after
+        // the hand-over releases a job that is fully registered
+        _jobQueue.addRunningJob(job);
+        _jobStatistics.recordJobDispatch(job);
+        job.setStatus(Job.Status.RUNNING);
+        SchedulerEvents.jobDispatched(job);
+
+        long jobId = _nextJobId.incrementAndGet();
+        WorkerSession worker;
+        _lock.lock();
+        try {
+            worker = workerWithMostFreeSlots();
+            if (worker != null) {
+                worker.inFlight.put(jobId, job);
+            }
+        } finally {
+            _lock.unlock();
+        }
+        if (worker == null) {
+            // The worker went away between the two waits
+            _jobQueue.removeRunningJob(job);
+            _jobStatistics.recordJobRelease(job);
+            _jobScheduler.requeueJobs(List.of(job));
+            return;
+        }
+
+        _logger.info(_moduleID, "Dispatching job " + job.getName() + " to worker " + worker.id);
+        _jobQueueLogger.jobDispatched(job.getName());
+        try {
+            worker.connection.send(new ClusterProtocol.Dispatch(jobId, job.getName(), job.getExecutionTime(),
+                    job.getPriority(), job.getArrivalTime()));
+        } catch (IOException e) {
+            dropWorker(worker, "send failed: " + e.getMessage());
+        }
+    }
+
+    private boolean awaitFreeSlot(long timeoutMillis) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        _lock.lock();
+        try {
+            while (workerWithMostFreeSlots() == null) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = _slotFreed.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Must be called with the lock held
+     */
+    private WorkerSession workerWithMostFreeSlots() {
+        WorkerSession best = null;
+        for (WorkerSession worker : _workers.values()) {
+            if (worker.freeSlots() > 0 && (best == null || worker.freeSlots() > best.freeSlots())) {
+                best = worker;
+            }
+        }
+        return best;
+    }
+
+    private void acceptWorkers() {
+        // The socket is closed both by stopRunning() and when run() exits after an interrupt
+        while (_running && !_serverSocket.isClosed()) {
+            try {
+                Socket socket = _serverSocket.accept();
+                Thread session = new Thread(() -> serveWorker(socket), _moduleID + "-session");
+                session.setDaemon(true);
+                session.start();
+            } catch (IOException e) {
+                if (_running && !_serverSocket.isClosed()) {
+                    _logger.error(_moduleID, "Could not accept a worker: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Registers a worker and then handles its messages until the connection breaks
+     */
+    private void serveWorker(Socket socket) {
+        ClusterConnection connection;
+        WorkerSession worker;
+        try {
+            connection = new ClusterConnection(socket);
+            if (!(connection.receive() instanceof ClusterProtocol.Register register) || register.slots() <= 0) {
+                _logger.warning(_moduleID, "Closing a connection that did not register: " + socket.getRemoteSocketAddress());
+                connection.close();
+                return;
+            }
+            worker = new WorkerSession(register.workerId(), register.slots(), connection);
+            connection.send(new ClusterProtocol.Registered(_heartbeatMillis));
+        } catch (IOException e) {
+            _logger.warning(_moduleID, "Worker registration failed: " + e.getMessage());
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+            return;
+        }
+
+        WorkerSession replaced;
+        _lock.lock();
+        try {
+            replaced = _workers.put(worker.id, worker);
+            _slotFreed.signalAll();
+        } finally {
+            _lock.unlock();
+        }
+        if (replaced != null) {
+            // A worker that restarted before its old connection timed out
+            dropWorker(replaced, "replaced by a new registration");
+        }
+        _logger.info(_moduleID, "Worker " + worker.id + " registered from " + connection.getRemoteAddress()
+                + " with " + worker.slots + " slot(s)");
+
+        try {
+            while (_running) {
+                ClusterProtocol.Message message = connection.receive();
+                worker.lastSeenNanos = System.nanoTime();
+                if (message instanceof ClusterProtocol.Completed completed) {
+                    complete(worker, completed);
+                }
+            }
+        } catch (IOException e) {
+            dropWorker(worker, e instanceof EOFException ? "connection closed" : "connection lost: " + e.getMessage());
+        }
+    }
+
+    private void complete(WorkerSession worker, ClusterProtocol.Completed completed) {
+        Job job;
+        _lock.lock();
+        try {
+            job = worker.inFlight.remove(completed.jobId());
+            _slotFreed.signalAll();
+        } finally {
+            _lock.unlock();
+        }
+        if (job == null) {
+            // Already requeued after the worker was given up on
+            return;
+        }
+
+        if (completed.success()) {
+            job.setStatus(Job.Status.FINISHED);
+            _logger.info(_moduleID, "Job completed on worker " + worker.id + ": " + job.getName());
+            _jobStatistics.recordJobCompletion(job);
+        } else {
+            _logger.warning(_moduleID, "Job may not have completed successfully on worker " + worker.id + ": " + job.getName());
+        }
+        _jobQueueLogger.jobCompleted(job.getName());
+        SchedulerEvents.jobCompleted(job, completed.success());
+        _jobQueue.removeRunningJob(job);
+        _jobStatistics.recordJobRelease(job);
+    }
+
+    /**
+     * Drops every worker that has not been heard from for HEARTBEAT_TIMEOUT_INTERVALS intervals
+     */
+    private void dropSilentWorkers() {
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos((long) _heartbeatMillis * HEARTBEAT_TIMEOUT_INTERVALS);
+        long now = System.nanoTime();
+        for (WorkerSession worker : getWorkerSessions()) {
+            if (now - worker.lastSeenNanos > timeoutNanos) {
+                dropWorker(worker, "no heartbeat for " + TimeUnit.NANOSECONDS.toMillis(now - worker.lastSeenNanos) + " ms");
+            }
+        }
+    }
+
+    /**
+     * Closes a worker's connection and puts the jobs it was running back into the queue
+     */
+    private void dropWorker(WorkerSession worker, String reason) {
+        List<Job> lostJobs;
+        _lock.lock();
+        try {
+            if (!worker.alive) {
+                return;
+            }
+            worker.alive = false;
+            // Only if still mapped to this session, not to a newer one with the same id
+            _workers.remove(worker.id, worker);
+            lostJobs = new ArrayList<>(worker.inFlight.values());
+            worker.inFlight.clear();
+        } finally {
+            _lock.unlock();
+        }
+        worker.connection.close();
+
+        for (Job job : lostJobs) {
+            _jobQueue.removeRunningJob(job);
+            _jobStatistics.recordJobRelease(job);
+        }
+        _jobScheduler.requeueJobs(lostJobs);
+        _requeuedJobs.addAndGet(lostJobs.size());
+        _logger.warning(_moduleID, "Worker " + worker.id + " dropped (" + reason + "), "
+                + lostJobs.size() + " job(s) requeued");
+    }
+
+    private List<WorkerSession> getWorkerSessions() {
+        _lock.lock();
+        try {
+            return new ArrayList<>(_workers.values());
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Get the port workers connect to
+     * @return The bound port
+     */
+    public int getPort() {
+        return _serverSocket.getLocalPort();
+    }
+
+    /**
+     * Get the number of registered workers
+     * @return The number of workers that are connected and sending heartbeats
+     */
+    public int getWorkerCount() {
+        _lock.lock();
+        try {
+            return _workers.size();
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of jobs put back into the queue because their worker was lost
+     * @return The number of requeued jobs
+     */
+    public long getRequeuedJobs() {
+        return _requeuedJobs.get();
+    }
+
+    /**
+     * Stops the coordinator. Workers are told to shut down and their running jobs are requeued.
+     */
+    public void stopRunning() {
+        _running = false;
+        try {
+            // Unblocks the acceptor thread
+            _serverSocket.close();
+        } catch (IOException e) {
+            _logger.warning(_moduleID, "Could not close the listening socket: " + e.getMessage());
+        }
+        _logger.info(_moduleID, "Cluster coordinator stopping");
+    }
+}
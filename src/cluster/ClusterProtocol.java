@@ -0,0 +1,137 @@
+package cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Binary protocol spoken between a cluster coordinator and its workers.
+ * Every message is one frame: a 4-byte big-endian length, then a 1-byte message type, then
+ * the fields of the message. The length counts the type byte and the fields. Strings are
+ * written as modified UTF-8 with a 2-byte length, as DataOutputStream.writeUTF does.
+ *
+ *   REGISTER   worker to coordinator  workerId (string), slots (int)
+ *   REGISTERED coordinator to worker  heartbeatMillis (int)
+ *   HEARTBEAT  worker to coordinator  runningJobs (int)
+ *   DISPATCH   coordinator to worker  jobId (long), name (string), executionTime (double),
+ *                                     priority (int), arrivalTime (double)
+ *   COMPLETED  worker to coordinator  jobId (long), success (boolean)
+ *   SHUTDOWN   coordinator to worker  no fields
+ * @author Group 1
+ */
+public final class ClusterProtocol {
+    // Frames larger than this are a protocol error rather than a reason to allocate
+    public static final int MAX_FRAME_BYTES = 64 * 1024;
+
+    private static final byte REGISTER = 1;
+    private static final byte REGISTERED = 2;
+    private static final byte HEARTBEAT = 3;
+    private static final byte DISPATCH = 4;
+    private static final byte COMPLETED = 5;
+    private static final byte SHUTDOWN = 6;
+
+    private ClusterProtocol() {
+    }
+
+    /**
+     * Every message of the protocol
+     */
+    public sealed interface Message permits Register, Registered, Heartbeat, Dispatch, Completed, Shutdown {}
+
+    public record Register(String workerId, int slots) implements Message {}
+
+    public record Registered(int heartbeatMillis) implements Message {}
+
+    public record Heartbeat(int runningJobs) implements Message {}
+
+    public record Dispatch(long jobId, String name, double executionTime, int priority, double arrivalTime)
+            implements Message {}
+
+    public record Completed(long jobId, boolean success) implements Message {}
+
+    public record Shutdown() implements Message {}
+
+    /**
+     * Writes one message as a single frame and flushes it
+     * @param out The stream to write to
+     * @param message The message to write
+     * @throws IOException if the stream fails
+     */
+    public static void write(OutputStream out, Message message) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        DataOutputStream fields = new DataOutputStream(body);
+        switch (message) {
+            case Register register -> {
+                fields.writeByte(REGISTER);
+                fields.writeUTF(register.workerId());
+                fields.writeInt(register.slots());
+            }
+            case Registered registered -> {
+                fields.writeByte(REGISTERED);
+                fields.writeInt(registered.heartbeatMillis());
+            }
+            case Heartbeat heartbeat -> {
+                fields.writeByte(HEARTBEAT);
+                fields.writeInt(heartbeat.runningJobs());
+            }
+            case Dispatch dispatch -> {
+                fields.writeByte(DISPATCH);
+                fields.writeLong(dispatch.jobId());
+                fields.writeUTF(dispatch.name());
+                fields.writeDouble(dispatch.executionTime());
+                fields.writeInt(dispatch.priority());
+                fields.writeDouble(dispatch.arrivalTime());
+            }
+            case Completed completed -> {
+                fields.writeByte(COMPLETED);
+                fields.writeLong(completed.jobId());
+                fields.writeBoolean(completed.success());
+            }
+            case Shutdown shutdown -> fields.writeByte(SHUTDOWN);
+        }
+
+        DataOutputStream frame = new DataOutputStream(out);
+        frame.writeInt(body.size());
+        body.writeTo(frame);
+        frame.flush();
+    }
+
+    /**
+     * Reads one frame and decodes its message
+     * @param in The stream to read from
+     * @return The message
+     * @throws EOFException if the stream ended, including at a frame boundary
+     * @throws IOException if the stream fails or the frame is malformed
+     */
+    public static Message read(InputStream in) throws IOException {
+        DataInputStream frame = new DataInputStream(in);
+        int length = frame.readInt();
+        if (length < 1 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] body = new byte[length];
+        frame.readFully(body);
+
+        DataInputStream fields = new DataInputStream(new ByteArrayInputStream(body));
+        byte type = fields.readByte();
+        Message message = switch (type) {
+            case REGISTER -> new Register(fields.readUTF(), fields.readInt());
+            case REGISTERED -> new Registered(fields.readInt());
+            case HEARTBEAT -> new Heartbeat(fields.readInt());
+            case DISPATCH -> new Dispatch(fields.readLong(), fields.readUTF(), fields.readDouble(),
+                    fields.readInt(), fields.readDouble());
+            case COMPLETED -> new Completed(fields.readLong(), fields.readBoolean());
+            case SHUTDOWN -> new Shutdown();
+            default -> throw new IOException("Unknown message type: " + type);
+        };
+        if (fields.available() > 0) {
+            throw new IOException("Trailing bytes after message type " + type);
+        }
+        return message;
+    }
+}
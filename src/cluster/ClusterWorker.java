@@ -0,0 +1,148 @@
+package cluster;
+
+import Model.datastructures.Job;
+import multithreading.RunnableStoppableInterface;
+import util.Logger;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker side of cluster mode: connects to a ClusterCoordinator, registers its slots, runs
+ * the jobs it is sent on one platform thread per slot and reports each completion.
+ * A heartbeat is sent every interval the coordinator asked for.
+ * Jobs run in this process's default run mode, so "--cpu-burn" or "--timer" is given to the worker.
+ * @author Group 1
+ */
+public class ClusterWorker implements RunnableStoppableInterface {
+    private final String _workerId;
+    private final String _host;
+    private final int _port;
+    private final int _slotCount;
+    private final Logger _logger;
+    private final AtomicInteger _runningJobs = new AtomicInteger();
+    private final AtomicInteger _completedJobs = new AtomicInteger();
+    private volatile boolean _running = true;
+    private volatile ClusterConnection _connection;
+
+    /**
+     * Constructor for ClusterWorker
+     * @param workerId The name the coordinator knows this worker by
+     * @param host The coordinator's host
+     * @param port The coordinator's port
+     * @param slotCount The number of jobs this worker runs at the same time
+     * @throws IllegalArgumentException if slotCount is not positive
+     */
+    public ClusterWorker(String workerId, String host, int port, int slotCount) {
+        if (slotCount <= 0) {
+            throw new IllegalArgumentException("Slot count must be positive: " + slotCount);
+        }
+        _workerId = workerId;
+        _host = host;
+        _port = port;
+        _slotCount = slotCount;
+        _logger = Logger.getInstance();
+    }
+
+    @Override
+    public void run() {
+        ExecutorService slots = Executors.newFixedThreadPool(_slotCount);
+        Thread heartbeat = null;
+        try (ClusterConnection connection = new ClusterConnection(new Socket(_host, _port))) {
+            _connection = connection;
+            connection.send(new ClusterProtocol.Register(_workerId, _slotCount));
+            if (!(connection.receive() instanceof ClusterProtocol.Registered registered)) {
+                _logger.error(_workerId, "Coordinator did not accept the registration");
+                return;
+            }
+            _logger.info(_workerId, "Registered with coordinator " + _host + ":" + _port + " with " + _slotCount + " slot(s)");
+
+            heartbeat = new Thread(() -> sendHeartbeats(connection, registered.heartbeatMillis()), _workerId + "-heartbeat");
+            heartbeat.setDaemon(true);
+            heartbeat.start();
+
+            while (_running) {
+                ClusterProtocol.Message message = connection.receive();
+                if (message instanceof ClusterProtocol.Dispatch dispatch) {
+                    _runningJobs.incrementAndGet();
+                    slots.submit(() -> runJob(connection, dispatch));
+                } else if (message instanceof ClusterProtocol.Shutdown) {
+                    _logger.info(_workerId, "Coordinator asked this worker to shut down");
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            if (_running) {
+                _logger.error(_workerId, "Connection to coordinator lost: " + e.getMessage());
+            }
+        } finally {
+            _running = false;
+            if (heartbeat != null) {
+                heartbeat.interrupt();
+            }
+            // Jobs still running are requeued by the coordinator, which has seen the connection close
+            slots.shutdownNow();
+        }
+        _logger.info(_workerId, "Worker stopped after " + _completedJobs.get() + " job(s)");
+    }
+
+    private void runJob(ClusterConnection connection, ClusterProtocol.Dispatch dispatch) {
+        Job job = new Job(dispatch.name(), dispatch.executionTime(), dispatch.priority(), dispatch.arrivalTime());
+        boolean success = false;
+        try {
+            success = job.run();
+        } catch (RuntimeException e) {
+            _logger.error(_workerId, "Error executing job: " + job.getName() + " - " + e.getMessage());
+        } finally {
+            _runningJobs.decrementAndGet();
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            // Stopped mid-job; the coordinator runs it again elsewhere
+            return;
+        }
+        try {
+            connection.send(new ClusterProtocol.Completed(dispatch.jobId(), success));
+            _completedJobs.incrementAndGet();
+        } catch (IOException e) {
+            _logger.warning(_workerId, "Could not report completion of " + job.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private void sendHeartbeats(ClusterConnection connection, int heartbeatMillis) {
+        while (_running) {
+            try {
+                connection.send(new ClusterProtocol.Heartbeat(_runningJobs.get()));
+                TimeUnit.MILLISECONDS.sleep(heartbeatMillis);
+            } catch (IOException e) {
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the number of jobs this worker has run and reported
+     * @return The number of completions sent to the coordinator
+     */
+    public int getCompletedJobs() {
+        return _completedJobs.get();
+    }
+
+    /**
+     * Stops the worker by closing its connection; the coordinator requeues its running jobs
+     */
+    public void stopRunning() {
+        _running = false;
+        ClusterConnection connection = _connection;
+        if (connection != null) {
+            connection.close();
+        }
+        _logger.info(_workerId, "Worker stopping");
+    }
+}
@@ -0,0 +1,257 @@
+package cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary protocol spoken between the nodes of a ReplicatedJournal, framed like ClusterProtocol:
+ * a 4-byte length, a 1-byte message type, then the fields.
+ *
+ *   REQUEST_VOTE   term, candidateId, lastLogIndex, lastLogTerm
+ *   VOTE           term, voterId, granted
+ *   APPEND         term, leaderId, prevLogIndex, prevLogTerm, leaderCommit, entry count, entries
+ *   APPEND_RESULT  term, followerId, success, matchIndex
+ *   SNAPSHOT       term, leaderId, lastIncludedIndex, lastIncludedTerm, job count, jobs
+ *
+ * An entry is its term, operation, job id and, for SUBMIT, the job's name, execution time,
+ * priority and arrival time. A snapshot job is its id, name, execution time, priority,
+ * arrival time and state. A SNAPSHOT is answered with an APPEND_RESULT.
+ * @author Group 1
+ */
+public final class JournalProtocol {
+    // An APPEND carries at most MAX_BATCH_ENTRIES entries, well within this; a SNAPSHOT carries
+    // every unfinished job at about 50 bytes each
+    public static final int MAX_FRAME_BYTES = 64 * 1024 * 1024;
+
+    private static final byte REQUEST_VOTE = 1;
+    private static final byte VOTE = 2;
+    private static final byte APPEND = 3;
+    private static final byte APPEND_RESULT = 4;
+    private static final byte SNAPSHOT = 5;
+
+    private JournalProtocol() {
+    }
+
+    /**
+     * A change to the job queue, recorded in the journal
+     */
+    public enum Operation {
+        NOOP,     // Appended by a new leader so entries of earlier terms can be committed
+        SUBMIT,   // A job entered the queue, or went back into it
+        DISPATCH, // A job was given an execution slot
+        COMPLETE, // A job released its slot
+        CANCEL    // A waiting job was removed without running
+    }
+
+    /**
+     * One journal entry. Only SUBMIT entries carry the job's fields; the others leave them empty.
+     */
+    public record Entry(long term, Operation operation, long jobId, String name, double executionTime,
+                        int priority, double arrivalTime) {
+        public static Entry of(long term, Operation operation, long jobId) {
+            return new Entry(term, operation, jobId, "", 0, 0, 0);
+        }
+
+        Entry withTerm(long newTerm) {
+            return new Entry(newTerm, operation, jobId, name, executionTime, priority, arrivalTime);
+        }
+    }
+
+    /**
+     * Every message of the protocol
+     */
+    public sealed interface Message permits RequestVote, Vote, Append, AppendResult, Snapshot {}
+
+    public record RequestVote(long term, int candidateId, long lastLogIndex, long lastLogTerm) implements Message {}
+
+    public record Vote(long term, int voterId, boolean granted) implements Message {}
+
+    public record Append(long term, int leaderId, long prevLogIndex, long prevLogTerm, long leaderCommit,
+                         List<Entry> entries) implements Message {}
+
+    public record AppendResult(long term, int followerId, boolean success, long matchIndex) implements Message {}
+
+    /**
+     * The state the log up to lastIncludedIndex leads to, sent instead of entries the leader
+     * has compacted away
+     */
+    public record Snapshot(long term, int leaderId, long lastIncludedIndex, long lastIncludedTerm,
+                           List<JournalState.JobRecord> jobs) implements Message {}
+
+    /**
+     * Writes one message as a single frame and flushes it
+     * @param out The stream to write to
+     * @param message The message to write
+     * @throws IOException if the stream fails
+     */
+    public static void write(OutputStream out, Message message) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        DataOutputStream fields = new DataOutputStream(body);
+        switch (message) {
+            case RequestVote request -> {
+                fields.writeByte(REQUEST_VOTE);
+                fields.writeLong(request.term());
+                fields.writeInt(request.candidateId());
+                fields.writeLong(request.lastLogIndex());
+                fields.writeLong(request.lastLogTerm());
+            }
+            case Vote vote -> {
+                fields.writeByte(VOTE);
+                fields.writeLong(vote.term());
+                fields.writeInt(vote.voterId());
+                fields.writeBoolean(vote.granted());
+            }
+            case Append append -> {
+                fields.writeByte(APPEND);
+                fields.writeLong(append.term());
+                fields.writeInt(append.leaderId());
+                fields.writeLong(append.prevLogIndex());
+                fields.writeLong(append.prevLogTerm());
+                fields.writeLong(append.leaderCommit());
+                fields.writeInt(append.entries().size());
+                for (Entry entry : append.entries()) {
+                    writeEntry(fields, entry);
+                }
+            }
+            case AppendResult result -> {
+                fields.writeByte(APPEND_RESULT);
+                fields.writeLong(result.term());
+                fields.writeInt(result.followerId());
+                fields.writeBoolean(result.success());
+                fields.writeLong(result.matchIndex());
+            }
+            case Snapshot snapshot -> {
+                fields.writeByte(SNAPSHOT);
+                fields.writeLong(snapshot.term());
+                fields.writeInt(snapshot.leaderId());
+                fields.writeLong(snapshot.lastIncludedIndex());
+                fields.writeLong(snapshot.lastIncludedTerm());
+                fields.writeInt(snapshot.jobs().size());
+                for (JournalState.JobRecord job : snapshot.jobs()) {
+                    writeJob(fields, job);
+                }
+            }
+        }
+
+        DataOutputStream frame = new DataOutputStream(out);
+        frame.writeInt(body.size());
+        body.writeTo(frame);
+        frame.flush();
+    }
+
+    private static void writeEntry(DataOutputStream fields, Entry entry) throws IOException {
+        fields.writeLong(entry.term());
+        fields.writeByte(entry.operation().ordinal());
+        fields.writeLong(entry.jobId());
+        if (entry.operation() == Operation.SUBMIT) {
+            fields.writeUTF(entry.name());
+            fields.writeDouble(entry.executionTime());
+            fields.writeInt(entry.priority());
+            fields.writeDouble(entry.arrivalTime());
+        }
+    }
+
+    private static void writeJob(DataOutputStream fields, JournalState.JobRecord job) throws IOException {
+        fields.writeLong(job.jobId());
+        fields.writeUTF(job.name());
+        fields.writeDouble(job.executionTime());
+        fields.writeInt(job.priority());
+        fields.writeDouble(job.arrivalTime());
+        fields.writeByte(job.state().ordinal());
+    }
+
+    /**
+     * Reads one frame and decodes its message
+     * @param in The stream to read from
+     * @return The message
+     * @throws IOException if the stream ends or fails, or the frame is malformed
+     */
+    public static Message read(InputStream in) throws IOException {
+        DataInputStream frame = new DataInputStream(in);
+        int length = frame.readInt();
+        if (length < 1 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] body = new byte[length];
+        frame.readFully(body);
+
+        DataInputStream fields = new DataInputStream(new ByteArrayInputStream(body));
+        byte type = fields.readByte();
+        Message message = switch (type) {
+            case REQUEST_VOTE -> new RequestVote(fields.readLong(), fields.readInt(), fields.readLong(), fields.readLong());
+            case VOTE -> new Vote(fields.readLong(), fields.readInt(), fields.readBoolean());
+            case APPEND -> {
+                long term = fields.readLong();
+                int leaderId = fields.readInt();
+                long prevLogIndex = fields.readLong();
+                long prevLogTerm = fields.readLong();
+                long leaderCommit = fields.readLong();
+                int count = fields.readInt();
+                if (count < 0) {
+                    throw new IOException("Invalid entry count: " + count);
+                }
+                List<Entry> entries = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    entries.add(readEntry(fields));
+                }
+                yield new Append(term, leaderId, prevLogIndex, prevLogTerm, leaderCommit, entries);
+            }
+            case APPEND_RESULT -> new AppendResult(fields.readLong(), fields.readInt(), fields.readBoolean(), fields.readLong());
+            case SNAPSHOT -> {
+                long term = fields.readLong();
+                int leaderId = fields.readInt();
+                long lastIncludedIndex = fields.readLong();
+                long lastIncludedTerm = fields.readLong();
+                int count = fields.readInt();
+                if (count < 0) {
+                    throw new IOException("Invalid job count: " + count);
+                }
+                List<JournalState.JobRecord> jobs = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    jobs.add(readJob(fields));
+                }
+                yield new Snapshot(term, leaderId, lastIncludedIndex, lastIncludedTerm, jobs);
+            }
+            default -> throw new IOException("Unknown message type: " + type);
+        };
+        if (fields.available() > 0) {
+            throw new IOException("Trailing bytes after message type " + type);
+        }
+        return message;
+    }
+
+    private static Entry readEntry(DataInputStream fields) throws IOException {
+        long term = fields.readLong();
+        int operation = fields.readUnsignedByte();
+        if (operation >= Operation.values().length) {
+            throw new IOException("Unknown journal operation: " + operation);
+        }
+        long jobId = fields.readLong();
+        if (Operation.values()[operation] != Operation.SUBMIT) {
+            return Entry.of(term, Operation.values()[operation], jobId);
+        }
+        return new Entry(term, Operation.SUBMIT, jobId, fields.readUTF(), fields.readDouble(),
+                fields.readInt(), fields.readDouble());
+    }
+
+    private static JournalState.JobRecord readJob(DataInputStream fields) throws IOException {
+        long jobId = fields.readLong();
+        String name = fields.readUTF();
+        double executionTime = fields.readDouble();
+        int priority = fields.readInt();
+        double arrivalTime = fields.readDouble();
+        int state = fields.readUnsignedByte();
+        if (state >= JournalState.JobState.values().length) {
+            throw new IOException("Unknown job state: " + state);
+        }
+        return new JournalState.JobRecord(jobId, name, executionTime, priority, arrivalTime,
+                JournalState.JobState.values()[state]);
+    }
+}
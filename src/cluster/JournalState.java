@@ -0,0 +1,111 @@
+package cluster;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The job queue as rebuilt from committed journal entries: every job that was submitted and
+ * has neither completed nor been cancelled, in submission order. Each node of a
+ * ReplicatedJournal applies the same entries in the same order, so a follower that becomes
+ * leader already holds the queue. A journal also keeps one for the entries it has compacted
+ * away, and rebuilds one from a leader's snapshot. Not thread-safe; the journal applies
+ * entries under its lock.
+ * @author Group 1
+ */
+public class JournalState {
+
+    /**
+     * Where a journaled job is
+     */
+    public enum JobState {
+        WAITING,
+        RUNNING
+    }
+
+    /**
+     * A journaled job that has not finished
+     */
+    public record JobRecord(long jobId, String name, double executionTime, int priority, double arrivalTime,
+                            JobState state) {
+        JobRecord withState(JobState newState) {
+            return new JobRecord(jobId, name, executionTime, priority, arrivalTime, newState);
+        }
+    }
+
+    private final Map<Long, JobRecord> _jobs = new LinkedHashMap<>();
+    private long _appliedEntries;
+    private long _completedJobs;
+    private long _cancelledJobs;
+
+    /**
+     * Constructor for an empty JournalState, before any entry is applied
+     */
+    public JournalState() {
+    }
+
+    /**
+     * Constructor for a JournalState rebuilt from a snapshot. Only the unfinished jobs are
+     * carried over; the completed and cancelled counts start again from zero.
+     * @param jobs The unfinished jobs in submission order
+     * @param appliedEntries The number of entries the snapshot covers
+     */
+    JournalState(List<JobRecord> jobs, long appliedEntries) {
+        for (JobRecord job : jobs) {
+            _jobs.put(job.jobId(), job);
+        }
+        _appliedEntries = appliedEntries;
+    }
+
+    /**
+     * Applies one committed entry
+     * @param entry The entry; entries must be applied in log order
+     */
+    void apply(JournalProtocol.Entry entry) {
+        _appliedEntries++;
+        switch (entry.operation()) {
+            case SUBMIT -> {
+                JobRecord existing = _jobs.get(entry.jobId());
+                // A known job going back into the queue keeps its place in submission order
+                _jobs.put(entry.jobId(), existing != null ? existing.withState(JobState.WAITING)
+                        : new JobRecord(entry.jobId(), entry.name(), entry.executionTime(), entry.priority(),
+                                entry.arrivalTime(), JobState.WAITING));
+            }
+            case DISPATCH -> _jobs.computeIfPresent(entry.jobId(), (id, job) -> job.withState(JobState.RUNNING));
+            case COMPLETE -> {
+                if (_jobs.remove(entry.jobId()) != null) {
+                    _completedJobs++;
+                }
+            }
+            case CANCEL -> {
+                if (_jobs.remove(entry.jobId()) != null) {
+                    _cancelledJobs++;
+                }
+            }
+            case NOOP -> {
+                // Only moves the commit index forward
+            }
+        }
+    }
+
+    /**
+     * Get the unfinished jobs
+     * @return A copy of the waiting and running jobs in submission order
+     */
+    public List<JobRecord> getJobs() {
+        return new ArrayList<>(_jobs.values());
+    }
+
+    public long getAppliedEntries() {
+        return _appliedEntries;
+    }
+
+    public long getCompletedJobs() {
+        return _completedJobs;
+    }
+
+    public long getCancelledJobs() {
+        return _cancelledJobs;
+    }
+}
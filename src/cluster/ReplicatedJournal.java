@@ -0,0 +1,1058 @@
+package cluster;
+
+import Model.datastructures.Job;
+import Model.datastructures.QueueJournal;
+import util.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A journal of job queue changes replicated across a few local instances with the Raft
+ * consensus algorithm, so that when the instance running the queue dies another one takes
+ * over with the queue intact.
+ *
+ * One node is elected leader; only the leader's JobQueue is journaled. Its changes are
+ * appended to the log and shipped to the followers (see JournalProtocol), and an entry is
+ * committed once a majority holds it. Every node applies committed entries to a JournalState.
+ * A follower that hears nothing from the leader for an election timeout stands for election;
+ * the winner appends a NOOP, waits for it to commit, and can then rebuild the queue from its
+ * state with restoreJobs().
+ *
+ * Writes are batched and pipelined: changes are queued without blocking the caller, a ticker
+ * thread moves everything queued into the log at once, and sends up to MAX_BATCH_ENTRIES per
+ * Append to each follower without waiting for the previous Append to be acknowledged, as long
+ * as fewer than MAX_IN_FLIGHT_ENTRIES are unacknowledged.
+ *
+ * The log is kept in memory only. A node that restarts comes back empty and is caught up by
+ * the leader, which is safe while a majority of nodes stays up. Once more than
+ * COMPACTION_THRESHOLD_ENTRIES applied entries have piled up, a node folds them into a
+ * snapshot JournalState and drops them from the log. A leader keeps the entries a follower
+ * still needs unless that follower lags too far behind, e.g. because it is down; such a
+ * follower is sent the snapshot instead.
+ *
+ * A leader whose queue was rebuilt with restoreJobs() and that then loses the leadership is
+ * fenced for good: isFenced() tells its JobQueue to refuse submissions and stop dispatching,
+ * since another instance now owns the journal, and it never stands for election again. It
+ * still votes and replicates, so it keeps counting towards the majority.
+ * @author Group 1
+ */
+public class ReplicatedJournal implements QueueJournal {
+    public static final int DEFAULT_HEARTBEAT_MILLIS = 50;
+    // Randomised between this and twice this so that candidates rarely split the vote
+    public static final int DEFAULT_ELECTION_TIMEOUT_MILLIS = 300;
+    public static final int MAX_BATCH_ENTRIES = 1024;
+    // Unacknowledged entries per follower before the leader stops sending new ones
+    public static final int MAX_IN_FLIGHT_ENTRIES = 8 * MAX_BATCH_ENTRIES;
+    // Applied entries kept in the log before they are folded into the snapshot
+    public static final int COMPACTION_THRESHOLD_ENTRIES = 2 * MAX_IN_FLIGHT_ENTRIES;
+
+    /**
+     * The part a node plays in the current term
+     */
+    public enum Role {
+        FOLLOWER,
+        CANDIDATE,
+        LEADER
+    }
+
+    private final String _moduleID;
+    private final int _nodeId;
+    private final List<Integer> _ports;
+    private final int _majority;
+    private final long _heartbeatNanos;
+    private final long _electionTimeoutNanos;
+    private final ServerSocket _serverSocket;
+    private final Logger _logger;
+    private final Peer[] _peers;
+    private final Set<Socket> _inbound = ConcurrentHashMap.newKeySet();
+    private volatile boolean _running = true;
+    private volatile Thread _ticker;
+    private volatile boolean _parked;
+
+    // Changes waiting for the ticker to move them into the log
+    private final ConcurrentLinkedQueue<Pending> _pending = new ConcurrentLinkedQueue<>();
+    // Journal ids of the jobs this node's queue holds; Job compares by identity
+    private final Map<Job, Long> _jobIds = new ConcurrentHashMap<>();
+    private final AtomicLong _nextSequence = new AtomicLong();
+    private volatile long _idPrefix;
+    // Set once this node's queue is rebuilt from the journal, and once that leadership is lost
+    private volatile boolean _serving;
+    private volatile boolean _fenced;
+
+    private final AtomicLong _appendsSent = new AtomicLong();
+    private final AtomicLong _entriesSent = new AtomicLong();
+
+    // Guards everything below; _roleChanged is signalled when the role or the leader's readiness changes
+    private final ReentrantLock _lock = new ReentrantLock();
+    private final Condition _roleChanged = _lock.newCondition();
+    private volatile Role _role = Role.FOLLOWER;
+    private long _currentTerm;
+    private int _votedFor = -1;
+    private int _leaderId = -1;
+    private final Set<Integer> _votes = new HashSet<>();
+    private long _electionDeadline;
+    // Entry i of the log is _log.get(i - _snapshotIndex - 1); index 0 is the empty log
+    private final List<JournalProtocol.Entry> _log = new ArrayList<>();
+    // Entries up to _snapshotIndex have been compacted; _snapshot is the state they lead to
+    private long _snapshotIndex;
+    private long _snapshotTerm;
+    private JournalState _snapshot = new JournalState();
+    private long _commitIndex;
+    private long _lastApplied;
+    private JournalState _state = new JournalState();
+    // Index of this leader's NOOP; the leader is ready once it is committed
+    private long _readyIndex = Long.MAX_VALUE;
+    private final long[] _nextIndex;
+    private final long[] _matchIndex;
+    private final long[] _lastSentNanos;
+    private final SortedMap<Long, CompletableFuture<Long>> _commitWaiters = new TreeMap<>();
+
+    /**
+     * A change queued for the log
+     */
+    private record Pending(JournalProtocol.Operation operation, long jobId, Job job, CompletableFuture<Long> commit) {}
+
+    /**
+     * A message built under the lock and sent after it is released
+     */
+    private record Outgoing(Peer peer, JournalProtocol.Message message, int entries) {}
+
+    /**
+     * Constructor for ReplicatedJournal. This node's port is bound on 127.0.0.1 straight away;
+     * nothing is sent until start() is called.
+     * @param moduleID The ID of this module
+     * @param nodeId This node's index in ports
+     * @param ports The port of every node, this one included
+     * @param heartbeatMillis How often the leader contacts each follower
+     * @param electionTimeoutMillis How long a follower waits for the leader before standing for election
+     * @throws IOException if this node's port cannot be bound
+     * @throws IllegalArgumentException if nodeId is not an index of ports, or the timeouts are not
+     *         positive and the election timeout longer than the heartbeat
+     */
+    public ReplicatedJournal(String moduleID, int nodeId, List<Integer> ports, int heartbeatMillis,
+                             int electionTimeoutMillis) throws IOException {
+        if (nodeId < 0 || nodeId >= ports.size()) {
+            throw new IllegalArgumentException("Node id " + nodeId + " is not one of the " + ports.size() + " nodes");
+        }
+        if (heartbeatMillis <= 0 || electionTimeoutMillis <= heartbeatMillis) {
+            throw new IllegalArgumentException("Heartbeat (" + heartbeatMillis + " ms) must be positive and shorter than "
+                    + "the election timeout (" + electionTimeoutMillis + " ms)");
+        }
+        _moduleID = moduleID;
+        _nodeId = nodeId;
+        _ports = List.copyOf(ports);
+        _majority = ports.size() / 2 + 1;
+        _heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatMillis);
+        _electionTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(electionTimeoutMillis);
+        _logger = Logger.getInstance();
+        _peers = new Peer[ports.size()];
+        for (int i = 0; i < ports.size(); i++) {
+            if (i != nodeId) {
+                _peers[i] = new Peer(i, ports.get(i));
+            }
+        }
+        _nextIndex = new long[ports.size()];
+        _matchIndex = new long[ports.size()];
+        _lastSentNanos = new long[ports.size()];
+        _serverSocket = new ServerSocket(ports.get(nodeId), 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Starts accepting connections from the other nodes and the election timer
+     */
+    public void start() {
+        _lock.lock();
+        try {
+            resetElectionDeadline();
+        } finally {
+            _lock.unlock();
+        }
+        Thread acceptor = new Thread(this::acceptPeers, _moduleID + "-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        Thread ticker = new Thread(this::tick, _moduleID + "-ticker");
+        ticker.setDaemon(true);
+        _ticker = ticker;
+        ticker.start();
+        _logger.info(_moduleID, "Journal node " + _nodeId + " listening on 127.0.0.1:" + _serverSocket.getLocalPort());
+    }
+
+    /**
+     * Stops this node abruptly, as if its process had died: every connection is closed and
+     * changes that are not committed yet are failed
+     */
+    public void stop() {
+        _running = false;
+        try {
+            _serverSocket.close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+        for (Peer peer : _peers) {
+            if (peer != null) {
+                peer.close();
+            }
+        }
+        for (Socket socket : _inbound) {
+            closeQuietly(socket);
+        }
+        Thread ticker = _ticker;
+        if (ticker != null) {
+            LockSupport.unpark(ticker);
+        }
+        _lock.lock();
+        try {
+            failWaiters("Journal node stopped");
+            _roleChanged.signalAll();
+        } finally {
+            _lock.unlock();
+        }
+        _logger.info(_moduleID, "Journal node " + _nodeId + " stopped");
+    }
+
+    // ----- QueueJournal: only the leader's queue is journaled -----
+
+    @Override
+    public void submitted(Job job) {
+        if (_role != Role.LEADER) {
+            return;
+        }
+        // A job going back into the queue keeps its id
+        long jobId = _jobIds.computeIfAbsent(job, j -> _idPrefix | _nextSequence.incrementAndGet());
+        propose(JournalProtocol.Operation.SUBMIT, jobId, job);
+    }
+
+    @Override
+    public void dispatched(Job job) {
+        Long jobId = _jobIds.get(job);
+        if (jobId != null) {
+            propose(JournalProtocol.Operation.DISPATCH, jobId, null);
+        }
+    }
+
+    @Override
+    public void released(Job job) {
+        Long jobId = _jobIds.remove(job);
+        if (jobId != null) {
+            propose(JournalProtocol.Operation.COMPLETE, jobId, null);
+        }
+    }
+
+    @Override
+    public void cancelled(Job job) {
+        Long jobId = _jobIds.remove(job);
+        if (jobId != null) {
+            propose(JournalProtocol.Operation.CANCEL, jobId, null);
+        }
+    }
+
+    /**
+     * Journals the submission of a job and reports when it is committed
+     * @param job The job
+     * @return A future completed with the entry's log index once a majority holds it, or
+     *         failed if this node is not the leader or loses leadership first
+     */
+    public CompletableFuture<Long> recordSubmit(Job job) {
+        long jobId = _jobIds.computeIfAbsent(job, j -> _idPrefix | _nextSequence.incrementAndGet());
+        return propose(JournalProtocol.Operation.SUBMIT, jobId, job);
+    }
+
+    private CompletableFuture<Long> propose(JournalProtocol.Operation operation, long jobId, Job job) {
+        CompletableFuture<Long> commit = new CompletableFuture<>();
+        if (!_running || _role != Role.LEADER) {
+            commit.completeExceptionally(new IllegalStateException("Journal node " + _nodeId + " is not the leader"));
+            return commit;
+        }
+        _pending.add(new Pending(operation, jobId, job, commit));
+        if (_parked) {
+            LockSupport.unpark(_ticker);
+        }
+        return commit;
+    }
+
+    // ----- Ticker: moves queued changes into the log, replicates it and runs the election timer -----
+
+    private void tick() {
+        while (_running) {
+            List<Outgoing> outgoing = new ArrayList<>();
+            long waitNanos;
+            _lock.lock();
+            try {
+                long now = System.nanoTime();
+                if (_role == Role.LEADER) {
+                    appendPending();
+                    replicate(now, outgoing);
+                    waitNanos = _heartbeatNanos;
+                } else if (_fenced) {
+                    // This node's queue is stale; it must not lead again
+                    failPending();
+                    waitNanos = _electionTimeoutNanos;
+                } else {
+                    failPending();
+                    if (now - _electionDeadline >= 0) {
+                        startElection(outgoing);
+                    }
+                    waitNanos = Math.max(0, _electionDeadline - now);
+                }
+            } finally {
+                _lock.unlock();
+            }
+
+            for (Outgoing message : outgoing) {
+                send(message);
+            }
+
+            _parked = true;
+            if (_pending.isEmpty() && outgoing.isEmpty()) {
+                LockSupport.parkNanos(this, waitNanos);
+            }
+            _parked = false;
+        }
+        failPending();
+    }
+
+    /**
+     * Moves every queued change into the log. Call with the lock held, as leader.
+     */
+    private void appendPending() {
+        Pending pending;
+        while ((pending = _pending.poll()) != null) {
+            Job job = pending.job();
+            JournalProtocol.Entry entry = job == null
+                    ? JournalProtocol.Entry.of(_currentTerm, pending.operation(), pending.jobId())
+                    : new JournalProtocol.Entry(_currentTerm, pending.operation(), pending.jobId(), job.getName(),
+                            job.getExecutionTime(), job.getPriority(), job.getArrivalTime());
+            _log.add(entry);
+            _commitWaiters.put(lastLogIndex(), pending.commit());
+        }
+        if (_majority == 1) {
+            advanceCommitIndex();
+        }
+    }
+
+    private void failPending() {
+        Pending pending;
+        while ((pending = _pending.poll()) != null) {
+            pending.commit().completeExceptionally(new IllegalStateException("Journal node " + _nodeId + " is not the leader"));
+        }
+    }
+
+    /**
+     * Builds the Appends to send to each follower: new entries while the in-flight window has
+     * room, otherwise a heartbeat when one is due. Call with the lock held, as leader.
+     */
+    private void replicate(long now, List<Outgoing> outgoing) {
+        long lastIndex = lastLogIndex();
+        for (Peer peer : _peers) {
+            if (peer == null) {
+                continue;
+            }
+            int id = peer.id;
+            boolean sent = false;
+            if (_nextIndex[id] <= _snapshotIndex) {
+                // The entries this follower needs were compacted away; send the state they lead to
+                outgoing.add(new Outgoing(peer, new JournalProtocol.Snapshot(_currentTerm, _nodeId, _snapshotIndex,
+                        _snapshotTerm, _snapshot.getJobs()), 0));
+                _nextIndex[id] = _snapshotIndex + 1;
+                sent = true;
+            }
+            while (_nextIndex[id] <= lastIndex && _nextIndex[id] - 1 - _matchIndex[id] < MAX_IN_FLIGHT_ENTRIES) {
+                long prevIndex = _nextIndex[id] - 1;
+                long endIndex = Math.min(lastIndex, prevIndex + MAX_BATCH_ENTRIES);
+                // Copied because the message is encoded after the lock is released
+                List<JournalProtocol.Entry> entries = new ArrayList<>(_log.subList(position(prevIndex + 1),
+                        position(endIndex) + 1));
+                outgoing.add(new Outgoing(peer, new JournalProtocol.Append(_currentTerm, _nodeId, prevIndex,
+                        termAt(prevIndex), _commitIndex, entries), entries.size()));
+                // Optimistically; a failed Append moves it back
+                _nextIndex[id] = endIndex + 1;
+                sent = true;
+            }
+            if (sent || now - _lastSentNanos[id] >= _heartbeatNanos) {
+                if (!sent) {
+                    long prevIndex = _nextIndex[id] - 1;
+                    outgoing.add(new Outgoing(peer, new JournalProtocol.Append(_currentTerm, _nodeId, prevIndex,
+                            termAt(prevIndex), _commitIndex, List.of()), 0));
+                }
+                _lastSentNanos[id] = now;
+            }
+        }
+    }
+
+    /**
+     * Becomes a candidate for the next term and asks every other node for its vote.
+     * Call with the lock held.
+     */
+    private void startElection(List<Outgoing> outgoing) {
+        _currentTerm++;
+        _role = Role.CANDIDATE;
+        _votedFor = _nodeId;
+        _leaderId = -1;
+        _votes.clear();
+        _votes.add(_nodeId);
+        resetElectionDeadline();
+        _logger.info(_moduleID, "Journal node " + _nodeId + " standing for election in term " + _currentTerm);
+        if (_votes.size() >= _majority) {
+            becomeLeader();
+            return;
+        }
+        JournalProtocol.RequestVote request = new JournalProtocol.RequestVote(_currentTerm, _nodeId, lastLogIndex(),
+                termAt(lastLogIndex()));
+        for (Peer peer : _peers) {
+            if (peer != null) {
+                outgoing.add(new Outgoing(peer, request, 0));
+            }
+        }
+    }
+
+    private void send(Outgoing outgoing) {
+        Peer peer = outgoing.peer();
+        try {
+            peer.send(outgoing.message());
+            if (outgoing.message() instanceof JournalProtocol.Append) {
+                _appendsSent.incrementAndGet();
+                _entriesSent.addAndGet(outgoing.entries());
+            }
+        } catch (IOException e) {
+            _lock.lock();
+            try {
+                // Whatever was in flight is lost; start again from what the follower is known to hold
+                _nextIndex[peer.id] = _matchIndex[peer.id] + 1;
+            } finally {
+                _lock.unlock();
+            }
+        }
+    }
+
+    // ----- Role changes; all called with the lock held -----
+
+    private void becomeLeader() {
+        _role = Role.LEADER;
+        _leaderId = _nodeId;
+        Arrays.fill(_nextIndex, lastLogIndex() + 1);
+        Arrays.fill(_matchIndex, 0);
+        Arrays.fill(_lastSentNanos, 0);
+        _idPrefix = _currentTerm << 32;
+        _nextSequence.set(0);
+        // Entries of earlier terms are only committed together with one of this term
+        _log.add(JournalProtocol.Entry.of(_currentTerm, JournalProtocol.Operation.NOOP, 0));
+        _readyIndex = lastLogIndex();
+        _logger.info(_moduleID, "Journal node " + _nodeId + " is the leader for term " + _currentTerm);
+        if (_majority == 1) {
+            advanceCommitIndex();
+        }
+        _roleChanged.signalAll();
+        Thread ticker = _ticker;
+        if (ticker != null && ticker != Thread.currentThread()) {
+            LockSupport.unpark(ticker);
+        }
+    }
+
+    private void becomeFollower(long term) {
+        if (_role == Role.LEADER) {
+            _logger.warning(_moduleID, "Journal node " + _nodeId + " is no longer the leader (term " + term + ")");
+            failWaiters("Leadership lost before the entry was committed");
+            _jobIds.clear();
+            if (_serving && !_fenced) {
+                _fenced = true;
+                _logger.error(_moduleID, "Journal node " + _nodeId + " fenced its job queue: another node "
+                        + "may now own the journal, so no job is accepted or dispatched here");
+            }
+        }
+        if (term > _currentTerm) {
+            _currentTerm = term;
+            _votedFor = -1;
+        }
+        _role = Role.FOLLOWER;
+        _readyIndex = Long.MAX_VALUE;
+        _roleChanged.signalAll();
+    }
+
+    private void failWaiters(String reason) {
+        for (CompletableFuture<Long> waiter : _commitWaiters.values()) {
+            waiter.completeExceptionally(new IllegalStateException(reason));
+        }
+        _commitWaiters.clear();
+    }
+
+    private void resetElectionDeadline() {
+        long jitter = ThreadLocalRandom.current().nextLong(_electionTimeoutNanos);
+        _electionDeadline = System.nanoTime() + _electionTimeoutNanos + jitter;
+    }
+
+    // ----- Log helpers; all called with the lock held -----
+
+    private long lastLogIndex() {
+        return _snapshotIndex + _log.size();
+    }
+
+    /**
+     * The position of an entry in _log; index must be after the snapshot
+     */
+    private int position(long index) {
+        return (int) (index - _snapshotIndex - 1);
+    }
+
+    /**
+     * The term of an entry; index must be the snapshot's last entry or after it
+     */
+    private long termAt(long index) {
+        return index == _snapshotIndex ? _snapshotTerm : _log.get(position(index)).term();
+    }
+
+    /**
+     * Commits the highest entry of this term that a majority holds
+     */
+    private void advanceCommitIndex() {
+        long[] held = new long[_ports.size()];
+        for (int i = 0; i < held.length; i++) {
+            held[i] = i == _nodeId ? lastLogIndex() : _matchIndex[i];
+        }
+        Arrays.sort(held);
+        long majorityIndex = held[held.length - _majority];
+        if (majorityIndex > _commitIndex && termAt(majorityIndex) == _currentTerm) {
+            _commitIndex = majorityIndex;
+            applyCommitted();
+        }
+    }
+
+    private void applyCommitted() {
+        while (_lastApplied < _commitIndex) {
+            _lastApplied++;
+            _state.apply(_log.get(position(_lastApplied)));
+        }
+        compactLog();
+        SortedMap<Long, CompletableFuture<Long>> committed = _commitWaiters.headMap(_commitIndex + 1);
+        for (Map.Entry<Long, CompletableFuture<Long>> waiter : committed.entrySet()) {
+            waiter.getValue().complete(waiter.getKey());
+        }
+        committed.clear();
+        if (_role == Role.LEADER && _commitIndex >= _readyIndex) {
+            _roleChanged.signalAll();
+        }
+    }
+
+    /**
+     * Folds applied entries into the snapshot once more than COMPACTION_THRESHOLD_ENTRIES of
+     * them are in the log. A leader keeps what a follower still needs, unless the follower lags
+     * by more than the threshold; it is sent the snapshot instead. Entries are only dropped
+     * in large steps, since dropping shifts the rest of the log.
+     */
+    private void compactLog() {
+        if (_lastApplied - _snapshotIndex < COMPACTION_THRESHOLD_ENTRIES) {
+            return;
+        }
+        long compactIndex = _lastApplied;
+        if (_role == Role.LEADER) {
+            for (Peer peer : _peers) {
+                if (peer != null && _lastApplied - _matchIndex[peer.id] < COMPACTION_THRESHOLD_ENTRIES) {
+                    compactIndex = Math.min(compactIndex, _matchIndex[peer.id]);
+                }
+            }
+        }
+        if (compactIndex - _snapshotIndex < COMPACTION_THRESHOLD_ENTRIES / 2) {
+            return;
+        }
+        for (long index = _snapshotIndex + 1; index <= compactIndex; index++) {
+            _snapshot.apply(_log.get(position(index)));
+        }
+        _snapshotTerm = termAt(compactIndex);
+        _log.subList(0, position(compactIndex) + 1).clear();
+        _snapshotIndex = compactIndex;
+    }
+
+    // ----- Handling messages -----
+
+    private JournalProtocol.Vote handleRequestVote(JournalProtocol.RequestVote request) {
+        _lock.lock();
+        try {
+            if (request.term() > _currentTerm) {
+                becomeFollower(request.term());
+            }
+            long lastTerm = termAt(lastLogIndex());
+            boolean upToDate = request.lastLogTerm() > lastTerm
+                    || (request.lastLogTerm() == lastTerm && request.lastLogIndex() >= lastLogIndex());
+            boolean granted = request.term() == _currentTerm && upToDate
+                    && (_votedFor == -1 || _votedFor == request.candidateId());
+            if (granted) {
+                _votedFor = request.candidateId();
+                resetElectionDeadline();
+            }
+            return new JournalProtocol.Vote(_currentTerm, _nodeId, granted);
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    private JournalProtocol.AppendResult handleAppend(JournalProtocol.Append append) {
+        _lock.lock();
+        try {
+            if (append.term() < _currentTerm) {
+                return new JournalProtocol.AppendResult(_currentTerm, _nodeId, false, 0);
+            }
+            if (append.term() > _currentTerm || _role != Role.FOLLOWER) {
+                becomeFollower(append.term());
+            }
+            if (_leaderId != append.leaderId()) {
+                _leaderId = append.leaderId();
+                _logger.info(_moduleID, "Journal node " + _nodeId + " following node " + _leaderId + " in term " + _currentTerm);
+            }
+            resetElectionDeadline();
+
+            long prevIndex = append.prevLogIndex();
+            List<JournalProtocol.Entry> entries = append.entries();
+            if (prevIndex > lastLogIndex()) {
+                // The hint tells the leader where this log really ends
+                return new JournalProtocol.AppendResult(_currentTerm, _nodeId, false, lastLogIndex());
+            }
+            boolean matched = false;
+            if (prevIndex < _snapshotIndex) {
+                // Entries up to the snapshot are committed, so they match the leader's; skip them
+                int skipped = (int) Math.min(entries.size(), _snapshotIndex - prevIndex);
+                entries = entries.subList(skipped, entries.size());
+                prevIndex += skipped;
+                if (prevIndex < _snapshotIndex) {
+                    return new JournalProtocol.AppendResult(_currentTerm, _nodeId, true, prevIndex);
+                }
+                matched = true;
+            }
+            if (!matched && termAt(prevIndex) != append.prevLogTerm()) {
+                // Skip back over the whole conflicting term, but never below what is committed
+                long conflictTerm = termAt(prevIndex);
+                long firstOfTerm = prevIndex;
+                while (firstOfTerm > _snapshotIndex + 1 && termAt(firstOfTerm - 1) == conflictTerm) {
+                    firstOfTerm--;
+                }
+                return new JournalProtocol.AppendResult(_currentTerm, _nodeId, false,
+                        Math.max(_commitIndex, firstOfTerm - 1));
+            }
+
+            long index = prevIndex;
+            for (JournalProtocol.Entry entry : entries) {
+                index++;
+                if (index <= lastLogIndex()) {
+                    if (termAt(index) == entry.term()) {
+                        continue;
+                    }
+                    // A conflicting suffix was never committed; drop it
+                    _log.subList(position(index), _log.size()).clear();
+                }
+                _log.add(entry);
+            }
+            // Only what this Append vouches for; an older, pipelined Append may vouch for less
+            long commitIndex = Math.min(append.leaderCommit(), index);
+            if (commitIndex > _commitIndex) {
+                _commitIndex = commitIndex;
+                applyCommitted();
+            }
+            return new JournalProtocol.AppendResult(_currentTerm, _nodeId, true, index);
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    private JournalProtocol.AppendResult handleSnapshot(JournalProtocol.Snapshot snapshot) {
+        _lock.lock();
+        try {
+            if (snapshot.term() < _currentTerm) {
+                return new JournalProtocol.AppendResult(_currentTerm, _nodeId, false, 0);
+            }
+            if (snapshot.term() > _currentTerm || _role != Role.FOLLOWER) {
+                becomeFollower(snapshot.term());
+            }
+            if (_leaderId != snapshot.leaderId()) {
+                _leaderId = snapshot.leaderId();
+                _logger.info(_moduleID, "Journal node " + _nodeId + " following node " + _leaderId + " in term " + _currentTerm);
+            }
+            resetElectionDeadline();
+
+            long index = snapshot.lastIncludedIndex();
+            if (index <= _lastApplied) {
+                // Already applied; committed entries are the same everywhere
+                return new JournalProtocol.AppendResult(_currentTerm, _nodeId, true, index);
+            }
+            if (index < lastLogIndex() && termAt(index) == snapshot.lastIncludedTerm()) {
+                // The entries after the snapshot agree with the leader's; keep them
+                _log.subList(0, position(index) + 1).clear();
+            } else {
+                _log.clear();
+            }
+            _snapshotIndex = index;
+            _snapshotTerm = snapshot.lastIncludedTerm();
+            _snapshot = new JournalState(snapshot.jobs(), index);
+            _state = new JournalState(snapshot.jobs(), index);
+            _lastApplied = index;
+            _commitIndex = Math.max(_commitIndex, index);
+            applyCommitted();
+            _logger.info(_moduleID, "Journal node " + _nodeId + " installed a snapshot up to entry " + index);
+            return new JournalProtocol.AppendResult(_currentTerm, _nodeId, true, index);
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    private void handleVote(JournalProtocol.Vote vote) {
+        _lock.lock();
+        try {
+            if (vote.term() > _currentTerm) {
+                becomeFollower(vote.term());
+                return;
+            }
+            if (_role != Role.CANDIDATE || vote.term() != _currentTerm || !vote.granted()) {
+                return;
+            }
+            _votes.add(vote.voterId());
+            if (_votes.size() >= _majority) {
+                becomeLeader();
+            }
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    private void handleAppendResult(JournalProtocol.AppendResult result) {
+        _lock.lock();
+        try {
+            if (result.term() > _currentTerm) {
+                becomeFollower(result.term());
+                return;
+            }
+            if (_role != Role.LEADER || result.term() != _currentTerm) {
+                return;
+            }
+            int id = result.followerId();
+            if (result.success()) {
+                _matchIndex[id] = Math.max(_matchIndex[id], result.matchIndex());
+                _nextIndex[id] = Math.max(_nextIndex[id], _matchIndex[id] + 1);
+                advanceCommitIndex();
+            } else {
+                // Lowering the match index is always safe; it is also how a restarted, empty follower is noticed
+                _matchIndex[id] = Math.min(_matchIndex[id], result.matchIndex());
+                _nextIndex[id] = result.matchIndex() + 1;
+            }
+        } finally {
+            _lock.unlock();
+        }
+        // The in-flight window may have room again
+        if (_parked) {
+            LockSupport.unpark(_ticker);
+        }
+    }
+
+    // ----- Connections -----
+
+    private void acceptPeers() {
+        while (_running && !_serverSocket.isClosed()) {
+            try {
+                Socket socket = _serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                _inbound.add(socket);
+                Thread handler = new Thread(() -> serve(socket), _moduleID + "-inbound");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (_running) {
+                    _logger.warning(_moduleID, "Could not accept a journal connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers the requests of one node that connected to this one
+     */
+    private void serve(Socket socket) {
+        try {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            while (_running) {
+                JournalProtocol.Message reply = switch (JournalProtocol.read(in)) {
+                    case JournalProtocol.RequestVote request -> handleRequestVote(request);
+                    case JournalProtocol.Append append -> handleAppend(append);
+                    case JournalProtocol.Snapshot snapshot -> handleSnapshot(snapshot);
+                    default -> throw new IOException("Unexpected request from a journal node");
+                };
+                if (_running) {
+                    JournalProtocol.write(out, reply);
+                }
+            }
+        } catch (IOException e) {
+            if (_running && !(e instanceof EOFException)) {
+                _logger.warning(_moduleID, "Journal connection lost: " + e.getMessage());
+            }
+        } finally {
+            _inbound.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already broken; nothing left to release
+        }
+    }
+
+    /**
+     * The connection from this node to another one, opened on first use and again after it
+     * breaks. Requests are written by the ticker; a reader thread handles the replies.
+     */
+    private final class Peer {
+        private final int id;
+        private final int port;
+        private volatile Socket _socket;
+        private OutputStream _out;
+        private boolean _reachable = true;
+
+        Peer(int id, int port) {
+            this.id = id;
+            this.port = port;
+        }
+
+        synchronized void send(JournalProtocol.Message message) throws IOException {
+            if (!_running) {
+                throw new IOException("Journal node stopped");
+            }
+            if (_socket == null) {
+                connect();
+            }
+            try {
+                JournalProtocol.write(_out, message);
+            } catch (IOException e) {
+                disconnect(_socket);
+                throw e;
+            }
+        }
+
+        private void connect() throws IOException {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                        (int) TimeUnit.NANOSECONDS.toMillis(_electionTimeoutNanos));
+                socket.setTcpNoDelay(true);
+                _out = new BufferedOutputStream(socket.getOutputStream());
+            } catch (IOException e) {
+                closeQuietly(socket);
+                if (_reachable) {
+                    _reachable = false;
+                    _logger.warning(_moduleID, "Journal node " + id + " is unreachable: " + e.getMessage());
+                }
+                throw e;
+            }
+            _socket = socket;
+            if (!_reachable) {
+                _reachable = true;
+                _logger.info(_moduleID, "Journal node " + id + " is reachable again");
+            }
+            Thread reader = new Thread(() -> readReplies(socket), _moduleID + "-peer-" + id);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        private void readReplies(Socket socket) {
+            try {
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                while (_running) {
+                    switch (JournalProtocol.read(in)) {
+                        case JournalProtocol.Vote vote -> handleVote(vote);
+                        case JournalProtocol.AppendResult result -> handleAppendResult(result);
+                        default -> throw new IOException("Unexpected reply from journal node " + id);
+                    }
+                }
+            } catch (IOException e) {
+                // Reconnected on the next send
+            } finally {
+                disconnect(socket);
+            }
+        }
+
+        synchronized void disconnect(Socket socket) {
+            if (socket != null && _socket == socket) {
+                _socket = null;
+                _out = null;
+            }
+            if (socket != null) {
+                closeQuietly(socket);
+            }
+        }
+
+        // Not synchronized so that it also breaks a send that is blocked writing
+        void close() {
+            Socket socket = _socket;
+            if (socket != null) {
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    // ----- Waiting and inspecting -----
+
+    /**
+     * Waits until this node is the leader and has committed everything earlier leaders committed
+     * @param timeoutMillis How long to wait
+     * @return true if this node is a ready leader, false if it timed out or was stopped
+     */
+    public boolean awaitLeadership(long timeoutMillis) {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        _lock.lock();
+        try {
+            while (_running && !(_role == Role.LEADER && _commitIndex >= _readyIndex)) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = _roleChanged.awaitNanos(remaining);
+            }
+            return _running;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Creates a job for every journaled job that has not finished, to be put back into the
+     * queue of a new leader. Jobs that were running when the old leader died are returned too;
+     * their slots died with it. From then on, losing the leadership fences this node.
+     * @return The unfinished jobs in submission order, already known to this journal
+     */
+    public List<Job> restoreJobs() {
+        List<JournalState.JobRecord> records;
+        _lock.lock();
+        try {
+            records = _state.getJobs();
+        } finally {
+            _lock.unlock();
+        }
+        _serving = true;
+        List<Job> jobs = new ArrayList<>(records.size());
+        for (JournalState.JobRecord record : records) {
+            Job job = new Job(record.name(), record.executionTime(), record.priority(), record.arrivalTime());
+            _jobIds.put(job, record.jobId());
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    public Role getRole() {
+        return _role;
+    }
+
+    /**
+     * Whether this node lost the leadership after its queue was rebuilt from the journal.
+     * Another node may be running the same jobs, so this node's queue must not change.
+     * @return true once the leadership was lost; a fenced node stays fenced
+     */
+    @Override
+    public boolean isFenced() {
+        return _fenced;
+    }
+
+    public int getNodeId() {
+        return _nodeId;
+    }
+
+    public int getLeaderId() {
+        _lock.lock();
+        try {
+            return _leaderId;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    public long getCurrentTerm() {
+        _lock.lock();
+        try {
+            return _currentTerm;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    public long getCommitIndex() {
+        _lock.lock();
+        try {
+            return _commitIndex;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Get the index of the last entry folded into the snapshot
+     * @return The index, or 0 if the log was never compacted
+     */
+    public long getSnapshotIndex() {
+        _lock.lock();
+        try {
+            return _snapshotIndex;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    public long getLastLogIndex() {
+        _lock.lock();
+        try {
+            return lastLogIndex();
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Get the jobs this node's committed entries describe
+     * @return A copy of the unfinished journaled jobs in submission order
+     */
+    public List<JournalState.JobRecord> getJournaledJobs() {
+        _lock.lock();
+        try {
+            return _state.getJobs();
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of Append messages this node has sent, heartbeats included
+     */
+    public long getAppendsSent() {
+        return _appendsSent.get();
+    }
+
+    /**
+     * Get the number of entries this node has sent in Append messages
+     */
+    public long getEntriesSent() {
+        return _entriesSent.get();
+    }
+}
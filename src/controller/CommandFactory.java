@@ -1,6 +1,7 @@
 package controller;
 
 import Model.datastructures.Job;
+import monitoring.SchedulerEvents;
 import multithreading.JobScheduler;
 import util.Logger;
 import java.util.Map;
@@ -62,6 +63,26 @@ public class CommandFactory {
             return new RunCommand(parts);
         }
 
+        // Special handling for stats command with arguments
+        if (cmd.equals("stats")) {
+            return new StatsCommand(parts);
+        }
+
+        // Special handling for history command with arguments
+        if (cmd.equals("history")) {
+            return new HistoryCommand(parts);
+        }
+
+        // Special handling for locks command with arguments
+        if (cmd.equals("locks")) {
+            return new LocksCommand(parts);
+        }
+
+        // Special handling for monitor command with arguments
+        if (cmd.equals("monitor")) {
+            return new MonitorCommand(parts);
+        }
+
         Command command = commandMap.get(cmd);
         return command != null ? command : new UnknownCommand(cmd);
     }
@@ -72,14 +93,15 @@ public class CommandFactory {
      * @return true if CLI should continue, false if it should exit
      */
     public boolean executeCommand(String input) {
+        SchedulerEvents.CommandTimer commandTimer = SchedulerEvents.beginCommand();
         Command command = createCommand(input);
         
         // Only execute the command if validation passes
-        if (command.validate()) {
-            return command.execute();
-        }
+        boolean valid = command.validate();
+        boolean keepRunning = !valid || command.execute();
+        commandTimer.end(input, valid);
         
         // If validation fails, continue CLI execution
-        return true;
+        return keepRunning;
     }
 }
\ No newline at end of file
@@ -41,6 +41,8 @@ public class ExitCommand implements Command {
     public boolean execute() {
         // Get and display batch job processing statistics before exiting
         System.out.println(jobStatistics.getStatisticsSummary());
+        // Write the job history still only in memory to disk
+        jobStatistics.getHistory().close();
         
         System.out.println("Exiting...");
         logger.info(moduleID, "User initiated shutdown");
@@ -3,7 +3,6 @@ package controller;
 import util.Logger;
 import multithreading.JobScheduler;
 import Model.algorithms.FirstComeFirstServePolicy;
-import Model.datastructures.JobQueue;
 /**
  * Command to change scheduling policy to First Come, First Served (FCFS)
  */
@@ -42,7 +41,7 @@ public class FcfsCommand implements Command {
         System.out.println("Scheduling policy is switched to FCFS (First Come, First Served)");
         logger.info(moduleID, "Scheduling policy changed to FCFS");
         
-        jobScheduler.setSchedulingPolicy(new FirstComeFirstServePolicy(JobQueue.getInstance().requestQueue()));
+        jobScheduler.setSchedulingPolicy(new FirstComeFirstServePolicy());
         return true;
     }
     
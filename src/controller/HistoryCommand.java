@@ -0,0 +1,87 @@
+package controller;
+
+import Model.statistics.JobHistory;
+import Model.statistics.JobStatistics;
+import util.Logger;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Command to display the most recent completed jobs, older ones read back from disk
+ */
+public class HistoryCommand implements Command {
+    private static final int DEFAULT_COUNT = 20;
+    private static final int MAX_COUNT = 10_000;
+    private final Logger logger;
+    private final String moduleID = "HistoryCommand";
+    private final String[] commandParts;
+    private int count = DEFAULT_COUNT;
+
+    public HistoryCommand() {
+        this(new String[]{"history"});
+    }
+
+    public HistoryCommand(String[] commandParts) {
+        this.logger = Logger.getInstance();
+        this.commandParts = commandParts;
+    }
+
+    @Override
+    public boolean validate() {
+        if (commandParts.length == 1) {
+            return true;
+        }
+        if (commandParts.length > 2) {
+            System.out.println("Error: Usage: history [<count>]");
+            logger.warning(moduleID, "Validation failed: too many history arguments");
+            return false;
+        }
+        try {
+            count = Integer.parseInt(commandParts[1]);
+        } catch (NumberFormatException e) {
+            System.out.println("Error: The number of jobs must be an integer");
+            logger.warning(moduleID, "Validation failed: history count not a number");
+            return false;
+        }
+        if (count <= 0 || count > MAX_COUNT) {
+            System.out.println("Error: The number of jobs must be between 1 and " + MAX_COUNT);
+            logger.warning(moduleID, "Validation failed: history count out of range");
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean execute() {
+        List<JobHistory.Entry> entries = JobStatistics.getInstance().getHistory().getRecent(count);
+        if (entries.isEmpty()) {
+            System.out.println("No completed jobs recorded yet.");
+            return true;
+        }
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        // Waiting and turnaround times are measured to the microsecond, so they are shown in ms
+        System.out.printf("%-8s %-20s %8s %9s %12s %15s %-10s %s%n", "Seq", "Name", "Priority", "CPU time",
+                          "Wait (ms)", "Turnaround (ms)", "Outcome", "Completed at");
+        for (JobHistory.Entry entry : entries) {
+            String outcome = entry.outcome() == JobHistory.Outcome.FAILED
+                    ? "FAILED(" + entry.exitCode() + ")" : entry.outcome().toString();
+            System.out.printf("%-8d %-20s %8d %9.2f %12.3f %15.3f %-10s %s%n", entry.sequence(), entry.name(),
+                              entry.priority(), entry.executionTime(), millis(entry.waitingMicros()),
+                              millis(entry.turnaroundMicros()),
+                              outcome, entry.completedMillis() < 0 ? "-" : timeFormat.format(new Date(entry.completedMillis())));
+        }
+        logger.info(moduleID, "Displayed " + entries.size() + " history entries");
+        return true;
+    }
+
+    private static double millis(long micros) {
+        return micros < 0 ? -1 : micros / 1000.0;
+    }
+
+    @Override
+    public String getDescription() {
+        return "history [<count>]: display the last <count> completed jobs (default " + DEFAULT_COUNT + ").";
+    }
+}
@@ -2,11 +2,12 @@ package controller;
 
 import Model.datastructures.Job;
 import Model.datastructures.JobQueue;
-import Model.datastructures.Queue;
 import multithreading.JobScheduler;
 import util.Logger;
 import util.JobQueueLogger;
 
+import java.util.List;
+
 /**
  * Command to list all jobs in the queue
  */
@@ -52,15 +53,10 @@ public class ListCommand implements Command {
 
     @Override
     public boolean execute() {
-        JobQueue jobQueue = JobQueue.getInstance();
-        Queue queue = jobQueue.requestQueue();
-        int jobCount = queue.getSize();
-        Job runningJob = jobQueue.getRunningJob();
-        
-        // Add the running job to the count if there is one
-        if (runningJob != null) {
-            jobCount++;
-        }
+        // Read through the scheduler, which knows whether the queue or the event loop holds the jobs
+        List<Job> runningJobs = jobScheduler.getRunningJobs();
+        List<Job> waitingJobs = jobScheduler.getWaitingJobs();
+        int jobCount = runningJobs.size() + waitingJobs.size();
         
         if (jobCount == 0) {
             System.out.println("No jobs in the queue.");
@@ -76,13 +72,12 @@ public class ListCommand implements Command {
         String schedulingPolicy = jobScheduler.getSchedulingPolicyName();
         System.out.println("Scheduling Policy: " + schedulingPolicy + ".");
         
-        // Use JobQueue's toString method to display job information (formatted table)
-        System.out.print(jobQueue.toString());
+        // Display job information as a formatted table
+        System.out.print(JobQueue.formatJobs(runningJobs, waitingJobs));
         
         logger.info(moduleID, "Listed " + jobCount + " jobs");
         jobQueueLogger.queueListed(jobCount);
 
-        jobQueue.unlock();
         return true;
     }
     
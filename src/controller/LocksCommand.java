@@ -0,0 +1,55 @@
+package controller;
+
+import monitoring.LockProfile;
+import util.Logger;
+
+/**
+ * Command to display the contention of the profiled locks, the most waited-for first
+ */
+public class LocksCommand implements Command {
+    // Call sites listed under each lock
+    private static final int CALL_SITES_SHOWN = 3;
+    private final Logger logger;
+    private final String moduleID = "LocksCommand";
+    private final String[] commandParts;
+
+    public LocksCommand() {
+        this(new String[]{"locks"});
+    }
+
+    public LocksCommand(String[] commandParts) {
+        this.logger = Logger.getInstance();
+        this.commandParts = commandParts;
+    }
+
+    @Override
+    public boolean validate() {
+        // locks takes no arguments, or -reset to clear the profiles
+        if (commandParts.length == 1 || (commandParts.length == 2 && commandParts[1].equalsIgnoreCase("-reset"))) {
+            return true;
+        }
+        System.out.println("Error: Usage: locks [-reset]");
+        logger.warning(moduleID, "Validation failed: unexpected locks arguments");
+        return false;
+    }
+
+    @Override
+    public boolean execute() {
+        if (commandParts.length == 2) {
+            LockProfile.resetAll();
+            System.out.println("Lock profiles cleared.");
+            return true;
+        }
+        System.out.println("\nLock contention, 1 in " + LockProfile.getSampleInterval()
+                + " acquisitions timed (microseconds):");
+        System.out.print(LockProfile.format(LockProfile.snapshotAll(), CALL_SITES_SHOWN));
+        System.out.println();
+        logger.info(moduleID, "Lock profiles displayed");
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "locks [-reset]: display wait and hold times of the busiest locks and where they are taken, or clear them.";
+    }
+}
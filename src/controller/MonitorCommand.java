@@ -0,0 +1,110 @@
+package controller;
+
+import Model.datastructures.JobQueue;
+import Model.statistics.JobStatistics;
+import monitoring.Monitor;
+import multithreading.JobScheduler;
+import util.Logger;
+
+import java.io.IOException;
+
+/**
+ * Command to show a live view of the queue, running jobs, rates and waiting times, redrawn
+ * every interval until Enter is pressed
+ */
+public class MonitorCommand implements Command {
+    private static final int DEFAULT_INTERVAL_MS = 1000;
+    // Redrawing faster than 10 times a second only flickers
+    private static final int MIN_INTERVAL_MS = 100;
+    private static final int MAX_INTERVAL_MS = 60_000;
+    private static final int RUNNING_JOBS_SHOWN = 10;
+    private static final String CLEAR_SCREEN = "\033[H\033[2J";
+    private final Logger logger;
+    private final String moduleID = "MonitorCommand";
+    private final String[] commandParts;
+    private final JobScheduler jobScheduler;
+    private int intervalMillis = DEFAULT_INTERVAL_MS;
+
+    public MonitorCommand() {
+        this(new String[]{"monitor"});
+    }
+
+    public MonitorCommand(String[] commandParts) {
+        this.logger = Logger.getInstance();
+        this.commandParts = commandParts;
+        this.jobScheduler = JobScheduler.getInstance();
+    }
+
+    @Override
+    public boolean validate() {
+        if (commandParts.length == 1) {
+            return true;
+        }
+        if (commandParts.length > 2) {
+            System.out.println("Error: Usage: monitor [<interval_ms>]");
+            logger.warning(moduleID, "Validation failed: too many monitor arguments");
+            return false;
+        }
+        try {
+            intervalMillis = Integer.parseInt(commandParts[1]);
+        } catch (NumberFormatException e) {
+            System.out.println("Error: The refresh interval must be an integer number of milliseconds");
+            logger.warning(moduleID, "Validation failed: monitor interval not a number");
+            return false;
+        }
+        if (intervalMillis < MIN_INTERVAL_MS || intervalMillis > MAX_INTERVAL_MS) {
+            System.out.println("Error: The refresh interval must be between " + MIN_INTERVAL_MS + " and "
+                    + MAX_INTERVAL_MS + " ms");
+            logger.warning(moduleID, "Validation failed: monitor interval out of range");
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean execute() {
+        Monitor monitor = new Monitor(JobStatistics.getInstance(), JobQueue.getInstance(),
+                jobScheduler::getSchedulingPolicy);
+        // Without a terminal to redraw in, e.g. with input piped in, show a single frame
+        if (System.console() == null) {
+            System.out.print(Monitor.render(monitor.capture(), RUNNING_JOBS_SHOWN));
+            return true;
+        }
+        logger.info(moduleID, "Monitor started, refreshing every " + intervalMillis + " ms");
+        try {
+            while (!keyPressed()) {
+                System.out.print(CLEAR_SCREEN + Monitor.render(monitor.capture(), RUNNING_JOBS_SHOWN)
+                        + "\nPress Enter to return to the prompt.\n");
+                System.out.flush();
+                Thread.sleep(intervalMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.error(moduleID, "Could not read the terminal: " + e.getMessage());
+        }
+        System.out.println();
+        logger.info(moduleID, "Monitor stopped");
+        return true;
+    }
+
+    /**
+     * Check for a key press without blocking. The terminal hands input over a line at a time,
+     * so the line is consumed here to keep it from reaching the prompt.
+     */
+    private static boolean keyPressed() throws IOException {
+        if (System.in.available() == 0) {
+            return false;
+        }
+        int c;
+        do {
+            c = System.in.read();
+        } while (c != -1 && c != '\n' && System.in.available() > 0);
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "monitor [<interval_ms>]: show queue depth, running jobs, rates and waiting times, redrawn until Enter is pressed.";
+    }
+}
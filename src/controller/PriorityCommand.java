@@ -3,7 +3,6 @@ package controller;
 import util.Logger;
 import multithreading.JobScheduler;
 import Model.algorithms.PriorityPolicy;
-import Model.datastructures.JobQueue;
 /**
  * Command to change scheduling policy to Priority-based scheduling
  */
@@ -42,7 +41,7 @@ public class PriorityCommand implements Command {
         System.out.println("Scheduling policy is switched to Priority.");
         logger.info(moduleID, "Scheduling policy changed to Priority");
         
-        jobScheduler.setSchedulingPolicy(new PriorityPolicy(JobQueue.getInstance().requestQueue()));
+        jobScheduler.setSchedulingPolicy(new PriorityPolicy());
         return true;
     }
     
@@ -1,6 +1,9 @@
 package controller;
 
 import Model.datastructures.Job;
+import Model.datastructures.ProcessJob;
+import java.nio.file.Path;
+import java.util.Arrays;
 import multithreading.JobScheduler;
 import util.Logger;
 
@@ -12,6 +15,8 @@ public class RunCommand implements Command {
     private final String[] commandParts;
     private final Logger logger;
     private final String moduleID = "RunCommand";
+    // Where process jobs write their standard output and error
+    private static final Path PROCESS_OUTPUT_DIRECTORY = Path.of("logs", "jobs");
 
     public RunCommand( String[] commandParts) {
         this.jobScheduler = JobScheduler.getInstance();
@@ -29,9 +34,9 @@ public class RunCommand implements Command {
         }
         
         // Check for the correct number of arguments
-        if (commandParts.length != 4) {
-            System.out.println("Error: run command requires 3 arguments");
-            System.out.println("Usage: run <job> <time> <pri>");
+        if (commandParts.length < 4) {
+            System.out.println("Error: run command requires at least 3 arguments");
+            System.out.println("Usage: run <job> <time> <pri> [--limit=<seconds>] [<command> [<args>...]]");
             logger.warning(moduleID, "Validation failed: Invalid number of arguments");
             return false;
         }
@@ -52,8 +57,18 @@ public class RunCommand implements Command {
                 logger.warning(moduleID, "Validation failed: Priority is negative");
                 return false;
             }
+            
+            // Validate the optional wall-clock limit of a process job
+            if (hasTimeLimit()) {
+                double timeLimit = parseTimeLimit();
+                if (timeLimit <= 0 || commandParts.length < 6) {
+                    System.out.println("Error: --limit must be a positive number of seconds followed by a command");
+                    logger.warning(moduleID, "Validation failed: Invalid time limit");
+                    return false;
+                }
+            }
         } catch (NumberFormatException e) {
-            System.out.println("Error: Invalid number format. Execution time and priority must be numbers.");
+            System.out.println("Error: Invalid number format. Execution time, priority and limit must be numbers.");
             logger.error(moduleID, "Validation failed: Invalid number format - " + e.getMessage());
             return false;
         }
@@ -67,16 +82,28 @@ public class RunCommand implements Command {
             String name = commandParts[1];
             double executionTime = Double.parseDouble(commandParts[2]);
             int priority = Integer.parseInt(commandParts[3]);
-            double arrivalTime = System.currentTimeMillis();
-
-            Job job = new Job(name, executionTime, priority, arrivalTime);
+            // The job arrives now and is stamped with the monotonic clock
+            Job job;
+            if (commandParts.length > 4) {
+                // Anything after the priority (and limit) is a command line to run as a real process
+                int commandStart = hasTimeLimit() ? 5 : 4;
+                double timeLimit = hasTimeLimit() ? parseTimeLimit() : 0;
+                job = new ProcessJob(name, executionTime, priority,
+                        Arrays.asList(commandParts).subList(commandStart, commandParts.length),
+                        PROCESS_OUTPUT_DIRECTORY, timeLimit);
+            } else {
+                job = new Job(name, executionTime, priority);
+            }
             logger.info(moduleID, "Job being added to queue: " + name + 
                         " (execution_time=" + executionTime + 
                         ", priority=" + priority + 
-                        ", arrival_time=" + arrivalTime + ")");
+                        ", arrival_time=" + (long) job.getArrivalTime() + ")");
             double estimatedWaitingTime = jobScheduler.getEstimatedWaitingTime();
             jobScheduler.addJob(job);
             System.out.println("Job " + name + " was submitted");
+            if (job instanceof ProcessJob processJob) {
+                System.out.println("Output will be written to " + processJob.getOutputFile());
+            }
             // print total number of jobs in queue
             System.out.println("Total number of jobs in queue: " + jobScheduler.getQueueSize());
             // estimated waiting time
@@ -87,7 +114,7 @@ public class RunCommand implements Command {
             logger.info(moduleID, "Job submitted: " + name + 
                         " (execution_time=" + executionTime + 
                         ", priority=" + priority + 
-                        ", arrival_time=" + arrivalTime + ")");
+                        ", arrival_time=" + (long) job.getArrivalTime() + ")");
         } catch (Exception e) {
             System.out.println("Error submitting job: " + e.getMessage());
             logger.error(moduleID, "Job submission failed: " + e.getMessage());
@@ -96,10 +123,21 @@ public class RunCommand implements Command {
         return true;
     }
     
+    private boolean hasTimeLimit() {
+        return commandParts.length > 4 && commandParts[4].startsWith("--limit=");
+    }
+
+    private double parseTimeLimit() {
+        return Double.parseDouble(commandParts[4].substring("--limit=".length()));
+    }
+    
     @Override
     public String getDescription() {
-        return "run <job> <time> <pri>: submit a job named <job>,\n" +
+        return "run <job> <time> <pri> [<command>]: submit a job named <job>,\n" +
                "                        execution time is <time>,\n" +
-               "                        priority is <pri>.";
+               "                        priority is <pri>.\n" +
+               "                        With <command>, the job runs it as a process\n" +
+               "                        and <time> is its estimated run time.\n" +
+               "                        --limit=<sec> before <command> kills it after <sec>.";
     }
 } 
\ No newline at end of file
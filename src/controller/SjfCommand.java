@@ -3,7 +3,6 @@ package controller;
 import util.Logger;
 import multithreading.JobScheduler;
 import Model.algorithms.ShortestJobFirstPolicy;
-import Model.datastructures.JobQueue;
 /**
  * Command to change scheduling policy to Shortest Job First (SJF)
  */
@@ -42,7 +41,7 @@ public class SjfCommand implements Command {
         System.out.println("Scheduling policy is switched to SJF.");
         logger.info(moduleID, "Scheduling policy changed to SJF");
         
-        jobScheduler.setSchedulingPolicy(new ShortestJobFirstPolicy(JobQueue.getInstance().requestQueue()));
+        jobScheduler.setSchedulingPolicy(new ShortestJobFirstPolicy());
         return true;
     }
     
@@ -0,0 +1,54 @@
+package controller;
+
+import Model.statistics.JobStatistics;
+import util.Logger;
+
+/**
+ * Command to display the completed-job statistics broken down by policy, priority level and size class
+ */
+public class StatsCommand implements Command {
+    private final JobStatistics jobStatistics;
+    private final Logger logger;
+    private final String moduleID = "StatsCommand";
+    private final String[] commandParts;
+
+    public StatsCommand() {
+        this(new String[]{"stats"});
+    }
+
+    public StatsCommand(String[] commandParts) {
+        this.jobStatistics = JobStatistics.getInstance();
+        this.logger = Logger.getInstance();
+        this.commandParts = commandParts;
+    }
+
+    @Override
+    public boolean validate() {
+        // stats takes no arguments, or -reset to clear the breakdown
+        if (commandParts.length == 1 || (commandParts.length == 2 && commandParts[1].equalsIgnoreCase("-reset"))) {
+            return true;
+        }
+        System.out.println("Error: Usage: stats [-reset]");
+        logger.warning(moduleID, "Validation failed: unexpected stats arguments");
+        return false;
+    }
+
+    @Override
+    public boolean execute() {
+        if (commandParts.length == 2) {
+            jobStatistics.resetBreakdown();
+            System.out.println("Statistics breakdown cleared.");
+            return true;
+        }
+        System.out.println("\nCompleted jobs by policy, priority level and size class (seconds):");
+        System.out.print(jobStatistics.getBreakdownSummary());
+        System.out.println();
+        logger.info(moduleID, "Statistics breakdown displayed");
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "stats [-reset]: display completed-job statistics by policy, priority level and size class, or clear them.";
+    }
+}
@@ -1,8 +1,14 @@
 package controller;
 
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import Model.statistics.JobStatistics;
+import multithreading.EventLoopCore;
 import multithreading.JobScheduler;
 import util.Logger;
 
+import java.util.List;
+
 /**
  * Command to display system status
  */
@@ -41,13 +47,46 @@ public class StatusCommand implements Command {
         System.out.println("\nSystem Status:");
         System.out.println("CLI is running: true");
         System.out.println("Job Scheduler is set: " + (jobScheduler != null));
+        
+        List<Job> runningJobs = jobScheduler.getRunningJobs();
+        System.out.println("Running jobs: " + runningJobs.size());
+        for (Job job : runningJobs) {
+            System.out.println("  " + job.getName() + " (" + job.getExecutionTime() + "s, priority " + job.getPriority() + ")");
+        }
+        
+        EventLoopCore eventLoop = jobScheduler.getEventLoop();
+        if (eventLoop != null) {
+            // The event loop takes no queue lock; show how well it batches its messages instead
+            EventLoopCore.Statistics loopStatistics = eventLoop.getStatistics().join();
+            System.out.printf("Event loop: %d waiting, peak %d running on %d slot(s), %d messages in %d wakeups%n",
+                              loopStatistics.waiting(), loopStatistics.peakRunning(), eventLoop.getSlotCount(),
+                              loopStatistics.messages(), loopStatistics.wakeups());
+        } else {
+            printLockMetrics();
+        }
+        if (JobQueue.getInstance().isFenced()) {
+            System.out.println("Job queue is fenced: this instance lost the journal leadership, "
+                               + "so no job is accepted or dispatched. Restart it to rejoin as a standby.");
+        }
+        System.out.print(JobStatistics.getInstance().getRateSummary());
         System.out.println();
         
-        logger.info(moduleID, "Status displayed - CLI running: true, Scheduler set: " + (jobScheduler != null));
+        logger.info(moduleID, "Status displayed - CLI running: true, Scheduler set: " + (jobScheduler != null) +
+                    ", Running jobs: " + runningJobs.size());
         
         return true;
     }
     
+    private void printLockMetrics() {
+        JobQueue.LockMetrics lockMetrics = JobQueue.getInstance().getLockMetrics();
+        System.out.printf("Queue lock: %d exclusive holds (avg %.1f us, max %.1f us, %d contended), " +
+                          "%d reads (%d optimistic, %d retried under the read lock)%n",
+                          lockMetrics.writeHolds(), lockMetrics.averageWriteHoldNanos() / 1000.0,
+                          lockMetrics.maxWriteHoldNanos() / 1000.0, lockMetrics.contendedWrites(),
+                          lockMetrics.optimisticReads() + lockMetrics.readHolds() - lockMetrics.optimisticReadFailures(),
+                          lockMetrics.optimisticReads(), lockMetrics.optimisticReadFailures());
+    }
+    
     @Override
     public String getDescription() {
         return "status: display the system status.";
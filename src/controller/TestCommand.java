@@ -4,7 +4,8 @@ import Model.algorithms.FirstComeFirstServePolicy;
 import Model.algorithms.PriorityPolicy;
 import Model.algorithms.ShortestJobFirstPolicy;
 import Model.datastructures.Job;
-import Model.datastructures.JobQueue;
+import Model.algorithms.SchedulingPolicy;
+import Model.simulation.SimulationEngine;
 import Model.statistics.JobStatistics;
 import multithreading.JobScheduler;
 import util.Logger;
@@ -24,17 +25,17 @@ public class TestCommand implements Command {
     private final String moduleID = "TestCommand";
     private final String[] commandParts;
     private static final Set<String> VALID_POLICIES = new HashSet<>(Arrays.asList("fcfs", "sjf", "priority"));
+    // Optional last argument: "-sim" or "-sim=<slots>" replays the workload in virtual time
+    private static final String SIMULATE_FLAG = "-sim";
     private final JobScheduler jobScheduler;
     private final JobStatistics jobStatistics;
     private final Random random = new Random();
-    private final JobQueue jobQueue;
 
     public TestCommand() {
         this.logger = Logger.getInstance();
         this.commandParts = new String[]{"test"};
         this.jobScheduler = JobScheduler.getInstance();
         this.jobStatistics = JobStatistics.getInstance();
-        this.jobQueue = JobQueue.getInstance();
     }
     
     public TestCommand(String[] commandParts) {
@@ -42,19 +43,25 @@ public class TestCommand implements Command {
         this.commandParts = commandParts;
         this.jobScheduler = JobScheduler.getInstance();
         this.jobStatistics = JobStatistics.getInstance();
-        this.jobQueue = JobQueue.getInstance();
     }
     
     @Override
     public boolean validate() {
         // Check for correct number of arguments
-        if (commandParts.length != 7) {
+        if (commandParts.length != 7 && commandParts.length != 8) {
             System.out.println("Error: test command requires 6 arguments");
-            System.out.println("Usage: test <benchmark> <policy> <num_of_jobs> <priority_levels> <min_CPU_time> <max_CPU_time>");
+            System.out.println("Usage: test <benchmark> <policy> <num_of_jobs> <priority_levels> <min_CPU_time> <max_CPU_time> [-sim[=<slots>]]");
             logger.warning(moduleID, "Validation failed: Invalid number of arguments");
             return false;
         }
         
+        // Validate the optional simulation flag
+        if (commandParts.length == 8 && parseSimulationSlots() <= 0) {
+            System.out.println("Error: The last argument must be -sim or -sim=<slots> with a positive slot count");
+            logger.warning(moduleID, "Validation failed: Invalid simulation flag: " + commandParts[7]);
+            return false;
+        }
+        
         // Validate policy (must be one of the supported policies)
         String policy = commandParts[2].toLowerCase();
         if (!VALID_POLICIES.contains(policy)) {
@@ -132,6 +139,11 @@ public class TestCommand implements Command {
             // Print a brief running message
             // System.out.println("Running benchmark '" + benchmark + "' with " + policy.toUpperCase() + " policy...");
             
+            if (commandParts.length == 8) {
+                runSimulation(benchmark, policy, parseSimulationSlots(), numOfJobs, priorityLevels, minCpuTime, maxCpuTime);
+                return true;
+            }
+            
             // Reset statistics for this test
             jobStatistics.reset();
             
@@ -156,6 +168,8 @@ public class TestCommand implements Command {
             logger.info(moduleID, "\nBenchmark results for: " + benchmark);
             logger.info(moduleID, jobStatistics.getStatisticsSummary());
             System.out.println(jobStatistics.getStatisticsSummary());
+            logger.info(moduleID, jobStatistics.getLatencySummary());
+            System.out.println(jobStatistics.getLatencySummary());
             
         } catch (Exception e) {
             System.out.println("Error running test: " + e.getMessage());
@@ -165,26 +179,75 @@ public class TestCommand implements Command {
         return true;
     }
     
+    /**
+     * Parses the optional simulation flag
+     * @return The number of simulated slots (1 for a bare "-sim"), or 0 if the flag is invalid
+     */
+    private int parseSimulationSlots() {
+        String flag = commandParts[7].toLowerCase();
+        if (flag.equals(SIMULATE_FLAG)) {
+            return 1;
+        }
+        if (!flag.startsWith(SIMULATE_FLAG + "=")) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(flag.substring(SIMULATE_FLAG.length() + 1)));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+    
+    /**
+     * Replays a randomly generated workload in virtual time instead of running it.
+     * Jobs arrive 10-100 ms apart, as in a wall-clock test, but nothing sleeps.
+     */
+    private void runSimulation(String benchmark, String policy, int slots, int numOfJobs, int priorityLevels,
+                               double minCpuTime, double maxCpuTime) {
+        SimulationEngine simulation = new SimulationEngine(createPolicy(policy), slots);
+        long arrivalMillis = 0;
+        for (int i = 0; i < numOfJobs; i++) {
+            double cpuTime = minCpuTime + Math.round((maxCpuTime - minCpuTime) * random.nextDouble());
+            int priority = random.nextInt(priorityLevels) + 1;
+            simulation.submit("SimJob-" + i, cpuTime, priority, arrivalMillis);
+            arrivalMillis += 10 + random.nextInt(90);
+        }
+        
+        long startNanos = System.nanoTime();
+        simulation.run();
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        
+        String summary = simulation.getStatistics().getStatisticsSummary()
+                + simulation.getStatistics().getLatencySummary()
+                + "\n" + simulation.getStatistics().getBreakdownSummary();
+        logger.info(moduleID, "\nSimulated benchmark results for: " + benchmark);
+        logger.info(moduleID, summary);
+        System.out.println(summary);
+        System.out.println("Simulated time: " + String.format("%.1f", simulation.getVirtualTimeMillis() / 1000.0) +
+                           " seconds on " + slots + " slot(s), replayed in " + String.format("%.3f", elapsedSeconds) +
+                           " seconds (" + simulation.getEventsProcessed() + " events)");
+    }
+    
+    /**
+     * Creates a policy object for the given name that is not bound to the live job queue
+     * @param policy The policy name (fcfs, sjf, or priority)
+     * @return The scheduling policy
+     */
+    private SchedulingPolicy createPolicy(String policy) {
+        return switch (policy) {
+            case "sjf" -> new ShortestJobFirstPolicy();
+            case "priority" -> new PriorityPolicy();
+            // Default to FCFS if somehow an invalid policy gets here
+            default -> new FirstComeFirstServePolicy();
+        };
+    }
+    
     /**
      * Applies the specified scheduling policy
      * @param policy The policy to apply (fcfs, sjf, or priority)
      */
     private void applySchedulingPolicy(String policy) {
-        switch (policy) {
-            case "fcfs":
-                jobScheduler.setSchedulingPolicy(new FirstComeFirstServePolicy(jobQueue.requestQueue()));
-                break;
-            case "sjf":
-                jobScheduler.setSchedulingPolicy(new ShortestJobFirstPolicy(jobQueue.requestQueue()));
-                break;
-            case "priority":
-                jobScheduler.setSchedulingPolicy(new PriorityPolicy(jobQueue.requestQueue()));
-                break;
-            default:
-                // Default to FCFS if somehow an invalid policy gets here
-                jobScheduler.setSchedulingPolicy(new FirstComeFirstServePolicy(jobQueue.requestQueue()));
-                break;
-        }
+        jobScheduler.setSchedulingPolicy(createPolicy(policy));
         logger.info(moduleID, "Applied scheduling policy: " + policy);
     }
     
@@ -198,36 +261,41 @@ public class TestCommand implements Command {
     private void submitTestJobs(int numOfJobs, int priorityLevels, double minCpuTime, double maxCpuTime) {
         System.out.println("Submitting " + numOfJobs + " test jobs...");
         
+        // Jobs arrive 10-100 ms apart; each is handed to the timing wheel with its arrival
+        // offset up front instead of sleeping between submissions
+        long testStartTime = System.currentTimeMillis();
+        long arrivalOffset = 0;
         for (int i = 0; i < numOfJobs; i++) {
-            try {
-                // Generate random CPU time between min and max
-                double cpuTime = minCpuTime + Math.round((maxCpuTime - minCpuTime) * random.nextDouble());
-                
-                // Generate random priority between 1 and priorityLevels
-                int priority = random.nextInt(priorityLevels) + 1;
-                
-                // Create and submit the job
-                // Use current system time in ms as arrival time (converted to double)
-                double arrivalTime = System.currentTimeMillis();
-                
-                Job job = new Job("TestJob-" + i, cpuTime, priority, arrivalTime);
-                jobScheduler.addJob(job);
-                
-                logger.info(moduleID, "Generated and submitted job: " + job.getName() + 
-                           ", CPU time: " + cpuTime + 
-                           ", Priority: " + priority);
-                
-                // Add a small random delay between job submissions (10-100ms)
-                Thread.sleep(10 + random.nextInt(90));
-                
-            } catch (InterruptedException e) {
-                logger.warning(moduleID, "Interrupted while submitting jobs: " + e.getMessage());
-                Thread.currentThread().interrupt();
-                break;
-            }
+            // Generate random CPU time between min and max
+            double cpuTime = minCpuTime + Math.round((maxCpuTime - minCpuTime) * random.nextDouble());
+            
+            // Generate random priority between 1 and priorityLevels
+            int priority = random.nextInt(priorityLevels) + 1;
+            
+            // Create the job with the system time in ms at which it will arrive
+            double arrivalTime = testStartTime + arrivalOffset;
+            
+            Job job = new Job("TestJob-" + i, cpuTime, priority, arrivalTime);
+            jobScheduler.addJob(job, arrivalOffset - (System.currentTimeMillis() - testStartTime));
+            
+            logger.info(moduleID, "Generated job: " + job.getName() + 
+                       ", CPU time: " + cpuTime + 
+                       ", Priority: " + priority +
+                       ", arriving after " + arrivalOffset + " ms");
+            
+            arrivalOffset += 10 + random.nextInt(90);
         }
         
-        logger.info(moduleID, "Submitted all " + numOfJobs + " test jobs");
+        logger.info(moduleID, "Scheduled the arrival of all " + numOfJobs + " test jobs");
+    }
+    
+    /**
+     * Counts test jobs that will not be waited for any longer: completed, or refused or
+     * shed by a queue with a capacity
+     * @return The number of resolved jobs
+     */
+    private int resolvedJobs() {
+        return jobStatistics.getTotalJobsCompleted() + jobStatistics.getRejectedJobs() + jobStatistics.getShedJobs();
     }
     
     /**
@@ -240,7 +308,7 @@ public class TestCommand implements Command {
         // Poll for completion
         int lastCompleted = 0;
         long startTime = System.currentTimeMillis();
-        while (jobStatistics.getTotalJobsCompleted() < numOfJobs) {
+        while (resolvedJobs() < numOfJobs) {
             // Show progress if new jobs have completed
             int currentCompleted = jobStatistics.getTotalJobsCompleted();
             if (currentCompleted > lastCompleted) {
@@ -265,7 +333,7 @@ public class TestCommand implements Command {
             }
 
             // TODO : check if all jobs are completed
-            if (jobStatistics.getTotalJobsCompleted() == numOfJobs) {
+            if (resolvedJobs() >= numOfJobs) {
                 logger.info(moduleID, "Completed: " + (currentCompleted+1) + "/" + numOfJobs + " jobs");
                 logger.info(moduleID, "All jobs completed");
                 break;
@@ -279,6 +347,6 @@ public class TestCommand implements Command {
     @Override
     public String getDescription() {
         return "test <benchmark> <policy> <num_of_jobs> <priority_levels>\n" +
-               "     <min_CPU_time> <max_CPU_time>";
+               "     <min_CPU_time> <max_CPU_time> [-sim[=<slots>]]";
     }
 } 
\ No newline at end of file
@@ -0,0 +1,83 @@
+package monitoring;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A non-fair ReentrantLock that reports to a LockProfile, for use in place of a synchronized
+ * method or block. Only the outermost acquisition by a thread is profiled; reentrant ones are
+ * counted but not timed. Conditions are not offered, since time spent awaiting one would be
+ * counted as held.
+ * @author Group 1
+ */
+public final class InstrumentedLock {
+    private final ReentrantLock _lock = new ReentrantLock();
+    private final LockProfile _profile;
+    // Written and read only by the thread holding the lock
+    private boolean _sampled;
+    private long _waitNanos;
+    private long _lockedAt;
+
+    /**
+     * Constructor for InstrumentedLock
+     * @param name The name the lock is reported under
+     * @param owner The class that uses the lock; its frames are skipped when finding a call site
+     */
+    public InstrumentedLock(String name, Class<?> owner) {
+        _profile = LockProfile.register(name, owner);
+    }
+
+    public void lock() {
+        boolean sampled = _profile.sample();
+        if (_lock.tryLock()) {
+            if (_lock.getHoldCount() == 1) {
+                _profile.acquired(sampled, false, 0, 0);
+                holding(sampled, 0);
+            }
+            return;
+        }
+        if (!sampled) {
+            _lock.lock();
+            _profile.acquired(false, true, 0, 0);
+            holding(false, 0);
+            return;
+        }
+        int queueLength = _lock.getQueueLength() + 1;
+        long start = System.nanoTime();
+        _lock.lock();
+        long waitNanos = System.nanoTime() - start;
+        _profile.acquired(true, true, waitNanos, queueLength);
+        holding(true, waitNanos);
+    }
+
+    private void holding(boolean sampled, long waitNanos) {
+        _sampled = sampled;
+        if (sampled) {
+            _waitNanos = waitNanos;
+            _lockedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Release the lock
+     * @throws IllegalMonitorStateException if the calling thread does not hold it
+     */
+    public void unlock() {
+        if (_lock.getHoldCount() != 1 || !_sampled) {
+            _lock.unlock();
+            return;
+        }
+        long holdNanos = System.nanoTime() - _lockedAt;
+        long waitNanos = _waitNanos;
+        _sampled = false;
+        _lock.unlock();
+        _profile.released(waitNanos, holdNanos);
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return _lock.isHeldByCurrentThread();
+    }
+
+    public LockProfile getProfile() {
+        return _profile;
+    }
+}
@@ -0,0 +1,298 @@
+package monitoring;
+
+import Model.statistics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention profile of one lock: how often it is taken and has to be waited for, and for
+ * a sample of the acquisitions, the wait time, hold time and queue length as histograms and
+ * the call sites that held it.
+ *
+ * Every acquisition is counted, which costs a LongAdder increment. Only about one in
+ * getSampleInterval() acquisitions is timed, and only sampled releases walk the stack for
+ * their call site, after the lock is released, so the lock is not held any longer for it.
+ * Every profile created is registered, so the locks command and the metrics server find
+ * them without being told about each lock.
+ * @author Group 1
+ */
+public final class LockProfile {
+    public static final int DEFAULT_SAMPLE_INTERVAL = 16;
+    // Call sites beyond this many are counted together, so a lock used from generated code
+    // cannot grow the table without bound
+    static final int MAX_CALL_SITES = 64;
+    static final String OTHER_CALL_SITES = "(other)";
+
+    private static final List<LockProfile> profiles = new CopyOnWriteArrayList<>();
+    private static volatile int sampleInterval = DEFAULT_SAMPLE_INTERVAL;
+    private static final StackWalker walker = StackWalker.getInstance();
+
+    private final String _name;
+    private final String _ownerClass;
+    private final LongAdder _acquisitions = new LongAdder();
+    private final LongAdder _contended = new LongAdder();
+    private final LongAdder _sampled = new LongAdder();
+    private final LatencyHistogram _waitNanos = new LatencyHistogram();
+    private final LatencyHistogram _holdNanos = new LatencyHistogram();
+    private final LatencyHistogram _queueLengths = new LatencyHistogram();
+    private final Map<String, CallSite> _callSites = new ConcurrentHashMap<>();
+    private final AtomicInteger _callSiteCount = new AtomicInteger();
+
+    /**
+     * Sampled holds from one call site
+     */
+    private static final class CallSite {
+        final LongAdder holds = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+        final LongAdder holdNanos = new LongAdder();
+    }
+
+    /**
+     * The sampled holds from one call site at one moment
+     * @param site Simple class name, method and line of the first frame outside the lock's owner
+     * @param holds Sampled holds
+     * @param waitNanos Total time those holds waited to acquire the lock
+     * @param holdNanos Total time the lock was held by them
+     */
+    public record CallSiteSnapshot(String site, long holds, long waitNanos, long holdNanos) {
+        public double averageHoldNanos() {
+            return holds == 0 ? 0 : (double) holdNanos / holds;
+        }
+
+        public double averageWaitNanos() {
+            return holds == 0 ? 0 : (double) waitNanos / holds;
+        }
+    }
+
+    /**
+     * A profile at one moment
+     * @param name The lock's name
+     * @param acquisitions Every acquisition
+     * @param contended Acquisitions that had to wait
+     * @param sampled Acquisitions timed
+     * @param waitNanos Sampled time to acquire, in nanoseconds; 0 for uncontended acquisitions
+     * @param holdNanos Sampled hold times, in nanoseconds
+     * @param queueLengths Threads waiting for the lock, counting the sampled one, when it had to wait
+     * @param callSites Call sites by total sampled hold time, longest first
+     */
+    public record Snapshot(String name, long acquisitions, long contended, long sampled,
+                           LatencyHistogram.Snapshot waitNanos, LatencyHistogram.Snapshot holdNanos,
+                           LatencyHistogram.Snapshot queueLengths, List<CallSiteSnapshot> callSites) {
+        public double contendedPercent() {
+            return acquisitions == 0 ? 0 : 100.0 * contended / acquisitions;
+        }
+
+        /**
+         * Estimate the total time spent waiting for the lock by scaling up the sampled waits
+         * @return The estimate in nanoseconds
+         */
+        public double estimatedWaitNanos() {
+            return sampled == 0 ? 0 : (double) waitNanos.getSum() * acquisitions / sampled;
+        }
+    }
+
+    private LockProfile(String name, Class<?> owner) {
+        _name = name;
+        _ownerClass = owner.getName();
+    }
+
+    /**
+     * Create and register the profile of a lock
+     * @param name The name the lock is reported under
+     * @param owner The class that uses the lock; its frames are skipped when finding a call site
+     * @return The profile
+     */
+    public static LockProfile register(String name, Class<?> owner) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("A lock profile needs a name");
+        }
+        LockProfile profile = new LockProfile(name, owner);
+        profiles.add(profile);
+        return profile;
+    }
+
+    /**
+     * Get every registered profile, the most waited-for lock first
+     * @return The snapshots
+     */
+    public static List<Snapshot> snapshotAll() {
+        List<Snapshot> snapshots = new ArrayList<>();
+        for (LockProfile profile : profiles) {
+            snapshots.add(profile.snapshot());
+        }
+        snapshots.sort(Comparator.comparingDouble(Snapshot::estimatedWaitNanos).reversed()
+                .thenComparing(Comparator.comparingLong(Snapshot::contended).reversed()));
+        return snapshots;
+    }
+
+    public static void resetAll() {
+        for (LockProfile profile : profiles) {
+            profile.reset();
+        }
+    }
+
+    public static int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * Set how many acquisitions there are per timed one, for every lock
+     * @param interval 1 to time every acquisition, or more to time fewer
+     */
+    public static void setSampleInterval(int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("The sample interval must be at least 1");
+        }
+        sampleInterval = interval;
+    }
+
+    /**
+     * Format profiles as a table, the given order kept, with each lock's hottest call sites below it
+     * @param snapshots The profiles to show
+     * @param callSitesPerLock How many call sites to list per lock
+     * @return The table, times in microseconds
+     */
+    public static String format(List<Snapshot> snapshots, int callSitesPerLock) {
+        if (snapshots.isEmpty()) {
+            return "No locks are profiled.\n";
+        }
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%-16s %10s %10s %8s %18s %18s %9s%n", "Lock", "Acquired", "Contended",
+                "Sampled", "Wait p50/p99/max", "Hold p50/p99/max", "Queue max"));
+        for (Snapshot snapshot : snapshots) {
+            table.append(String.format("%-16s %10d %9.1f%% %8d %18s %18s %9d%n", snapshot.name(),
+                    snapshot.acquisitions(), snapshot.contendedPercent(), snapshot.sampled(),
+                    percentiles(snapshot.waitNanos()), percentiles(snapshot.holdNanos()),
+                    snapshot.queueLengths().getMax()));
+            List<CallSiteSnapshot> callSites = snapshot.callSites();
+            for (int i = 0; i < Math.min(callSitesPerLock, callSites.size()); i++) {
+                CallSiteSnapshot callSite = callSites.get(i);
+                table.append(String.format("    %-44s %6d holds, avg wait %9.1f, avg hold %9.1f%n", callSite.site(),
+                        callSite.holds(), callSite.averageWaitNanos() / 1000, callSite.averageHoldNanos() / 1000));
+            }
+        }
+        return table.toString();
+    }
+
+    private static String percentiles(LatencyHistogram.Snapshot nanos) {
+        if (nanos.getTotalCount() == 0) {
+            return "-";
+        }
+        return String.format("%.1f/%.1f/%.1f", nanos.getValueAtPercentile(50) / 1000.0,
+                nanos.getValueAtPercentile(99) / 1000.0, nanos.getMax() / 1000.0);
+    }
+
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * Count an acquisition about to be made and decide whether to time it
+     * @return true if the caller should time this acquisition and report it as sampled
+     */
+    public boolean sample() {
+        _acquisitions.increment();
+        int interval = sampleInterval;
+        return interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0;
+    }
+
+    /**
+     * Record that the lock was acquired
+     * @param sampled What sample() returned for this acquisition
+     * @param contended Whether the acquisition had to wait
+     * @param waitNanos How long it waited; only read if sampled
+     * @param queueLength Threads waiting, counting this one; only read if sampled and contended
+     */
+    public void acquired(boolean sampled, boolean contended, long waitNanos, int queueLength) {
+        if (contended) {
+            _contended.increment();
+        }
+        if (sampled) {
+            _sampled.increment();
+            _waitNanos.record(contended ? waitNanos : 0);
+            if (contended) {
+                _queueLengths.record(queueLength);
+            }
+        }
+    }
+
+    /**
+     * Record a sampled hold once the lock is released, attributing it to the calling code.
+     * Call it on the thread that held the lock, after releasing it.
+     * @param waitNanos How long the acquisition waited
+     * @param holdNanos How long the lock was held
+     */
+    public void released(long waitNanos, long holdNanos) {
+        _holdNanos.record(holdNanos);
+        CallSite callSite = callSite(findCallSite());
+        callSite.holds.increment();
+        callSite.waitNanos.add(waitNanos);
+        callSite.holdNanos.add(holdNanos);
+    }
+
+    private CallSite callSite(String site) {
+        CallSite callSite = _callSites.get(site);
+        if (callSite != null) {
+            return callSite;
+        }
+        if (_callSiteCount.get() >= MAX_CALL_SITES) {
+            return _callSites.computeIfAbsent(OTHER_CALL_SITES, key -> new CallSite());
+        }
+        return _callSites.computeIfAbsent(site, key -> {
+            _callSiteCount.incrementAndGet();
+            return new CallSite();
+        });
+    }
+
+    private String findCallSite() {
+        return walker.walk(frames -> frames
+                .filter(frame -> !isLockFrame(frame.getClassName()))
+                .findFirst()
+                .map(frame -> simpleName(frame.getClassName()) + "." + frame.getMethodName() + ":"
+                        + frame.getLineNumber())
+                .orElse("(unknown)"));
+    }
+
+    private boolean isLockFrame(String className) {
+        return className.equals(LockProfile.class.getName()) || className.equals(InstrumentedLock.class.getName())
+                || className.equals(_ownerClass) || className.startsWith(_ownerClass + "$");
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    public Snapshot snapshot() {
+        List<CallSiteSnapshot> callSites = new ArrayList<>();
+        for (Map.Entry<String, CallSite> entry : _callSites.entrySet()) {
+            CallSite callSite = entry.getValue();
+            callSites.add(new CallSiteSnapshot(entry.getKey(), callSite.holds.sum(), callSite.waitNanos.sum(),
+                    callSite.holdNanos.sum()));
+        }
+        callSites.sort(Comparator.comparingLong(CallSiteSnapshot::holdNanos).reversed());
+        return new Snapshot(_name, _acquisitions.sum(), _contended.sum(), _sampled.sum(), _waitNanos.snapshot(),
+                _holdNanos.snapshot(), _queueLengths.snapshot(), callSites);
+    }
+
+    /**
+     * Clear the counts and histograms. Concurrent acquisitions may be partly counted.
+     */
+    public void reset() {
+        _acquisitions.reset();
+        _contended.reset();
+        _sampled.reset();
+        _waitNanos.reset();
+        _holdNanos.reset();
+        _queueLengths.reset();
+        _callSites.clear();
+        _callSiteCount.set(0);
+    }
+}
@@ -0,0 +1,259 @@
+package monitoring;
+
+import Model.datastructures.JobQueue;
+import Model.statistics.JobStatistics;
+import Model.statistics.LatencyHistogram;
+import util.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Serves the scheduler's metrics at http://127.0.0.1:PORT/metrics in the Prometheus text
+ * exposition format: queue depth, running jobs, job counters, the dispatch delay, waiting
+ * and turnaround time histograms, the queue lock's contention counters, and the sampled
+ * wait, hold and queue length histograms of every profiled lock.
+ *
+ * Each scrape renders a Snapshot read from atomic counters only; the queue depth is read
+ * without the queue lock. Scraping therefore never blocks scheduling, at the price of
+ * values that may be a moment apart from each other. Requests are handled one at a time
+ * on the server's own thread.
+ * @author Group 1
+ */
+public class MetricsServer {
+    public static final String PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    // Upper bounds of the latency histogram buckets, in seconds
+    private static final double[] BUCKET_SECONDS = {0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 2.5, 5, 10, 30, 60,
+            120, 300, 600, 1800, 3600};
+    // Upper bounds of the lock wait and hold time buckets, in seconds
+    private static final double[] LOCK_BUCKET_SECONDS = {0.000001, 0.00001, 0.0001, 0.001, 0.01, 0.1, 1};
+    // Upper bounds of the lock queue length buckets, in threads
+    private static final double[] QUEUE_LENGTH_BUCKETS = {1, 2, 4, 8, 16, 32, 64};
+
+    private final String _moduleID;
+    private final Logger _logger;
+    private final HttpServer _server;
+    private final JobStatistics _jobStatistics;
+    private final JobQueue _jobQueue;
+
+    /**
+     * The values of one scrape
+     */
+    public record Snapshot(int waitingJobs, int runningJobs, int peakRunningJobs, long submittedJobs,
+                           long dispatchedJobs, long completedJobs, long rejectedJobs, long shedJobs,
+                           long processJobs, long failedProcessJobs, LatencyHistogram.Snapshot dispatchDelays,
+                           LatencyHistogram.Snapshot waitingTimes, LatencyHistogram.Snapshot turnaroundTimes,
+                           JobQueue.LockMetrics lockMetrics, List<LockProfile.Snapshot> lockProfiles) {}
+
+    /**
+     * Constructor for MetricsServer. Requests are served once start() is called.
+     * @param moduleID The ID of this module
+     * @param port The localhost port to listen on, or 0 for any free port
+     * @param jobStatistics The statistics to export
+     * @param jobQueue The queue whose depth and lock contention to export
+     * @throws IOException if the port cannot be bound
+     */
+    public MetricsServer(String moduleID, int port, JobStatistics jobStatistics, JobQueue jobQueue) throws IOException {
+        _moduleID = moduleID;
+        _logger = Logger.getInstance();
+        _jobStatistics = jobStatistics;
+        _jobQueue = jobQueue;
+        _server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    }
+
+    /**
+     * Starts serving requests
+     */
+    public void start() {
+        _server.createContext(PATH, this::handle);
+        _server.start();
+        _logger.info(_moduleID, "Serving metrics on port " + getPort());
+    }
+
+    /**
+     * Stops serving requests, without waiting for a scrape in progress
+     */
+    public void stop() {
+        _server.stop(0);
+        _logger.info(_moduleID, "Metrics server stopped");
+    }
+
+    public int getPort() {
+        return _server.getAddress().getPort();
+    }
+
+    /**
+     * Read the current values without taking any lock
+     * @return The snapshot
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(_jobQueue.approximateSize(), _jobStatistics.getRunningJobs(),
+                _jobStatistics.getPeakRunningJobs(), _jobStatistics.getTotalJobsSubmitted(),
+                _jobStatistics.getDispatchRate().getCount(), _jobStatistics.getCompletionRate().getCount(),
+                _jobStatistics.getRejectedJobs(), _jobStatistics.getShedJobs(),
+                _jobStatistics.getProcessJobsCompleted(), _jobStatistics.getProcessJobsFailed(),
+                _jobStatistics.getDispatchDelayHistogram(), _jobStatistics.getWaitingTimeHistogram(),
+                _jobStatistics.getTurnaroundTimeHistogram(), _jobQueue.getLockMetrics(), LockProfile.snapshotAll());
+    }
+
+    /**
+     * Render a snapshot in the Prometheus text exposition format
+     * @param snapshot The values to render
+     * @return The text
+     */
+    public static String render(Snapshot snapshot) {
+        StringBuilder text = new StringBuilder();
+        appendGauge(text, "csubatch_queue_waiting_jobs", "Jobs waiting in the queue.", snapshot.waitingJobs());
+        appendGauge(text, "csubatch_running_jobs", "Jobs holding an execution slot.", snapshot.runningJobs());
+        appendGauge(text, "csubatch_running_jobs_peak", "Most jobs that held a slot at the same time.",
+                snapshot.peakRunningJobs());
+        appendCounter(text, "csubatch_jobs_submitted_total", "Jobs submitted.", snapshot.submittedJobs());
+        appendCounter(text, "csubatch_jobs_dispatched_total", "Jobs dispatched to an execution slot.",
+                snapshot.dispatchedJobs());
+        appendCounter(text, "csubatch_jobs_completed_total", "Jobs completed.", snapshot.completedJobs());
+        appendCounter(text, "csubatch_jobs_rejected_total", "Submissions refused because the queue was full.",
+                snapshot.rejectedJobs());
+        appendCounter(text, "csubatch_jobs_shed_total", "Queued jobs dropped for higher-priority ones.",
+                snapshot.shedJobs());
+        appendCounter(text, "csubatch_process_jobs_exited_total", "Process jobs whose process exited.",
+                snapshot.processJobs());
+        appendCounter(text, "csubatch_process_jobs_failed_total", "Process jobs that failed or exited non-zero.",
+                snapshot.failedProcessJobs());
+        appendHistogram(text, "csubatch_job_dispatch_delay_seconds", "Time from arrival until a slot was assigned.",
+                snapshot.dispatchDelays());
+        appendHistogram(text, "csubatch_job_waiting_seconds", "Time from arrival until execution started.",
+                snapshot.waitingTimes());
+        appendHistogram(text, "csubatch_job_turnaround_seconds", "Time from arrival until the job finished.",
+                snapshot.turnaroundTimes());
+
+        JobQueue.LockMetrics lock = snapshot.lockMetrics();
+        String name = "csubatch_queue_lock_acquisitions_total";
+        appendHeader(text, name, "Acquisitions of the queue lock; optimistic reads take none.", "counter");
+        text.append(name).append("{mode=\"write\"} ").append(lock.writeHolds()).append('\n');
+        text.append(name).append("{mode=\"read\"} ").append(lock.readHolds()).append('\n');
+        text.append(name).append("{mode=\"optimistic\"} ").append(lock.optimisticReads()).append('\n');
+        name = "csubatch_queue_lock_held_seconds_total";
+        appendHeader(text, name, "Time the queue lock was held.", "counter");
+        text.append(name).append("{mode=\"write\"} ").append(lock.writeHoldNanos() / 1e9).append('\n');
+        text.append(name).append("{mode=\"read\"} ").append(lock.readHoldNanos() / 1e9).append('\n');
+        name = "csubatch_queue_lock_held_max_seconds";
+        appendHeader(text, name, "Longest single hold of the queue lock.", "gauge");
+        text.append(name).append("{mode=\"write\"} ").append(lock.maxWriteHoldNanos() / 1e9).append('\n');
+        text.append(name).append("{mode=\"read\"} ").append(lock.maxReadHoldNanos() / 1e9).append('\n');
+        appendCounter(text, "csubatch_queue_lock_contended_total", "Exclusive acquisitions that had to wait.",
+                lock.contendedWrites());
+        appendCounter(text, "csubatch_queue_lock_optimistic_failures_total",
+                "Optimistic reads retried under the read lock.", lock.optimisticReadFailures());
+        appendLockProfiles(text, snapshot.lockProfiles());
+        return text.toString();
+    }
+
+    private static void appendHeader(StringBuilder text, String name, String help, String type) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void appendGauge(StringBuilder text, String name, String help, long value) {
+        appendHeader(text, name, help, "gauge");
+        text.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void appendCounter(StringBuilder text, String name, String help, long value) {
+        appendHeader(text, name, help, "counter");
+        text.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void appendHistogram(StringBuilder text, String name, String help, LatencyHistogram.Snapshot histogram) {
+        appendHeader(text, name, help, "histogram");
+        appendBuckets(text, name, "", histogram, BUCKET_SECONDS, 1e6);
+    }
+
+    private static void appendLockProfiles(StringBuilder text, List<LockProfile.Snapshot> profiles) {
+        String name = "csubatch_lock_acquisitions_total";
+        appendHeader(text, name, "Acquisitions of each profiled lock.", "counter");
+        for (LockProfile.Snapshot profile : profiles) {
+            text.append(name).append(lockLabel(profile)).append(' ').append(profile.acquisitions()).append('\n');
+        }
+        name = "csubatch_lock_contended_total";
+        appendHeader(text, name, "Acquisitions of each profiled lock that had to wait.", "counter");
+        for (LockProfile.Snapshot profile : profiles) {
+            text.append(name).append(lockLabel(profile)).append(' ').append(profile.contended()).append('\n');
+        }
+        name = "csubatch_lock_wait_seconds";
+        appendHeader(text, name, "Sampled time to acquire each profiled lock.", "histogram");
+        for (LockProfile.Snapshot profile : profiles) {
+            appendBuckets(text, name, lockLabelValue(profile), profile.waitNanos(), LOCK_BUCKET_SECONDS, 1e9);
+        }
+        name = "csubatch_lock_hold_seconds";
+        appendHeader(text, name, "Sampled time each profiled lock was held.", "histogram");
+        for (LockProfile.Snapshot profile : profiles) {
+            appendBuckets(text, name, lockLabelValue(profile), profile.holdNanos(), LOCK_BUCKET_SECONDS, 1e9);
+        }
+        name = "csubatch_lock_queue_length";
+        appendHeader(text, name, "Threads waiting for each profiled lock when a sampled acquisition had to wait.",
+                "histogram");
+        for (LockProfile.Snapshot profile : profiles) {
+            appendBuckets(text, name, lockLabelValue(profile), profile.queueLengths(), QUEUE_LENGTH_BUCKETS, 1);
+        }
+    }
+
+    private static String lockLabelValue(LockProfile.Snapshot profile) {
+        return "lock=\"" + profile.name().replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static String lockLabel(LockProfile.Snapshot profile) {
+        return "{" + lockLabelValue(profile) + "}";
+    }
+
+    /**
+     * Append the buckets, sum and count of a histogram
+     * @param labels Labels to put before le, e.g. lock="Logger", or "" for none
+     * @param bounds Bucket upper bounds in the exported unit
+     * @param scale Recorded units per exported unit, e.g. 1e6 for microseconds exported as seconds
+     */
+    private static void appendBuckets(StringBuilder text, String name, String labels, LatencyHistogram.Snapshot histogram,
+                                      double[] bounds, double scale) {
+        String prefix = labels.isEmpty() ? "{" : "{" + labels + ",";
+        for (double bound : bounds) {
+            String label = bound == Math.rint(bound) ? String.valueOf((long) bound) : String.valueOf(bound);
+            text.append(name).append("_bucket").append(prefix).append("le=\"").append(label).append("\"} ")
+                .append(histogram.getCountAtOrBelow(Math.round(bound * scale))).append('\n');
+        }
+        text.append(name).append("_bucket").append(prefix).append("le=\"+Inf\"} ").append(histogram.getTotalCount())
+            .append('\n');
+        String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+        text.append(name).append("_sum").append(suffix).append(histogram.getSum() / scale).append('\n');
+        text.append(name).append("_count").append(suffix).append(histogram.getTotalCount()).append('\n');
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render(snapshot()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (IOException | RuntimeException e) {
+            _logger.warning(_moduleID, "Could not serve metrics: " + e.getMessage());
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package monitoring;
+
+import Model.algorithms.SchedulingPolicy;
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import Model.statistics.JobStatistics;
+import Model.statistics.LatencyHistogram;
+import Model.statistics.RateMeter;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A top-style view of the scheduler for the monitor command: queue depth per group of the
+ * scheduling policy's key, the running jobs with their progress, current rates, waiting time
+ * percentiles and slot utilization.
+ *
+ * A Frame is captured without taking any lock. Counters, rates and histograms are atomic, the
+ * running jobs come from a concurrent set, and the waiting jobs are read optimistically; if a
+ * writer gets in the way, the previous frame's grouping is shown again rather than waiting.
+ * Capturing at 10 Hz therefore never holds up submission or dispatch.
+ * @author Group 1
+ */
+public class Monitor {
+    // Width of the progress and depth bars
+    private static final int BAR_WIDTH = 20;
+
+    private final JobStatistics _jobStatistics;
+    private final JobQueue _jobQueue;
+    private final Supplier<SchedulingPolicy> _policy;
+    // Only touched by the thread capturing frames
+    private Map<String, Integer> _lastDepthByKey = Collections.emptyMap();
+    private boolean _depthStale;
+
+    /**
+     * A job holding an execution slot
+     * @param elapsed Seconds it has been executing
+     */
+    public record RunningJob(String name, int priority, double executionTime, double elapsed) {
+        /**
+         * Get how far the job is through its execution time
+         * @return The share from 0 to 1
+         */
+        public double progress() {
+            return executionTime <= 0 ? 1 : Math.min(1, Math.max(0, elapsed / executionTime));
+        }
+    }
+
+    /**
+     * The values shown on one redraw
+     * @param depthByKey Waiting jobs per group of the policy's key, in queue order; empty if unavailable
+     * @param depthStale Whether depthByKey is from an earlier frame because a writer got in the way
+     * @param slotCount Execution slots, or 0 if unknown
+     * @param waitingTimes Waiting times of completed jobs, in microseconds
+     */
+    public record Frame(long capturedMillis, String policy, int waitingJobs, Map<String, Integer> depthByKey,
+                        boolean depthStale, List<RunningJob> runningJobs, int slotCount, int peakRunningJobs,
+                        double submissionRate, double dispatchRate, double completionRate, long submittedJobs,
+                        long completedJobs, long rejectedJobs, long shedJobs, LatencyHistogram.Snapshot waitingTimes) {
+        /**
+         * Get the share of slots in use
+         * @return The share from 0 to 1, or -1 if the slot count is unknown
+         */
+        public double utilization() {
+            return slotCount <= 0 ? -1 : Math.min(1, (double) runningJobs.size() / slotCount);
+        }
+    }
+
+    /**
+     * Constructor for Monitor
+     * @param jobStatistics The statistics to show
+     * @param jobQueue The queue to show
+     * @param policy Supplies the current scheduling policy
+     */
+    public Monitor(JobStatistics jobStatistics, JobQueue jobQueue, Supplier<SchedulingPolicy> policy) {
+        _jobStatistics = jobStatistics;
+        _jobQueue = jobQueue;
+        _policy = policy;
+    }
+
+    /**
+     * Read the current values without taking any lock
+     * @return The frame
+     */
+    public Frame capture() {
+        SchedulingPolicy policy = _policy.get();
+        Map<String, Integer> depthByKey = policy == null ? null : _jobQueue.tryReadQueue(queue -> {
+            Map<String, Integer> depths = new LinkedHashMap<>();
+            for (Object waiting : queue) {
+                depths.merge(policy.getKeyGroup((Job) waiting), 1, Integer::sum);
+            }
+            return depths;
+        });
+        if (depthByKey != null) {
+            _lastDepthByKey = depthByKey;
+        }
+        _depthStale = depthByKey == null && !_lastDepthByKey.isEmpty();
+
+        List<RunningJob> runningJobs = new ArrayList<>();
+        for (Job job : _jobQueue.getRunningJobs()) {
+            runningJobs.add(new RunningJob(job.getName(), job.getPriority(), job.getExecutionTime(),
+                    Math.max(0, job.getNanosSinceStart()) / 1e9));
+        }
+
+        return new Frame(System.currentTimeMillis(), policy == null ? "-" : policy.getPolicyName(),
+                _jobQueue.approximateSize(), _lastDepthByKey, _depthStale, runningJobs,
+                _jobStatistics.getSlotCount(), _jobStatistics.getPeakRunningJobs(),
+                _jobStatistics.getSubmissionRate().getWindowRate(), _jobStatistics.getDispatchRate().getWindowRate(),
+                _jobStatistics.getCompletionRate().getWindowRate(), _jobStatistics.getTotalJobsSubmitted(),
+                _jobStatistics.getTotalJobsCompleted(), _jobStatistics.getRejectedJobs(), _jobStatistics.getShedJobs(),
+                _jobStatistics.getWaitingTimeHistogram());
+    }
+
+    /**
+     * Render a frame as text
+     * @param frame The values to show
+     * @param maxRunningJobs How many running jobs to list at most
+     * @return The text, ending in a newline
+     */
+    public static String render(Frame frame, int maxRunningJobs) {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("CSUbatch monitor  %s  policy %s%n%n",
+                new SimpleDateFormat("HH:mm:ss").format(new Date(frame.capturedMillis())), frame.policy()));
+
+        double utilization = frame.utilization();
+        text.append(String.format("Slots     %d/%s busy%s, peak %d%n", frame.runningJobs().size(),
+                frame.slotCount() > 0 ? String.valueOf(frame.slotCount()) : "?",
+                utilization < 0 ? "" : String.format(" %s %3.0f%%", bar(utilization), utilization * 100),
+                frame.peakRunningJobs()));
+        text.append(String.format("Rates     %.2f submitted, %.2f dispatched, %.2f completed per second (last %d s)%n",
+                frame.submissionRate(), frame.dispatchRate(), frame.completionRate(), RateMeter.WINDOW_SECONDS));
+        LatencyHistogram.Snapshot waits = frame.waitingTimes();
+        if (waits.getTotalCount() == 0) {
+            text.append("Waiting   no completed jobs yet\n");
+        } else {
+            text.append(String.format("Waiting   p50 %.3f s, p90 %.3f s, p99 %.3f s, max %.3f s%n",
+                    waits.getSecondsAtPercentile(50), waits.getSecondsAtPercentile(90),
+                    waits.getSecondsAtPercentile(99), waits.getMax() / 1e6));
+        }
+        text.append(String.format("Jobs      %d submitted, %d completed, %d rejected, %d shed%n%n",
+                frame.submittedJobs(), frame.completedJobs(), frame.rejectedJobs(), frame.shedJobs()));
+
+        text.append(String.format("Queue     %d waiting%s%n", frame.waitingJobs(),
+                frame.depthStale() ? " (groups from an earlier frame)" : ""));
+        int largest = 1;
+        for (int depth : frame.depthByKey().values()) {
+            largest = Math.max(largest, depth);
+        }
+        for (Map.Entry<String, Integer> group : frame.depthByKey().entrySet()) {
+            text.append(String.format("  %-20s %6d %s%n", group.getKey(), group.getValue(),
+                    bar((double) group.getValue() / largest)));
+        }
+
+        text.append(String.format("%nRunning%n  %-20s %8s %9s %10s  %s%n", "Name", "Priority", "CPU time", "Elapsed",
+                "Progress"));
+        List<RunningJob> runningJobs = frame.runningJobs();
+        for (int i = 0; i < Math.min(maxRunningJobs, runningJobs.size()); i++) {
+            RunningJob job = runningJobs.get(i);
+            text.append(String.format("  %-20s %8d %9.2f %10.2f  %s %3.0f%%%n", job.name(), job.priority(),
+                    job.executionTime(), job.elapsed(), bar(job.progress()), job.progress() * 100));
+        }
+        if (runningJobs.size() > maxRunningJobs) {
+            text.append("  ... and ").append(runningJobs.size() - maxRunningJobs).append(" more\n");
+        }
+        return text.toString();
+    }
+
+    private static String bar(double share) {
+        int filled = (int) Math.round(Math.min(1, Math.max(0, share)) * BAR_WIDTH);
+        return "[" + "#".repeat(filled) + "-".repeat(BAR_WIDTH - filled) + "]";
+    }
+}
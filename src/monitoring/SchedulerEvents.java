@@ -0,0 +1,257 @@
+package monitoring;
+
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events for the job lifecycle, policy application and CLI commands,
+ * so a recording lines scheduler activity up with the JVM's GC, lock and I/O events.
+ *
+ * The events are disabled unless a recording enables them, e.g. with csubatch.jfc next to
+ * this class. While disabled, each helper is a single check of a flag the JIT folds away;
+ * no fields are filled and nothing is committed.
+ * @author Group 1
+ */
+public final class SchedulerEvents {
+    private static final String CATEGORY = "CSUbatch";
+
+    private SchedulerEvents() {
+    }
+
+    @Name("csubatch.JobSubmitted")
+    @Label("Job Submitted")
+    @Description("A job was admitted to the queue")
+    @Category({CATEGORY, "Job Lifecycle"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class JobSubmitted extends Event {
+        @Label("Job")
+        String job;
+        @Label("Priority")
+        int priority;
+        @Label("Execution Time")
+        @Timespan(Timespan.MILLISECONDS)
+        long executionTime;
+    }
+
+    @Name("csubatch.JobEnqueued")
+    @Label("Job Enqueued")
+    @Description("A job was merged into the queue in policy order")
+    @Category({CATEGORY, "Job Lifecycle"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class JobEnqueued extends Event {
+        @Label("Job")
+        String job;
+        @Label("Batch Size")
+        int batchSize;
+    }
+
+    @Name("csubatch.PolicyApplied")
+    @Label("Policy Applied")
+    @Description("The scheduling policy ordered a batch into the queue, or reordered the whole queue")
+    @Category({CATEGORY, "Scheduler"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class PolicyApplied extends Event {
+        @Label("Policy")
+        String policy;
+        @Label("Batch Size")
+        @Description("Jobs merged; 0 when the whole queue was reordered")
+        int batchSize;
+        @Label("Queue Size")
+        @Description("Jobs waiting afterwards")
+        int queueSize;
+    }
+
+    @Name("csubatch.JobDispatched")
+    @Label("Job Dispatched")
+    @Description("A job was taken from the queue and given an execution slot")
+    @Category({CATEGORY, "Job Lifecycle"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class JobDispatched extends Event {
+        @Label("Job")
+        String job;
+        @Label("Priority")
+        int priority;
+        @Label("Queue Wait")
+        @Timespan(Timespan.NANOSECONDS)
+        long queueWait;
+    }
+
+    @Name("csubatch.JobStarted")
+    @Label("Job Started")
+    @Description("A local execution slot started running a job")
+    @Category({CATEGORY, "Job Lifecycle"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class JobStarted extends Event {
+        @Label("Job")
+        String job;
+    }
+
+    @Name("csubatch.JobCompleted")
+    @Label("Job Completed")
+    @Description("A job released its execution slot")
+    @Category({CATEGORY, "Job Lifecycle"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class JobCompleted extends Event {
+        @Label("Job")
+        String job;
+        @Label("Success")
+        boolean success;
+        @Label("Waiting Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long waitingTime;
+        @Label("Turnaround Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long turnaroundTime;
+    }
+
+    @Name("csubatch.CommandExecuted")
+    @Label("Command Executed")
+    @Description("A CLI command was validated and, if valid, executed")
+    @Category({CATEGORY, "CLI"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class CommandExecuted extends Event {
+        @Label("Command")
+        String command;
+        @Label("Valid")
+        boolean valid;
+    }
+
+    /**
+     * A PolicyApplied event being timed; see beginPolicyApplied()
+     */
+    public static final class PolicyTimer {
+        private final PolicyApplied _event = new PolicyApplied();
+
+        private PolicyTimer() {
+            _event.begin();
+        }
+
+        /**
+         * Ends the timing and commits the event if it is enabled and over its threshold
+         * @param policy The name of the policy applied
+         * @param batchSize The jobs merged, or 0 if the whole queue was reordered
+         * @param jobQueue The queue, read for its size only if the event is committed
+         */
+        public void end(String policy, int batchSize, JobQueue jobQueue) {
+            _event.end();
+            if (_event.shouldCommit()) {
+                _event.policy = policy;
+                _event.batchSize = batchSize;
+                _event.queueSize = jobQueue.approximateSize();
+                _event.commit();
+            }
+        }
+    }
+
+    /**
+     * A CommandExecuted event being timed; see beginCommand()
+     */
+    public static final class CommandTimer {
+        private final CommandExecuted _event = new CommandExecuted();
+
+        private CommandTimer() {
+            _event.begin();
+        }
+
+        /**
+         * Ends the timing and commits the event if it is enabled and over its threshold
+         * @param input The command line as typed
+         * @param valid Whether the command passed validation
+         */
+        public void end(String input, boolean valid) {
+            _event.end();
+            if (_event.shouldCommit()) {
+                _event.command = input.trim();
+                _event.valid = valid;
+                _event.commit();
+            }
+        }
+    }
+
+    /**
+     * Start timing the application of the scheduling policy
+     * @return The timer to end once the queue is in order
+     */
+    public static PolicyTimer beginPolicyApplied() {
+        return new PolicyTimer();
+    }
+
+    /**
+     * Start timing a CLI command
+     * @return The timer to end once the command has run
+     */
+    public static CommandTimer beginCommand() {
+        return new CommandTimer();
+    }
+
+    public static void jobSubmitted(Job job) {
+        JobSubmitted event = new JobSubmitted();
+        if (event.isEnabled()) {
+            event.job = job.getName();
+            event.priority = job.getPriority();
+            event.executionTime = Math.round(job.getExecutionTime() * 1000);
+            event.commit();
+        }
+    }
+
+    public static void jobEnqueued(Job job, int batchSize) {
+        JobEnqueued event = new JobEnqueued();
+        if (event.isEnabled()) {
+            event.job = job.getName();
+            event.batchSize = batchSize;
+            event.commit();
+        }
+    }
+
+    /**
+     * Record a dispatch; the queue wait runs until the job's dispatch time if it is already
+     * marked running, otherwise until now
+     * @param job The dispatched job
+     */
+    public static void jobDispatched(Job job) {
+        JobDispatched event = new JobDispatched();
+        if (event.isEnabled()) {
+            long dispatchedNanos = job.getDispatchedNanos();
+            event.job = job.getName();
+            event.priority = job.getPriority();
+            event.queueWait = Math.max(0, dispatchedNanos >= 0 ? dispatchedNanos - job.getArrivalNanos()
+                    : job.getNanosSinceArrival());
+            event.commit();
+        }
+    }
+
+    public static void jobStarted(Job job) {
+        JobStarted event = new JobStarted();
+        if (event.isEnabled()) {
+            event.job = job.getName();
+            event.commit();
+        }
+    }
+
+    public static void jobCompleted(Job job, boolean success) {
+        JobCompleted event = new JobCompleted();
+        if (event.isEnabled()) {
+            event.job = job.getName();
+            event.success = success;
+            event.waitingTime = job.getStartNanos() < 0 ? 0 : job.getStartNanos() - job.getArrivalNanos();
+            event.turnaroundTime = job.getCompletedNanos() < 0 ? 0 : job.getCompletedNanos() - job.getArrivalNanos();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package multithreading;
+
+import Model.datastructures.Job;
+import Model.datastructures.ProcessJob;
+import Model.statistics.JobStatistics;
+import util.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Single-writer scheduling core. One event-loop thread owns the waiting jobs and the running
+ * set; nothing else ever touches them. Submitters, commands and finished jobs post messages
+ * to a lock-free mailbox and get their replies through futures, so no queue lock is taken
+ * anywhere between submitting a job and recording its completion. Submissions, dispatches
+ * and completions are recorded in JobStatistics like in every other backend.
+ *
+ * The loop drains every message in the mailbox, then dispatches waiting jobs onto free
+ * slots, then parks until a message arrives. Each slot has its own worker thread that is
+ * handed one job at a time; timer and process jobs hold a slot without a worker.
+ *
+ * Callbacks attached to a reply with the non-async CompletableFuture methods run on the
+ * loop thread and must not block.
+ * @author Group 1
+ */
+public class EventLoopCore implements RunnableStoppableInterface {
+    private final String _moduleID;
+    private final int _slotCount;
+    private final Logger _logger;
+    private final JobStatistics _jobStatistics;
+    private final Queue<Message> _mailbox = new ConcurrentLinkedQueue<>();
+    private volatile boolean _running = true;
+    // Set once the loop has exited; messages posted afterwards are failed by the poster
+    private volatile boolean _stopped = false;
+    private volatile Thread _loopThread;
+    // Set while the loop is parked or about to park, so posters know to unpark it
+    private volatile boolean _parked = false;
+
+    // Owned by the loop thread
+    private PriorityQueue<Entry> _waiting;
+    private Comparator<Entry> _entryOrder;
+    private long _sequence;
+    private final Set<Job> _runningJobs = new HashSet<>();
+    private final ArrayDeque<Worker> _idleWorkers = new ArrayDeque<>();
+    private final List<Worker> _workers = new ArrayList<>();
+    private int _freeSlots;
+    private int _peakRunning;
+    private long _messages;
+    private long _wakeups;
+
+    /**
+     * A waiting job with its submission number, which breaks ties in submission order
+     */
+    private record Entry(Job job, long sequence) {}
+
+    /**
+     * Everything the loop thread can be asked to do
+     */
+    private sealed interface Message permits Submit, Completed, Reorder, Query {}
+
+    // requeued jobs were submitted once already and are not counted again
+    private record Submit(Job job, boolean requeued, CompletableFuture<Integer> reply) implements Message {}
+
+    // worker is null for jobs that completed without occupying one. success means the job ran
+    // to the end; for a process job, that its process could be started.
+    private record Completed(Job job, Worker worker, boolean success) implements Message {}
+
+    private record Reorder(Comparator<Job> order, CompletableFuture<Void> reply) implements Message {}
+
+    private record Query<T>(Function<EventLoopCore, T> question, CompletableFuture<T> reply) implements Message {
+        void answer(EventLoopCore core) {
+            try {
+                reply.complete(question.apply(core));
+            } catch (RuntimeException e) {
+                reply.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * The state of the loop itself, copied out in one piece. Job outcomes are in JobStatistics.
+     * @param waiting Jobs waiting for a slot
+     * @param running Jobs holding a slot
+     * @param peakRunning The most jobs that held a slot at the same time
+     * @param messages Messages the loop has handled
+     * @param wakeups Times the loop found work after parking; messages per wakeup shows the batching
+     */
+    public record Statistics(int waiting, int running, int peakRunning, long messages, long wakeups) {}
+
+    /**
+     * One execution slot: a platform thread that parks until the loop hands it a job
+     */
+    private final class Worker implements Runnable {
+        private volatile Job _job;
+        private volatile boolean _workerRunning = true;
+        private Thread _thread;
+
+        void start(String name) {
+            _thread = new Thread(this, name);
+            _thread.setDaemon(true);
+            _thread.start();
+        }
+
+        /**
+         * Called by the loop thread, only while this worker is idle
+         */
+        void assign(Job job) {
+            _job = job;
+            LockSupport.unpark(_thread);
+        }
+
+        void stop() {
+            _workerRunning = false;
+            LockSupport.unpark(_thread);
+        }
+
+        @Override
+        public void run() {
+            while (_workerRunning) {
+                Job job = _job;
+                if (job == null) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                boolean success = false;
+                try {
+                    success = job.run();
+                } catch (Throwable e) {
+                    // Whatever the job threw, the slot must be handed back
+                    _logger.error(_moduleID, "Error executing job: " + job.getName() + " - " + e);
+                }
+                // Cleared before reporting, so the next assignment cannot be overwritten
+                _job = null;
+                post(new Completed(job, this, success));
+            }
+        }
+    }
+
+    /**
+     * Constructor for EventLoopCore recording into the shared JobStatistics. The loop starts
+     * when run() is called on its own thread; messages posted before then wait in the mailbox.
+     * @param moduleID The ID of this module
+     * @param slotCount The number of jobs that may run concurrently
+     * @param order The order waiting jobs are dispatched in, the job to run first comparing lowest
+     * @throws IllegalArgumentException if slotCount is not positive
+     */
+    public EventLoopCore(String moduleID, int slotCount, Comparator<Job> order) {
+        this(moduleID, slotCount, order, JobStatistics.getInstance());
+    }
+
+    /**
+     * Constructor for EventLoopCore
+     * @param moduleID The ID of this module
+     * @param slotCount The number of jobs that may run concurrently
+     * @param order The order waiting jobs are dispatched in, the job to run first comparing lowest
+     * @param jobStatistics Where submissions, dispatches and completions are recorded
+     * @throws IllegalArgumentException if slotCount is not positive
+     */
+    public EventLoopCore(String moduleID, int slotCount, Comparator<Job> order, JobStatistics jobStatistics) {
+        if (slotCount <= 0) {
+            throw new IllegalArgumentException("Slot count must be positive: " + slotCount);
+        }
+        _moduleID = moduleID;
+        _slotCount = slotCount;
+        _freeSlots = slotCount;
+        _entryOrder = entryOrder(order);
+        _waiting = new PriorityQueue<>(_entryOrder);
+        _logger = Logger.getInstance();
+        _jobStatistics = jobStatistics;
+    }
+
+    private static Comparator<Entry> entryOrder(Comparator<Job> order) {
+        return Comparator.comparing(Entry::job, order).thenComparingLong(Entry::sequence);
+    }
+
+    /**
+     * Submits a job
+     * @param job The job to run
+     * @return A future completed with the number of waiting jobs once the job is queued
+     */
+    public CompletableFuture<Integer> submit(Job job) {
+        job.markSubmitted();
+        CompletableFuture<Integer> reply = new CompletableFuture<>();
+        post(new Submit(job, false, reply));
+        return reply;
+    }
+
+    /**
+     * Puts a job that was dispatched but never finished back with the waiting jobs, without
+     * counting it as a new submission
+     * @param job The job to run again
+     * @return A future completed with the number of waiting jobs once the job is queued
+     */
+    public CompletableFuture<Integer> requeue(Job job) {
+        CompletableFuture<Integer> reply = new CompletableFuture<>();
+        post(new Submit(job, true, reply));
+        return reply;
+    }
+
+    /**
+     * Changes the order of the waiting jobs, e.g. after the scheduling policy changed
+     * @param order The new order, the job to run first comparing lowest
+     * @return A future completed once the waiting jobs have been reordered
+     */
+    public CompletableFuture<Void> setOrder(Comparator<Job> order) {
+        CompletableFuture<Void> reply = new CompletableFuture<>();
+        post(new Reorder(order, reply));
+        return reply;
+    }
+
+    /**
+     * Get the waiting jobs
+     * @return A future completed with a copy of the waiting jobs in dispatch order
+     */
+    public CompletableFuture<List<Job>> getWaitingJobs() {
+        return ask(core -> {
+            List<Entry> entries = new ArrayList<>(core._waiting);
+            entries.sort(core._entryOrder);
+            List<Job> jobs = new ArrayList<>(entries.size());
+            for (Entry entry : entries) {
+                jobs.add(entry.job());
+            }
+            return jobs;
+        });
+    }
+
+    /**
+     * Get the jobs holding a slot
+     * @return A future completed with a copy of the running jobs
+     */
+    public CompletableFuture<List<Job>> getRunningJobs() {
+        return ask(core -> new ArrayList<>(core._runningJobs));
+    }
+
+    /**
+     * Get the state of the loop
+     * @return A future completed with a consistent copy of the loop's counters
+     */
+    public CompletableFuture<Statistics> getStatistics() {
+        return ask(core -> new Statistics(core._waiting.size(), core._runningJobs.size(), core._peakRunning,
+                core._messages, core._wakeups));
+    }
+
+    public int getSlotCount() {
+        return _slotCount;
+    }
+
+    private <T> CompletableFuture<T> ask(Function<EventLoopCore, T> question) {
+        CompletableFuture<T> reply = new CompletableFuture<>();
+        post(new Query<>(question, reply));
+        return reply;
+    }
+
+    private void post(Message message) {
+        _mailbox.add(message);
+        // The mailbox write comes before this read and the loop sets _parked before re-checking
+        // the mailbox, so either the loop sees the message or this thread sees it parked
+        if (_parked) {
+            LockSupport.unpark(_loopThread);
+        }
+        if (_stopped) {
+            rejectPending();
+        }
+    }
+
+    @Override
+    public void run() {
+        _loopThread = Thread.currentThread();
+        for (int i = 0; i < _slotCount; i++) {
+            Worker worker = new Worker();
+            worker.start(_moduleID + "-worker-" + i);
+            _workers.add(worker);
+            _idleWorkers.push(worker);
+        }
+        _logger.info(_moduleID, "Event loop started with " + _slotCount + " slot(s)");
+
+        while (_running) {
+            Message message;
+            while ((message = _mailbox.poll()) != null) {
+                handle(message);
+            }
+            dispatchWaitingJobs();
+
+            _parked = true;
+            if (_mailbox.isEmpty() && _running) {
+                LockSupport.park(this);
+                _wakeups++;
+            }
+            _parked = false;
+        }
+
+        for (Worker worker : _workers) {
+            worker.stop();
+        }
+        _stopped = true;
+        rejectPending();
+        _logger.info(_moduleID, "Event loop stopped with " + _waiting.size() + " job(s) waiting");
+    }
+
+    private void handle(Message message) {
+        _messages++;
+        switch (message) {
+            case Submit submit -> {
+                Job job = submit.job();
+                if (!submit.requeued()) {
+                    job.markEnqueued();
+                    _jobStatistics.recordJobSubmission(job);
+                }
+                _waiting.add(new Entry(job, _sequence++));
+                submit.reply().complete(_waiting.size());
+            }
+            case Completed completed -> release(completed);
+            case Reorder reorder -> {
+                _entryOrder = entryOrder(reorder.order());
+                PriorityQueue<Entry> waiting = new PriorityQueue<>(Math.max(1, _waiting.size()), _entryOrder);
+                waiting.addAll(_waiting);
+                _waiting = waiting;
+                reorder.reply().complete(null);
+            }
+            case Query<?> query -> {
+                // Answer from the state the jobs handled so far lead to, not from the middle of a batch
+                dispatchWaitingJobs();
+                query.answer(this);
+            }
+        }
+    }
+
+    private void dispatchWaitingJobs() {
+        while (_freeSlots > 0 && !_waiting.isEmpty()) {
+            Job job = _waiting.poll().job();
+            if (!job.isIdle()) {
+                _jobStatistics.recordJobSkipped(job);
+                continue;
+            }
+            _freeSlots--;
+            _runningJobs.add(job);
+            _peakRunning = Math.max(_peakRunning, _runningJobs.size());
+            // Stamps the dispatch, so the dispatch delay is known when it is recorded
+            job.setStatus(Job.Status.RUNNING);
+            _jobStatistics.recordJobDispatch(job);
+
+            if (job instanceof ProcessJob processJob) {
+                processJob.launch().whenComplete((exitCode, error) ->
+                        post(new Completed(job, null, error == null)));
+            } else if (job.getRunMode() == Job.RunMode.TIMER) {
+                job.startOnTimer().whenComplete((success, error) ->
+                        post(new Completed(job, null, error == null && success)));
+            } else {
+                // Every slot not held by a timer or process job has an idle worker
+                _idleWorkers.pop().assign(job);
+            }
+        }
+    }
+
+    private void release(Completed completed) {
+        Job job = completed.job();
+        _runningJobs.remove(job);
+        _freeSlots++;
+        if (completed.worker() != null) {
+            _idleWorkers.push(completed.worker());
+        }
+        if (job instanceof ProcessJob processJob) {
+            if (completed.success()) {
+                _jobStatistics.recordJobCompletion(processJob);
+                _jobStatistics.recordProcessCompletion(processJob);
+            } else {
+                _jobStatistics.recordProcessLaunchFailure(processJob);
+            }
+        } else if (completed.success()) {
+            _jobStatistics.recordJobCompletion(job);
+        } else {
+            _logger.warning(_moduleID, "Job may not have completed successfully: " + job.getName());
+        }
+        _jobStatistics.recordJobRelease(job);
+    }
+
+    /**
+     * Fails the replies of messages that arrived after the loop exited
+     */
+    private void rejectPending() {
+        Message message;
+        while ((message = _mailbox.poll()) != null) {
+            IllegalStateException stopped = new IllegalStateException("Event loop " + _moduleID + " has stopped");
+            switch (message) {
+                case Submit submit -> submit.reply().completeExceptionally(stopped);
+                case Reorder reorder -> reorder.reply().completeExceptionally(stopped);
+                case Query<?> query -> query.reply().completeExceptionally(stopped);
+                case Completed completed -> {
+                    // Nothing is waiting for a completion
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the loop. Waiting jobs are not run; running jobs finish on their workers.
+     */
+    public void stopRunning() {
+        _running = false;
+        Thread loopThread = _loopThread;
+        if (loopThread != null) {
+            LockSupport.unpark(loopThread);
+        }
+        _logger.info(_moduleID, "Event loop stopping");
+    }
+}
@@ -2,60 +2,96 @@ package multithreading;
 
 import Model.datastructures.Job;
 import Model.datastructures.JobQueue;
-import Model.datastructures.Queue;
-import Model.statistics.JobStatistics;
 import util.Logger;
-import util.JobQueueLogger;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 /**
  * JobDispatcher is responsible for taking jobs from the queue and executing them.
  * It runs as a separate thread and manages job execution.
- * Only one job can run at a time.
+ * Up to a configurable number of jobs (execution slots) run at the same time, either on a
+ * fixed pool of platform threads or on one virtual thread per job.
  * @author Group 1
  */
-public class JobDispatcher implements Runnable {
+public class JobDispatcher implements RunnableStoppableInterface {
+    /**
+     * How dispatched jobs are given a thread to run on
+     */
+    public enum ExecutionMode {
+        PLATFORM, // A fixed pool with one platform thread per slot
+        VIRTUAL   // A new virtual thread per job; the slot count only limits concurrency
+    }
+
     private final String _moduleID;
     private volatile boolean _running = true;
     private final JobQueue _jobQueue;
     private final ExecutorService _executorService;
     private final Logger _logger;
-    private final JobQueueLogger _jobQueueLogger;
-    private final JobStatistics _jobStatistics;
-    private volatile boolean _jobRunning = false;
-    private volatile Job _currentRunningJob = null;
+    private final JobRunner _jobRunner;
+    private final int _slotCount;
+    private final ExecutionMode _executionMode;
+    // Upper bound on how long the dispatcher waits before re-checking whether it should stop
+    private static final long IDLE_WAIT_MILLIS = 1000;
+    // One permit per free execution slot
+    private final Semaphore _freeSlots;
 
     /**
-     * Constructor for JobDispatcher
+     * Constructor for JobDispatcher with a single execution slot
      * @param moduleID The ID of this module
      */
     public JobDispatcher(String moduleID) {
+        this(moduleID, 1);
+    }
+
+    /**
+     * Constructor for JobDispatcher running jobs on platform threads
+     * @param moduleID The ID of this module
+     * @param slotCount The number of jobs that may run concurrently
+     * @throws IllegalArgumentException if slotCount is not positive
+     */
+    public JobDispatcher(String moduleID, int slotCount) {
+        this(moduleID, slotCount, ExecutionMode.PLATFORM);
+    }
+
+    /**
+     * Constructor for JobDispatcher
+     * @param moduleID The ID of this module
+     * @param slotCount The number of jobs that may run concurrently
+     * @param executionMode Whether jobs run on platform or virtual threads
+     * @throws IllegalArgumentException if slotCount is not positive
+     */
+    public JobDispatcher(String moduleID, int slotCount, ExecutionMode executionMode) {
+        if (slotCount <= 0) {
+            throw new IllegalArgumentException("Slot count must be positive: " + slotCount);
+        }
         _moduleID = moduleID;
+        _slotCount = slotCount;
+        _executionMode = executionMode;
+        _freeSlots = new Semaphore(slotCount);
         _jobQueue = JobQueue.getInstance();
-        // Always use a single thread executor to ensure only one job runs at a time
-        _executorService = Executors.newSingleThreadExecutor();
+        _executorService = switch (executionMode) {
+            // One worker thread per execution slot
+            case PLATFORM -> Executors.newFixedThreadPool(slotCount);
+            // Sleeping jobs unmount from their carrier, so the semaphore is the only limit
+            case VIRTUAL -> Executors.newVirtualThreadPerTaskExecutor();
+        };
         _logger = Logger.getInstance();
-        _jobQueueLogger = JobQueueLogger.getInstance();
-        _jobStatistics = JobStatistics.getInstance();
+        _jobRunner = new JobRunner(moduleID);
     }
 
     @Override
     public void run() {
         _logger.info(_moduleID, "Job Dispatcher started: " + _moduleID);
         
-        while (_running) {
+        while (_running && !Thread.currentThread().isInterrupted()) {
             try {
-                // Check for jobs to dispatch
-                dispatchJobs();
-                
-                // Print status information
-                printStatus();
-                
-                // Sleep to prevent CPU hogging
-                Thread.sleep(1000);
+                // Block until a slot is free (woken by job completion) and then
+                // until a job is queued (woken by enqueue)
+                dispatchNextJob();
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 _logger.error(_moduleID, "Job Dispatcher interrupted: " + e.getMessage());
@@ -80,76 +116,69 @@ public class JobDispatcher implements Runnable {
     }
 
     /**
-     * Dispatches jobs from the queue to be executed
+     * Waits for a free slot and a queued job, then dispatches the job.
+     * Both waits are bounded by IDLE_WAIT_MILLIS so a stop request is noticed promptly.
+     * @throws InterruptedException if the dispatcher thread is interrupted while waiting for a slot
      */
-    private void dispatchJobs() {
-        // Only dispatch a new job if no job is currently running
-        if (!_jobRunning && _currentRunningJob == null) {
-            // Check if queue is empty before trying to dequeue
-            if (!_jobQueue.isEmpty()) {
-                // Get the next job from the queue (if any) - use non-blocking method
-                Job job = _jobQueue.getNextJob();
-                
-                if (job != null && job.isIdle()) {
-                    _jobRunning = true;
-                    _currentRunningJob = job;
-                    // Set the job as the running job in JobQueue - now separate from dequeuing
-                    _jobQueue.setRunningJob(job);
-                    
-                    _logger.info(_moduleID, "Dispatching job: " + job.getName() + 
-                                " with execution time: " + job.getExecutionTime() + " seconds");
-                    _jobQueueLogger.jobDispatched(job.getName());
-                    
-                    // Use the executor service to run the job in a separate thread
-                    _executorService.submit(() -> {
-                        try {
-                            _logger.info(_moduleID, "Executing job: " + job.getName());
-                            _jobQueueLogger.jobExecutionStarted(job.getName());
-                            
-                            // This will block until the job completes its execution time
-                            // The job.run() method will sleep for the job's execution time
-                            boolean success = job.run();
-                            
-                            if (success) {
-                                _logger.info(_moduleID, "Job completed successfully: " + job.getName());
-                                job.setStatus(Job.Status.FINISHED);
-                                // Record the job completion in the statistics
-                                _jobStatistics.recordJobCompletion(job);
-                            } else {
-                                _logger.warning(_moduleID, "Job may not have completed successfully: " + job.getName());
-                            }
-                            _jobQueueLogger.jobCompleted(job.getName());
-                        } catch (Exception e) {
-                            _logger.error(_moduleID, "Error executing job: " + job.getName() + " - " + e.getMessage());
-                        } finally {
-                            // Always clean up, even if there was an exception
-                            _jobRunning = false;
-                            _currentRunningJob = null;
-                            _jobQueue.setRunningJob(null);
-                        }
-                    });
-                } else if (job != null && !job.isIdle()) {
-                    _logger.warning(_moduleID, "Attempted to dispatch a job that was not idle: " + job.getName());
-                    // Put the job back in the queue
-                    _jobQueue.addJob(job);
-                }
-            }
+    private void dispatchNextJob() throws InterruptedException {
+        if (!_freeSlots.tryAcquire(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            printStatus();
+            return;
+        }
+
+        // Blocks on the queue's notEmpty condition until a job is enqueued
+        Job job = _jobQueue.getJob(IDLE_WAIT_MILLIS);
+
+        if (job != null && job.isIdle()) {
+            dispatch(job);
+            return;
+        }
+
+        _freeSlots.release();
+        if (job == null) {
+            printStatus();
+        } else {
+            // Re-queuing would wake this thread again straight away, so the job is counted as skipped
+            _jobRunner.skip(job);
+        }
+    }
+
+    /**
+     * Runs a job on one of the execution slots. The caller must already hold a slot permit.
+     * Process jobs and timer jobs hold their slot until they finish but do not occupy a thread.
+     * @param job The job to execute
+     */
+    private void dispatch(Job job) {
+        _jobRunner.begin(job);
+
+        if (JobRunner.completesAsynchronously(job)) {
+            _jobRunner.executeAsync(job).whenComplete((ignored, error) -> _freeSlots.release());
+            return;
         }
+
+        _executorService.submit(() -> {
+            try {
+                _jobRunner.execute(job);
+            } finally {
+                _freeSlots.release();
+            }
+        });
     }
 
     /**
      * Prints the current status of the job dispatcher
      */
     private void printStatus() {
-        Job runningJob = _jobQueue.getRunningJob();
+        List<Job> runningJobs = _jobQueue.getRunningJobs();
         
         StringBuilder status = new StringBuilder();
         status.append("Status: Queue size=").append(_jobQueue.size());
-        status.append(", Job running=").append(_jobRunning);
+        status.append(", Running jobs=").append(runningJobs.size()).append("/").append(_slotCount);
+        status.append(", Mode=").append(_executionMode);
         
-        if (runningJob != null) {
-            status.append(", Current job=").append(runningJob.getName());
-            status.append(", Execution time=").append(runningJob.getExecutionTime()).append("s");
+        for (Job runningJob : runningJobs) {
+            status.append(", Running job=").append(runningJob.getName());
+            status.append(" (").append(runningJob.getExecutionTime()).append("s)");
         }
         
         status.append(", Thread ID=").append(Thread.currentThread().threadId());
@@ -158,6 +187,22 @@ public class JobDispatcher implements Runnable {
         _logger.info(_moduleID, status.toString());
     }
 
+    /**
+     * Get the number of execution slots
+     * @return The maximum number of jobs that can run at the same time
+     */
+    public int getSlotCount() {
+        return _slotCount;
+    }
+
+    /**
+     * Get the execution mode
+     * @return Whether jobs run on platform or virtual threads
+     */
+    public ExecutionMode getExecutionMode() {
+        return _executionMode;
+    }
+
     /**
      * Stops the job dispatcher
      */
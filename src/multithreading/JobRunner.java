@@ -0,0 +1,181 @@
+package multithreading;
+
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import Model.datastructures.ProcessJob;
+import Model.statistics.JobStatistics;
+import monitoring.SchedulerEvents;
+import util.Logger;
+import util.JobQueueLogger;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Carries a dispatched job through its lifecycle: registering it as running, executing it,
+ * recording the outcome and releasing it again. Shared by every dispatcher backend.
+ * @author Group 1
+ */
+class JobRunner {
+    private final String _moduleID;
+    private final JobQueue _jobQueue;
+    private final Logger _logger;
+    private final JobQueueLogger _jobQueueLogger;
+    private final JobStatistics _jobStatistics;
+
+    /**
+     * Constructor for JobRunner
+     * @param moduleID The ID of the dispatcher using this runner, used in log messages
+     */
+    JobRunner(String moduleID) {
+        _moduleID = moduleID;
+        _jobQueue = JobQueue.getInstance();
+        _logger = Logger.getInstance();
+        _jobQueueLogger = JobQueueLogger.getInstance();
+        _jobStatistics = JobStatistics.getInstance();
+    }
+
+    /**
+     * Registers a job as running. Must be followed by execute(job) on the thread that runs it.
+     * @param job The job taken from the queue
+     */
+    void begin(Job job) {
+        // Register the job as running in JobQueue - separate from dequeuing
+        _jobQueue.addRunningJob(job);
+        _jobStatistics.recordJobDispatch(job);
+        SchedulerEvents.jobDispatched(job);
+
+        _logger.info(_moduleID, "Dispatching job: " + job.getName() +
+                    " with execution time: " + job.getExecutionTime() + " seconds");
+        _jobQueueLogger.jobDispatched(job.getName());
+    }
+
+    /**
+     * Records a dequeued job that was not idle. Such a job is already running or finished
+     * elsewhere, so it is neither run nor put back in the queue.
+     * @param job The job taken from the queue
+     */
+    void skip(Job job) {
+        _jobStatistics.recordJobSkipped(job);
+    }
+
+    /**
+     * Runs a job that was registered with begin(job) and releases it afterwards,
+     * even if the job throws. Jobs that complete asynchronously are started and waited for,
+     * since the calling thread is the job's execution slot.
+     * @param job The job to execute
+     */
+    void execute(Job job) {
+        if (completesAsynchronously(job)) {
+            executeAsync(job).join();
+            return;
+        }
+        boolean success = false;
+        try {
+            _logger.info(_moduleID, "Executing job: " + job.getName());
+            _jobQueueLogger.jobExecutionStarted(job.getName());
+            SchedulerEvents.jobStarted(job);
+
+            // This will block until the job completes its execution time
+            // The job.run() method will sleep for the job's execution time
+            success = job.run();
+
+            if (success) {
+                _logger.info(_moduleID, "Job completed successfully: " + job.getName());
+                job.setStatus(Job.Status.FINISHED);
+                // Record the job completion in the statistics
+                _jobStatistics.recordJobCompletion(job);
+            } else {
+                _logger.warning(_moduleID, "Job may not have completed successfully: " + job.getName());
+            }
+            _jobQueueLogger.jobCompleted(job.getName());
+        } catch (Exception e) {
+            _logger.error(_moduleID, "Error executing job: " + job.getName() + " - " + e.getMessage());
+        } finally {
+            // Always clean up, even if there was an exception
+            SchedulerEvents.jobCompleted(job, success);
+            _jobQueue.removeRunningJob(job);
+            _jobStatistics.recordJobRelease(job);
+        }
+    }
+
+    /**
+     * Whether a job finishes without occupying a thread: process jobs, and jobs whose
+     * execution time elapses on the timing wheel
+     * @param job The job to check
+     * @return true if executeAsync(job) should be used
+     */
+    static boolean completesAsynchronously(Job job) {
+        return job instanceof ProcessJob || job.getRunMode() == Job.RunMode.TIMER;
+    }
+
+    /**
+     * Starts a job that was registered with begin(job) without blocking the caller.
+     * The job is recorded and released when it finishes.
+     * @param job A job for which completesAsynchronously(job) is true
+     * @return A future completed once the job has been released
+     */
+    CompletableFuture<Void> executeAsync(Job job) {
+        if (job instanceof ProcessJob processJob) {
+            return launch(processJob);
+        }
+        _logger.info(_moduleID, "Executing job on the timing wheel: " + job.getName());
+        _jobQueueLogger.jobExecutionStarted(job.getName());
+        SchedulerEvents.jobStarted(job);
+
+        return job.startOnTimer().handle((success, error) -> {
+            try {
+                if (error != null) {
+                    _logger.error(_moduleID, "Error executing job: " + job.getName() + " - " + error.getMessage());
+                } else {
+                    _logger.info(_moduleID, "Job completed successfully: " + job.getName());
+                    _jobStatistics.recordJobCompletion(job);
+                }
+                _jobQueueLogger.jobCompleted(job.getName());
+            } finally {
+                SchedulerEvents.jobCompleted(job, error == null);
+                _jobQueue.removeRunningJob(job);
+                _jobStatistics.recordJobRelease(job);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Starts a process job; it is recorded and released when its process exits.
+     * @param job The process job to launch
+     * @return A future completed once the job has been released
+     */
+    private CompletableFuture<Void> launch(ProcessJob job) {
+        _logger.info(_moduleID, "Launching process for job: " + job.getName() +
+                    " (" + String.join(" ", job.getCommand()) + ")");
+        _jobQueueLogger.jobExecutionStarted(job.getName());
+        SchedulerEvents.jobStarted(job);
+
+        return job.launch().handle((exitCode, error) -> {
+            try {
+                if (error != null) {
+                    _logger.error(_moduleID, "Could not start process for job: " + job.getName() +
+                                 " - " + error.getMessage());
+                    // Nothing ran, so it is not a completion
+                    _jobStatistics.recordProcessLaunchFailure(job);
+                } else if (job.isTimedOut()) {
+                    _logger.warning(_moduleID, "Process for job " + job.getName() + " was killed after its " +
+                                   job.getTimeLimit() + " second limit");
+                } else if (exitCode == 0) {
+                    _logger.info(_moduleID, "Process exited successfully: " + job.getName());
+                } else {
+                    _logger.warning(_moduleID, "Process for job " + job.getName() + " exited with code " + exitCode);
+                }
+                if (error == null) {
+                    _jobStatistics.recordJobCompletion(job);
+                    _jobStatistics.recordProcessCompletion(job);
+                }
+                _jobQueueLogger.jobCompleted(job.getName());
+            } finally {
+                SchedulerEvents.jobCompleted(job, error == null && !job.isTimedOut() && job.getExitCode() == 0);
+                _jobQueue.removeRunningJob(job);
+                _jobStatistics.recordJobRelease(job);
+            }
+            return null;
+        });
+    }
+}
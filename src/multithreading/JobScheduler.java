@@ -2,16 +2,29 @@ package multithreading;
 
 import Model.datastructures.Job;
 import Model.datastructures.JobQueue;
-import Model.datastructures.Queue;
+import Model.datastructures.ProcessJob;
 import Model.algorithms.SchedulingPolicy;
 import Model.algorithms.FirstComeFirstServePolicy;
 import Model.statistics.JobStatistics;
+import monitoring.SchedulerEvents;
 import util.Logger;
 import util.JobQueueLogger;
+import util.TimingWheel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JobScheduler is responsible for scheduling jobs according to a specified policy.
  * It runs as a separate thread and manages the job queue.
+ * While the thread is running, submitted jobs are coalesced into batches over a short
+ * adaptive window; each batch is sorted once by the policy and merged into the queue.
+ * With an EventLoopCore installed (useEventLoop) jobs, policy changes and listings go
+ * through the core's mailbox instead, and the JobQueue is not used.
  * Implements the Singleton pattern to ensure only one scheduler exists.
  * @author Group 1
  */
@@ -19,10 +32,23 @@ public class JobScheduler implements Runnable {
     private final String _moduleID;
     private volatile boolean _running = true;
     private final JobQueue _jobQueue;
-    private SchedulingPolicy _schedulingPolicy;
+    private volatile SchedulingPolicy _schedulingPolicy;
     private final Logger _logger;
     private final JobQueueLogger _jobQueueLogger;
     private final JobStatistics _jobStatistics;
+    // Set when the event-loop core owns the waiting and running jobs instead of the JobQueue
+    private volatile EventLoopCore _eventLoop;
+    // Why process jobs are refused, or null while they are accepted
+    private volatile String _processJobRefusal;
+    
+    // Submission pipeline: jobs wait here until the scheduler thread merges them as a batch
+    private final LinkedBlockingQueue<Job> _pendingSubmissions = new LinkedBlockingQueue<>();
+    private volatile boolean _pipelineActive = false;
+    private long _batchWindowNanos = MIN_BATCH_WINDOW_NANOS;
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final long MIN_BATCH_WINDOW_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_BATCH_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long IDLE_WAIT_MILLIS = 1000;
     
     // Singleton instance
     private static JobScheduler instance = null;
@@ -37,7 +63,7 @@ public class JobScheduler implements Runnable {
         _logger = Logger.getInstance();
         _jobQueueLogger = JobQueueLogger.getInstance();
         _jobStatistics = JobStatistics.getInstance();
-        this.setSchedulingPolicy(new FirstComeFirstServePolicy(_jobQueue.requestQueue()));
+        this.setSchedulingPolicy(new FirstComeFirstServePolicy());
     }
 
     /**
@@ -53,19 +79,95 @@ public class JobScheduler implements Runnable {
     }
 
     /**
-     * Sets the scheduling policy to be used
+     * Sets the scheduling policy to be used and reorders the waiting jobs by it.
+     * The policy is switched while holding the queue lock, so no batch is merged in the old order
+     * into a queue already sorted by the new one.
      * @param policy The scheduling policy to use
      */
     public void setSchedulingPolicy(SchedulingPolicy policy) {
-        _schedulingPolicy = policy;
-        // execute the policy if job queue is not empty
-        boolean empty = _jobQueue.isEmpty();
-        if (!empty) {
-            _schedulingPolicy.execute();}
-        _jobQueue.unlock();
-        if(!empty) {
-            System.out.println("All the " + _jobQueue.size() + " waiting jobs have been rescheduled.");
+        EventLoopCore eventLoop = _eventLoop;
+        if (eventLoop != null) {
+            _schedulingPolicy = policy;
+            // The loop reorders its waiting jobs between two messages, so no submission sees a mixed order
+            await(eventLoop.setOrder(policy.getComparator()));
+            _jobStatistics.setSchedulingPolicy(policy.getPolicyName());
+            int waitingJobs = await(eventLoop.getStatistics()).waiting();
+            if (waitingJobs > 0) {
+                System.out.println("All the " + waitingJobs + " waiting jobs have been rescheduled.");
+            }
+            return;
         }
+        SchedulerEvents.PolicyTimer policyTimer = SchedulerEvents.beginPolicyApplied();
+        int waitingJobs = _jobQueue.withQueue(queue -> {
+            _schedulingPolicy = policy;
+            policy.setJobQueue(queue);
+            // execute the policy if job queue is not empty
+            if (!queue.isEmpty()) {
+                policy.execute();
+            }
+            // A MultiQueue is not reordered through the policy's copy of the queue
+            _jobQueue.reorder(policy.getComparator());
+            return queue.getSize();
+        });
+        policyTimer.end(policy.getPolicyName(), 0, _jobQueue);
+        _jobStatistics.setSchedulingPolicy(policy.getPolicyName());
+        if (waitingJobs > 0) {
+            System.out.println("All the " + waitingJobs + " waiting jobs have been rescheduled.");
+        }
+    }
+
+    /**
+     * Keeps waiting jobs in a relaxed MultiQueue ordered by the current policy, or goes back
+     * to the strict queue
+     * @param shards The number of MultiQueue heaps, or 0 for the strict queue
+     */
+    public void useMultiQueue(int shards) {
+        _jobQueue.setMultiQueueShards(shards, _schedulingPolicy.getComparator());
+        _logger.info(_moduleID, shards == 0 ? "Using the strict job queue" : "Using a MultiQueue with " + shards + " shards");
+    }
+
+    /**
+     * Hands the waiting and running jobs to a single-writer event loop. The core is put in the
+     * current policy's order; from then on submissions, policy changes and listings go through it.
+     * The JobQueue's capacity, MultiQueue and journal do not apply to the core.
+     * @param eventLoop The core; it may be started later, the reorder waits in its mailbox
+     */
+    public void useEventLoop(EventLoopCore eventLoop) {
+        eventLoop.setOrder(_schedulingPolicy.getComparator());
+        _eventLoop = eventLoop;
+        _logger.info(_moduleID, "Scheduling through the event loop with " + eventLoop.getSlotCount() + " slot(s)");
+    }
+
+    /**
+     * Refuses process jobs from now on, e.g. while a dispatcher that cannot run them is in use
+     * @param reason The error given to the submitter, or null to accept process jobs again
+     */
+    public void refuseProcessJobs(String reason) {
+        _processJobRefusal = reason;
+    }
+
+    /**
+     * Get the event loop jobs are scheduled through
+     * @return The core, or null if the JobQueue is used
+     */
+    public EventLoopCore getEventLoop() {
+        return _eventLoop;
+    }
+
+    /**
+     * Waits for a reply from the event loop
+     * @throws IllegalStateException if the loop has stopped or the request failed
+     */
+    private static <T> T await(CompletableFuture<T> reply) {
+        try {
+            return reply.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    public SchedulingPolicy getSchedulingPolicy() {
+        return _schedulingPolicy;
     }
 
     /**
@@ -80,33 +182,218 @@ public class JobScheduler implements Runnable {
     }
 
     /**
-     * Adds a job to the queue
+     * Adds a job to the queue. While the scheduler thread is running the job joins the
+     * next batch; otherwise it is merged into the queue straight away.
+     * If the queue has a capacity, the job must be admitted first (see JobQueue.admit).
      * @param job The job to add
      * @throws IllegalArgumentException if job is null
+     * @throws IllegalStateException if the queue is full and the job was refused, or the job is a
+     *         process job while they are refused
      */
     public void addJob(Job job) {
         if (job == null) {
             throw new IllegalArgumentException("Cannot add a null job");
         }
+        String processJobRefusal = _processJobRefusal;
+        if (processJobRefusal != null && job instanceof ProcessJob) {
+            _logger.warning(_moduleID, "Process job refused: " + job.getName() + " - " + processJobRefusal);
+            throw new IllegalStateException(processJobRefusal);
+        }
+        
+        EventLoopCore eventLoop = _eventLoop;
+        if (eventLoop != null) {
+            // The core has no capacity to admit against, and records the submission itself
+            SchedulerEvents.jobSubmitted(job);
+            await(eventLoop.submit(job));
+            _logger.info(_moduleID, "Job added to the event loop: " + job.getName());
+            _jobQueueLogger.jobAdded(job.getName(), job.getExecutionTime(), job.getPriority());
+            return;
+        }
+        
+        // Reserve room in the queue first; a full queue may refuse the job or shed another
+        Job shedJob;
+        try {
+            shedJob = _jobQueue.admit(job);
+        } catch (IllegalStateException e) {
+            _jobStatistics.recordJobRejected(job);
+            _logger.warning(_moduleID, "Job rejected: " + job.getName() + " - " + e.getMessage());
+            throw e;
+        }
+        if (shedJob != null) {
+            _jobStatistics.recordJobShed(shedJob);
+            _logger.warning(_moduleID, "Job shed to make room for " + job.getName() + ": " + shedJob.getName());
+        }
         
         // Record the job submission in statistics
+        job.markSubmitted();
         _jobStatistics.recordJobSubmission(job);
+        SchedulerEvents.jobSubmitted(job);
+        
+        if (!_pipelineActive) {
+            enqueueBatch(new ArrayList<>(List.of(job)));
+            return;
+        }
         
-        // Use the JobQueue's built-in method which handles locking and signaling
-        _jobQueue.addJob(job);
-        _schedulingPolicy.execute();
-        _jobQueue.unlock();
+        _pendingSubmissions.offer(job);
+        // The scheduler thread may have stopped after the check above; don't strand the job
+        if (!_pipelineActive) {
+            drainPendingSubmissions();
+        }
+    }
 
-        _logger.info(_moduleID, "Job added to queue: " + job.getName());
-        _jobQueueLogger.jobAdded(job.getName(), job.getExecutionTime(), job.getPriority());
+    /**
+     * Adds a job to the queue once a delay has passed. Until then the job is held by the
+     * timing wheel and is not part of the queue.
+     * @param job The job to add
+     * @param delayMillis The delay in milliseconds; 0 or less adds the job now
+     * @return A handle that cancels the submission while it is still pending
+     * @throws IllegalArgumentException if job is null. A refusal by a full queue happens
+     *         later, and is only logged and counted in the statistics.
+     */
+    public TimingWheel.Timeout addJob(Job job, long delayMillis) {
+        if (job == null) {
+            throw new IllegalArgumentException("Cannot add a null job");
+        }
+        // Submitting logs and may take the queue lock, so it is handed off the wheel's ticker thread
+        return TimingWheel.getInstance().schedule(delayMillis, () -> CompletableFuture.runAsync(() -> addJob(job)));
     }
 
     /**
-     * Gets the current size of the job queue
-     * @return The number of jobs in the queue
+     * Puts dispatched jobs that never finished back into the queue in policy order, e.g. when
+     * the worker running them was lost. They were admitted once, so admission control is
+     * bypassed and they are not counted as new submissions.
+     * @param jobs The jobs to run again
+     */
+    public void requeueJobs(List<Job> jobs) {
+        if (jobs.isEmpty()) {
+            return;
+        }
+        List<Job> batch = new ArrayList<>(jobs);
+        for (Job job : batch) {
+            job.setStatus(Job.Status.IDLE);
+            _logger.info(_moduleID, "Job requeued: " + job.getName());
+        }
+        EventLoopCore eventLoop = _eventLoop;
+        if (eventLoop != null) {
+            for (Job job : batch) {
+                await(eventLoop.requeue(job));
+            }
+            return;
+        }
+        // Sorted inside the queue hold, like enqueueBatch, so a concurrent policy change cannot interleave
+        _jobQueue.mergeRequeuedJobs(batch, () -> _schedulingPolicy.getComparator());
+    }
+
+    /**
+     * Sorts a batch by the current policy and merges it into the already ordered queue
+     * while holding the queue lock, so dispatchers only ever see the queue in policy order.
+     * @param batch The jobs to enqueue
+     */
+    private void enqueueBatch(List<Job> batch) {
+        SchedulerEvents.PolicyTimer policyTimer = SchedulerEvents.beginPolicyApplied();
+        _jobQueue.mergeAdmittedJobs(batch, () -> _schedulingPolicy.getComparator());
+        policyTimer.end(getSchedulingPolicyName(), batch.size(), _jobQueue);
+
+        for (Job job : batch) {
+            SchedulerEvents.jobEnqueued(job, batch.size());
+            _logger.info(_moduleID, "Job added to queue: " + job.getName());
+            _jobQueueLogger.jobAdded(job.getName(), job.getExecutionTime(), job.getPriority());
+        }
+    }
+
+    /**
+     * Collects the next batch, starting with a job that has already arrived. Keeps taking
+     * jobs until the batch is full or the coalescing window closes.
+     * If interrupted, the batch collected so far is returned and the interrupt flag is kept.
+     * @param first The first job of the batch
+     * @return The batch of jobs
+     */
+    private List<Job> collectBatch(Job first) {
+        List<Job> batch = new ArrayList<>();
+        batch.add(first);
+        long deadline = System.nanoTime() + _batchWindowNanos;
+
+        while (batch.size() < MAX_BATCH_SIZE) {
+            // Take whatever is already waiting without blocking
+            if (_pendingSubmissions.drainTo(batch, MAX_BATCH_SIZE - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                Job next = _pendingSubmissions.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // Widen the window while submissions are bursty, narrow it again when they are sparse
+        if (batch.size() > 1) {
+            _batchWindowNanos = Math.min(_batchWindowNanos * 2, MAX_BATCH_WINDOW_NANOS);
+        } else {
+            _batchWindowNanos = Math.max(_batchWindowNanos / 2, MIN_BATCH_WINDOW_NANOS);
+        }
+        return batch;
+    }
+
+    /**
+     * Merges every job still waiting in the submission pipeline
+     */
+    private void drainPendingSubmissions() {
+        List<Job> batch = new ArrayList<>();
+        _pendingSubmissions.drainTo(batch);
+        if (!batch.isEmpty()) {
+            enqueueBatch(batch);
+        }
+    }
+
+    /**
+     * Gets the current size of the job queue, including submissions not yet merged
+     * @return The number of jobs waiting to run
      */
     public int getQueueSize() {
-        return _jobQueue.size();
+        EventLoopCore eventLoop = _eventLoop;
+        if (eventLoop != null) {
+            return await(eventLoop.getStatistics()).waiting();
+        }
+        return _jobQueue.size() + _pendingSubmissions.size();
+    }
+
+    /**
+     * Gets the jobs waiting to run, in the order they will be dispatched
+     * @return A copy of the waiting jobs
+     */
+    public List<Job> getWaitingJobs() {
+        EventLoopCore eventLoop = _eventLoop;
+        if (eventLoop != null) {
+            return await(eventLoop.getWaitingJobs());
+        }
+        return _jobQueue.readQueue(queue -> {
+            List<Job> waiting = new ArrayList<>(queue.getSize());
+            for (Object obj : queue) {
+                waiting.add((Job) obj);
+            }
+            return waiting;
+        });
+    }
+
+    /**
+     * Gets the jobs holding an execution slot
+     * @return A copy of the running jobs
+     */
+    public List<Job> getRunningJobs() {
+        EventLoopCore eventLoop = _eventLoop;
+        if (eventLoop != null) {
+            return await(eventLoop.getRunningJobs());
+        }
+        return _jobQueue.getRunningJobs();
     }
 
     /**
@@ -114,21 +401,32 @@ public class JobScheduler implements Runnable {
      * @return The estimated waiting time in seconds
      */
     public double getEstimatedWaitingTime() {
-        double totalWaitTime = 0;
-        // add running job time to total wait time
-        if (_jobQueue.getRunningJob() != null) {
-            totalWaitTime += _jobQueue.getRunningJob().getExecutionTime();
-        }
-        Queue queue = _jobQueue.requestQueue();
-        
-        // Sum up execution times of all jobs in queue
-        for (Object obj : queue) {
-            if (obj instanceof Job) {
-                Job job = (Job) obj;
+        if (_eventLoop != null) {
+            double totalWaitTime = 0;
+            for (Job job : getRunningJobs()) {
+                totalWaitTime += job.getExecutionTime();
+            }
+            for (Job job : getWaitingJobs()) {
                 totalWaitTime += job.getExecutionTime();
             }
+            return totalWaitTime;
         }
-        _jobQueue.unlock();
+        double totalWaitTime = 0;
+        // add every running job's time to total wait time
+        for (Job runningJob : _jobQueue.getRunningJobs()) {
+            totalWaitTime += runningJob.getExecutionTime();
+        }
+        // Sum up execution times of all jobs in queue, without blocking enqueue and dequeue
+        totalWaitTime += _jobQueue.readQueue(queue -> {
+            double queuedTime = 0;
+            for (Object obj : queue) {
+                if (obj instanceof Job) {
+                    Job job = (Job) obj;
+                    queuedTime += job.getExecutionTime();
+                }
+            }
+            return queuedTime;
+        });
         
         return totalWaitTime;
     }
@@ -144,26 +442,31 @@ public class JobScheduler implements Runnable {
     @Override
     public void run() {
         _logger.info(_moduleID, "Job Scheduler started: " + _moduleID);
+        _pipelineActive = true;
         
         while (_running) {
             try {
-                // Check for new jobs periodically
-                Thread.sleep(1000);
-                
-                // If a scheduling policy is set, apply it to the job queue
-                if (_schedulingPolicy != null) {
-                    // Scheduling policy should handle its own locking if needed
-                    _schedulingPolicy.execute();
-                    _logger.info(_moduleID, "Applied scheduling policy: " + _schedulingPolicy.getPolicyName());
+                // Wake as soon as a submission arrives
+                Job first = _pendingSubmissions.poll(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    // Print status information while idle
+                    printStatus();
+                    continue;
                 }
                 
-                // Print status information
-                printStatus();
+                List<Job> batch = collectBatch(first);
+                enqueueBatch(batch);
+                _logger.info(_moduleID, "Applied scheduling policy " + getSchedulingPolicyName() +
+                            " to a batch of " + batch.size() + " job(s)");
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 _logger.error(_moduleID, "Job Scheduler interrupted: " + e.getMessage());
+                break;
             }
         }
+        
+        _pipelineActive = false;
+        drainPendingSubmissions();
     }
 
     /**
@@ -171,7 +474,7 @@ public class JobScheduler implements Runnable {
      */
     private void printStatus() {
         StringBuilder status = new StringBuilder();
-        status.append("Status: Queue size=").append(_jobQueue.size());
+        status.append("Status: Queue size=").append(getQueueSize());
         status.append(", Thread ID=").append(Thread.currentThread().threadId());
         status.append(", Thread Name=").append(Thread.currentThread().getName());
         status.append(", Scheduling Policy=").append(getSchedulingPolicyName());
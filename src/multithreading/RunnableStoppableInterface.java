@@ -2,5 +2,8 @@ package multithreading;
 
 public interface RunnableStoppableInterface extends Runnable
 {
-    //stopExecution();
+    /**
+     * Ask the module to finish its current work and leave run()
+     */
+    void stopRunning();
 }
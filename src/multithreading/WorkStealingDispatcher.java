@@ -0,0 +1,250 @@
+package multithreading;
+
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import util.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dispatcher backend in which every worker owns a local deque of jobs. A worker with an
+ * empty deque first steals the head of another worker's deque, which is stalled behind the
+ * job its owner is running. Only when every deque is empty does it refill its own with a
+ * batch from the head of the policy-ordered JobQueue, taking the queue lock once per batch
+ * instead of once per job.
+ * Policy order holds within a bounded relaxation. Since nothing is taken from the JobQueue
+ * while a deque holds work, a job parked in a deque is never passed by later arrivals; it can
+ * only be overtaken by the jobs other workers had already taken, at most
+ * (workers - 1) * batchSize jobs that the policy ordered after it.
+ * @author Group 1
+ */
+public class WorkStealingDispatcher implements RunnableStoppableInterface {
+    private final String _moduleID;
+    private volatile boolean _running = true;
+    private final JobQueue _jobQueue;
+    private final Logger _logger;
+    private final JobRunner _jobRunner;
+    private final int _batchSize;
+    private final List<ConcurrentLinkedDeque<Job>> _localDeques;
+    private final List<Thread> _workers;
+    // Number of workers waiting on the JobQueue; peers with surplus work wake them up
+    private final AtomicInteger _idleWorkers = new AtomicInteger();
+    private final LongAdder _globalRefills = new LongAdder();
+    private final LongAdder _steals = new LongAdder();
+    // Short so a worker that missed a wake-up soon looks for stealable work again
+    private static final long IDLE_WAIT_MILLIS = 100;
+
+    /**
+     * Constructor for WorkStealingDispatcher
+     * @param moduleID The ID of this module
+     * @param workerCount The number of worker threads, i.e. jobs that may run concurrently
+     * @param batchSize The most jobs a worker moves from the JobQueue into its deque at once
+     * @throws IllegalArgumentException if workerCount or batchSize is not positive
+     */
+    public WorkStealingDispatcher(String moduleID, int workerCount, int batchSize) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive: " + workerCount);
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        _moduleID = moduleID;
+        _batchSize = batchSize;
+        _jobQueue = JobQueue.getInstance();
+        _logger = Logger.getInstance();
+        _jobRunner = new JobRunner(moduleID);
+        _localDeques = new ArrayList<>(workerCount);
+        _workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            _localDeques.add(new ConcurrentLinkedDeque<>());
+        }
+    }
+
+    @Override
+    public void run() {
+        _logger.info(_moduleID, "Work-stealing dispatcher started with " + _localDeques.size() +
+                    " workers, batch size " + _batchSize);
+
+        for (int i = 0; i < _localDeques.size(); i++) {
+            final int workerIndex = i;
+            Thread worker = new Thread(() -> workerLoop(workerIndex), _moduleID + "-worker-" + i);
+            _workers.add(worker);
+            worker.start();
+        }
+
+        // Wait for the workers; an interrupt of this thread is passed on to them. The deques are
+        // only emptied once every worker has exited, so none can refill one after the sweep.
+        boolean interrupted = false;
+        for (Thread worker : _workers) {
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    _running = false;
+                    _workers.forEach(Thread::interrupt);
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Hand any jobs still sitting in local deques back to the shared queue, in policy order
+        List<Job> leftover = new ArrayList<>();
+        for (ConcurrentLinkedDeque<Job> deque : _localDeques) {
+            Job job;
+            while ((job = deque.pollFirst()) != null) {
+                leftover.add(job);
+            }
+        }
+        JobScheduler.getInstance().requeueJobs(leftover);
+        _logger.info(_moduleID, "Work-stealing dispatcher stopped after " + getGlobalRefills() +
+                    " refills and " + getSteals() + " steals");
+    }
+
+    private void workerLoop(int workerIndex) {
+        ConcurrentLinkedDeque<Job> localDeque = _localDeques.get(workerIndex);
+
+        while (_running && !Thread.currentThread().isInterrupted()) {
+            if (_jobQueue.isFenced()) {
+                // Parked jobs must not run either; another instance may be running them now.
+                // A fenced queue idles the refill and hands out nothing.
+                Job job = refill(localDeque, IDLE_WAIT_MILLIS);
+                if (job != null) {
+                    localDeque.addFirst(job);
+                }
+                continue;
+            }
+            Job job = localDeque.pollFirst();
+            // Parked jobs go before anything new from the JobQueue
+            if (job == null) {
+                job = steal(workerIndex);
+            }
+            if (job == null) {
+                job = refill(localDeque, 0);
+            }
+            if (job == null) {
+                job = waitForWork(workerIndex, localDeque);
+            }
+            if (job == null) {
+                continue;
+            }
+            if (!_running || Thread.currentThread().isInterrupted()) {
+                // Stopped while taking it; leave it for the shutdown sweep
+                localDeque.addFirst(job);
+                break;
+            }
+
+            if (!job.isIdle()) {
+                _jobRunner.skip(job);
+                continue;
+            }
+            _jobRunner.begin(job);
+            _jobRunner.execute(job);
+        }
+    }
+
+    /**
+     * Moves a batch from the JobQueue into the local deque and returns its first job
+     * @param localDeque The calling worker's deque
+     * @param timeoutMillis How long to wait for the JobQueue to become non-empty (0 means do not wait)
+     * @return The first job of the batch, or null if no job was available
+     */
+    private Job refill(ConcurrentLinkedDeque<Job> localDeque, long timeoutMillis) {
+        List<Job> batch = _jobQueue.getJobs(_batchSize, timeoutMillis);
+        if (batch.isEmpty()) {
+            return null;
+        }
+        _globalRefills.increment();
+
+        // Keep policy order: the head of the batch runs first, the rest waits for this worker or a thief
+        for (int i = 1; i < batch.size(); i++) {
+            localDeque.addLast(batch.get(i));
+        }
+        if (batch.size() > 1 && _idleWorkers.get() > 0) {
+            _jobQueue.signalWaiters();
+        }
+        return batch.get(0);
+    }
+
+    /**
+     * Takes the head of another worker's deque, i.e. the job that has waited there longest
+     * behind the job its owner is running, starting at a random victim
+     * @param thiefIndex The index of the stealing worker
+     * @return The stolen job, or null if every other deque is empty
+     */
+    private Job steal(int thiefIndex) {
+        int workerCount = _localDeques.size();
+        int start = ThreadLocalRandom.current().nextInt(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            int victim = (start + i) % workerCount;
+            if (victim == thiefIndex) {
+                continue;
+            }
+            Job job = _localDeques.get(victim).pollFirst();
+            if (job != null) {
+                _steals.increment();
+                return job;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Blocks on the JobQueue until a job is enqueued or a peer signals surplus work
+     * @return A job to run, or null if the wait ended without one
+     */
+    private Job waitForWork(int workerIndex, ConcurrentLinkedDeque<Job> localDeque) {
+        _idleWorkers.incrementAndGet();
+        try {
+            // Look once more now that peers can see this worker is idle
+            Job job = steal(workerIndex);
+            if (job != null) {
+                return job;
+            }
+            return refill(localDeque, IDLE_WAIT_MILLIS);
+        } finally {
+            _idleWorkers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Get how many batches were taken from the shared JobQueue
+     * @return The number of refills, each one acquisition of the queue lock
+     */
+    public long getGlobalRefills() {
+        return _globalRefills.sum();
+    }
+
+    /**
+     * Get how many jobs were stolen from another worker's deque
+     * @return The number of steals
+     */
+    public long getSteals() {
+        return _steals.sum();
+    }
+
+    /**
+     * Get the number of worker threads
+     * @return The maximum number of jobs that can run at the same time
+     */
+    public int getWorkerCount() {
+        return _localDeques.size();
+    }
+
+    /**
+     * Stops the dispatcher. Workers finish their current job and jobs left in local
+     * deques are returned to the JobQueue.
+     */
+    @Override
+    public void stopRunning() {
+        _running = false;
+        _logger.info(_moduleID, "Work-stealing dispatcher stopping");
+    }
+}
@@ -2,7 +2,11 @@ package tests.Model.datastructures;
 
 import Model.datastructures.Job;
 import Model.datastructures.JobQueue;
-import Model.datastructures.Queue;
+import Model.datastructures.QueueJournal;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 /**
  * Test class for the JobQueue singleton.
@@ -143,34 +147,207 @@ public class JobQueueTest {
         jobQueue.addJob(job2);
         jobQueue.addJob(job3);
         
-        // Get all jobs through iteration over requested queue
-        Queue queue = jobQueue.requestQueue();
-        int count = 0;
-        boolean job1Found = false;
-        boolean job2Found = false;
-        boolean job3Found = false;
-        
-        // Iterate through the queue checking for each job
-        for (Object obj : queue) {
-            count++;
-            if (obj instanceof Job) {
-                Job job = (Job) obj;
-                if (job.getName().equals("Job1")) job1Found = true;
-                if (job.getName().equals("Job2")) job2Found = true;
-                if (job.getName().equals("Job3")) job3Found = true;
+        // Get all jobs through iteration over the queue in a read scope
+        List<String> names = jobQueue.readQueue(queue -> {
+            List<String> found = new ArrayList<>();
+            for (Object obj : queue) {
+                found.add(((Job) obj).getName());
             }
-        }
-        
-        // Release the lock after accessing the queue
-        jobQueue.unlock();
+            return found;
+        });
         
         // Verify all jobs were found
-        if (count != 3) {
-            throw new AssertionError("Expected 3 jobs in queue, but found: " + count);
+        if (names.size() != 3) {
+            throw new AssertionError("Expected 3 jobs in queue, but found: " + names.size());
         }
         
-        if (!job1Found || !job2Found || !job3Found) {
+        if (!names.contains("Job1") || !names.contains("Job2") || !names.contains("Job3")) {
             throw new AssertionError("Not all jobs were found in the queue");
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Test registering and removing running jobs.
+     */
+    public void testRunningJobRegistry() {
+        Job job1 = new Job("Running1", 10, 1, 0);
+        Job job2 = new Job("Running2", 20, 2, 0);
+        
+        jobQueue.addRunningJob(job1);
+        jobQueue.addRunningJob(job2);
+        
+        if (jobQueue.getRunningJobCount() != 2) {
+            throw new AssertionError("Expected 2 running jobs, but got: " + jobQueue.getRunningJobCount());
+        }
+        
+        if (!job1.isRunning() || !job2.isRunning()) {
+            throw new AssertionError("Registered jobs should be marked as running");
+        }
+        
+        String listing = jobQueue.toString();
+        if (!listing.contains("Running1") || !listing.contains("Running2")) {
+            throw new AssertionError("Queue listing should show every running job");
+        }
+        
+        jobQueue.removeRunningJob(job1);
+        jobQueue.removeRunningJob(job2);
+        
+        if (!jobQueue.getRunningJobs().isEmpty()) {
+            throw new AssertionError("Running registry should be empty after removing all jobs");
+        }
+    }
+    
+    /**
+     * Test merging a sorted batch into an already ordered queue.
+     */
+    public void testMergeJobs() {
+        Comparator<Job> order = Comparator.comparingDouble(Job::getExecutionTime);
+        jobQueue.addJob(new Job("Queued10", 10, 1, 0));
+        jobQueue.addJob(new Job("Queued30", 30, 1, 0));
+        
+        List<Job> batch = new ArrayList<>();
+        batch.add(new Job("Batch5", 5, 1, 0));
+        batch.add(new Job("Batch10", 10, 1, 0));
+        batch.add(new Job("Batch40", 40, 1, 0));
+        jobQueue.mergeJobs(batch, order);
+        
+        String[] expected = {"Batch5", "Queued10", "Batch10", "Queued30", "Batch40"};
+        for (String name : expected) {
+            Job job = jobQueue.getNextJob();
+            if (job == null || !job.getName().equals(name)) {
+                throw new AssertionError("Expected " + name + " but got: " + (job == null ? "null" : job.getName()));
+            }
+        }
+    }
+    
+    /**
+     * Test switching to a MultiQueue and back keeps every waiting job in policy order.
+     */
+    public void testMultiQueueMode() {
+        Comparator<Job> order = Comparator.comparingDouble(Job::getExecutionTime);
+        jobQueue.addJob(new Job("Strict20", 20, 1, 0));
+        try {
+            jobQueue.setMultiQueueShards(1, order);
+            if (jobQueue.getMultiQueueShards() != 1) {
+                throw new AssertionError("Expected a MultiQueue with 1 shard");
+            }
+            jobQueue.mergeJobs(new ArrayList<>(List.of(new Job("Relaxed10", 10, 1, 0))), order);
+            jobQueue.addJob(new Job("Relaxed30", 30, 1, 0));
+            if (jobQueue.size() != 3 || !jobQueue.toString().contains("Strict20")) {
+                throw new AssertionError("Expected 3 waiting jobs in the MultiQueue, but got: " + jobQueue.size());
+            }
+            Job first = jobQueue.getJob(100);
+            if (first == null || !first.getName().equals("Relaxed10")) {
+                throw new AssertionError("Expected Relaxed10 first but got: " + (first == null ? "null" : first.getName()));
+            }
+        } finally {
+            jobQueue.setMultiQueueShards(0, order);
+        }
+        
+        String[] expected = {"Strict20", "Relaxed30"};
+        for (String name : expected) {
+            Job job = jobQueue.getNextJob();
+            if (job == null || !job.getName().equals(name)) {
+                throw new AssertionError("Expected " + name + " but got: " + (job == null ? "null" : job.getName()));
+            }
+        }
+    }
+    
+    /**
+     * Test that jobs added inside a withQueue scope wake a waiting dispatcher.
+     */
+    public void testWithQueueWakesWaiter() {
+        Job[] received = new Job[1];
+        Thread dispatcher = new Thread(() -> received[0] = jobQueue.getJob(5000));
+        dispatcher.start();
+        try {
+            Thread.sleep(100);
+            Job job = new Job("Scoped", 1, 1, 0);
+            int size = jobQueue.withQueue(queue -> {
+                queue.enqueue(job);
+                return queue.getSize();
+            });
+            if (size != 1) {
+                throw new AssertionError("Expected 1 job inside the scope, but got: " + size);
+            }
+            dispatcher.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError("Interrupted while waiting for the dispatcher");
+        }
+        if (received[0] == null || !received[0].getName().equals("Scoped")) {
+            throw new AssertionError("Waiting dispatcher did not get the job added in the scope");
+        }
+    }
+    
+    /**
+     * Test that reads without a concurrent writer never take the lock.
+     */
+    public void testOptimisticReads() {
+        jobQueue.addJob(new Job("Read1", 10, 1, 0));
+        jobQueue.addJob(new Job("Read2", 20, 1, 0));
+        jobQueue.resetLockMetrics();
+        
+        double total = jobQueue.readQueue(queue -> {
+            double sum = 0;
+            for (Object obj : queue) {
+                sum += ((Job) obj).getExecutionTime();
+            }
+            return sum;
+        });
+        boolean empty = jobQueue.isEmpty();
+        
+        JobQueue.LockMetrics metrics = jobQueue.getLockMetrics();
+        if (total != 30 || empty) {
+            throw new AssertionError("Expected 30s of queued work, but got: " + total);
+        }
+        if (metrics.optimisticReads() != 2 || metrics.readHolds() != 0 || metrics.writeHolds() != 0) {
+            throw new AssertionError("Expected 2 optimistic reads and no lock holds, but got: " + metrics);
+        }
+    }
+    
+    /**
+     * Test that a fenced queue refuses new jobs and hands out none of its waiting jobs.
+     */
+    public void testFencedQueue() {
+        jobQueue.addJob(new Job("Waiting", 10, 1, 0));
+        jobQueue.setJournal(new QueueJournal() {
+            public void submitted(Job job) {
+            }
+
+            public void dispatched(Job job) {
+            }
+
+            public void released(Job job) {
+            }
+
+            public void cancelled(Job job) {
+            }
+
+            @Override
+            public boolean isFenced() {
+                return true;
+            }
+        });
+        try {
+            try {
+                jobQueue.admit(new Job("Refused", 10, 1, 0));
+                throw new AssertionError("A fenced queue should refuse new jobs");
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+            if (jobQueue.getJob(10) != null || !jobQueue.getJobs(5, 10).isEmpty()) {
+                throw new AssertionError("A fenced queue should not hand out jobs");
+            }
+            if (!jobQueue.isFenced() || jobQueue.size() != 1) {
+                throw new AssertionError("The waiting job should stay in the fenced queue");
+            }
+        } finally {
+            jobQueue.setJournal(null);
+        }
+        Job job = jobQueue.getNextJob();
+        if (job == null || !job.getName().equals("Waiting")) {
+            throw new AssertionError("The waiting job should be handed out once the fence is lifted, but got: " + job);
+        }
+    }
+}
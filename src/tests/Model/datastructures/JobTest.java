@@ -1,6 +1,9 @@
 package tests.Model.datastructures;
 
 import Model.datastructures.Job;
+import util.Clock;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 
 /**
  * Test class for the Job data structure.
@@ -117,4 +120,144 @@ public class JobTest {
             throw new AssertionError("Job toString should contain name, execution time, and priority");
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Test that a CPU-burn job consumes its execution time as CPU time.
+     */
+    public void testCpuBurnRunMode() {
+        Job.RunMode previous = Job.getDefaultRunMode();
+        Job.setDefaultRunMode(Job.RunMode.CPU_BURN);
+        try {
+            job = new Job("BurnJob", 0.05, 1, System.currentTimeMillis());
+        } finally {
+            Job.setDefaultRunMode(previous);
+        }
+        
+        if (job.getRunMode() != Job.RunMode.CPU_BURN) {
+            throw new AssertionError("Job should keep the run mode it was created with");
+        }
+        
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        long cpuBefore = threadMXBean.getCurrentThreadCpuTime();
+        job.run();
+        long cpuUsed = threadMXBean.getCurrentThreadCpuTime() - cpuBefore;
+        
+        if (cpuBefore >= 0 && cpuUsed < 50_000_000L) {
+            throw new AssertionError("Job should use at least 50 ms of CPU time but used " + cpuUsed / 1_000_000 + " ms");
+        }
+        if (!job.isFinished()) {
+            throw new AssertionError("Job should be FINISHED after burning its CPU time");
+        }
+    }
+    
+    /**
+     * Test that a timer job finishes once its execution time has passed on the timing wheel.
+     */
+    public void testTimerRunMode() {
+        Job.RunMode previous = Job.getDefaultRunMode();
+        Job.setDefaultRunMode(Job.RunMode.TIMER);
+        try {
+            job = new Job("TimerJob", 0.05, 1, System.currentTimeMillis());
+        } finally {
+            Job.setDefaultRunMode(previous);
+        }
+        
+        long start = System.currentTimeMillis();
+        boolean started = job.startOnTimer().isDone();
+        if (started || !job.isRunning()) {
+            throw new AssertionError("Timer job should be running until its timer fires");
+        }
+        
+        long deadline = start + 2000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        if (!job.isFinished()) {
+            throw new AssertionError("Timer job should have finished");
+        }
+        if (job.getCompletedTime() - start < 50) {
+            throw new AssertionError("Timer job should not finish before its execution time");
+        }
+    }
+    
+    /**
+     * Test that every lifecycle point is stamped in order and durations are not rounded to the millisecond.
+     */
+    public void testLifecycleNanos() {
+        job = new Job("Precise", 0, 1);
+        job.markSubmitted();
+        job.markEnqueued();
+        job.setStatus(Job.Status.RUNNING);
+        job.setStatus(Job.Status.RUNNING);
+        job.setStatus(Job.Status.FINISHED);
+        
+        long[] points = {job.getArrivalNanos(), job.getSubmittedNanos(), job.getEnqueuedNanos(),
+                job.getDispatchedNanos(), job.getStartNanos(), job.getCompletedNanos()};
+        for (int i = 1; i < points.length; i++) {
+            if (points[i] < points[i - 1]) {
+                throw new AssertionError("Lifecycle point " + i + " is stamped before the one preceding it");
+            }
+        }
+        if (job.getStartNanos() == job.getDispatchedNanos()) {
+            throw new AssertionError("Starting in the slot should not move the dispatch time");
+        }
+        double waiting = job.getWaitingTime();
+        if (waiting <= 0 || waiting >= 1 || job.getDispatchDelay() > waiting) {
+            throw new AssertionError("Expected a sub-second, non-zero wait after the dispatch delay but got " + waiting);
+        }
+    }
+    
+    /**
+     * Test that durations come from the monotonic clock, so a wall-clock step does not change them.
+     */
+    public void testWallClockStepIgnored() {
+        long[] nanos = {5_000_000_000L};
+        long[] wallMillis = {1_000_000};
+        Clock clock = new Clock() {
+            @Override
+            public long currentTimeMillis() {
+                return wallMillis[0];
+            }
+            
+            @Override
+            public long nanoTime() {
+                return nanos[0];
+            }
+            
+            // Anchored where the job arrives, like Clock.SYSTEM
+            @Override
+            public long toNanoTime(double epochMillis) {
+                return 5_000_000_000L + Math.round((epochMillis - 1_000_000) * 1_000_000);
+            }
+        };
+        job = new Job("Stepped", 1, 1, wallMillis[0], clock);
+        // The wall clock is set back an hour while the job waits 250 microseconds
+        wallMillis[0] -= 3_600_000;
+        nanos[0] += 250_000;
+        job.setStatus(Job.Status.RUNNING);
+        nanos[0] += 1_000_000;
+        job.setStatus(Job.Status.FINISHED);
+        
+        if (job.getWaitingTime() != 0.00025 || job.getTurnaroundTime() != 0.00125) {
+            throw new AssertionError("Expected a 0.25 ms wait and 1.25 ms turnaround but got "
+                    + job.getWaitingTime() + " and " + job.getTurnaroundTime());
+        }
+    }
+    
+    /**
+     * Test that the arrival time and the arrival stamp come from the same clock reading.
+     */
+    public void testArrivalFromOneClock() {
+        job = new Job("Now", 1, 1);
+        if ((long) job.getArrivalTime() != Clock.SYSTEM.toEpochMillis(job.getArrivalNanos())) {
+            throw new AssertionError("Arrival time should be the arrival stamp in wall-clock milliseconds");
+        }
+        // The arrival time is whole milliseconds, so compare with the stamp of that millisecond
+        long arrivalMillisNanos = Clock.SYSTEM.toNanoTime(job.getArrivalTime());
+        Job given = new Job("Given", 1, 1, job.getArrivalTime() + 500);
+        if (given.getArrivalNanos() - arrivalMillisNanos != 500_000_000L) {
+            throw new AssertionError("A job arriving 500 ms later should be stamped 500 ms later, but was "
+                    + (given.getArrivalNanos() - arrivalMillisNanos) + " ns");
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package tests.Model.datastructures;
+
+import Model.datastructures.Job;
+import Model.datastructures.MultiQueue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for the relaxed MultiQueue.
+ */
+public class MultiQueueTest {
+
+    private Comparator<Job> highestPriorityFirst;
+
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        highestPriorityFirst = Comparator.comparingInt(Job::getPriority).reversed();
+    }
+
+    /**
+     * Test that a single shard is an ordinary priority queue, first in first out among equals.
+     */
+    public void testSingleShardIsStrict() {
+        MultiQueue queue = new MultiQueue(1, highestPriorityFirst);
+        int[] priorities = {3, 7, 1, 7, 5};
+        List<Job> jobs = new ArrayList<>();
+        for (int i = 0; i < priorities.length; i++) {
+            Job job = new Job("Job" + i, 1, priorities[i], i);
+            jobs.add(job);
+            queue.insert(job);
+        }
+
+        Job[] expected = {jobs.get(1), jobs.get(3), jobs.get(4), jobs.get(0), jobs.get(2)};
+        for (Job job : expected) {
+            Job polled = queue.poll();
+            if (polled != job) {
+                throw new AssertionError("Expected " + job.getName() + " but got " + polled);
+            }
+        }
+        if (queue.poll() != null || !queue.isEmpty()) {
+            throw new AssertionError("Queue should be empty after polling every job");
+        }
+    }
+
+    /**
+     * Test that the relaxation stays small: each removed job is close to the true head.
+     */
+    public void testRankErrorIsBounded() {
+        int shards = 8;
+        int jobs = 20_000;
+        MultiQueue queue = new MultiQueue(shards, highestPriorityFirst);
+        for (int i = 0; i < jobs; i++) {
+            queue.insert(new Job("Job" + i, 1, i, i));
+        }
+
+        // removed[p] marks priority p as gone; the rank of a removal is the number of
+        // higher priorities still queued
+        boolean[] removed = new boolean[jobs];
+        int highestQueued = jobs - 1;
+        long totalRank = 0;
+        for (int i = 0; i < jobs; i++) {
+            int priority = queue.poll().getPriority();
+            for (int p = highestQueued; p > priority; p--) {
+                if (!removed[p]) {
+                    totalRank++;
+                }
+            }
+            removed[priority] = true;
+            while (highestQueued >= 0 && removed[highestQueued]) {
+                highestQueued--;
+            }
+        }
+
+        double meanRank = (double) totalRank / jobs;
+        if (meanRank > 2 * shards) {
+            throw new AssertionError("Mean rank error " + meanRank + " is too large for " + shards + " shards");
+        }
+    }
+
+    /**
+     * Test that concurrent producers and consumers neither lose nor duplicate jobs.
+     */
+    public void testConcurrentInsertAndPoll() {
+        int threads = 4;
+        int jobsPerThread = 5_000;
+        MultiQueue queue = new MultiQueue(2 * threads, highestPriorityFirst);
+        Set<Job> polled = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger produced = new AtomicInteger();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < jobsPerThread; i++) {
+                    queue.insert(new Job("P" + id + "-" + i, 1, i % 10, i));
+                    produced.incrementAndGet();
+                }
+            }));
+            workers.add(new Thread(() -> {
+                while (polled.size() < threads * jobsPerThread) {
+                    Job job = queue.poll();
+                    if (job != null && !polled.add(job)) {
+                        duplicates.incrementAndGet();
+                    }
+                    if (job == null && produced.get() == threads * jobsPerThread && queue.isEmpty()) {
+                        break;
+                    }
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("Interrupted while waiting for workers");
+            }
+        }
+
+        if (duplicates.get() != 0) {
+            throw new AssertionError(duplicates.get() + " jobs were polled twice");
+        }
+        if (polled.size() != threads * jobsPerThread || !queue.isEmpty()) {
+            throw new AssertionError("Expected " + threads * jobsPerThread + " polled jobs but got " + polled.size());
+        }
+    }
+
+    /**
+     * Test that reordering applies a new policy to the jobs already queued.
+     */
+    public void testReorder() {
+        MultiQueue queue = new MultiQueue(1, highestPriorityFirst);
+        Job longJob = new Job("Long", 9, 1, 0);
+        Job shortJob = new Job("Short", 1, 5, 1);
+        queue.insert(longJob);
+        queue.insert(shortJob);
+
+        queue.reorder(Comparator.comparingDouble(Job::getExecutionTime).reversed());
+        if (queue.poll() != longJob) {
+            throw new AssertionError("Expected the longest job first after reordering");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package tests.Model.datastructures;
+
+import Model.datastructures.Job;
+import Model.datastructures.ProcessJob;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Test class for jobs that run a real process.
+ */
+public class ProcessJobTest {
+    
+    private Path outputDirectory;
+    
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        try {
+            outputDirectory = Files.createTempDirectory("processjobtest");
+        } catch (IOException e) {
+            throw new AssertionError("Could not create an output directory: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Test that a process job captures its output, exit code and timings.
+     */
+    public void testProcessOutputAndExitCode() {
+        ProcessJob job = new ProcessJob("echo_job", 1, 1, System.currentTimeMillis(),
+                List.of("sh", "-c", "echo hello; echo oops >&2; exit 3"), outputDirectory);
+        
+        int exitCode = job.launch().join();
+        
+        if (exitCode != 3 || job.getExitCode() != 3) {
+            throw new AssertionError("Exit code should be 3 but was " + exitCode);
+        }
+        if (job.getStatus() != Job.Status.FINISHED) {
+            throw new AssertionError("Job should be FINISHED after the process exits");
+        }
+        try {
+            if (!Files.readString(job.getOutputFile()).equals("hello\n")) {
+                throw new AssertionError("Standard output should be captured in " + job.getOutputFile());
+            }
+            if (!Files.readString(job.getErrorFile()).equals("oops\n")) {
+                throw new AssertionError("Standard error should be captured in " + job.getErrorFile());
+            }
+        } catch (IOException e) {
+            throw new AssertionError("Could not read the job's output: " + e.getMessage());
+        }
+        if (job.getWallTime() < 0) {
+            throw new AssertionError("Wall time should be recorded");
+        }
+        if (job.getChildCpuTime() < 0) {
+            throw new AssertionError("CPU time of the command should be recorded");
+        }
+    }
+    
+    /**
+     * Test that a command that cannot be started fails its job instead of leaving it running.
+     */
+    public void testMissingCommand() {
+        ProcessJob job = new ProcessJob("missing_job", 1, 1, System.currentTimeMillis(),
+                List.of("csubatch-no-such-command"), outputDirectory);
+        
+        if (job.run()) {
+            throw new AssertionError("A missing command should not run successfully");
+        }
+        if (job.getExitCode() == 0 || !job.isFinished()) {
+            throw new AssertionError("A missing command should finish with a non-zero exit code");
+        }
+    }
+    
+    /**
+     * Test that a process running past its wall-clock limit is killed.
+     */
+    public void testTimeLimit() {
+        ProcessJob job = new ProcessJob("limit_job", 1, 1, System.currentTimeMillis(),
+                List.of("sleep", "5"), outputDirectory, 0.2);
+        
+        long start = System.currentTimeMillis();
+        int exitCode = job.launch().join();
+        long elapsed = System.currentTimeMillis() - start;
+        
+        if (!job.isTimedOut() || exitCode == 0) {
+            throw new AssertionError("Process should have been killed at its time limit");
+        }
+        if (elapsed > 2000) {
+            throw new AssertionError("Process should have been killed after 0.2 s but ran for " + elapsed + " ms");
+        }
+    }
+    
+    /**
+     * Test that a job name with path separators cannot place its files outside the output directory.
+     */
+    public void testNameStaysInOutputDirectory() {
+        ProcessJob job = new ProcessJob("../../escape", 1, 1, System.currentTimeMillis(),
+                List.of("true"), outputDirectory);
+        
+        for (Path file : List.of(job.getOutputFile(), job.getErrorFile())) {
+            if (!outputDirectory.equals(file.normalize().getParent()) || file.getFileName().toString().contains("..")) {
+                throw new AssertionError("Job files should stay in " + outputDirectory + " but one is " + file);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package tests.Model.simulation;
+
+import Model.algorithms.FirstComeFirstServePolicy;
+import Model.algorithms.ShortestJobFirstPolicy;
+import Model.datastructures.Job;
+import Model.simulation.SimulationEngine;
+import Model.statistics.JobStatistics;
+import util.Logger;
+
+import java.io.File;
+
+/**
+ * Test class for the discrete-event SimulationEngine.
+ */
+public class SimulationEngineTest {
+    
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        // Every test builds its own engine
+    }
+    
+    /**
+     * Test FCFS waiting and turnaround times on one slot.
+     */
+    public void testFcfsSingleSlot() {
+        SimulationEngine simulation = new SimulationEngine(new FirstComeFirstServePolicy(), 1);
+        Job first = simulation.submit("First", 2, 1, 0);
+        Job second = simulation.submit("Second", 1, 1, 500);
+        
+        simulation.run();
+        
+        if (first.getWaitingTime() != 0 || first.getTurnaroundTime() != 2) {
+            throw new AssertionError("First job should wait 0s and turn around in 2s, but got " +
+                                     first.getWaitingTime() + "s and " + first.getTurnaroundTime() + "s");
+        }
+        if (second.getWaitingTime() != 1.5 || second.getTurnaroundTime() != 2.5) {
+            throw new AssertionError("Second job should wait 1.5s and turn around in 2.5s, but got " +
+                                     second.getWaitingTime() + "s and " + second.getTurnaroundTime() + "s");
+        }
+        
+        JobStatistics statistics = simulation.getStatistics();
+        if (statistics.getTotalJobsCompleted() != 2 || statistics.getAverageWaitingTime() != 0.75) {
+            throw new AssertionError("Expected 2 completed jobs with 0.75s average waiting time");
+        }
+        if (simulation.getVirtualTimeMillis() != 3000) {
+            throw new AssertionError("Simulation should end at 3000ms, but ended at " + simulation.getVirtualTimeMillis());
+        }
+    }
+    
+    /**
+     * Test that waiting jobs start in policy order when a slot frees up.
+     */
+    public void testSjfOrdersWaitingJobs() {
+        SimulationEngine simulation = new SimulationEngine(new ShortestJobFirstPolicy(), 1);
+        Job running = simulation.submit("Running", 3, 1, 0);
+        Job longer = simulation.submit("Longer", 2, 1, 100);
+        Job shorter = simulation.submit("Shorter", 1, 1, 200);
+        
+        simulation.run();
+        
+        if (running.getStartTime() != 0 || shorter.getStartTime() != 3000 || longer.getStartTime() != 4000) {
+            throw new AssertionError("Expected starts at 0, 3000 and 4000ms, but got " + running.getStartTime() +
+                                     ", " + shorter.getStartTime() + " and " + longer.getStartTime());
+        }
+    }
+    
+    /**
+     * Test that every slot is used at the same time.
+     */
+    public void testParallelSlots() {
+        SimulationEngine simulation = new SimulationEngine(new FirstComeFirstServePolicy(), 3);
+        for (int i = 0; i < 3; i++) {
+            simulation.submit("Parallel" + i, 1, 1, 0);
+        }
+        
+        simulation.run();
+        
+        if (simulation.getVirtualTimeMillis() != 1000 || simulation.getStatistics().getPeakRunningJobs() != 3) {
+            throw new AssertionError("Three one-second jobs on three slots should finish together at 1000ms");
+        }
+    }
+    
+    /**
+     * Test that a simulation leaves the shared log alone: its jobs are not written to it and
+     * file output stays enabled for the real scheduler.
+     */
+    public void testSharedLogUntouched() {
+        Logger logger = Logger.getInstance();
+        File logFile = new File("logs/currentlog.log");
+        long lengthBefore = logFile.length();
+        
+        SimulationEngine simulation = new SimulationEngine(new FirstComeFirstServePolicy(), 2);
+        for (int i = 0; i < 100; i++) {
+            simulation.submit("Quiet" + i, 1, 1, i * 10L);
+        }
+        simulation.run();
+        
+        if (!logger.isFileOutput()) {
+            throw new AssertionError("A simulation should not turn off the shared log's file output");
+        }
+        // Only the engine's own summary line may have been written
+        long written = logFile.length() - lengthBefore;
+        if (written > 200) {
+            throw new AssertionError("Simulated jobs should not be logged to the shared log, but " + written + " bytes were");
+        }
+    }
+}
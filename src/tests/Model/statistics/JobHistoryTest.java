@@ -0,0 +1,160 @@
+package tests.Model.statistics;
+
+import Model.datastructures.Job;
+import Model.statistics.JobHistory;
+import Model.statistics.JobStatistics;
+import util.Clock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test class for JobHistory, in memory and spilled to segment files.
+ */
+public class JobHistoryTest {
+
+    private AtomicLong now;
+    private Clock clock;
+
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        now = new AtomicLong(1_000_000);
+        clock = now::get;
+    }
+
+    private Job finishedJob(String name) {
+        Job job = new Job(name, 2, 3, now.get(), clock);
+        now.addAndGet(500);
+        job.setStatus(Job.Status.RUNNING);
+        now.addAndGet(2000);
+        job.setStatus(Job.Status.FINISHED);
+        return job;
+    }
+
+    private void assertSequences(List<JobHistory.Entry> entries, long first, long last) {
+        if (entries.size() != last - first + 1) {
+            throw new AssertionError("Expected entries " + first + " to " + last + " but got " + entries);
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).sequence() != first + i || !entries.get(i).name().equals("Job" + (first + i))) {
+                throw new AssertionError("Expected entries " + first + " to " + last + " in order but got " + entries);
+            }
+        }
+    }
+
+    private File createDirectory() {
+        try {
+            return Files.createTempDirectory("history-test").toFile();
+        } catch (IOException e) {
+            throw new AssertionError("Could not create a directory: " + e.getMessage());
+        }
+    }
+
+    private void delete(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Test that an in-memory history keeps only the most recent entries.
+     */
+    public void testRingKeepsMostRecent() {
+        JobHistory history = new JobHistory(4, null);
+        for (int i = 0; i < 10; i++) {
+            history.record(finishedJob("Job" + i), JobHistory.Outcome.COMPLETED, 0);
+        }
+        assertSequences(history.getRecent(3), 7, 9);
+        assertSequences(history.getRecent(100), 6, 9);
+
+        JobHistory.Entry entry = history.getRecent(1).get(0);
+        if (entry.waitingTime() != 0.5 || entry.turnaroundTime() != 2.5 || entry.priority() != 3) {
+            throw new AssertionError("Expected a 0.5 s wait and 2.5 s turnaround but got " + entry);
+        }
+        if (history.getRecordedCount() != 10) {
+            throw new AssertionError("Expected 10 recorded entries but got " + history.getRecordedCount());
+        }
+    }
+
+    /**
+     * Test that entries evicted from the ring are read back from disk, also by a later instance.
+     */
+    public void testSpillAndReadBack() {
+        File directory = createDirectory();
+        try {
+            JobHistory history = new JobHistory(4, directory);
+            for (int i = 0; i < 10; i++) {
+                history.record(finishedJob("Job" + i), JobHistory.Outcome.COMPLETED, 0);
+                if (i % 2 == 1) {
+                    history.flush();
+                }
+            }
+            history.record(finishedJob("Job10"), JobHistory.Outcome.FAILED, 2);
+            assertSequences(history.getRecent(11), 0, 10);
+            history.close();
+            if (history.getDroppedCount() != 0) {
+                throw new AssertionError("No entry should have been dropped");
+            }
+
+            // A restarted daemon continues the sequence and finds the earlier entries on disk
+            JobHistory restarted = new JobHistory(4, directory);
+            restarted.record(finishedJob("Job11"), JobHistory.Outcome.COMPLETED, 0);
+            List<JobHistory.Entry> entries = restarted.getRecent(3);
+            assertSequences(entries, 9, 11);
+            if (entries.get(1).outcome() != JobHistory.Outcome.FAILED || entries.get(1).exitCode() != 2) {
+                throw new AssertionError("The outcome should survive the round trip to disk: " + entries.get(1));
+            }
+            restarted.close();
+        } finally {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Test that segments written before the durations were stored are still read.
+     */
+    public void testOlderSegmentFormatRead() {
+        File directory = createDirectory();
+        try {
+            Files.writeString(new File(directory, "history-0000000000000000000.log").toPath(),
+                    "0\tOld\t2\t1.0\t1000\t1500\t3500\tCOMPLETED\t0\n");
+            JobHistory history = new JobHistory(4, directory);
+            List<JobHistory.Entry> entries = history.getRecent(1);
+            if (entries.size() != 1 || !entries.get(0).name().equals("Old")
+                    || entries.get(0).waitingTime() != 0.5 || entries.get(0).turnaroundTime() != 2.5) {
+                throw new AssertionError("Expected the 9-field entry with a 0.5 s wait and 2.5 s turnaround but got "
+                        + entries);
+            }
+            history.close();
+        } catch (IOException e) {
+            throw new AssertionError("Could not write a segment: " + e.getMessage());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Test that job statistics add completed jobs to their history.
+     */
+    public void testJobStatisticsHistory() {
+        JobStatistics statistics = new JobStatistics(clock);
+        statistics.recordJobCompletion(finishedJob("Job0"));
+        statistics.reset();
+        statistics.recordJobCompletion(finishedJob("Job1"));
+
+        List<JobHistory.Entry> entries = statistics.getHistory().getRecent(5);
+        assertSequences(entries, 0, 1);
+        if (entries.get(1).outcome() != JobHistory.Outcome.COMPLETED) {
+            throw new AssertionError("Expected a completed job but got " + entries.get(1));
+        }
+    }
+}
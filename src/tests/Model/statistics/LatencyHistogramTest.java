@@ -0,0 +1,133 @@
+package tests.Model.statistics;
+
+import Model.algorithms.FirstComeFirstServePolicy;
+import Model.simulation.SimulationEngine;
+import Model.statistics.JobStatistics;
+import Model.statistics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for LatencyHistogram and the percentiles JobStatistics reports with it.
+ */
+public class LatencyHistogramTest {
+
+    private LatencyHistogram histogram;
+
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    private void assertWithinOnePercent(String name, long expected, long actual) {
+        if (Math.abs(actual - expected) > expected / 100.0) {
+            throw new AssertionError(name + " should be within 1% of " + expected + " but was " + actual);
+        }
+    }
+
+    /**
+     * Test that percentiles of evenly spread values are reported within 1%.
+     */
+    public void testPercentiles() {
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.recordMicros(value);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        if (snapshot.getTotalCount() != 100_000) {
+            throw new AssertionError("Expected 100000 values but counted " + snapshot.getTotalCount());
+        }
+        assertWithinOnePercent("p50", 50_000, snapshot.getValueAtPercentile(50));
+        assertWithinOnePercent("p90", 90_000, snapshot.getValueAtPercentile(90));
+        assertWithinOnePercent("p99", 99_000, snapshot.getValueAtPercentile(99));
+        assertWithinOnePercent("p99.9", 99_900, snapshot.getValueAtPercentile(99.9));
+        if (snapshot.getValueAtPercentile(100) != 100_000 || snapshot.getMax() != 100_000) {
+            throw new AssertionError("The maximum should be exact");
+        }
+        if (snapshot.getValueAtPercentile(0.0001) != 1) {
+            throw new AssertionError("Small values should be counted exactly");
+        }
+
+        // One stuck job in a thousand shows up in the tail, not the median
+        histogram.reset();
+        for (int i = 0; i < 999; i++) {
+            histogram.recordMicros(1_000);
+        }
+        histogram.recordMicros(60_000_000);
+        snapshot = histogram.snapshot();
+        if (snapshot.getValueAtPercentile(99.9) > 1_010 || snapshot.getMax() != 60_000_000) {
+            throw new AssertionError("Expected p99.9 of 1 ms and a 60 s maximum");
+        }
+    }
+
+    /**
+     * Test that histograms recorded by several threads merge into the sum of their counts.
+     */
+    public void testConcurrentRecordAndMerge() {
+        List<LatencyHistogram> perThread = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            LatencyHistogram own = new LatencyHistogram();
+            perThread.add(own);
+            long value = (t + 1) * 1_000L;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    own.recordMicros(value);
+                    histogram.recordMicros(value);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("Interrupted while recording");
+            }
+        }
+
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram own : perThread) {
+            merged.add(own);
+        }
+        LatencyHistogram.Snapshot shared = histogram.snapshot();
+        LatencyHistogram.Snapshot combined = merged.snapshot();
+        if (shared.getTotalCount() != 40_000 || combined.getTotalCount() != 40_000) {
+            throw new AssertionError("Expected 40000 values but counted " + shared.getTotalCount() + " and "
+                    + combined.getTotalCount());
+        }
+        for (double percentile : new double[] {25, 50, 75, 100}) {
+            if (shared.getValueAtPercentile(percentile) != combined.getValueAtPercentile(percentile)) {
+                throw new AssertionError("Shared and merged histograms disagree at p" + percentile);
+            }
+        }
+        assertWithinOnePercent("p50", 2_000, combined.getValueAtPercentile(50));
+    }
+
+    /**
+     * Test that job statistics report dispatch delay, waiting and turnaround percentiles.
+     */
+    public void testJobStatisticsPercentiles() {
+        SimulationEngine simulation = new SimulationEngine(new FirstComeFirstServePolicy(), 1);
+        simulation.submit("First", 2, 1, 0);
+        simulation.submit("Second", 1, 1, 500);
+        simulation.run();
+
+        JobStatistics statistics = simulation.getStatistics();
+        LatencyHistogram.Snapshot waiting = statistics.getWaitingTimeHistogram();
+        if (waiting.getSecondsAtPercentile(50) != 0 || waiting.getMax() != 1_500_000) {
+            throw new AssertionError("Expected a median wait of 0 s and a maximum of 1.5 s");
+        }
+        if (statistics.getDispatchDelayHistogram().getTotalCount() != 2
+                || statistics.getTurnaroundTimeHistogram().getMax() != 2_500_000) {
+            throw new AssertionError("Expected 2 dispatches and a maximum turnaround of 2.5 s");
+        }
+        String summary = statistics.getLatencySummary();
+        if (!summary.contains("p99.9") || !summary.contains("Dispatch delay")) {
+            throw new AssertionError("The latency summary should list the percentiles: " + summary);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package tests.Model.statistics;
+
+import Model.datastructures.Job;
+import Model.statistics.JobStatistics;
+import Model.statistics.RateMeter;
+import util.Clock;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test class for RateMeter, driven by a manual clock.
+ */
+public class RateMeterTest {
+
+    private AtomicLong now;
+    private Clock clock;
+    private RateMeter meter;
+
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        now = new AtomicLong(1_000_000);
+        clock = now::get;
+        meter = new RateMeter(clock);
+    }
+
+    private void markEvery(long intervalMillis, long durationMillis) {
+        for (long elapsed = 0; elapsed < durationMillis; elapsed += intervalMillis) {
+            meter.mark();
+            now.addAndGet(intervalMillis);
+        }
+    }
+
+    /**
+     * Test that the sliding window counts only the last minute.
+     */
+    public void testWindowRate() {
+        // 10 per second for two minutes, then 2 per second for a minute
+        markEvery(100, 120_000);
+        markEvery(500, 60_000);
+        double rate = meter.getWindowRate();
+        if (Math.abs(rate - 2) > 0.1) {
+            throw new AssertionError("Expected about 2 events/s over the last minute but got " + rate);
+        }
+        if (meter.getCount() != 1320) {
+            throw new AssertionError("Expected 1320 events but counted " + meter.getCount());
+        }
+
+        now.addAndGet(2 * RateMeter.WINDOW_SECONDS * 1000L);
+        if (meter.getWindowRate() != 0) {
+            throw new AssertionError("A window without events should report 0 but got " + meter.getWindowRate());
+        }
+    }
+
+    /**
+     * Test that the moving averages follow a steady rate and decay at their own pace when it stops.
+     */
+    public void testMovingAverages() {
+        markEvery(100, 15 * 60_000);
+        if (Math.abs(meter.getOneMinuteRate() - 10) > 0.1 || Math.abs(meter.getFiveMinuteRate() - 10) > 0.5) {
+            throw new AssertionError("Expected 1 and 5 minute rates near 10/s but got " + meter.getOneMinuteRate()
+                    + " and " + meter.getFiveMinuteRate());
+        }
+
+        now.addAndGet(5 * 60_000);
+        double oneMinute = meter.getOneMinuteRate();
+        double fifteenMinutes = meter.getFifteenMinuteRate();
+        if (oneMinute > 0.1 || Math.abs(fifteenMinutes - 10 * Math.exp(-1.0 / 3)) > 0.1) {
+            throw new AssertionError("After 5 idle minutes the 1 minute rate should be near 0 and the 15 minute rate "
+                    + "near 10/e^(1/3), but got " + oneMinute + " and " + fifteenMinutes);
+        }
+
+        meter.reset();
+        if (meter.getCount() != 0 || meter.getOneMinuteRate() != 0 || meter.getMeanRate() != 0) {
+            throw new AssertionError("A reset meter should report nothing");
+        }
+    }
+
+    /**
+     * Test that resetting the statistics also restarts the throughput measurement.
+     */
+    public void testResetRestartsThroughput() {
+        JobStatistics statistics = new JobStatistics(clock);
+        now.addAndGet(3_600_000);
+        statistics.reset();
+
+        now.addAndGet(1000);
+        Job job = new Job("Fresh", 1, 1, now.get(), clock);
+        job.setStatus(Job.Status.RUNNING);
+        now.addAndGet(1000);
+        job.setStatus(Job.Status.FINISHED);
+        statistics.recordJobCompletion(job);
+
+        // One job two seconds after the reset, not one job in an hour
+        if (Math.abs(statistics.getThroughput() - 0.5) > 1e-9) {
+            throw new AssertionError("Expected a throughput of 0.5 jobs/s but got " + statistics.getThroughput());
+        }
+        if (statistics.getCompletionRate().getCount() != 1 || !statistics.getRateSummary().contains("Completed")) {
+            throw new AssertionError("The completion should be metered");
+        }
+    }
+}
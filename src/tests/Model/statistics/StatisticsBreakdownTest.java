@@ -0,0 +1,163 @@
+package tests.Model.statistics;
+
+import Model.algorithms.ShortestJobFirstPolicy;
+import Model.datastructures.Job;
+import Model.simulation.SimulationEngine;
+import Model.statistics.JobStatistics;
+import Model.statistics.StatisticsBreakdown;
+import util.Clock;
+import util.Logger;
+
+import java.util.List;
+
+/**
+ * Test class for StatisticsBreakdown and the breakdown JobStatistics keeps with it.
+ */
+public class StatisticsBreakdownTest {
+
+    private StatisticsBreakdown breakdown;
+
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        breakdown = new StatisticsBreakdown();
+    }
+
+    private StatisticsBreakdown.Row findRow(List<StatisticsBreakdown.Row> rows, String policy, String priority, String size) {
+        for (StatisticsBreakdown.Row row : rows) {
+            if (row.policy().equals(policy) && row.priority().equals(priority) && row.size().equals(size)) {
+                return row;
+            }
+        }
+        throw new AssertionError("No row for " + policy + ", priority " + priority + ", size " + size + " in " + rows);
+    }
+
+    /**
+     * Test that jobs land in the cell of their priority level and log2 size class.
+     */
+    public void testCellsAndLabels() {
+        breakdown.record(1, 1, 1, 2);
+        if (!breakdown.getRows().isEmpty()) {
+            throw new AssertionError("Nothing should be recorded before a policy is selected");
+        }
+
+        breakdown.selectPolicy("FCFS.");
+        breakdown.record(1, 3, 1, 4);
+        breakdown.record(1, 3.9, 3, 6.9);
+        breakdown.record(1, 0.5, 0, 0.5);
+        breakdown.record(-4, 2000, 0, 2000);
+        breakdown.record(50, 1, 0, 1);
+
+        List<StatisticsBreakdown.Row> rows = breakdown.getRows();
+        if (rows.size() != 4) {
+            throw new AssertionError("Expected 4 non-empty cells but got " + rows);
+        }
+        StatisticsBreakdown.Row row = findRow(rows, "FCFS", "1", "2-4s");
+        if (row.jobs() != 2 || Math.abs(row.averageWait() - 2) > 1e-9 || Math.abs(row.averageTurnaround() - 5.45) > 1e-9) {
+            throw new AssertionError("Expected 2 jobs averaging 2 s waiting and 5.45 s turnaround but got " + row);
+        }
+        // The 1 s wait is reported as its bucket's bound; the 3 s one is capped at the maximum
+        if (row.maxWait() != 3 || row.p99Wait() != 3 || row.p50Wait() != 1.024) {
+            throw new AssertionError("Expected a p50 wait bounded by 1.024 s and a p99 and maximum of 3 s but got " + row);
+        }
+        findRow(rows, "FCFS", "1", "<1s");
+        findRow(rows, "FCFS", "<=0", "1024s+");
+        findRow(rows, "FCFS", (StatisticsBreakdown.PRIORITY_LEVELS - 1) + "+", "1-2s");
+        if (!breakdown.format().contains("1024s+")) {
+            throw new AssertionError("The table should list the size classes: " + breakdown.format());
+        }
+
+        breakdown.reset();
+        if (!breakdown.getRows().isEmpty()) {
+            throw new AssertionError("A reset breakdown should be empty");
+        }
+    }
+
+    /**
+     * Test that each policy gets its own rows and that surplus policies share an extra slot.
+     */
+    public void testPolicies() {
+        breakdown.selectPolicy("FCFS");
+        breakdown.record(2, 5, 1, 6);
+        breakdown.selectPolicy("Shortest Job First");
+        breakdown.record(2, 5, 0, 5);
+        breakdown.selectPolicy("FCFS");
+        breakdown.record(2, 5, 3, 8);
+
+        List<StatisticsBreakdown.Row> rows = breakdown.getRows();
+        if (findRow(rows, "FCFS", "2", "4-8s").jobs() != 2 || findRow(rows, "Shortest Job First", "2", "4-8s").jobs() != 1) {
+            throw new AssertionError("Jobs should be attributed to the policy selected when they were recorded: " + rows);
+        }
+        if (!rows.get(0).policy().equals("FCFS")) {
+            throw new AssertionError("Rows should be ordered by policy first: " + rows);
+        }
+
+        // FCFS and Shortest Job First hold two of the named slots; these fill the rest
+        for (int i = 2; i < StatisticsBreakdown.MAX_POLICIES; i++) {
+            breakdown.selectPolicy("Policy " + i);
+        }
+        String lastNamed = "Policy " + (StatisticsBreakdown.MAX_POLICIES - 1);
+        int lastNamedSlot = breakdown.getCurrentPolicy();
+        breakdown.record(2, 5, 0, 5);
+        breakdown.selectPolicy("One too many");
+        breakdown.record(2, 5, 0, 5);
+        // A job dispatched under an earlier policy is still counted under it
+        breakdown.record(lastNamedSlot, 2, 5, 0, 5);
+        rows = breakdown.getRows();
+        if (findRow(rows, "Other", "2", "4-8s").jobs() != 1) {
+            throw new AssertionError("A policy beyond the first " + StatisticsBreakdown.MAX_POLICIES + " should count as Other");
+        }
+        if (findRow(rows, lastNamed, "2", "4-8s").jobs() != 2) {
+            throw new AssertionError("The last named policy should keep its name and its jobs: " + rows);
+        }
+    }
+
+    /**
+     * Test that a simulation breaks its jobs down by its policy, and that reset() keeps the breakdown.
+     */
+    public void testJobStatisticsBreakdown() {
+        SimulationEngine simulation = new SimulationEngine(new ShortestJobFirstPolicy(), 1);
+        simulation.submit("Long", 10, 1, 0);
+        simulation.submit("Short", 1, 2, 0);
+        simulation.submit("Medium", 5, 2, 0);
+        simulation.run();
+
+        JobStatistics statistics = simulation.getStatistics();
+        List<StatisticsBreakdown.Row> rows = statistics.getBreakdown();
+        // Short runs first, then Medium, then Long
+        if (findRow(rows, "Shortest Job First", "2", "1-2s").averageWait() != 0
+                || findRow(rows, "Shortest Job First", "2", "4-8s").averageWait() != 1
+                || findRow(rows, "Shortest Job First", "1", "8-16s").averageWait() != 6) {
+            throw new AssertionError("Expected waits of 0, 1 and 6 s by size class but got " + rows);
+        }
+
+        statistics.reset();
+        if (statistics.getBreakdown().size() != 3) {
+            throw new AssertionError("reset() should keep the breakdown");
+        }
+        statistics.resetBreakdown();
+        if (!statistics.getBreakdown().isEmpty()) {
+            throw new AssertionError("resetBreakdown() should clear the breakdown");
+        }
+    }
+
+    /**
+     * Test that a job counts under the policy it was dispatched under, not the one active when it completes.
+     */
+    public void testPolicyCapturedAtDispatch() {
+        JobStatistics statistics = new JobStatistics(Clock.SYSTEM, Logger.silent());
+        statistics.setSchedulingPolicy("FCFS");
+        Job job = new Job("Switched", 1, 2, System.currentTimeMillis());
+        statistics.recordJobDispatch(job);
+        job.setStatus(Job.Status.RUNNING);
+        statistics.setSchedulingPolicy("Shortest Job First");
+        job.setStatus(Job.Status.FINISHED);
+        statistics.recordJobCompletion(job);
+
+        List<StatisticsBreakdown.Row> rows = statistics.getBreakdown();
+        if (rows.size() != 1 || !rows.get(0).policy().equals("FCFS")) {
+            throw new AssertionError("The job should count under the policy it was dispatched under: " + rows);
+        }
+    }
+}
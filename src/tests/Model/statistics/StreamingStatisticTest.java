@@ -0,0 +1,117 @@
+package tests.Model.statistics;
+
+import Model.datastructures.Job;
+import Model.statistics.JobStatistics;
+import Model.statistics.StreamingStatistic;
+import util.Clock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for StreamingStatistic and the JobStatistics built on it.
+ */
+public class StreamingStatisticTest {
+
+    private StreamingStatistic statistic;
+
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        statistic = new StreamingStatistic();
+    }
+
+    /**
+     * Test that the running values match a two-pass calculation over the same values.
+     */
+    public void testMatchesTwoPass() {
+        double[] values = {1e9 + 4, 1e9 + 7, 1e9 + 13, 1e9 + 16, 1e9 + 2.5};
+        for (double value : values) {
+            statistic.record(value);
+        }
+
+        double mean = 0;
+        for (double value : values) {
+            mean += value;
+        }
+        mean /= values.length;
+        double variance = 0;
+        for (double value : values) {
+            variance += (value - mean) * (value - mean);
+        }
+        variance /= values.length;
+
+        StreamingStatistic.Snapshot snapshot = statistic.snapshot();
+        if (snapshot.count() != values.length || Math.abs(snapshot.average() - mean) > 1e-6) {
+            throw new AssertionError("Expected " + values.length + " values averaging " + mean + " but got " + snapshot);
+        }
+        // Large values with a small spread: naive sums of squares lose all precision here
+        if (Math.abs(snapshot.variance() - variance) > 1e-6) {
+            throw new AssertionError("Expected variance " + variance + " but got " + snapshot.variance());
+        }
+        if (snapshot.min() != 1e9 + 2.5 || snapshot.max() != 1e9 + 16) {
+            throw new AssertionError("Expected min and max of the values but got " + snapshot);
+        }
+
+        statistic.reset();
+        if (statistic.getCount() != 0 || statistic.getAverage() != 0) {
+            throw new AssertionError("A reset statistic should be empty");
+        }
+    }
+
+    /**
+     * Test that values recorded from several threads at once are all counted.
+     */
+    public void testConcurrentRecording() {
+        int threadCount = 4;
+        int perThread = 20_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            double value = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    statistic.record(value);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("Interrupted while recording");
+            }
+        }
+
+        StreamingStatistic.Snapshot snapshot = statistic.snapshot();
+        if (snapshot.count() != (long) threadCount * perThread) {
+            throw new AssertionError("Expected " + threadCount * perThread + " values but counted " + snapshot.count());
+        }
+        // Values 0..3 in equal numbers: mean 1.5, variance 1.25
+        if (Math.abs(snapshot.average() - 1.5) > 1e-9 || Math.abs(snapshot.variance() - 1.25) > 1e-9) {
+            throw new AssertionError("Expected mean 1.5 and variance 1.25 but got " + snapshot);
+        }
+    }
+
+    /**
+     * Test that a job recorded as completed twice is only counted once.
+     */
+    public void testCompletionCountedOnce() {
+        JobStatistics jobStatistics = new JobStatistics(Clock.SYSTEM);
+        Job job = new Job("Once", 0, 1, System.currentTimeMillis());
+        jobStatistics.recordJobCompletion(job);
+        if (jobStatistics.getTotalJobsCompleted() != 0) {
+            throw new AssertionError("A job that has not finished should not be counted");
+        }
+
+        job.setStatus(Job.Status.RUNNING);
+        job.setStatus(Job.Status.FINISHED);
+        jobStatistics.recordJobCompletion(job);
+        jobStatistics.recordJobCompletion(job);
+        if (jobStatistics.getTotalJobsCompleted() != 1) {
+            throw new AssertionError("Expected 1 completed job but counted " + jobStatistics.getTotalJobsCompleted());
+        }
+    }
+}
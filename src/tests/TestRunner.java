@@ -5,10 +5,27 @@ import tests.algorithms.ShortestJobFirstPolicyTest;
 import tests.algorithms.PriorityPolicyTest;
 import tests.Model.datastructures.JobTest;
 import tests.Model.datastructures.JobQueueTest;
+import tests.Model.datastructures.MultiQueueTest;
+import tests.Model.datastructures.ProcessJobTest;
+import tests.Model.simulation.SimulationEngineTest;
+import tests.Model.statistics.LatencyHistogramTest;
+import tests.Model.statistics.JobHistoryTest;
+import tests.Model.statistics.RateMeterTest;
+import tests.Model.statistics.StatisticsBreakdownTest;
+import tests.Model.statistics.StreamingStatisticTest;
+import tests.cluster.ClusterTest;
+import tests.cluster.ReplicatedJournalTest;
 import tests.controller.CommandFactoryTest;
+import tests.monitoring.LockProfileTest;
+import tests.monitoring.MonitorTest;
+import tests.monitoring.MetricsServerTest;
+import tests.monitoring.SchedulerEventsTest;
+import tests.multithreading.EventLoopCoreTest;
+import tests.multithreading.JobDispatcherTest;
 import tests.multithreading.JobSchedulerTest;
 import tests.View.CommandLineInterfaceTest;
 import tests.util.LoggerTest;
+import tests.util.TimingWheelTest;
 
 /**
  * Test runner for executing all tests.
@@ -82,6 +99,11 @@ public class TestRunner {
         runTest(jobTest::setUp, jobTest::testJobComparison, "Testing job comparison");
         runTest(jobTest::setUp, jobTest::testUniqueJobIds, "Testing unique job IDs");
         runTest(jobTest::setUp, jobTest::testToString, "Testing toString method");
+        runTest(jobTest::setUp, jobTest::testCpuBurnRunMode, "Testing CPU burn run mode");
+        runTest(jobTest::setUp, jobTest::testTimerRunMode, "Testing timer run mode");
+        runTest(jobTest::setUp, jobTest::testLifecycleNanos, "Testing lifecycle nanosecond timestamps");
+        runTest(jobTest::setUp, jobTest::testWallClockStepIgnored, "Testing durations ignore wall-clock steps");
+        runTest(jobTest::setUp, jobTest::testArrivalFromOneClock, "Testing arrival time and stamp share a clock");
         
         // JobQueue tests
         System.out.println("\n--- JobQueue Tests ---");
@@ -91,6 +113,74 @@ public class TestRunner {
         runTest(jobQueueTest::setUp, jobQueueTest::testRemoveJob, "Testing removing jobs");
         runTest(jobQueueTest::setUp, jobQueueTest::testClearQueue, "Testing clearing queue");
         runTest(jobQueueTest::setUp, jobQueueTest::testGetJobs, "Testing getting all jobs");
+        runTest(jobQueueTest::setUp, jobQueueTest::testRunningJobRegistry, "Testing running job registry");
+        runTest(jobQueueTest::setUp, jobQueueTest::testMergeJobs, "Testing merging a sorted batch");
+        runTest(jobQueueTest::setUp, jobQueueTest::testMultiQueueMode, "Testing MultiQueue mode");
+        runTest(jobQueueTest::setUp, jobQueueTest::testWithQueueWakesWaiter, "Testing a withQueue scope wakes a waiting dispatcher");
+        runTest(jobQueueTest::setUp, jobQueueTest::testOptimisticReads, "Testing optimistic reads");
+        runTest(jobQueueTest::setUp, jobQueueTest::testFencedQueue, "Testing a fenced queue");
+        
+        // MultiQueue tests
+        System.out.println("\n--- MultiQueue Tests ---");
+        MultiQueueTest multiQueueTest = new MultiQueueTest();
+        runTest(multiQueueTest::setUp, multiQueueTest::testSingleShardIsStrict, "Testing a single shard is strict");
+        runTest(multiQueueTest::setUp, multiQueueTest::testRankErrorIsBounded, "Testing rank error is bounded");
+        runTest(multiQueueTest::setUp, multiQueueTest::testConcurrentInsertAndPoll, "Testing concurrent insert and poll");
+        runTest(multiQueueTest::setUp, multiQueueTest::testReorder, "Testing reordering");
+        
+        // ProcessJob tests
+        System.out.println("\n--- ProcessJob Tests ---");
+        ProcessJobTest processJobTest = new ProcessJobTest();
+        runTest(processJobTest::setUp, processJobTest::testProcessOutputAndExitCode, "Testing process output and exit code");
+        runTest(processJobTest::setUp, processJobTest::testMissingCommand, "Testing a command that cannot start");
+        runTest(processJobTest::setUp, processJobTest::testTimeLimit, "Testing a process killed at its time limit");
+        runTest(processJobTest::setUp, processJobTest::testNameStaysInOutputDirectory, "Testing job files stay in the output directory");
+        
+        // SimulationEngine tests
+        System.out.println("\n--- SimulationEngine Tests ---");
+        SimulationEngineTest simulationTest = new SimulationEngineTest();
+        runTest(simulationTest::setUp, simulationTest::testFcfsSingleSlot, "Testing FCFS on a single slot");
+        runTest(simulationTest::setUp, simulationTest::testSjfOrdersWaitingJobs, "Testing SJF order of waiting jobs");
+        runTest(simulationTest::setUp, simulationTest::testParallelSlots, "Testing parallel slots");
+        runTest(simulationTest::setUp, simulationTest::testSharedLogUntouched, "Testing the shared log is left alone");
+        
+        // StreamingStatistic tests
+        System.out.println("\n--- StreamingStatistic Tests ---");
+        StreamingStatisticTest streamingStatisticTest = new StreamingStatisticTest();
+        runTest(streamingStatisticTest::setUp, streamingStatisticTest::testMatchesTwoPass, "Testing running values match a two-pass calculation");
+        runTest(streamingStatisticTest::setUp, streamingStatisticTest::testConcurrentRecording, "Testing concurrent recording");
+        runTest(streamingStatisticTest::setUp, streamingStatisticTest::testCompletionCountedOnce, "Testing a completion is counted once");
+        
+        // LatencyHistogram tests
+        System.out.println("\n--- LatencyHistogram Tests ---");
+        LatencyHistogramTest latencyHistogramTest = new LatencyHistogramTest();
+        runTest(latencyHistogramTest::setUp, latencyHistogramTest::testPercentiles, "Testing percentiles within 1%");
+        runTest(latencyHistogramTest::setUp, latencyHistogramTest::testConcurrentRecordAndMerge, "Testing concurrent recording and merging");
+        runTest(latencyHistogramTest::setUp, latencyHistogramTest::testJobStatisticsPercentiles, "Testing job statistics percentiles");
+        
+        // RateMeter tests
+        System.out.println("\n--- RateMeter Tests ---");
+        RateMeterTest rateMeterTest = new RateMeterTest();
+        runTest(rateMeterTest::setUp, rateMeterTest::testWindowRate, "Testing the sliding window rate");
+        runTest(rateMeterTest::setUp, rateMeterTest::testMovingAverages, "Testing the moving average rates");
+        runTest(rateMeterTest::setUp, rateMeterTest::testResetRestartsThroughput, "Testing reset restarts the throughput");
+
+        
+        // StatisticsBreakdown tests
+        System.out.println("\n--- StatisticsBreakdown Tests ---");
+        StatisticsBreakdownTest statisticsBreakdownTest = new StatisticsBreakdownTest();
+        runTest(statisticsBreakdownTest::setUp, statisticsBreakdownTest::testCellsAndLabels, "Testing breakdown cells and labels");
+        runTest(statisticsBreakdownTest::setUp, statisticsBreakdownTest::testPolicies, "Testing breakdown by policy");
+        runTest(statisticsBreakdownTest::setUp, statisticsBreakdownTest::testJobStatisticsBreakdown, "Testing the job statistics breakdown");
+        runTest(statisticsBreakdownTest::setUp, statisticsBreakdownTest::testPolicyCapturedAtDispatch, "Testing a job counts under its dispatch policy");
+        
+        // JobHistory tests
+        System.out.println("\n--- JobHistory Tests ---");
+        JobHistoryTest jobHistoryTest = new JobHistoryTest();
+        runTest(jobHistoryTest::setUp, jobHistoryTest::testRingKeepsMostRecent, "Testing the ring keeps the most recent jobs");
+        runTest(jobHistoryTest::setUp, jobHistoryTest::testSpillAndReadBack, "Testing spilled history is read back");
+        runTest(jobHistoryTest::setUp, jobHistoryTest::testOlderSegmentFormatRead, "Testing older history segments are read");
+        runTest(jobHistoryTest::setUp, jobHistoryTest::testJobStatisticsHistory, "Testing job statistics record history");
     }
     
     private static void runControllerTests() {
@@ -123,6 +213,49 @@ public class TestRunner {
         runTest(jobSchedulerTest::setUp, jobSchedulerTest::testSetSJFPolicy, "Testing setting SJF policy");
         runTest(jobSchedulerTest::setUp, jobSchedulerTest::testSetPriorityPolicy, "Testing setting priority policy");
         runTest(jobSchedulerTest::setUp, jobSchedulerTest::testScheduleJob, "Testing job scheduling");
+        runTest(jobSchedulerTest::setUp, jobSchedulerTest::testJobsMergedInPolicyOrder, "Testing jobs merged in policy order");
+        runTest(jobSchedulerTest::setUp, jobSchedulerTest::testRequeuedJobsInPolicyOrder, "Testing requeued jobs merged in policy order");
+        runTest(jobSchedulerTest::setUp, jobSchedulerTest::testCapacityRejects, "Testing a full queue rejecting jobs");
+        runTest(jobSchedulerTest::setUp, jobSchedulerTest::testCapacitySheds, "Testing a full queue shedding jobs");
+        runTest(jobSchedulerTest::setUp, jobSchedulerTest::testCapacityBlocks, "Testing a full queue blocking submitters");
+        
+        // JobDispatcher tests
+        System.out.println("\n--- JobDispatcher Tests ---");
+        JobDispatcherTest jobDispatcherTest = new JobDispatcherTest();
+        runTest(jobDispatcherTest::setUp, jobDispatcherTest::testInvalidSlotCount, "Testing invalid slot count");
+        runTest(jobDispatcherTest::setUp, jobDispatcherTest::testConcurrentSlots, "Testing concurrent execution slots");
+        runTest(jobDispatcherTest::setUp, jobDispatcherTest::testVirtualThreadMode, "Testing virtual thread execution mode");
+        runTest(jobDispatcherTest::setUp, jobDispatcherTest::testWorkStealingRunsAllJobs, "Testing work-stealing dispatcher");
+        runTest(jobDispatcherTest::setUp, jobDispatcherTest::testParkedJobRunsBeforeLaterArrivals, "Testing parked jobs run before later arrivals");
+        runTest(jobDispatcherTest::setUp, jobDispatcherTest::testNonIdleJobCounted, "Testing a non-idle job is counted as skipped");
+        runTest(jobDispatcherTest::setUp, jobDispatcherTest::testProcessLaunchFailureNotCompleted, "Testing a failed process launch is not a completion");
+        
+        // EventLoopCore tests
+        System.out.println("\n--- EventLoopCore Tests ---");
+        EventLoopCoreTest eventLoopCoreTest = new EventLoopCoreTest();
+        runTest(eventLoopCoreTest::setUp, eventLoopCoreTest::testInvalidSlotCount, "Testing invalid slot count");
+        runTest(eventLoopCoreTest::setUp, eventLoopCoreTest::testRunsJobsInPolicyOrder, "Testing jobs run in policy order");
+        runTest(eventLoopCoreTest::setUp, eventLoopCoreTest::testConcurrentSubmitters, "Testing concurrent submitters");
+        runTest(eventLoopCoreTest::setUp, eventLoopCoreTest::testQueriesAndReorder, "Testing queries and reordering");
+        runTest(eventLoopCoreTest::setUp, eventLoopCoreTest::testStoppedLoopRejectsMessages, "Testing a stopped loop rejects messages");
+        runTest(eventLoopCoreTest::setUp, eventLoopCoreTest::testErrorReleasesSlot, "Testing an Error in a job releases its slot");
+        
+        // Cluster tests
+        System.out.println("\n--- Cluster Tests ---");
+        ClusterTest clusterTest = new ClusterTest();
+        runTest(clusterTest::setUp, clusterTest::testProtocolRoundTrip, "Testing protocol round trip");
+        runTest(clusterTest::setUp, clusterTest::testJobsRunOnWorkers, "Testing jobs run on workers");
+        runTest(clusterTest::setUp, clusterTest::testSilentWorkerJobsRequeued, "Testing a silent worker's jobs are requeued");
+        runTest(clusterTest::setUp, clusterTest::testProcessJobsRefused, "Testing process jobs are refused in cluster mode");
+
+        // Replicated journal tests
+        System.out.println("\n--- Replicated Journal Tests ---");
+        ReplicatedJournalTest journalTest = new ReplicatedJournalTest();
+        runTest(journalTest::setUp, journalTest::testLeaderElectedAndEntriesReplicate, "Testing a leader is elected and entries replicate");
+        runTest(journalTest::setUp, journalTest::testFailoverKeepsQueue, "Testing failover keeps the queue");
+        runTest(journalTest::setUp, journalTest::testRestartedFollowerCatchesUp, "Testing a restarted follower catches up");
+        runTest(journalTest::setUp, journalTest::testLogCompactedIntoSnapshot, "Testing the log is compacted into a snapshot");
+        runTest(journalTest::setUp, journalTest::testDeposedLeaderFenced, "Testing a deposed leader is fenced");
     }
     
     private static void runViewTests() {
@@ -169,6 +302,37 @@ public class TestRunner {
         } catch (UnsupportedOperationException e) {
             System.out.println("Debug logging test skipped - not supported");
         }
+        
+        // TimingWheel tests
+        System.out.println("\n--- TimingWheel Tests ---");
+        TimingWheelTest timingWheelTest = new TimingWheelTest();
+        runTest(timingWheelTest::setUp, timingWheelTest::testTimersFireInDeadlineOrder, "Testing timers fire in deadline order");
+        runTest(timingWheelTest::setUp, timingWheelTest::testCancel, "Testing timer cancellation");
+        runTest(timingWheelTest::setUp, timingWheelTest::testCascadedTimer, "Testing a cascaded timer");
+        runTest(timingWheelTest::setUp, timingWheelTest::testManyTimersAcrossCascades, "Testing many timers across cascades");
+        
+        // MetricsServer tests
+        System.out.println("\n--- MetricsServer Tests ---");
+        MetricsServerTest metricsServerTest = new MetricsServerTest();
+        runTest(metricsServerTest::setUp, metricsServerTest::testRender, "Testing the metrics exposition");
+        runTest(metricsServerTest::setUp, metricsServerTest::testScrape, "Testing a scrape over HTTP");
+        
+        // SchedulerEvents tests
+        System.out.println("\n--- SchedulerEvents Tests ---");
+        SchedulerEventsTest schedulerEventsTest = new SchedulerEventsTest();
+        runTest(schedulerEventsTest::setUp, schedulerEventsTest::testEnabledEventsRecorded, "Testing enabled events are recorded");
+        runTest(schedulerEventsTest::setUp, schedulerEventsTest::testDisabledByDefault, "Testing events are off by default");
+        
+        // LockProfile tests
+        System.out.println("\n--- LockProfile Tests ---");
+        LockProfileTest lockProfileTest = new LockProfileTest();
+        runTest(lockProfileTest::setUp, lockProfileTest::testContendedAcquisitionSampled, "Testing contended acquisitions are sampled");
+        runTest(lockProfileTest::setUp, lockProfileTest::testReentrantHoldSampledOnce, "Testing reentrant holds are sampled once");
+
+        // Monitor tests
+        System.out.println("\n--- Monitor Tests ---");
+        MonitorTest monitorTest = new MonitorTest();
+        runTest(monitorTest::setUp, monitorTest::testCaptureAndRender, "Testing the monitor's frame and view");
     }
     
 
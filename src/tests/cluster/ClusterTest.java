@@ -0,0 +1,220 @@
+package tests.cluster;
+
+import cluster.ClusterConnection;
+import cluster.ClusterCoordinator;
+import cluster.ClusterProtocol;
+import cluster.ClusterWorker;
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import Model.datastructures.ProcessJob;
+import multithreading.JobScheduler;
+import multithreading.RunnableStoppableInterface;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Test class for cluster mode: a coordinator and workers talking over 127.0.0.1.
+ */
+public class ClusterTest {
+
+    private JobQueue jobQueue;
+    private final List<Thread> threads = new ArrayList<>();
+
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        jobQueue = JobQueue.getInstance();
+        while (!jobQueue.isEmpty()) {
+            jobQueue.getNextJob();
+        }
+        threads.clear();
+    }
+
+    private Thread start(Runnable module, String name) {
+        Thread thread = new Thread(module, name);
+        thread.start();
+        threads.add(thread);
+        return thread;
+    }
+
+    private void stopAll(List<? extends RunnableStoppableInterface> modules) {
+        for (RunnableStoppableInterface module : modules) {
+            module.stopRunning();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join(3000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void await(BooleanSupplier condition, long timeoutMillis, String failure) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError(failure);
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("Interrupted while waiting: " + failure);
+            }
+        }
+    }
+
+    /**
+     * Test that every message survives encoding and decoding, and that bad frames are refused.
+     */
+    public void testProtocolRoundTrip() {
+        List<ClusterProtocol.Message> messages = List.of(
+                new ClusterProtocol.Register("worker-1", 4),
+                new ClusterProtocol.Registered(500),
+                new ClusterProtocol.Heartbeat(2),
+                new ClusterProtocol.Dispatch(42L, "Job é", 1.5, 3, 1234.0),
+                new ClusterProtocol.Completed(42L, true),
+                new ClusterProtocol.Shutdown());
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (ClusterProtocol.Message message : messages) {
+                ClusterProtocol.write(out, message);
+            }
+            ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+            for (ClusterProtocol.Message expected : messages) {
+                ClusterProtocol.Message decoded = ClusterProtocol.read(in);
+                if (!decoded.equals(expected)) {
+                    throw new AssertionError("Expected " + expected + " but decoded " + decoded);
+                }
+            }
+        } catch (IOException e) {
+            throw new AssertionError("Round trip failed: " + e.getMessage());
+        }
+
+        byte[] unknownType = {0, 0, 0, 1, 99};
+        try {
+            ClusterProtocol.read(new ByteArrayInputStream(unknownType));
+        } catch (IOException e) {
+            return;
+        }
+        throw new AssertionError("A frame with an unknown message type should be refused");
+    }
+
+    /**
+     * Test that queued jobs run on the registered workers and are recorded as finished.
+     */
+    public void testJobsRunOnWorkers() {
+        ClusterCoordinator coordinator;
+        try {
+            coordinator = new ClusterCoordinator("ClusterTest", 0, 100);
+        } catch (IOException e) {
+            throw new AssertionError("Could not bind the coordinator: " + e.getMessage());
+        }
+        ClusterWorker first = new ClusterWorker("worker-a", "127.0.0.1", coordinator.getPort(), 1);
+        ClusterWorker second = new ClusterWorker("worker-b", "127.0.0.1", coordinator.getPort(), 1);
+        start(coordinator, "Coordinator");
+        start(first, "WorkerA");
+        start(second, "WorkerB");
+        try {
+            await(() -> coordinator.getWorkerCount() == 2, 2000, "Both workers should register");
+
+            List<Job> jobs = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Job job = new Job("ClusterJob" + i, 0.1, 1, System.currentTimeMillis());
+                jobs.add(job);
+                jobQueue.addJob(job);
+            }
+            await(() -> jobs.stream().allMatch(Job::isFinished), 3000, "Every job should finish on a worker");
+
+            if (first.getCompletedJobs() == 0 || second.getCompletedJobs() == 0) {
+                throw new AssertionError("Both workers should have run jobs, but ran " + first.getCompletedJobs()
+                        + " and " + second.getCompletedJobs());
+            }
+            await(() -> jobQueue.getRunningJobCount() == 0, 1000, "Finished jobs should be released");
+        } finally {
+            stopAll(List.of(first, second, coordinator));
+        }
+    }
+
+    /**
+     * Test that the job of a worker that stops sending heartbeats is requeued and run elsewhere.
+     */
+    public void testSilentWorkerJobsRequeued() {
+        ClusterCoordinator coordinator;
+        try {
+            coordinator = new ClusterCoordinator("ClusterTest", 0, 50);
+        } catch (IOException e) {
+            throw new AssertionError("Could not bind the coordinator: " + e.getMessage());
+        }
+        start(coordinator, "Coordinator");
+
+        ClusterWorker healthy = null;
+        try (ClusterConnection silent = new ClusterConnection(new Socket("127.0.0.1", coordinator.getPort()))) {
+            // A worker that registers, takes a job and then goes quiet
+            silent.send(new ClusterProtocol.Register("silent", 1));
+            silent.receive();
+            Job job = new Job("Orphan", 0.05, 1, System.currentTimeMillis());
+            jobQueue.addJob(job);
+            if (!(silent.receive() instanceof ClusterProtocol.Dispatch dispatch) || !dispatch.name().equals("Orphan")) {
+                throw new AssertionError("The silent worker should have been sent the job");
+            }
+
+            await(() -> coordinator.getRequeuedJobs() == 1, 2000, "The silent worker's job should be requeued");
+            healthy = new ClusterWorker("healthy", "127.0.0.1", coordinator.getPort(), 1);
+            start(healthy, "HealthyWorker");
+            await(job::isFinished, 2000, "The requeued job should finish on the healthy worker");
+        } catch (IOException e) {
+            throw new AssertionError("Silent worker connection failed: " + e.getMessage());
+        } finally {
+            List<RunnableStoppableInterface> modules = new ArrayList<>();
+            if (healthy != null) {
+                modules.add(healthy);
+            }
+            modules.add(coordinator);
+            stopAll(modules);
+        }
+    }
+
+    /**
+     * Test that process jobs are refused while a coordinator runs, since workers cannot run their command.
+     */
+    public void testProcessJobsRefused() {
+        JobScheduler jobScheduler = JobScheduler.getInstance();
+        Path outputDirectory = Path.of(System.getProperty("java.io.tmpdir"), "csubatch-cluster-test");
+        ClusterCoordinator coordinator;
+        try {
+            coordinator = new ClusterCoordinator("ClusterTest", 0, 50);
+        } catch (IOException e) {
+            throw new AssertionError("Could not bind the coordinator: " + e.getMessage());
+        }
+        start(coordinator, "Coordinator");
+        try {
+            jobScheduler.addJob(new ProcessJob("Command", 1, 1, List.of("true"), outputDirectory, 0));
+            throw new AssertionError("A process job should be refused while the coordinator runs");
+        } catch (IllegalStateException e) {
+            if (!ClusterCoordinator.PROCESS_JOBS_REFUSED.equals(e.getMessage())) {
+                throw new AssertionError("Expected the cluster refusal but got: " + e.getMessage());
+            }
+        } finally {
+            stopAll(List.of(coordinator));
+        }
+        if (!jobQueue.isEmpty()) {
+            throw new AssertionError("A refused process job should not be queued");
+        }
+
+        // Accepted again once the coordinator has stopped
+        jobScheduler.addJob(new ProcessJob("Command", 1, 1, List.of("true"), outputDirectory, 0));
+        if (!(jobQueue.getNextJob() instanceof ProcessJob)) {
+            throw new AssertionError("Process jobs should be accepted again after the coordinator stopped");
+        }
+    }
+}
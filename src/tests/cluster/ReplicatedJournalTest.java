@@ -0,0 +1,332 @@
+package tests.cluster;
+
+import cluster.JournalProtocol;
+import cluster.JournalState;
+import cluster.ReplicatedJournal;
+import Model.datastructures.Job;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Test class for the replicated job journal: three nodes on 127.0.0.1 in one JVM.
+ */
+public class ReplicatedJournalTest {
+
+    private static final int HEARTBEAT_MILLIS = 20;
+    private static final int ELECTION_TIMEOUT_MILLIS = 150;
+
+    private List<Integer> ports;
+    private ReplicatedJournal[] nodes;
+
+    /**
+     * Set up for tests: picks three free ports and starts a node on each.
+     */
+    public void setUp() {
+        ports = new ArrayList<>();
+        List<ServerSocket> reserved = new ArrayList<>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+                reserved.add(socket);
+                ports.add(socket.getLocalPort());
+            }
+            for (ServerSocket socket : reserved) {
+                socket.close();
+            }
+            nodes = new ReplicatedJournal[3];
+            for (int i = 0; i < 3; i++) {
+                nodes[i] = startNode(i);
+            }
+        } catch (IOException e) {
+            throw new AssertionError("Could not start the journal nodes: " + e.getMessage());
+        }
+    }
+
+    private ReplicatedJournal startNode(int nodeId) throws IOException {
+        ReplicatedJournal node = new ReplicatedJournal("JournalTest-" + nodeId, nodeId, ports, HEARTBEAT_MILLIS,
+                ELECTION_TIMEOUT_MILLIS);
+        node.start();
+        return node;
+    }
+
+    private void stopAll() {
+        for (ReplicatedJournal node : nodes) {
+            if (node != null) {
+                node.stop();
+            }
+        }
+    }
+
+    private ReplicatedJournal awaitLeader() {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            for (ReplicatedJournal node : nodes) {
+                if (node != null && node.awaitLeadership(10)) {
+                    return node;
+                }
+            }
+        }
+        throw new AssertionError("No leader was elected");
+    }
+
+    private void await(BooleanSupplier condition, long timeoutMillis, String failure) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError(failure);
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("Interrupted while waiting: " + failure);
+            }
+        }
+    }
+
+    private List<String> jobNames(List<JournalState.JobRecord> records) {
+        List<String> names = new ArrayList<>();
+        for (JournalState.JobRecord record : records) {
+            names.add(record.name() + ":" + record.state());
+        }
+        return names;
+    }
+
+    /**
+     * Test that a single leader is elected and that its entries reach every node.
+     */
+    public void testLeaderElectedAndEntriesReplicate() {
+        try {
+            // Encoding first: an Append with both kinds of entry survives a round trip
+            JournalProtocol.Append append = new JournalProtocol.Append(3, 1, 7, 2, 5, List.of(
+                    new JournalProtocol.Entry(3, JournalProtocol.Operation.SUBMIT, 9, "Job é", 1.5, 2, 100.0),
+                    JournalProtocol.Entry.of(3, JournalProtocol.Operation.COMPLETE, 9)));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            JournalProtocol.write(out, append);
+            if (!JournalProtocol.read(new ByteArrayInputStream(out.toByteArray())).equals(append)) {
+                throw new AssertionError("An Append should survive encoding and decoding");
+            }
+            JournalProtocol.Snapshot snapshot = new JournalProtocol.Snapshot(3, 1, 40, 2, List.of(
+                    new JournalState.JobRecord(9, "Job é", 1.5, 2, 100.0, JournalState.JobState.RUNNING)));
+            out.reset();
+            JournalProtocol.write(out, snapshot);
+            if (!JournalProtocol.read(new ByteArrayInputStream(out.toByteArray())).equals(snapshot)) {
+                throw new AssertionError("A Snapshot should survive encoding and decoding");
+            }
+        } catch (IOException e) {
+            throw new AssertionError("Round trip failed: " + e.getMessage());
+        }
+
+        try {
+            ReplicatedJournal leader = awaitLeader();
+            int leaders = 0;
+            for (ReplicatedJournal node : nodes) {
+                if (node.getRole() == ReplicatedJournal.Role.LEADER) {
+                    leaders++;
+                }
+            }
+            if (leaders != 1) {
+                throw new AssertionError("Expected exactly one leader but found " + leaders);
+            }
+
+            CompletableFuture<Long> last = null;
+            for (int i = 0; i < 50; i++) {
+                last = leader.recordSubmit(new Job("Job" + i, 1, 1, i));
+            }
+            last.join();
+            for (ReplicatedJournal node : nodes) {
+                await(() -> node.getJournaledJobs().size() == 50, 2000,
+                        "Node " + node.getNodeId() + " should have applied every submission");
+                if (node != leader && node.getLeaderId() != leader.getNodeId()) {
+                    throw new AssertionError("Node " + node.getNodeId() + " should follow node " + leader.getNodeId());
+                }
+            }
+            if (!nodes[0].getJournaledJobs().equals(nodes[1].getJournaledJobs())
+                    || !nodes[1].getJournaledJobs().equals(nodes[2].getJournaledJobs())) {
+                throw new AssertionError("Every node should hold the same jobs");
+            }
+
+            ReplicatedJournal follower = nodes[(leader.getNodeId() + 1) % 3];
+            if (!follower.recordSubmit(new Job("Refused", 1, 1, 0)).isCompletedExceptionally()) {
+                throw new AssertionError("A follower should refuse to journal changes");
+            }
+        } finally {
+            stopAll();
+        }
+    }
+
+    /**
+     * Test that when the leader dies a follower takes over with the unfinished jobs.
+     */
+    public void testFailoverKeepsQueue() {
+        try {
+            ReplicatedJournal leader = awaitLeader();
+            Job done = new Job("Done", 1, 1, 1);
+            Job running = new Job("Running", 1, 2, 2);
+            Job waiting = new Job("Waiting", 1, 3, 3);
+            leader.submitted(done);
+            leader.submitted(running);
+            leader.submitted(waiting);
+            leader.dispatched(done);
+            leader.released(done);
+            leader.dispatched(running);
+
+            List<String> expected = List.of("Running:RUNNING", "Waiting:WAITING");
+            for (ReplicatedJournal node : nodes) {
+                await(() -> jobNames(node.getJournaledJobs()).equals(expected), 2000,
+                        "Node " + node.getNodeId() + " should hold the running and waiting jobs");
+            }
+
+            long oldTerm = leader.getCurrentTerm();
+            leader.stop();
+            nodes[leader.getNodeId()] = null;
+            ReplicatedJournal successor = awaitLeader();
+            if (successor.getCurrentTerm() <= oldTerm) {
+                throw new AssertionError("The new leader should be in a later term");
+            }
+
+            List<Job> restored = successor.restoreJobs();
+            List<String> names = new ArrayList<>();
+            for (Job job : restored) {
+                names.add(job.getName());
+            }
+            if (!names.equals(List.of("Running", "Waiting"))) {
+                throw new AssertionError("Expected Running and Waiting to be restored but got " + names);
+            }
+
+            // Restored jobs keep their journal ids: finishing one removes it everywhere
+            successor.dispatched(restored.get(0));
+            successor.released(restored.get(0));
+            for (ReplicatedJournal node : nodes) {
+                if (node != null) {
+                    await(() -> jobNames(node.getJournaledJobs()).equals(List.of("Waiting:WAITING")), 2000,
+                            "Node " + node.getNodeId() + " should see the restored job finish");
+                }
+            }
+        } finally {
+            stopAll();
+        }
+    }
+
+    /**
+     * Test that a follower restarted with an empty log is caught up by the leader.
+     */
+    public void testRestartedFollowerCatchesUp() {
+        try {
+            ReplicatedJournal leader = awaitLeader();
+            for (int i = 0; i < 20; i++) {
+                leader.recordSubmit(new Job("Before" + i, 1, 1, i));
+            }
+            int followerId = (leader.getNodeId() + 1) % 3;
+            nodes[followerId].stop();
+            nodes[followerId] = null;
+
+            // Still a majority: two of three nodes commit without the stopped one
+            CompletableFuture<Long> last = null;
+            for (int i = 0; i < 20; i++) {
+                last = leader.recordSubmit(new Job("After" + i, 1, 1, i));
+            }
+            last.join();
+
+            ReplicatedJournal restarted = startNode(followerId);
+            nodes[followerId] = restarted;
+            await(() -> restarted.getJournaledJobs().size() == 40, 3000,
+                    "The restarted follower should catch up with every job");
+            if (restarted.getLastLogIndex() != leader.getLastLogIndex()) {
+                throw new AssertionError("The restarted follower's log should match the leader's");
+            }
+        } catch (IOException e) {
+            throw new AssertionError("Could not restart the follower: " + e.getMessage());
+        } finally {
+            stopAll();
+        }
+    }
+
+    /**
+     * Test that applied entries are folded into a snapshot, and that a follower that missed
+     * them is sent the snapshot.
+     */
+    public void testLogCompactedIntoSnapshot() {
+        try {
+            ReplicatedJournal leader = awaitLeader();
+            int followerId = (leader.getNodeId() + 1) % 3;
+            nodes[followerId].stop();
+            nodes[followerId] = null;
+
+            leader.recordSubmit(new Job("Kept", 1, 1, 0));
+            // Three entries per finished job, enough to compact past what the stopped follower held
+            int finishedJobs = ReplicatedJournal.COMPACTION_THRESHOLD_ENTRIES / 2;
+            for (int i = 0; i < finishedJobs; i++) {
+                Job job = new Job("Finished" + i, 1, 1, i);
+                leader.submitted(job);
+                leader.dispatched(job);
+                leader.released(job);
+            }
+            leader.recordSubmit(new Job("Last", 1, 1, 1)).join();
+
+            long logLength = leader.getLastLogIndex() - leader.getSnapshotIndex();
+            if (leader.getSnapshotIndex() == 0 || logLength >= ReplicatedJournal.COMPACTION_THRESHOLD_ENTRIES) {
+                throw new AssertionError("The leader should have compacted its log, but keeps " + logLength + " entries");
+            }
+
+            ReplicatedJournal restarted = startNode(followerId);
+            nodes[followerId] = restarted;
+            List<String> expected = List.of("Kept:WAITING", "Last:WAITING");
+            await(() -> jobNames(restarted.getJournaledJobs()).equals(expected)
+                            && restarted.getLastLogIndex() == leader.getLastLogIndex(), 5000,
+                    "The restarted follower should catch up from the snapshot");
+            if (restarted.getSnapshotIndex() == 0) {
+                throw new AssertionError("The restarted follower should have been sent the snapshot");
+            }
+        } catch (IOException e) {
+            throw new AssertionError("Could not restart the follower: " + e.getMessage());
+        } finally {
+            stopAll();
+        }
+    }
+
+    /**
+     * Test that a serving leader that loses the leadership fences itself and does not lead again.
+     */
+    public void testDeposedLeaderFenced() {
+        try {
+            ReplicatedJournal leader = awaitLeader();
+            leader.restoreJobs();
+            int otherId = (leader.getNodeId() + 1) % 3;
+            // A vote request for a later term deposes the leader, as if it had been cut off meanwhile
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), ports.get(leader.getNodeId()))) {
+                JournalProtocol.write(socket.getOutputStream(), new JournalProtocol.RequestVote(
+                        leader.getCurrentTerm() + 1, otherId, 0, 0));
+                JournalProtocol.read(socket.getInputStream());
+            }
+            if (!leader.isFenced() || leader.getRole() == ReplicatedJournal.Role.LEADER) {
+                throw new AssertionError("A deposed leader should be fenced");
+            }
+
+            await(() -> nodes[otherId].getRole() == ReplicatedJournal.Role.LEADER
+                            || nodes[(otherId + 1) % 3].getRole() == ReplicatedJournal.Role.LEADER, 5000,
+                    "Another node should take over");
+            // Several election timeouts later the fenced node still has not stood again
+            Thread.sleep(4 * ELECTION_TIMEOUT_MILLIS);
+            if (leader.getRole() != ReplicatedJournal.Role.FOLLOWER || !leader.isFenced()) {
+                throw new AssertionError("A fenced node should stay a follower");
+            }
+        } catch (IOException e) {
+            throw new AssertionError("Could not reach the leader: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError("Interrupted while waiting for the new leader");
+        } finally {
+            stopAll();
+        }
+    }
+}
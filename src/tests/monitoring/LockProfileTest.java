@@ -0,0 +1,101 @@
+package tests.monitoring;
+
+import monitoring.InstrumentedLock;
+import monitoring.LockProfile;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Test class for LockProfile and InstrumentedLock.
+ */
+public class LockProfileTest {
+
+    private InstrumentedLock lock;
+
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        lock = new InstrumentedLock("TestLock", LockProfileTest.class);
+    }
+
+    private void holdFor(long millis) {
+        lock.lock();
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Test that a contended acquisition is counted and its wait, hold and queue length sampled.
+     */
+    public void testContendedAcquisitionSampled() {
+        LockProfile.setSampleInterval(1);
+        try {
+            CountDownLatch locked = new CountDownLatch(1);
+            Thread holder = new Thread(() -> {
+                lock.lock();
+                try {
+                    locked.countDown();
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    lock.unlock();
+                }
+            });
+            holder.start();
+            locked.await();
+            holdFor(1);
+            holder.join();
+        } catch (InterruptedException e) {
+            throw new AssertionError("Interrupted while contending for the lock");
+        } finally {
+            LockProfile.setSampleInterval(LockProfile.DEFAULT_SAMPLE_INTERVAL);
+        }
+
+        LockProfile.Snapshot snapshot = lock.getProfile().snapshot();
+        if (snapshot.acquisitions() != 2 || snapshot.contended() != 1 || snapshot.sampled() != 2) {
+            throw new AssertionError("Expected 2 sampled acquisitions, 1 contended, but got " + snapshot);
+        }
+        if (snapshot.waitNanos().getMax() < 20_000_000 || snapshot.holdNanos().getMax() < 45_000_000) {
+            throw new AssertionError("Expected a wait of most of the other thread's 50 ms hold");
+        }
+        if (snapshot.queueLengths().getTotalCount() != 1 || snapshot.queueLengths().getMax() != 1) {
+            throw new AssertionError("Expected one contended sample with a queue of 1");
+        }
+        LockProfile.CallSiteSnapshot hottest = snapshot.callSites().get(0);
+        if (!hottest.site().startsWith("Thread.run") && !hottest.site().startsWith("Thread.runWith")) {
+            throw new AssertionError("The holder's frames outside the owner class should be its call site: "
+                    + snapshot.callSites());
+        }
+    }
+
+    /**
+     * Test that reentrant acquisitions are counted but only the outermost hold is sampled.
+     */
+    public void testReentrantHoldSampledOnce() {
+        LockProfile.setSampleInterval(1);
+        try {
+            lock.lock();
+            try {
+                holdFor(1);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            LockProfile.setSampleInterval(LockProfile.DEFAULT_SAMPLE_INTERVAL);
+        }
+        LockProfile.Snapshot snapshot = lock.getProfile().snapshot();
+        if (snapshot.acquisitions() != 2 || snapshot.holdNanos().getTotalCount() != 1 || lock.isHeldByCurrentThread()) {
+            throw new AssertionError("Expected 2 acquisitions, 1 sampled hold and the lock released: " + snapshot);
+        }
+        if (!LockProfile.format(LockProfile.snapshotAll(), 3).contains("TestLock")) {
+            throw new AssertionError("The locks table should list every registered lock");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package tests.monitoring;
+
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import Model.statistics.JobStatistics;
+import monitoring.MetricsServer;
+import util.Clock;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test class for MetricsServer.
+ */
+public class MetricsServerTest {
+
+    private AtomicLong now;
+    private JobStatistics statistics;
+
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        now = new AtomicLong(1_000_000);
+        Clock clock = now::get;
+        statistics = new JobStatistics(clock);
+        // Waits of 0.5 s and 2 s, turnarounds of 1.5 s and 3 s
+        for (long waitMillis : new long[] {500, 2000}) {
+            Job job = new Job("Metered", 1, 1, now.get(), clock);
+            statistics.recordJobSubmission(job);
+            now.addAndGet(waitMillis);
+            job.setStatus(Job.Status.RUNNING);
+            statistics.recordJobDispatch(job);
+            now.addAndGet(1000);
+            job.setStatus(Job.Status.FINISHED);
+            statistics.recordJobCompletion(job);
+            statistics.recordJobRelease(job);
+        }
+    }
+
+    private long valueOf(String text, String series) {
+        for (String line : text.split("\n")) {
+            if (line.startsWith(series + " ")) {
+                return (long) Double.parseDouble(line.substring(series.length() + 1));
+            }
+        }
+        throw new AssertionError("No series " + series + " in:\n" + text);
+    }
+
+    /**
+     * Test that the exposition has the counters and cumulative histogram buckets of the statistics.
+     */
+    public void testRender() {
+        MetricsServer server;
+        try {
+            server = new MetricsServer("MetricsTest", 0, statistics, JobQueue.getInstance());
+        } catch (IOException e) {
+            throw new AssertionError("Could not create the metrics server: " + e.getMessage());
+        }
+        String text = MetricsServer.render(server.snapshot());
+
+        if (valueOf(text, "csubatch_jobs_submitted_total") != 2 || valueOf(text, "csubatch_jobs_dispatched_total") != 2
+                || valueOf(text, "csubatch_jobs_completed_total") != 2 || valueOf(text, "csubatch_running_jobs") != 0) {
+            throw new AssertionError("Expected 2 submitted, dispatched and completed jobs and none running:\n" + text);
+        }
+        if (valueOf(text, "csubatch_job_waiting_seconds_bucket{le=\"0.1\"}") != 0
+                || valueOf(text, "csubatch_job_waiting_seconds_bucket{le=\"1\"}") != 1
+                || valueOf(text, "csubatch_job_waiting_seconds_bucket{le=\"2.5\"}") != 2
+                || valueOf(text, "csubatch_job_waiting_seconds_bucket{le=\"+Inf\"}") != 2
+                || valueOf(text, "csubatch_job_waiting_seconds_count") != 2) {
+            throw new AssertionError("Expected cumulative waiting time buckets of 0, 1 and 2 jobs:\n" + text);
+        }
+        if (!text.contains("csubatch_job_turnaround_seconds_sum 4.5\n")) {
+            throw new AssertionError("Expected a turnaround time sum of 4.5 s:\n" + text);
+        }
+        if (!text.contains("# TYPE csubatch_job_dispatch_delay_seconds histogram\n")
+                || !text.contains("csubatch_queue_lock_acquisitions_total{mode=\"write\"} ")) {
+            throw new AssertionError("Expected typed histograms and lock metrics:\n" + text);
+        }
+        if (!text.contains("csubatch_lock_acquisitions_total{lock=\"JobQueue.write\"} ")
+                || !text.contains("csubatch_lock_hold_seconds_bucket{lock=\"Logger\",le=\"+Inf\"} ")) {
+            throw new AssertionError("Expected the profiled locks to be exported:\n" + text);
+        }
+    }
+
+    /**
+     * Test that the server answers scrapes over HTTP and refuses other methods.
+     */
+    public void testScrape() {
+        MetricsServer server = null;
+        try {
+            server = new MetricsServer("MetricsTest", 0, statistics, JobQueue.getInstance());
+            server.start();
+            URI uri = URI.create("http://127.0.0.1:" + server.getPort() + MetricsServer.PATH);
+
+            HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+            String body;
+            try (InputStream in = connection.getInputStream()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            if (connection.getResponseCode() != 200 || !connection.getContentType().startsWith("text/plain")) {
+                throw new AssertionError("Expected a plain text response but got " + connection.getResponseCode()
+                        + " " + connection.getContentType());
+            }
+            if (valueOf(body, "csubatch_jobs_completed_total") != 2) {
+                throw new AssertionError("The scrape should report the statistics:\n" + body);
+            }
+
+            connection = (HttpURLConnection) uri.toURL().openConnection();
+            connection.setRequestMethod("DELETE");
+            if (connection.getResponseCode() != 405) {
+                throw new AssertionError("Expected 405 for DELETE but got " + connection.getResponseCode());
+            }
+        } catch (IOException e) {
+            throw new AssertionError("Scrape failed: " + e.getMessage());
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+}
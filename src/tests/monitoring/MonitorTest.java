@@ -0,0 +1,88 @@
+package tests.monitoring;
+
+import Model.algorithms.PriorityPolicy;
+import Model.algorithms.SchedulingPolicy;
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import Model.statistics.JobStatistics;
+import monitoring.Monitor;
+import util.Clock;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test class for Monitor.
+ */
+public class MonitorTest {
+
+    private AtomicLong now;
+    private JobStatistics statistics;
+    private JobQueue jobQueue;
+
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        now = new AtomicLong(1_000_000);
+        Clock clock = now::get;
+        statistics = new JobStatistics(clock);
+        statistics.setSlotCount(4);
+        // One job that waited 2 s
+        Job job = new Job("Waited", 1, 1, now.get(), clock);
+        statistics.recordJobSubmission(job);
+        now.addAndGet(2000);
+        job.setStatus(Job.Status.RUNNING);
+        statistics.recordJobDispatch(job);
+        job.setStatus(Job.Status.FINISHED);
+        statistics.recordJobCompletion(job);
+        statistics.recordJobRelease(job);
+
+        jobQueue = JobQueue.getInstance();
+        while (!jobQueue.isEmpty()) {
+            jobQueue.getNextJob();
+        }
+    }
+
+    /**
+     * Test that waiting jobs are grouped by the policy's key and the running jobs and waits are captured.
+     */
+    public void testCaptureAndRender() {
+        SchedulingPolicy policy = new PriorityPolicy();
+        Job running = new Job("Running", 10, 2);
+        running.setStatus(Job.Status.RUNNING);
+        jobQueue.addRunningJob(running);
+        try {
+            jobQueue.addJob(new Job("High", 5, 3));
+            jobQueue.addJob(new Job("Low", 5, 1));
+            jobQueue.addJob(new Job("AlsoLow", 5, 1));
+
+            Monitor.Frame frame = new Monitor(statistics, jobQueue, () -> policy).capture();
+            if (frame.waitingJobs() != 3 || frame.depthStale()) {
+                throw new AssertionError("Expected 3 freshly grouped waiting jobs, but got " + frame.waitingJobs());
+            }
+            if (frame.depthByKey().get("priority 1") != 2 || frame.depthByKey().get("priority 3") != 1) {
+                throw new AssertionError("Expected 2 jobs of priority 1 and 1 of priority 3, but got "
+                        + frame.depthByKey());
+            }
+            if (frame.runningJobs().size() != 1 || frame.utilization() != 0.25) {
+                throw new AssertionError("Expected 1 of 4 slots busy, but got " + frame.runningJobs());
+            }
+            if (frame.waitingTimes().getTotalCount() != 1
+                    || Math.abs(frame.waitingTimes().getSecondsAtPercentile(50) - 2) > 0.1) {
+                throw new AssertionError("Expected one waiting time of about 2 s");
+            }
+
+            String text = Monitor.render(frame, 10);
+            for (String expected : new String[] {"policy Priority", "1/4 busy", "p50 2.0", "priority 1", "Running"}) {
+                if (!text.contains(expected)) {
+                    throw new AssertionError("Expected \"" + expected + "\" in:\n" + text);
+                }
+            }
+        } finally {
+            jobQueue.removeRunningJob(running);
+            while (!jobQueue.isEmpty()) {
+                jobQueue.getNextJob();
+            }
+        }
+    }
+}
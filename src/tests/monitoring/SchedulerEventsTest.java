@@ -0,0 +1,118 @@
+package tests.monitoring;
+
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import monitoring.SchedulerEvents;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Test class for the scheduler's flight recorder events.
+ */
+public class SchedulerEventsTest {
+
+    private Job job;
+
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        job = new Job("Recorded", 2, 4, System.currentTimeMillis() - 1500);
+    }
+
+    private void emitAll() {
+        SchedulerEvents.jobSubmitted(job);
+        SchedulerEvents.jobEnqueued(job, 3);
+        SchedulerEvents.beginPolicyApplied().end("FCFS", 3, JobQueue.getInstance());
+        SchedulerEvents.jobDispatched(job);
+        SchedulerEvents.jobStarted(job);
+        SchedulerEvents.jobCompleted(job, true);
+        SchedulerEvents.beginCommand().end(" list ", true);
+    }
+
+    private List<RecordedEvent> record(boolean enableEvents) {
+        Path file = null;
+        try (Recording recording = new Recording()) {
+            if (enableEvents) {
+                for (String name : new String[] {"JobSubmitted", "JobEnqueued", "JobDispatched", "JobStarted",
+                        "JobCompleted"}) {
+                    recording.enable("csubatch." + name);
+                }
+                recording.enable("csubatch.PolicyApplied").withThreshold(Duration.ZERO);
+                recording.enable("csubatch.CommandExecuted").withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            emitAll();
+            recording.stop();
+            file = Files.createTempFile("scheduler-events", ".jfr");
+            recording.dump(file);
+
+            List<RecordedEvent> events = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().startsWith("csubatch.")) {
+                    events.add(event);
+                }
+            }
+            return events;
+        } catch (IOException e) {
+            throw new AssertionError("Could not record: " + e.getMessage());
+        } finally {
+            if (file != null) {
+                file.toFile().delete();
+            }
+        }
+    }
+
+    private RecordedEvent find(List<RecordedEvent> events, String name) {
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                return event;
+            }
+        }
+        throw new AssertionError("No " + name + " event in " + events);
+    }
+
+    /**
+     * Test that enabled events are recorded with their fields.
+     */
+    public void testEnabledEventsRecorded() {
+        List<RecordedEvent> events = record(true);
+        if (events.size() != 7) {
+            throw new AssertionError("Expected 7 scheduler events but got " + events.size() + ": " + events);
+        }
+        RecordedEvent submitted = find(events, "csubatch.JobSubmitted");
+        if (!submitted.getString("job").equals("Recorded") || submitted.getInt("priority") != 4
+                || submitted.getDuration("executionTime").toMillis() != 2000) {
+            throw new AssertionError("Unexpected submission fields: " + submitted);
+        }
+        if (find(events, "csubatch.JobDispatched").getDuration("queueWait").toMillis() < 1500) {
+            throw new AssertionError("The queue wait should run from the job's arrival");
+        }
+        RecordedEvent policy = find(events, "csubatch.PolicyApplied");
+        if (!policy.getString("policy").equals("FCFS") || policy.getInt("batchSize") != 3) {
+            throw new AssertionError("Unexpected policy fields: " + policy);
+        }
+        if (!find(events, "csubatch.CommandExecuted").getString("command").equals("list")) {
+            throw new AssertionError("The command should be recorded as typed, trimmed");
+        }
+    }
+
+    /**
+     * Test that the events stay off unless a recording enables them.
+     */
+    public void testDisabledByDefault() {
+        List<RecordedEvent> events = record(false);
+        if (!events.isEmpty()) {
+            throw new AssertionError("Expected no scheduler events without enabling them but got " + events);
+        }
+    }
+}
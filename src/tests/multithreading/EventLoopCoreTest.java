@@ -0,0 +1,293 @@
+package tests.multithreading;
+
+import multithreading.EventLoopCore;
+import Model.datastructures.Job;
+import Model.statistics.JobStatistics;
+import util.Clock;
+import util.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for the single-writer EventLoopCore.
+ */
+public class EventLoopCoreTest {
+
+    private Comparator<Job> firstComeFirstServe;
+    private Comparator<Job> shortestJobFirst;
+    private JobStatistics jobStatistics;
+
+    /**
+     * A job that runs instantly, recording the order jobs ran in
+     */
+    private static class RecordingJob extends Job {
+        private final List<String> runOrder;
+
+        RecordingJob(String name, double executionTime, double arrivalTime, List<String> runOrder) {
+            super(name, executionTime, 1, arrivalTime);
+            this.runOrder = runOrder;
+        }
+
+        @Override
+        public boolean run() {
+            setStatus(Status.RUNNING);
+            runOrder.add(getName());
+            setStatus(Status.FINISHED);
+            return true;
+        }
+    }
+
+    /**
+     * A job that runs until the test opens its gate
+     */
+    private static class GatedJob extends Job {
+        private final CountDownLatch gate;
+
+        GatedJob(String name, CountDownLatch gate) {
+            super(name, 1, 1, System.currentTimeMillis());
+            this.gate = gate;
+        }
+
+        @Override
+        public boolean run() {
+            setStatus(Status.RUNNING);
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            setStatus(Status.FINISHED);
+            return true;
+        }
+    }
+
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        firstComeFirstServe = Comparator.comparingDouble(Job::getArrivalTime);
+        shortestJobFirst = Comparator.comparingDouble(Job::getExecutionTime);
+        // Each test records into its own statistics, away from the shared instance
+        jobStatistics = new JobStatistics(Clock.SYSTEM, Logger.silent());
+    }
+
+    private EventLoopCore newCore(String moduleID, int slots, Comparator<Job> order) {
+        return new EventLoopCore(moduleID, slots, order, jobStatistics);
+    }
+
+    private Thread start(EventLoopCore core) {
+        Thread loopThread = new Thread(core, "EventLoopTest");
+        loopThread.start();
+        return loopThread;
+    }
+
+    private void stop(EventLoopCore core, Thread loopThread) {
+        core.stopRunning();
+        try {
+            loopThread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wait until the core has released the given number of jobs, whether they completed or not.
+     */
+    private EventLoopCore.Statistics awaitReleased(EventLoopCore core, long jobs) {
+        long deadline = System.currentTimeMillis() + 5000;
+        EventLoopCore.Statistics statistics = core.getStatistics().join();
+        while ((jobStatistics.getTotalJobsSubmitted() < jobs || statistics.waiting() + statistics.running() > 0)
+                && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            statistics = core.getStatistics().join();
+        }
+        return statistics;
+    }
+
+    /**
+     * Test that the core rejects a non-positive slot count.
+     */
+    public void testInvalidSlotCount() {
+        try {
+            new EventLoopCore("InvalidSlots", 0, firstComeFirstServe);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        throw new AssertionError("EventLoopCore should reject a slot count of 0");
+    }
+
+    /**
+     * Test that jobs posted before the loop starts are dispatched in policy order.
+     */
+    public void testRunsJobsInPolicyOrder() {
+        List<String> runOrder = Collections.synchronizedList(new ArrayList<>());
+        EventLoopCore core = newCore("OrderTest", 1, shortestJobFirst);
+        core.submit(new RecordingJob("Long", 9, 0, runOrder));
+        core.submit(new RecordingJob("Short", 1, 1, runOrder));
+        core.submit(new RecordingJob("Medium", 5, 2, runOrder));
+
+        Thread loopThread = start(core);
+        awaitReleased(core, 3);
+        stop(core, loopThread);
+
+        if (jobStatistics.getTotalJobsCompleted() != 3) {
+            throw new AssertionError("Expected 3 completed jobs but got " + jobStatistics.getTotalJobsCompleted());
+        }
+        if (!runOrder.equals(List.of("Short", "Medium", "Long"))) {
+            throw new AssertionError("Expected jobs to run shortest first but got " + runOrder);
+        }
+    }
+
+    /**
+     * Test that concurrent submitters lose no jobs and the slot limit holds.
+     */
+    public void testConcurrentSubmitters() {
+        int submitters = 4;
+        int jobsPerSubmitter = 2_000;
+        int slots = 2;
+        Set<String> ran = ConcurrentHashMap.newKeySet();
+        List<String> runOrder = Collections.synchronizedList(new ArrayList<>());
+        EventLoopCore core = newCore("ConcurrentTest", slots, firstComeFirstServe);
+        Thread loopThread = start(core);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < submitters; t++) {
+            int id = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < jobsPerSubmitter; i++) {
+                    core.submit(new RecordingJob("S" + id + "-" + i, 0, i, runOrder));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("Interrupted while waiting for submitters");
+            }
+        }
+        EventLoopCore.Statistics statistics = awaitReleased(core, (long) submitters * jobsPerSubmitter);
+        stop(core, loopThread);
+
+        ran.addAll(runOrder);
+        int completed = jobStatistics.getTotalJobsCompleted();
+        if (completed != submitters * jobsPerSubmitter || ran.size() != runOrder.size()) {
+            throw new AssertionError("Expected " + submitters * jobsPerSubmitter + " jobs to run once each, but "
+                    + completed + " completed and " + runOrder.size() + " ran");
+        }
+        if (statistics.peakRunning() > slots) {
+            throw new AssertionError("At most " + slots + " jobs should run at once but " + statistics.peakRunning() + " did");
+        }
+        long dispatchDelays = jobStatistics.getDispatchDelayHistogram().getTotalCount();
+        if (dispatchDelays != completed) {
+            throw new AssertionError("Expected a dispatch delay for each of the " + completed + " jobs but got "
+                    + dispatchDelays);
+        }
+    }
+
+    /**
+     * Test that queries see the waiting jobs and that reordering applies to them.
+     */
+    public void testQueriesAndReorder() {
+        CountDownLatch gate = new CountDownLatch(1);
+        List<String> runOrder = Collections.synchronizedList(new ArrayList<>());
+        EventLoopCore core = newCore("QueryTest", 1, firstComeFirstServe);
+        Thread loopThread = start(core);
+        try {
+            GatedJob blocker = new GatedJob("Blocker", gate);
+            core.submit(blocker).join();
+            // A query dispatches first, so the blocker holds the slot before the earlier-arriving jobs queue
+            core.getRunningJobs().join();
+            core.submit(new RecordingJob("Long", 9, 1, runOrder));
+            core.submit(new RecordingJob("Short", 1, 2, runOrder)).join();
+
+            List<Job> running = core.getRunningJobs().get(1, TimeUnit.SECONDS);
+            if (running.size() != 1 || running.get(0) != blocker) {
+                throw new AssertionError("Expected only the blocking job to be running but got " + running);
+            }
+            List<Job> waiting = core.getWaitingJobs().join();
+            if (waiting.size() != 2 || !waiting.get(0).getName().equals("Long")) {
+                throw new AssertionError("Expected the waiting jobs in arrival order but got " + waiting);
+            }
+
+            core.setOrder(shortestJobFirst).join();
+            waiting = core.getWaitingJobs().join();
+            if (!waiting.get(0).getName().equals("Short")) {
+                throw new AssertionError("Expected the shortest job first after reordering but got " + waiting);
+            }
+
+            gate.countDown();
+            awaitReleased(core, 3);
+            if (!runOrder.equals(List.of("Short", "Long"))) {
+                throw new AssertionError("Expected the reordered jobs to run shortest first but got " + runOrder);
+            }
+        } catch (Exception e) {
+            throw new AssertionError("Query failed: " + e.getMessage());
+        } finally {
+            gate.countDown();
+            stop(core, loopThread);
+        }
+    }
+
+    /**
+     * Test that messages posted after the loop stopped fail instead of waiting forever.
+     */
+    public void testStoppedLoopRejectsMessages() {
+        EventLoopCore core = newCore("StopTest", 1, firstComeFirstServe);
+        Thread loopThread = start(core);
+        stop(core, loopThread);
+
+        try {
+            core.submit(new Job("Late", 1, 1, 0)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IllegalStateException) {
+                return;
+            }
+            throw new AssertionError("Expected an IllegalStateException but got " + e.getCause());
+        }
+        throw new AssertionError("A submission to a stopped loop should fail");
+    }
+
+    /**
+     * Test that a job throwing an Error hands its slot back, so the jobs behind it still run.
+     */
+    public void testErrorReleasesSlot() {
+        List<String> runOrder = Collections.synchronizedList(new ArrayList<>());
+        EventLoopCore core = newCore("ErrorTest", 1, firstComeFirstServe);
+        core.submit(new Job("Throws", 0, 1, 0) {
+            @Override
+            public boolean run() {
+                throw new Error("Simulated error");
+            }
+        });
+        core.submit(new RecordingJob("After", 0, 1, runOrder));
+
+        Thread loopThread = start(core);
+        awaitReleased(core, 2);
+        stop(core, loopThread);
+
+        if (!runOrder.equals(List.of("After"))) {
+            throw new AssertionError("Expected the job after the error to run but got " + runOrder);
+        }
+        if (jobStatistics.getTotalJobsCompleted() != 1) {
+            throw new AssertionError("Only the job that ran to the end should count as completed, but "
+                    + jobStatistics.getTotalJobsCompleted() + " did");
+        }
+    }
+}
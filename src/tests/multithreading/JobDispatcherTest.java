@@ -0,0 +1,306 @@
+package tests.multithreading;
+
+import multithreading.JobDispatcher;
+import multithreading.RunnableStoppableInterface;
+import multithreading.WorkStealingDispatcher;
+import Model.datastructures.Job;
+import Model.datastructures.JobQueue;
+import Model.datastructures.ProcessJob;
+import Model.statistics.JobStatistics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test class for the JobDispatcher.
+ */
+public class JobDispatcherTest {
+    
+    private JobQueue jobQueue;
+    
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        jobQueue = JobQueue.getInstance();
+        
+        // Clear the queue by removing all jobs
+        while (!jobQueue.isEmpty()) {
+            jobQueue.getNextJob();
+        }
+    }
+    
+    /**
+     * Stop a dispatcher and wait for its thread so it cannot take jobs from later tests.
+     */
+    private void stopDispatcher(RunnableStoppableInterface dispatcher, Thread dispatcherThread) {
+        dispatcher.stopRunning();
+        dispatcherThread.interrupt();
+        try {
+            dispatcherThread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Test that the dispatcher rejects a non-positive slot count.
+     */
+    public void testInvalidSlotCount() {
+        try {
+            new JobDispatcher("InvalidSlots", 0);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        throw new AssertionError("JobDispatcher should reject a slot count of 0");
+    }
+    
+    /**
+     * Test that every slot runs a job at the same time.
+     */
+    public void testConcurrentSlots() {
+        Job[] jobs = new Job[3];
+        for (int i = 0; i < jobs.length; i++) {
+            jobs[i] = new Job("SlotJob" + i, 1, 1, System.currentTimeMillis());
+            jobQueue.addJob(jobs[i]);
+        }
+        
+        JobDispatcher dispatcher = new JobDispatcher("SlotTest", jobs.length);
+        Thread dispatcherThread = new Thread(dispatcher);
+        dispatcherThread.start();
+        
+        try {
+            // Wait for the dispatcher to fill its slots
+            long deadline = System.currentTimeMillis() + 900;
+            while (jobQueue.getRunningJobCount() < jobs.length && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            
+            int running = jobQueue.getRunningJobCount();
+            if (running != jobs.length) {
+                throw new AssertionError("Expected " + jobs.length + " jobs running concurrently, but got: " + running);
+            }
+            
+            // Wait for all jobs to finish
+            deadline = System.currentTimeMillis() + 3000;
+            while (jobQueue.getRunningJobCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            for (Job job : jobs) {
+                if (!job.isFinished()) {
+                    throw new AssertionError("Job should have finished: " + job.getName());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopDispatcher(dispatcher, dispatcherThread);
+        }
+    }
+    
+    /**
+     * Test that virtual thread mode runs every job on a virtual thread.
+     */
+    public void testVirtualThreadMode() {
+        final boolean[] ranOnVirtualThread = new boolean[1];
+        Job job = new Job("VirtualJob", 0, 1, System.currentTimeMillis()) {
+            @Override
+            public boolean run() {
+                ranOnVirtualThread[0] = Thread.currentThread().isVirtual();
+                return super.run();
+            }
+        };
+        jobQueue.addJob(job);
+        
+        JobDispatcher dispatcher = new JobDispatcher("VirtualTest", 2, JobDispatcher.ExecutionMode.VIRTUAL);
+        Thread dispatcherThread = new Thread(dispatcher);
+        dispatcherThread.start();
+        
+        try {
+            long deadline = System.currentTimeMillis() + 2000;
+            while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            if (!job.isFinished()) {
+                throw new AssertionError("Job should have finished in virtual thread mode");
+            }
+            if (!ranOnVirtualThread[0]) {
+                throw new AssertionError("Job should have run on a virtual thread");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopDispatcher(dispatcher, dispatcherThread);
+        }
+    }
+    
+    /**
+     * Test that the work-stealing backend runs every job, spreading a batch across workers.
+     */
+    public void testWorkStealingRunsAllJobs() {
+        Job[] jobs = new Job[4];
+        for (int i = 0; i < jobs.length; i++) {
+            jobs[i] = new Job("StealJob" + i, 0.3, 1, System.currentTimeMillis());
+            jobQueue.addJob(jobs[i]);
+        }
+        
+        // One worker takes the whole batch; the other must steal to keep busy
+        WorkStealingDispatcher dispatcher = new WorkStealingDispatcher("StealTest", 2, jobs.length);
+        Thread dispatcherThread = new Thread(dispatcher);
+        dispatcherThread.start();
+        
+        try {
+            long deadline = System.currentTimeMillis() + 3000;
+            while (jobQueue.getRunningJobCount() > 0 || !allFinished(jobs)) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new AssertionError("Work-stealing dispatcher did not finish every job");
+                }
+                Thread.sleep(10);
+            }
+            if (dispatcher.getSteals() == 0) {
+                throw new AssertionError("Idle worker should have stolen at least one job");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopDispatcher(dispatcher, dispatcherThread);
+        }
+    }
+    
+    /**
+     * Test that a job parked in a busy worker's deque runs before a job that arrives later.
+     */
+    public void testParkedJobRunsBeforeLaterArrivals() {
+        List<String> runOrder = Collections.synchronizedList(new ArrayList<>());
+        // One worker takes Long and Parked; the other gets Busy and is still running it when Late arrives
+        Job[] jobs = {
+            recordingJob("Long", 0.8, runOrder),
+            recordingJob("Parked", 0, runOrder),
+            recordingJob("Busy", 0.3, runOrder)
+        };
+        for (Job job : jobs) {
+            jobQueue.addJob(job);
+        }
+        
+        WorkStealingDispatcher dispatcher = new WorkStealingDispatcher("ParkedTest", 2, 2);
+        Thread dispatcherThread = new Thread(dispatcher);
+        dispatcherThread.start();
+        
+        try {
+            Thread.sleep(100);
+            Job late = recordingJob("Late", 0, runOrder);
+            jobQueue.addJob(late);
+            
+            long deadline = System.currentTimeMillis() + 3000;
+            while (!allFinished(jobs) || !late.isFinished()) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new AssertionError("Work-stealing dispatcher did not finish every job");
+                }
+                Thread.sleep(10);
+            }
+            if (runOrder.indexOf("Parked") > runOrder.indexOf("Late")) {
+                throw new AssertionError("Parked job should run before a later arrival, but ran in order: " + runOrder);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopDispatcher(dispatcher, dispatcherThread);
+        }
+    }
+    
+    private Job recordingJob(String name, double executionTime, List<String> runOrder) {
+        return new Job(name, executionTime, 1, System.currentTimeMillis()) {
+            @Override
+            public boolean run() {
+                runOrder.add(getName());
+                return super.run();
+            }
+        };
+    }
+    
+    /**
+     * Test that a process job that could not be started is counted as failed, not as completed.
+     */
+    public void testProcessLaunchFailureNotCompleted() {
+        JobStatistics jobStatistics = JobStatistics.getInstance();
+        Path notADirectory;
+        try {
+            notADirectory = Files.createTempFile("dispatchertest", ".file");
+        } catch (IOException e) {
+            throw new AssertionError("Could not create a file: " + e.getMessage());
+        }
+        int completedBefore = jobStatistics.getTotalJobsCompleted();
+        int failedBefore = jobStatistics.getProcessJobsFailed();
+        int exitedBefore = jobStatistics.getProcessJobsCompleted();
+        // The output directory is a plain file, so the process cannot be started
+        ProcessJob job = new ProcessJob("UnstartableJob", 1, 1, List.of("true"), notADirectory, 0);
+        jobQueue.addJob(job);
+        
+        JobDispatcher dispatcher = new JobDispatcher("LaunchFailTest", 1);
+        Thread dispatcherThread = new Thread(dispatcher);
+        dispatcherThread.start();
+        
+        try {
+            long deadline = System.currentTimeMillis() + 2000;
+            while (jobStatistics.getProcessJobsFailed() == failedBefore && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            if (jobStatistics.getProcessJobsFailed() != failedBefore + 1) {
+                throw new AssertionError("A process that could not start should be counted as failed");
+            }
+            if (jobStatistics.getTotalJobsCompleted() != completedBefore
+                    || jobStatistics.getProcessJobsCompleted() != exitedBefore) {
+                throw new AssertionError("A process that could not start should not be counted as completed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopDispatcher(dispatcher, dispatcherThread);
+        }
+    }
+    
+    /**
+     * Test that a dequeued job that is not idle is counted as skipped instead of being lost silently.
+     */
+    public void testNonIdleJobCounted() {
+        JobStatistics jobStatistics = JobStatistics.getInstance();
+        int skippedBefore = jobStatistics.getSkippedJobs();
+        Job finished = new Job("FinishedJob", 0, 1, System.currentTimeMillis());
+        finished.setStatus(Job.Status.FINISHED);
+        jobQueue.addJob(finished);
+        
+        JobDispatcher dispatcher = new JobDispatcher("SkipTest", 1);
+        Thread dispatcherThread = new Thread(dispatcher);
+        dispatcherThread.start();
+        
+        try {
+            long deadline = System.currentTimeMillis() + 2000;
+            while (jobStatistics.getSkippedJobs() == skippedBefore && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            if (jobStatistics.getSkippedJobs() != skippedBefore + 1) {
+                throw new AssertionError("A non-idle job should be counted as skipped once");
+            }
+            if (jobQueue.getRunningJobCount() != 0) {
+                throw new AssertionError("A non-idle job should not be registered as running");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopDispatcher(dispatcher, dispatcherThread);
+        }
+    }
+    
+    private boolean allFinished(Job[] jobs) {
+        for (Job job : jobs) {
+            if (!job.isFinished()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -3,6 +3,7 @@ package tests.multithreading;
 import multithreading.JobScheduler;
 import Model.datastructures.Job;
 import Model.datastructures.JobQueue;
+import java.util.List;
 // import Model.datastructures.Queue;
 import Model.algorithms.FirstComeFirstServePolicy;
 import Model.algorithms.ShortestJobFirstPolicy;
@@ -109,6 +110,142 @@ public class JobSchedulerTest {
         }
     }
     
+    /**
+     * Test that submitted jobs are merged into the queue in policy order.
+     */
+    public void testJobsMergedInPolicyOrder() {
+        jobScheduler.setSchedulingPolicy(new ShortestJobFirstPolicy());
+        
+        jobScheduler.addJob(new Job("Long", 30, 1, 0));
+        jobScheduler.addJob(new Job("Short", 5, 1, 0));
+        jobScheduler.addJob(new Job("Medium", 10, 1, 0));
+        
+        String[] expected = {"Short", "Medium", "Long"};
+        for (String name : expected) {
+            Job job = jobQueue.getNextJob();
+            if (job == null || !job.getName().equals(name)) {
+                throw new AssertionError("Expected " + name + " but got: " + (job == null ? "null" : job.getName()));
+            }
+        }
+    }
+    
+    /**
+     * Test that requeued jobs are merged into the queue in policy order.
+     */
+    public void testRequeuedJobsInPolicyOrder() {
+        jobScheduler.setSchedulingPolicy(new ShortestJobFirstPolicy());
+        jobScheduler.addJob(new Job("Medium", 10, 1, 0));
+        
+        jobScheduler.requeueJobs(List.of(new Job("Long", 30, 1, 0), new Job("Short", 5, 1, 0)));
+        
+        String[] expected = {"Short", "Medium", "Long"};
+        for (String name : expected) {
+            Job job = jobQueue.getNextJob();
+            if (job == null || !job.getName().equals(name)) {
+                throw new AssertionError("Expected " + name + " but got: " + (job == null ? "null" : job.getName()));
+            }
+        }
+    }
+    
+    /**
+     * Test that a full queue with the REJECT policy refuses a submission.
+     */
+    public void testCapacityRejects() {
+        jobScheduler.setSchedulingPolicy(new FirstComeFirstServePolicy());
+        jobQueue.setCapacity(2, JobQueue.OverloadPolicy.REJECT, 0);
+        try {
+            jobScheduler.addJob(new Job("First", 1, 1, 0));
+            jobScheduler.addJob(new Job("Second", 1, 1, 0));
+            try {
+                jobScheduler.addJob(new Job("Third", 1, 1, 0));
+                throw new AssertionError("A third job should be rejected by a queue of capacity 2");
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+            if (jobQueue.size() != 2) {
+                throw new AssertionError("Queue should hold 2 jobs, but holds: " + jobQueue.size());
+            }
+            
+            // Taking a job makes room again
+            jobQueue.getNextJob();
+            jobScheduler.addJob(new Job("Fourth", 1, 1, 0));
+        } finally {
+            jobQueue.setCapacity(0, JobQueue.OverloadPolicy.REJECT, 0);
+        }
+    }
+    
+    /**
+     * Test that a full queue with the SHED policy drops the lowest-priority job for a higher one.
+     */
+    public void testCapacitySheds() {
+        jobScheduler.setSchedulingPolicy(new PriorityPolicy());
+        jobQueue.setCapacity(2, JobQueue.OverloadPolicy.SHED, 0);
+        try {
+            jobScheduler.addJob(new Job("Low", 1, 1, 0));
+            jobScheduler.addJob(new Job("Medium", 1, 5, 0));
+            jobScheduler.addJob(new Job("High", 1, 9, 0));
+            try {
+                jobScheduler.addJob(new Job("Lowest", 1, 0, 0));
+                throw new AssertionError("A job with the lowest priority should be rejected, not shed another");
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+            
+            String[] expected = {"High", "Medium"};
+            for (String name : expected) {
+                Job job = jobQueue.getNextJob();
+                if (job == null || !job.getName().equals(name)) {
+                    throw new AssertionError("Expected " + name + " but got: " + (job == null ? "null" : job.getName()));
+                }
+            }
+            if (!jobQueue.isEmpty()) {
+                throw new AssertionError("The low priority job should have been shed");
+            }
+        } finally {
+            jobQueue.setCapacity(0, JobQueue.OverloadPolicy.REJECT, 0);
+            jobScheduler.setSchedulingPolicy(new FirstComeFirstServePolicy());
+        }
+    }
+    
+    /**
+     * Test that a full queue with the BLOCK policy admits a job once room is made.
+     */
+    public void testCapacityBlocks() {
+        jobScheduler.setSchedulingPolicy(new FirstComeFirstServePolicy());
+        jobQueue.setCapacity(1, JobQueue.OverloadPolicy.BLOCK, 2000);
+        Thread consumer = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                return;
+            }
+            jobQueue.getNextJob();
+        });
+        try {
+            jobScheduler.addJob(new Job("Waiting", 1, 1, 0));
+            consumer.start();
+            
+            long start = System.currentTimeMillis();
+            jobScheduler.addJob(new Job("Blocked", 1, 1, 0));
+            long waited = System.currentTimeMillis() - start;
+            
+            if (waited < 150) {
+                throw new AssertionError("Submission should have blocked until room was made, waited " + waited + " ms");
+            }
+            Job job = jobQueue.getNextJob();
+            if (job == null || !job.getName().equals("Blocked")) {
+                throw new AssertionError("The blocked job should have been admitted");
+            }
+        } finally {
+            jobQueue.setCapacity(0, JobQueue.OverloadPolicy.REJECT, 0);
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
     /**
      * Test that the scheduler stops correctly.
      */
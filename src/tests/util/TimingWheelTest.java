@@ -0,0 +1,125 @@
+package tests.util;
+
+import util.TimingWheel;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for the TimingWheel utility.
+ */
+public class TimingWheelTest {
+    
+    private TimingWheel wheel;
+    
+    /**
+     * Set up for tests.
+     */
+    public void setUp() {
+        wheel = TimingWheel.getInstance();
+    }
+    
+    /**
+     * Test that timers run in deadline order, whatever order they were scheduled in.
+     */
+    public void testTimersFireInDeadlineOrder() {
+        List<Integer> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        long start = System.nanoTime();
+        wheel.schedule(60, () -> { fired.add(60); done.countDown(); });
+        wheel.schedule(20, () -> { fired.add(20); done.countDown(); });
+        wheel.schedule(40, () -> { fired.add(40); done.countDown(); });
+        
+        awaitTimers(done, 2000);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        
+        if (!fired.equals(List.of(20, 40, 60))) {
+            throw new AssertionError("Timers should fire in deadline order, but fired: " + fired);
+        }
+        if (elapsedMillis < 60) {
+            throw new AssertionError("Timers should not fire early, the last fired after " + elapsedMillis + " ms");
+        }
+    }
+    
+    /**
+     * Test that a cancelled timer does not run.
+     */
+    public void testCancel() {
+        boolean[] ran = new boolean[1];
+        CountDownLatch done = new CountDownLatch(1);
+        TimingWheel.Timeout cancelled = wheel.schedule(30, () -> ran[0] = true);
+        wheel.schedule(60, done::countDown);
+        
+        if (!cancelled.cancel()) {
+            throw new AssertionError("A pending timer should be cancellable");
+        }
+        awaitTimers(done, 2000);
+        
+        if (ran[0] || !cancelled.isCancelled()) {
+            throw new AssertionError("A cancelled timer should not run");
+        }
+        if (cancelled.cancel()) {
+            throw new AssertionError("A timer should only be cancelled once");
+        }
+    }
+    
+    /**
+     * Test a timer beyond the lowest level of the wheel, which must be cascaded down before it fires.
+     */
+    public void testCascadedTimer() {
+        CountDownLatch done = new CountDownLatch(1);
+        long start = System.nanoTime();
+        TimingWheel.Timeout timeout = wheel.schedule(300, done::countDown);
+        
+        awaitTimers(done, 2000);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        
+        if (!timeout.isExpired()) {
+            throw new AssertionError("Timer should have expired");
+        }
+        if (elapsedMillis < 300 || elapsedMillis > 600) {
+            throw new AssertionError("A 300 ms timer fired after " + elapsedMillis + " ms");
+        }
+    }
+    
+    /**
+     * Test that timers spread over several wheel rotations all fire on time, including
+     * those that are cascaded down while the ticker is asleep.
+     */
+    public void testManyTimersAcrossCascades() {
+        int timers = 500;
+        long[] lateness = new long[timers];
+        CountDownLatch done = new CountDownLatch(timers);
+        Random random = new Random(7);
+        for (int i = 0; i < timers; i++) {
+            int index = i;
+            long delayMillis = random.nextInt(800);
+            long dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+            wheel.schedule(delayMillis, () -> {
+                lateness[index] = System.nanoTime() - dueNanos;
+                done.countDown();
+            });
+        }
+        
+        awaitTimers(done, 3000);
+        
+        for (long late : lateness) {
+            if (late > TimeUnit.MILLISECONDS.toNanos(100)) {
+                throw new AssertionError("A timer fired " + TimeUnit.NANOSECONDS.toMillis(late) + " ms late");
+            }
+        }
+    }
+    
+    private void awaitTimers(CountDownLatch done, long timeoutMillis) {
+        try {
+            if (!done.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new AssertionError("Timers did not fire within " + timeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError("Interrupted while waiting for timers");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package util;
+
+/**
+ * Source of the current time. Lets the job lifecycle and statistics run against either the
+ * system clocks or a simulated clock.
+ *
+ * Durations are measured with nanoTime(), which never jumps when the wall clock is adjusted.
+ * Wall-clock times are only for display and for arrival times handed in from outside; a
+ * nanoTime() reading is turned into one with toEpochMillis(), and back with toNanoTime().
+ * @author Group 1
+ */
+public interface Clock {
+    /**
+     * The system clocks, used everywhere outside of simulations
+     */
+    Clock SYSTEM = new SystemClock();
+
+    /**
+     * Get the current wall-clock time
+     * @return The current time in milliseconds
+     */
+    long currentTimeMillis();
+
+    /**
+     * Get the current time on a monotonic scale with an arbitrary origin, for durations.
+     * A simulated clock only moves in whole milliseconds.
+     * @return The current time in nanoseconds
+     */
+    default long nanoTime() {
+        return currentTimeMillis() * 1_000_000L;
+    }
+
+    /**
+     * Convert a nanoTime() reading to wall-clock time
+     * @param nanos The reading
+     * @return The wall-clock time in milliseconds
+     */
+    default long toEpochMillis(long nanos) {
+        return Math.floorDiv(nanos, 1_000_000L);
+    }
+
+    /**
+     * Convert a wall-clock time to the nanoTime() scale
+     * @param epochMillis The wall-clock time in milliseconds
+     * @return The time on the nanoTime() scale
+     */
+    default long toNanoTime(double epochMillis) {
+        return Math.round(epochMillis * 1_000_000);
+    }
+
+    /**
+     * System.nanoTime() for durations, anchored once to System.currentTimeMillis(). The wall
+     * clock is only read for the anchor, so currentTimeMillis() and every displayed time stay
+     * consistent with nanoTime() even if the wall clock is adjusted later.
+     */
+    final class SystemClock implements Clock {
+        private final long _anchorMillis = System.currentTimeMillis();
+        private final long _anchorNanos = System.nanoTime();
+
+        private SystemClock() {
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return toEpochMillis(System.nanoTime());
+        }
+
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public long toEpochMillis(long nanos) {
+            return _anchorMillis + Math.floorDiv(nanos - _anchorNanos, 1_000_000L);
+        }
+
+        @Override
+        public long toNanoTime(double epochMillis) {
+            return _anchorNanos + Math.round((epochMillis - _anchorMillis) * 1_000_000);
+        }
+    }
+}
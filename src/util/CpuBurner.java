@@ -0,0 +1,103 @@
+package util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Keeps the calling thread busy on the CPU for a given amount of its own CPU time,
+ * so that jobs put real load on the host instead of sleeping.
+ * The compute kernel runs in chunks whose size is calibrated once so that reading the
+ * thread's CPU time costs little compared to the work between two reads.
+ * @author Group 1
+ */
+public final class CpuBurner {
+    // Target CPU time of one chunk between two clock reads
+    private static final long CHUNK_TARGET_NANOS = 200_000;
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private static volatile int iterationsPerChunk;
+    // Written after every chunk so the kernel cannot be optimised away
+    private static volatile long sink;
+
+    private CpuBurner() {
+    }
+
+    /**
+     * Spins until the current thread has used the given amount of CPU time. Threads whose CPU
+     * time cannot be read (e.g. virtual threads) spin for the same amount of wall time instead.
+     * Stops early, with the interrupt status set, if the thread is interrupted.
+     * @param seconds The CPU time to consume
+     * @return false if the burn was interrupted
+     */
+    public static boolean burn(double seconds) {
+        long budgetNanos = (long) (seconds * 1_000_000_000L);
+        int chunk = chunkSize();
+        long cpuStart = currentThreadCpuTime();
+        boolean useCpuTime = cpuStart >= 0;
+        long start = useCpuTime ? cpuStart : System.nanoTime();
+        long state = start;
+
+        while ((useCpuTime ? currentThreadCpuTime() : System.nanoTime()) - start < budgetNanos) {
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            state = kernel(state, chunk);
+            sink = state;
+        }
+        return true;
+    }
+
+    /**
+     * Whether the CPU time of platform threads can be measured on this JVM
+     * @return true if burn(seconds) is measured in CPU time rather than wall time
+     */
+    public static boolean isCpuTimeSupported() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported();
+    }
+
+    private static long currentThreadCpuTime() {
+        if (!threadMXBean.isCurrentThreadCpuTimeSupported() || !threadMXBean.isThreadCpuTimeEnabled()) {
+            return -1;
+        }
+        return threadMXBean.getCurrentThreadCpuTime();
+    }
+
+    private static int chunkSize() {
+        int chunk = iterationsPerChunk;
+        if (chunk == 0) {
+            chunk = calibrate();
+            iterationsPerChunk = chunk;
+        }
+        return chunk;
+    }
+
+    /**
+     * Doubles the chunk size until one chunk takes about CHUNK_TARGET_NANOS
+     */
+    private static int calibrate() {
+        int chunk = 1024;
+        long state = 1;
+        while (chunk < (1 << 28)) {
+            long start = System.nanoTime();
+            state = kernel(state, chunk);
+            if (System.nanoTime() - start >= CHUNK_TARGET_NANOS) {
+                break;
+            }
+            chunk <<= 1;
+        }
+        sink = state;
+        return chunk;
+    }
+
+    /**
+     * A xorshift loop: integer-only, branch-free and dependent from one iteration to the next
+     */
+    private static long kernel(long state, int iterations) {
+        long x = state | 1;
+        for (int i = 0; i < iterations; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+        }
+        return x;
+    }
+}
@@ -1,5 +1,7 @@
 package util;
 
+import monitoring.InstrumentedLock;
+
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -17,6 +19,9 @@ public class JobQueueLogger {
     private final String logFilePath;
     private final SimpleDateFormat dateFormat;
     private boolean consoleOutput;
+    private volatile boolean fileOutput = true;
+    // Serializes writes to the file; taken for every queue event, so it is profiled like the Logger's
+    private final InstrumentedLock lock = new InstrumentedLock("JobQueueLogger", JobQueueLogger.class);
 
     /**
      * Private constructor to enforce Singleton pattern
@@ -70,7 +75,7 @@ public class JobQueueLogger {
      * @param executionTime Execution time of the job
      * @param priority Priority of the job
      */
-    public synchronized void jobAdded(String jobName, double executionTime, int priority) {
+    public void jobAdded(String jobName, double executionTime, int priority) {
         log("ADDED", "Job added to queue: " + jobName + 
             " (execution_time=" + executionTime + 
             ", priority=" + priority + ")");
@@ -80,7 +85,7 @@ public class JobQueueLogger {
      * Log a job dispatched event
      * @param jobName Name of the job
      */
-    public synchronized void jobDispatched(String jobName) {
+    public void jobDispatched(String jobName) {
         log("DISPATCHED", "Job dispatched for execution: " + jobName);
     }
 
@@ -88,7 +93,7 @@ public class JobQueueLogger {
      * Log a job execution started event
      * @param jobName Name of the job
      */
-    public synchronized void jobExecutionStarted(String jobName) {
+    public void jobExecutionStarted(String jobName) {
         log("EXECUTING", "Job execution started: " + jobName);
     }
 
@@ -96,7 +101,7 @@ public class JobQueueLogger {
      * Log a job completed event
      * @param jobName Name of the job
      */
-    public synchronized void jobCompleted(String jobName) {
+    public void jobCompleted(String jobName) {
         log("COMPLETED", "Job execution completed: " + jobName);
     }
 
@@ -104,7 +109,7 @@ public class JobQueueLogger {
      * Log a queue listing event
      * @param queueSize Size of the queue
      */
-    public synchronized void queueListed(int queueSize) {
+    public void queueListed(int queueSize) {
         log("LISTED", "Queue listed, size: " + queueSize);
     }
 
@@ -114,19 +119,29 @@ public class JobQueueLogger {
      * @param message Message to log
      */
     private void log(String eventType, String message) {
-        String timestamp = dateFormat.format(new Date());
-        String logEntry = String.format("[%s] [%s] %s", timestamp, eventType, message);
-        
-        // Write to log file
-        try (PrintWriter writer = new PrintWriter(new FileWriter(logFilePath, true))) {
-            writer.println(logEntry);
-        } catch (IOException e) {
-            System.err.println("Error writing to job queue log file: " + e.getMessage());
+        if (!fileOutput && !consoleOutput) {
+            return;
         }
+        lock.lock();
+        try {
+            String timestamp = dateFormat.format(new Date());
+            String logEntry = String.format("[%s] [%s] %s", timestamp, eventType, message);
+        
+            // Write to log file
+            if (fileOutput) {
+                try (PrintWriter writer = new PrintWriter(new FileWriter(logFilePath, true))) {
+                    writer.println(logEntry);
+                } catch (IOException e) {
+                    System.err.println("Error writing to job queue log file: " + e.getMessage());
+                }
+            }
         
-        // Also print to console if enabled
-        if (consoleOutput) {
-            System.out.println(logEntry);
+            // Also print to console if enabled
+            if (consoleOutput) {
+                System.out.println(logEntry);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -137,4 +152,12 @@ public class JobQueueLogger {
     public void setConsoleOutput(boolean enabled) {
         this.consoleOutput = enabled;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Enable or disable writing to the log file
+     * @param enabled Whether log entries should be written to the file
+     */
+    public void setFileOutput(boolean enabled) {
+        this.fileOutput = enabled;
+    }
+}
@@ -1,5 +1,7 @@
 package util;
 
+import monitoring.InstrumentedLock;
+
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -14,9 +16,14 @@ import java.util.Date;
  */
 public class Logger {
     private static Logger instance;
+    // Shared by everything that must not log, e.g. the jobs and statistics of a simulation
+    private static final Logger SILENT = new Logger();
     private final String logFilePath;
     private final SimpleDateFormat dateFormat;
     private boolean consoleOutput;
+    private volatile boolean fileOutput = true;
+    // Serializes writes to the file; profiled, since every module logs on its own thread
+    private final InstrumentedLock lock = new InstrumentedLock("Logger", Logger.class);
 
     /**
      * Private constructor to enforce Singleton pattern
@@ -44,6 +51,16 @@ public class Logger {
         }
     }
 
+    /**
+     * Private constructor for the silent logger, which writes nowhere and creates no file
+     */
+    private Logger() {
+        this.logFilePath = null;
+        this.dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        this.consoleOutput = false;
+        this.fileOutput = false;
+    }
+
     /**
      * Get the singleton instance of the Logger
      * @param logFilePath Path to the log file
@@ -64,12 +81,21 @@ public class Logger {
         return getInstance("logs/currentlog.log");
     }
 
+    /**
+     * Get a logger that discards every message. Its output cannot be enabled, so handing it
+     * to a component never changes what the rest of the process logs.
+     * @return The silent logger
+     */
+    public static Logger silent() {
+        return SILENT;
+    }
+
     /**
      * Log an information message
      * @param source Source of the log message (e.g., class name)
      * @param message Message to log
      */
-    public synchronized void info(String source, String message) {
+    public void info(String source, String message) {
         log("INFO", source, message);
     }
 
@@ -78,7 +104,7 @@ public class Logger {
      * @param source Source of the log message (e.g., class name)
      * @param message Message to log
      */
-    public synchronized void warning(String source, String message) {
+    public void warning(String source, String message) {
         log("WARNING", source, message);
     }
 
@@ -87,7 +113,7 @@ public class Logger {
      * @param source Source of the log message (e.g., class name)
      * @param message Message to log
      */
-    public synchronized void error(String source, String message) {
+    public void error(String source, String message) {
         log("ERROR", source, message);
     }
 
@@ -98,19 +124,29 @@ public class Logger {
      * @param message Message to log
      */
     private void log(String level, String source, String message) {
-        String timestamp = dateFormat.format(new Date());
-        String logEntry = String.format("[%s] [%s] [%s] %s", timestamp, level, source, message);
-        
-        // Write to log file
-        try (PrintWriter writer = new PrintWriter(new FileWriter(logFilePath, true))) {
-            writer.println(logEntry);
-        } catch (IOException e) {
-            System.err.println("Error writing to log file: " + e.getMessage());
+        if (!fileOutput && !consoleOutput) {
+            return;
         }
+        lock.lock();
+        try {
+            String timestamp = dateFormat.format(new Date());
+            String logEntry = String.format("[%s] [%s] [%s] %s", timestamp, level, source, message);
         
-        // Also print to console if enabled
-        if (consoleOutput) {
-            System.out.println(logEntry);
+            // Write to log file
+            if (fileOutput) {
+                try (PrintWriter writer = new PrintWriter(new FileWriter(logFilePath, true))) {
+                    writer.println(logEntry);
+                } catch (IOException e) {
+                    System.err.println("Error writing to log file: " + e.getMessage());
+                }
+            }
+        
+            // Also print to console if enabled
+            if (consoleOutput) {
+                System.out.println(logEntry);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -119,6 +155,29 @@ public class Logger {
      * @param enabled Whether console output should be enabled
      */
     public void setConsoleOutput(boolean enabled) {
+        if (this == SILENT) {
+            return;
+        }
         this.consoleOutput = enabled;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Enable or disable writing to the log file, e.g. so benchmarks measure scheduling
+     * rather than log I/O
+     * @param enabled Whether log entries should be written to the file
+     */
+    public void setFileOutput(boolean enabled) {
+        if (this == SILENT) {
+            return;
+        }
+        this.fileOutput = enabled;
+    }
+
+    /**
+     * Check whether log entries are written to the file
+     * @return true if file output is enabled
+     */
+    public boolean isFileOutput() {
+        return fileOutput;
+    }
+}
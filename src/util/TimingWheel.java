@@ -0,0 +1,387 @@
+package util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hierarchical timing wheel driven by a single ticker thread, shared by everything that has
+ * to happen after a delay (job completion, wall-clock limits, delayed submissions) so that
+ * no thread sleeps and no per-timer executor entry is needed.
+ *
+ * The lowest level has 256 slots of one tick (1 ms); each of the four levels above it has
+ * 64 slots covering the whole level below, giving a range of 2^32 ticks (about 49 days).
+ * A timer lives in an intrusive doubly linked list, so inserting and cancelling are O(1).
+ * When a level wraps, the current slot of the next level is cascaded down.
+ *
+ * Callers never touch the wheel itself: schedule() and cancel() go through lock-free queues
+ * that the ticker drains whenever it wakes. The ticker sleeps until the next tick with work
+ * (a non-empty slot or a cascade) and is only woken early by a timer due before that.
+ * Tasks run on the ticker thread and must not block.
+ * @author Group 1
+ */
+public class TimingWheel {
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int BASE_BITS = 8;
+    private static final int LEVEL_BITS = 6;
+    private static final int LEVELS = 5;
+    private static final long MAX_DELTA_TICKS = 1L << (BASE_BITS + LEVEL_BITS * (LEVELS - 1));
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private static TimingWheel _instance;
+
+    private final String _moduleID;
+    private final Bucket[][] _levels;
+    private final Queue<Timeout> _pendingAdds = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> _pendingCancels = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger _pendingTimers = new AtomicInteger();
+    private final long _startNanos;
+    private final Logger _logger;
+    private volatile boolean _running;
+    private volatile Thread _ticker;
+    // The tick the ticker is parked until; schedule() only wakes it for an earlier deadline
+    private volatile long _wakeTick = Long.MAX_VALUE;
+
+    // Owned by the ticker thread
+    private long _currentTick;
+    private int _timersInWheel;
+
+    /**
+     * A scheduled task that can be cancelled until it has run.
+     */
+    public static final class Timeout {
+        private final TimingWheel wheel;
+        private final long deadlineTick;
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // Owned by the ticker thread
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(TimingWheel wheel, long deadlineTick, Runnable task) {
+            this.wheel = wheel;
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        /**
+         * Cancels the timer so its task will not run
+         * @return true if the timer was pending, false if it had already run or been cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel._pendingTimers.decrementAndGet();
+            wheel._pendingCancels.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    /**
+     * One wheel slot: a doubly linked list of timers
+     */
+    private static final class Bucket {
+        private Timeout head;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        /**
+         * Empties the slot
+         * @return The first timer of the detached list
+         */
+        Timeout detach() {
+            Timeout first = head;
+            head = null;
+            return first;
+        }
+    }
+
+    /**
+     * Constructor for TimingWheel. The ticker thread starts with start().
+     * @param name The name of the ticker thread, also used in log messages
+     */
+    public TimingWheel(String name) {
+        _moduleID = name;
+        _levels = new Bucket[LEVELS][];
+        for (int level = 0; level < LEVELS; level++) {
+            _levels[level] = new Bucket[level == 0 ? 1 << BASE_BITS : 1 << LEVEL_BITS];
+            for (int slot = 0; slot < _levels[level].length; slot++) {
+                _levels[level][slot] = new Bucket();
+            }
+        }
+        _startNanos = System.nanoTime();
+        _logger = Logger.getInstance();
+    }
+
+    /**
+     * Get the shared timing wheel, starting its ticker thread on first use
+     * @return The TimingWheel instance
+     */
+    public static synchronized TimingWheel getInstance() {
+        if (_instance == null) {
+            _instance = new TimingWheel("TimingWheel");
+            _instance.start();
+        }
+        return _instance;
+    }
+
+    /**
+     * Starts the ticker thread as a daemon thread
+     */
+    public synchronized void start() {
+        if (_ticker != null) {
+            return;
+        }
+        _running = true;
+        _ticker = new Thread(this::tickLoop, _moduleID);
+        _ticker.setDaemon(true);
+        _ticker.start();
+    }
+
+    /**
+     * Stops the ticker thread. Timers that have not run yet never will.
+     */
+    public synchronized void stop() {
+        _running = false;
+        if (_ticker != null) {
+            LockSupport.unpark(_ticker);
+            try {
+                _ticker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Runs a task once the delay has passed, with a resolution of one millisecond
+     * @param delayMillis The delay in milliseconds
+     * @param task The task to run on the ticker thread; it must not block
+     * @return A handle to cancel the timer with
+     */
+    public Timeout schedule(long delayMillis, Runnable task) {
+        long elapsedNanos = System.nanoTime() - _startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        // Round up so a timer never fires early
+        long deadlineTick = (elapsedNanos + TICK_NANOS - 1) / TICK_NANOS;
+        Timeout timeout = new Timeout(this, deadlineTick, task);
+        _pendingTimers.incrementAndGet();
+        _pendingAdds.add(timeout);
+        Thread ticker = _ticker;
+        if (ticker != null && deadlineTick < _wakeTick) {
+            LockSupport.unpark(ticker);
+        }
+        return timeout;
+    }
+
+    /**
+     * Get the number of timers that have neither run nor been cancelled
+     * @return The number of pending timers
+     */
+    public int getPendingTimers() {
+        return _pendingTimers.get();
+    }
+
+    /**
+     * Get the CPU time used by the ticker thread so far
+     * @return The CPU time in nanoseconds, or -1 if it cannot be measured
+     */
+    public long getTickerCpuTime() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Thread ticker = _ticker;
+        if (ticker == null || !threadMXBean.isThreadCpuTimeSupported()) {
+            return -1;
+        }
+        return threadMXBean.getThreadCpuTime(ticker.threadId());
+    }
+
+    private void tickLoop() {
+        _logger.info(_moduleID, "Timing wheel started");
+        while (_running) {
+            long nowTick = (System.nanoTime() - _startNanos) / TICK_NANOS;
+            if (_timersInWheel == 0) {
+                // Nothing to cascade or expire, so the empty ticks are skipped before new timers
+                // are placed; otherwise they would be walked one by one after a long idle spell
+                _currentTick = Math.max(_currentTick, nowTick);
+            }
+            drainPendingAdds();
+            drainPendingCancels();
+
+            while (_currentTick < nowTick && _timersInWheel > 0) {
+                advance();
+            }
+
+            long wakeTick = _timersInWheel == 0 ? Long.MAX_VALUE : nextBusyTick();
+            // Publish the wake-up tick before checking for new timers, so a timer scheduled
+            // in between either is seen here or unparks the ticker
+            _wakeTick = wakeTick;
+            if (_pendingAdds.isEmpty() && _pendingCancels.isEmpty()) {
+                if (wakeTick == Long.MAX_VALUE) {
+                    LockSupport.park(this);
+                } else {
+                    LockSupport.parkNanos(this, _startNanos + wakeTick * TICK_NANOS - System.nanoTime());
+                }
+            }
+            _wakeTick = 0;
+        }
+        _logger.info(_moduleID, "Timing wheel stopped");
+    }
+
+    /**
+     * Finds the next tick with work to do: the next non-empty slot of the lowest level,
+     * or the next time it wraps and a higher level has to be cascaded
+     */
+    private long nextBusyTick() {
+        long tick = _currentTick + 1;
+        while ((tick & ((1 << BASE_BITS) - 1)) != 0 && _levels[0][(int) (tick & ((1 << BASE_BITS) - 1))].head == null) {
+            tick++;
+        }
+        return tick;
+    }
+
+    private void drainPendingAdds() {
+        Timeout timeout;
+        while ((timeout = _pendingAdds.poll()) != null) {
+            if (timeout.state.get() == PENDING) {
+                place(timeout);
+            }
+        }
+    }
+
+    private void drainPendingCancels() {
+        Timeout timeout;
+        while ((timeout = _pendingCancels.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+                _timersInWheel--;
+            }
+        }
+    }
+
+    /**
+     * Puts a timer in the slot of the lowest level whose range covers its deadline
+     */
+    private void place(Timeout timeout) {
+        long delta = timeout.deadlineTick - _currentTick;
+        if (delta <= 0) {
+            expire(timeout);
+            return;
+        }
+        // Deadlines beyond the wheel's range are parked in the farthest slot and re-placed on cascade
+        long deadline = delta < MAX_DELTA_TICKS ? timeout.deadlineTick : _currentTick + MAX_DELTA_TICKS - 1;
+        delta = deadline - _currentTick;
+
+        Bucket bucket;
+        if (delta < (1L << BASE_BITS)) {
+            bucket = _levels[0][(int) (deadline & ((1 << BASE_BITS) - 1))];
+        } else {
+            int level = 1;
+            while (delta >= (1L << (BASE_BITS + LEVEL_BITS * level))) {
+                level++;
+            }
+            int shift = BASE_BITS + LEVEL_BITS * (level - 1);
+            bucket = _levels[level][(int) ((deadline >>> shift) & ((1 << LEVEL_BITS) - 1))];
+        }
+        bucket.add(timeout);
+        _timersInWheel++;
+    }
+
+    /**
+     * Moves the wheel forward by one tick, cascading higher levels when the lower one wraps,
+     * and runs the timers that are due
+     */
+    private void advance() {
+        _currentTick++;
+        int slot = (int) (_currentTick & ((1 << BASE_BITS) - 1));
+        if (slot == 0) {
+            for (int level = 1; level < LEVELS; level++) {
+                int shift = BASE_BITS + LEVEL_BITS * (level - 1);
+                int levelSlot = (int) ((_currentTick >>> shift) & ((1 << LEVEL_BITS) - 1));
+                cascade(_levels[level][levelSlot]);
+                if (levelSlot != 0) {
+                    break;
+                }
+            }
+        }
+
+        Timeout timeout = _levels[0][slot].detach();
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            clearLinks(timeout);
+            _timersInWheel--;
+            if (timeout.deadlineTick <= _currentTick) {
+                expire(timeout);
+            } else {
+                place(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void cascade(Bucket bucket) {
+        Timeout timeout = bucket.detach();
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            clearLinks(timeout);
+            _timersInWheel--;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    private void clearLinks(Timeout timeout) {
+        timeout.bucket = null;
+        timeout.prev = null;
+        timeout.next = null;
+    }
+
+    private void expire(Timeout timeout) {
+        if (!timeout.state.compareAndSet(PENDING, EXPIRED)) {
+            return;
+        }
+        _pendingTimers.decrementAndGet();
+        try {
+            timeout.task.run();
+        } catch (RuntimeException e) {
+            _logger.error(_moduleID, "Timer task failed: " + e.getMessage());
+        }
+    }
+}